@@ -0,0 +1,256 @@
+package cn.clazs.jdk.aqs.lock;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 锁 / 同步原语性能对比（JMH）
+ *
+ * 对比对象（lockType）：
+ * - unfair:       ReentrantLock(false)
+ * - fair:         ReentrantLock(true)
+ * - synchronized: 对象监视器
+ * - readWrite:    ReentrantReadWriteLock，读操作走读锁
+ * - stamped:      StampedLock，读操作先乐观读，校验失败再退化为悲观读锁
+ * - spin:         本包的 SpinLock（TTAS）
+ *
+ * 维度：
+ * - readPercent:    读操作占比（0 = 全部写）
+ * - criticalTokens: 临界区长度（Blackhole.consumeCPU 的 token 数，0 = 空临界区）
+ * - 线程数：main 方法中循环 1 / 4 / 16
+ *
+ * 同时输出吞吐量（Throughput）和尾延迟（SampleTime 的 p99 / p99.9）
+ *
+ * 运行：直接执行 main 方法（完整矩阵耗时较长），或命令行指定参数子集，例如
+ *   java -cp ... org.openjdk.jmh.Main LockBenchmark -t 8 -p lockType=unfair,stamped -p readPercent=90
+ *
+ * @author clazs
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockBenchmark {
+
+    @Param({"unfair", "fair", "synchronized", "readWrite", "stamped", "spin"})
+    private String lockType;
+
+    @Param({"0", "90", "99"})
+    private int readPercent;
+
+    @Param({"0", "100"})
+    private int criticalTokens;
+
+    private Guard guard;
+
+    @Setup
+    public void setup() {
+        switch (lockType) {
+            case "unfair":
+                guard = new LockGuard(new ReentrantLock(false));
+                break;
+            case "fair":
+                guard = new LockGuard(new ReentrantLock(true));
+                break;
+            case "synchronized":
+                guard = new SynchronizedGuard();
+                break;
+            case "readWrite":
+                guard = new ReadWriteGuard();
+                break;
+            case "stamped":
+                guard = new StampedGuard();
+                break;
+            case "spin":
+                guard = new LockGuard(new SpinLock());
+                break;
+            default:
+                throw new IllegalArgumentException("未知的 lockType: " + lockType);
+        }
+    }
+
+    @Benchmark
+    public long access() {
+        if (ThreadLocalRandom.current().nextInt(100) < readPercent) {
+            return guard.read(criticalTokens);
+        }
+        guard.write(criticalTokens);
+        return 0;
+    }
+
+    // ==================== 被保护的数据 + 各种加锁方式 ====================
+
+    /**
+     * 受保护的数据是两个必须保持一致的字段（x == y），读操作返回 x + y
+     */
+    abstract static class Guard {
+        long x;
+        long y;
+
+        abstract long read(int tokens);
+
+        abstract void write(int tokens);
+    }
+
+    static final class LockGuard extends Guard {
+        private final Lock lock;
+
+        LockGuard(Lock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        long read(int tokens) {
+            lock.lock();
+            try {
+                Blackhole.consumeCPU(tokens);
+                return x + y;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        void write(int tokens) {
+            lock.lock();
+            try {
+                Blackhole.consumeCPU(tokens);
+                x++;
+                y++;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static final class SynchronizedGuard extends Guard {
+        @Override
+        synchronized long read(int tokens) {
+            Blackhole.consumeCPU(tokens);
+            return x + y;
+        }
+
+        @Override
+        synchronized void write(int tokens) {
+            Blackhole.consumeCPU(tokens);
+            x++;
+            y++;
+        }
+    }
+
+    static final class ReadWriteGuard extends Guard {
+        private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+        @Override
+        long read(int tokens) {
+            rwLock.readLock().lock();
+            try {
+                Blackhole.consumeCPU(tokens);
+                return x + y;
+            } finally {
+                rwLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        void write(int tokens) {
+            rwLock.writeLock().lock();
+            try {
+                Blackhole.consumeCPU(tokens);
+                x++;
+                y++;
+            } finally {
+                rwLock.writeLock().unlock();
+            }
+        }
+    }
+
+    static final class StampedGuard extends Guard {
+        private final StampedLock stampedLock = new StampedLock();
+
+        @Override
+        long read(int tokens) {
+            // 乐观读：不写任何共享状态，只在最后校验版本号
+            long stamp = stampedLock.tryOptimisticRead();
+            long currentX = x;
+            long currentY = y;
+            Blackhole.consumeCPU(tokens);
+            if (stampedLock.validate(stamp)) {
+                return currentX + currentY;
+            }
+            // 期间有写入，退化为悲观读锁
+            stamp = stampedLock.readLock();
+            try {
+                Blackhole.consumeCPU(tokens);
+                return x + y;
+            } finally {
+                stampedLock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        void write(int tokens) {
+            long stamp = stampedLock.writeLock();
+            try {
+                Blackhole.consumeCPU(tokens);
+                x++;
+                y++;
+            } finally {
+                stampedLock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int[] threadCounts = {1, 4, 16};
+        // key: threads + 参数，value: [吞吐量, p99, p99.9]
+        Map<String, double[]> summary = new LinkedHashMap<>();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(LockBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .warmupIterations(1)
+                    .warmupTime(TimeValue.milliseconds(500))
+                    .measurementIterations(2)
+                    .measurementTime(TimeValue.milliseconds(500))
+                    .build();
+            for (RunResult result : new Runner(options).run()) {
+                BenchmarkParams params = result.getParams();
+                String key = String.format("threads=%-3d %-13s read=%-3s cs=%-4s", threads,
+                        params.getParam("lockType"), params.getParam("readPercent"),
+                        params.getParam("criticalTokens"));
+                double[] row = summary.computeIfAbsent(key, k -> new double[3]);
+                if (params.getMode() == Mode.Throughput) {
+                    row[0] = result.getPrimaryResult().getScore();
+                } else {
+                    row[1] = result.getPrimaryResult().getStatistics().getPercentile(99);
+                    row[2] = result.getPrimaryResult().getStatistics().getPercentile(99.9);
+                }
+            }
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.printf("%-44s %12s %12s %12s%n", "", "ops/us", "p99(us)", "p99.9(us)");
+        for (Map.Entry<String, double[]> entry : summary.entrySet()) {
+            double[] row = entry.getValue();
+            System.out.printf("%-44s %12.3f %12.3f %12.3f%n", entry.getKey(), row[0], row[1], row[2]);
+        }
+    }
+}
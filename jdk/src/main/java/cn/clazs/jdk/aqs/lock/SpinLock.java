@@ -0,0 +1,87 @@
+package cn.clazs.jdk.aqs.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 简单自旋锁（TTAS：Test-Test-And-Set），不可重入，不支持 Condition
+ *
+ * 与 AQS 的区别：
+ * - 等待线程不入队、不 park，一直占着 CPU 自旋
+ * - 临界区极短且线程数 <= CPU 核数时，省掉了 park/unpark 的上下文切换，可能比 ReentrantLock 更快
+ * - 临界区变长或线程数超过核数后，自旋线程会抢走持锁线程的 CPU，性能急剧下降
+ *
+ * 先读（volatile 读只在本地缓存命中）再 CAS，避免所有等待线程不停 CAS 导致缓存行来回失效；
+ * 自旋一定次数后 yield，防止线程数超过核数时彻底饿死持锁线程
+ *
+ * @author clazs
+ */
+public class SpinLock implements Lock {
+
+    private static final int SPINS_BEFORE_YIELD = 64;
+
+    private final AtomicReference<Thread> owner = new AtomicReference<>();
+
+    @Override
+    public void lock() {
+        Thread current = Thread.currentThread();
+        int spins = 0;
+        while (true) {
+            if (owner.get() == null && owner.compareAndSet(null, current)) {
+                return;
+            }
+            if (++spins == SPINS_BEFORE_YIELD) {
+                spins = 0;
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        Thread current = Thread.currentThread();
+        while (!tryLock()) {
+            if (current.isInterrupted()) {
+                throw new InterruptedException();
+            }
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public boolean tryLock() {
+        return owner.get() == null && owner.compareAndSet(null, Thread.currentThread());
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(time);
+        while (!tryLock()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(1000);
+        }
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        if (owner.get() != Thread.currentThread()) {
+            throw new IllegalMonitorStateException();
+        }
+        // 只有持锁线程会写，lazySet 足够（与 AQS 释放的 volatile 写相比省掉 StoreLoad 屏障）
+        owner.lazySet(null);
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,215 @@
+package cn.clazs.jdk.aqs.lock.profiler;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntSupplier;
+
+/**
+ * 带统计的独占锁包装（可直接替换 ReentrantLock / ReentrantReadWriteLock.WriteLock）
+ *
+ * 未被采样的获取只多做几次普通字段读写（重入深度、持有者切换），
+ * 被采样的获取额外记录：等待时间、持有时间、获取前的排队长度
+ *
+ * 重入深度、持有开始时间都是"只有持锁线程才会读写"的普通字段，由被包装的锁保证可见性
+ *
+ * @author clazs
+ */
+public class InstrumentedLock implements Lock {
+
+    private final Lock delegate;
+    private final LockStats stats;
+    private final int sampleMask;
+    private final IntSupplier queueProbe;
+
+    // 以下字段只有持锁线程访问
+    private int depth;
+    private long holdStart;          // 0 表示本次持有未被采样
+
+    InstrumentedLock(Lock delegate, LockStats stats, int sampleMask, IntSupplier queueProbe) {
+        this.delegate = delegate;
+        this.stats = stats;
+        this.sampleMask = sampleMask;
+        this.queueProbe = queueProbe;
+    }
+
+    private boolean sample() {
+        return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+    }
+
+    @Override
+    public void lock() {
+        if (!sample()) {
+            delegate.lock();
+            acquired(0);
+            return;
+        }
+        int queueLength = queueProbe.getAsInt();
+        long start = System.nanoTime();
+        delegate.lock();
+        long now = System.nanoTime();
+        stats.recordWait(now - start, queueLength);
+        acquired(now);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (!sample()) {
+            delegate.lockInterruptibly();
+            acquired(0);
+            return;
+        }
+        int queueLength = queueProbe.getAsInt();
+        long start = System.nanoTime();
+        delegate.lockInterruptibly();
+        long now = System.nanoTime();
+        stats.recordWait(now - start, queueLength);
+        acquired(now);
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (!delegate.tryLock()) {
+            return false;
+        }
+        acquired(sample() ? System.nanoTime() : 0);
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (!sample()) {
+            if (!delegate.tryLock(time, unit)) {
+                return false;
+            }
+            acquired(0);
+            return true;
+        }
+        int queueLength = queueProbe.getAsInt();
+        long start = System.nanoTime();
+        boolean locked = delegate.tryLock(time, unit);
+        long now = System.nanoTime();
+        // 超时失败的等待同样是竞争，也计入
+        stats.recordWait(now - start, queueLength);
+        if (locked) {
+            acquired(now);
+        }
+        return locked;
+    }
+
+    private void acquired(long sampledAt) {
+        if (depth++ == 0) {
+            holdStart = sampledAt;
+            stats.onExclusiveAcquired(Thread.currentThread().getId());
+        }
+    }
+
+    @Override
+    public void unlock() {
+        // 注意：非持锁线程调用 unlock 属于使用错误，被包装的锁会抛 IllegalMonitorStateException
+        if (depth > 0 && --depth == 0 && holdStart != 0) {
+            stats.recordHold(System.nanoTime() - holdStart);
+            holdStart = 0;
+        }
+        delegate.unlock();
+    }
+
+    @Override
+    public Condition newCondition() {
+        return new InstrumentedCondition(delegate.newCondition());
+    }
+
+    public LockStats getStats() {
+        return stats;
+    }
+
+    /**
+     * await 会完全释放锁并在返回前重新获取，这期间不算持有时间
+     */
+    private final class InstrumentedCondition implements Condition {
+
+        private final Condition delegate;
+
+        InstrumentedCondition(Condition delegate) {
+            this.delegate = delegate;
+        }
+
+        private int beforeAwait() {
+            int savedDepth = depth;
+            if (holdStart != 0) {
+                stats.recordHold(System.nanoTime() - holdStart);
+                holdStart = 0;
+            }
+            depth = 0;
+            return savedDepth;
+        }
+
+        private void afterAwait(int savedDepth) {
+            depth = savedDepth;
+            holdStart = 0;
+            stats.onExclusiveAcquired(Thread.currentThread().getId());
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            int saved = beforeAwait();
+            try {
+                delegate.await();
+            } finally {
+                afterAwait(saved);
+            }
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            int saved = beforeAwait();
+            try {
+                delegate.awaitUninterruptibly();
+            } finally {
+                afterAwait(saved);
+            }
+        }
+
+        @Override
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            int saved = beforeAwait();
+            try {
+                return delegate.awaitNanos(nanosTimeout);
+            } finally {
+                afterAwait(saved);
+            }
+        }
+
+        @Override
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            int saved = beforeAwait();
+            try {
+                return delegate.await(time, unit);
+            } finally {
+                afterAwait(saved);
+            }
+        }
+
+        @Override
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            int saved = beforeAwait();
+            try {
+                return delegate.awaitUntil(deadline);
+            } finally {
+                afterAwait(saved);
+            }
+        }
+
+        @Override
+        public void signal() {
+            delegate.signal();
+        }
+
+        @Override
+        public void signalAll() {
+            delegate.signalAll();
+        }
+    }
+}
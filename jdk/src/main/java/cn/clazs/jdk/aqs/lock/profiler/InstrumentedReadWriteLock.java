@@ -0,0 +1,30 @@
+package cn.clazs.jdk.aqs.lock.profiler;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * 带统计的读写锁包装：读锁、写锁分别统计（名称后缀 .read / .write）
+ *
+ * @author clazs
+ */
+public class InstrumentedReadWriteLock implements ReadWriteLock {
+
+    private final InstrumentedSharedLock readLock;
+    private final InstrumentedLock writeLock;
+
+    InstrumentedReadWriteLock(InstrumentedSharedLock readLock, InstrumentedLock writeLock) {
+        this.readLock = readLock;
+        this.writeLock = writeLock;
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+}
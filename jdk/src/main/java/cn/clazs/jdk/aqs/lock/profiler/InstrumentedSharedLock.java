@@ -0,0 +1,125 @@
+package cn.clazs.jdk.aqs.lock.profiler;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntSupplier;
+
+/**
+ * 带统计的共享锁包装（用于 ReadWriteLock 的读锁）
+ *
+ * 读锁可以被多个线程同时持有，重入深度和持有开始时间只能按线程保存（ThreadLocal）
+ *
+ * @author clazs
+ */
+public class InstrumentedSharedLock implements Lock {
+
+    private final Lock delegate;
+    private final LockStats stats;
+    private final int sampleMask;
+    private final IntSupplier queueProbe;
+
+    // [0] 重入深度，[1] 持有开始时间（0 表示未采样）
+    private final ThreadLocal<long[]> holdState = ThreadLocal.withInitial(() -> new long[2]);
+
+    InstrumentedSharedLock(Lock delegate, LockStats stats, int sampleMask, IntSupplier queueProbe) {
+        this.delegate = delegate;
+        this.stats = stats;
+        this.sampleMask = sampleMask;
+        this.queueProbe = queueProbe;
+    }
+
+    private boolean sample() {
+        return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+    }
+
+    @Override
+    public void lock() {
+        if (!sample()) {
+            delegate.lock();
+            acquired(0);
+            return;
+        }
+        int queueLength = queueProbe.getAsInt();
+        long start = System.nanoTime();
+        delegate.lock();
+        long now = System.nanoTime();
+        stats.recordWait(now - start, queueLength);
+        acquired(now);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (!sample()) {
+            delegate.lockInterruptibly();
+            acquired(0);
+            return;
+        }
+        int queueLength = queueProbe.getAsInt();
+        long start = System.nanoTime();
+        delegate.lockInterruptibly();
+        long now = System.nanoTime();
+        stats.recordWait(now - start, queueLength);
+        acquired(now);
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (!delegate.tryLock()) {
+            return false;
+        }
+        acquired(sample() ? System.nanoTime() : 0);
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (!sample()) {
+            if (!delegate.tryLock(time, unit)) {
+                return false;
+            }
+            acquired(0);
+            return true;
+        }
+        int queueLength = queueProbe.getAsInt();
+        long start = System.nanoTime();
+        boolean locked = delegate.tryLock(time, unit);
+        long now = System.nanoTime();
+        stats.recordWait(now - start, queueLength);
+        if (locked) {
+            acquired(now);
+        }
+        return locked;
+    }
+
+    private void acquired(long sampledAt) {
+        stats.onSharedAcquired();
+        long[] state = holdState.get();
+        if (state[0]++ == 0) {
+            state[1] = sampledAt;
+        }
+    }
+
+    @Override
+    public void unlock() {
+        long[] state = holdState.get();
+        if (state[0] > 0 && --state[0] == 0 && state[1] != 0) {
+            stats.recordHold(System.nanoTime() - state[1]);
+            state[1] = 0;
+        }
+        delegate.unlock();
+    }
+
+    /**
+     * 与 ReentrantReadWriteLock.ReadLock 一致，读锁不支持 Condition
+     */
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException();
+    }
+
+    public LockStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,145 @@
+package cn.clazs.jdk.aqs.lock.profiler;
+
+import cn.clazs.jdk.dynamicproxy.metrics.HistogramSnapshot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+
+/**
+ * 锁竞争分析器
+ *
+ * 用法：把 new ReentrantLock() 换成 profiler.instrument("name", new ReentrantLock())，
+ * 业务代码不需要任何改动，之后调用 report() 查看按总等待时间排序的"最热"锁
+ *
+ * 采样：每 sampleRate 次获取中平均只有 1 次调用 nanoTime 并写直方图，
+ * 未采样的获取只做计数和持有者切换统计（锁内普通字段自增）
+ *
+ * 排队长度：ReentrantLock / ReentrantReadWriteLock 通过 getQueueLength() 获取（AQS 遍历队列，只在采样时调用），
+ * 其他 Lock 实现无法获取，记为 -1 不统计
+ *
+ * 注册的统计一直保留到 unregister：每个对象一把锁（生命周期短）的场景，对象废弃时要调用 unregister，否则统计会一直累积
+ *
+ * @author clazs
+ */
+public class LockProfiler {
+
+    private static final LockProfiler DEFAULT = new LockProfiler(16);
+
+    private final int sampleRate;
+    private final int sampleMask;
+    private final ConcurrentMap<String, LockStats> stats = new ConcurrentHashMap<>();
+    // 每个名称已注册的次数，用于生成后缀
+    private final ConcurrentMap<String, AtomicLong> nameCounters = new ConcurrentHashMap<>();
+
+    /**
+     * @param sampleRate 采样率，必须是 2 的幂，1 表示每次获取都采样
+     */
+    public LockProfiler(int sampleRate) {
+        if (sampleRate <= 0 || Integer.bitCount(sampleRate) != 1) {
+            throw new IllegalArgumentException("sampleRate 必须是 2 的幂: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.sampleMask = sampleRate - 1;
+    }
+
+    public static LockProfiler getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 包装独占锁
+     *
+     * 同名的锁会自动加上 #2、#3 后缀：独占锁的计数器依赖"只有持锁线程修改"，不能在两把锁之间共享。
+     * 后缀来自每个名称一个的 AtomicLong，注册 N 把同名锁是 O(N) 而不是逐个试探的 O(N²)
+     */
+    public InstrumentedLock instrument(String name, Lock lock) {
+        IntSupplier probe = lock instanceof ReentrantLock ? ((ReentrantLock) lock)::getQueueLength : () -> -1;
+        return new InstrumentedLock(lock, register(name), sampleMask, probe);
+    }
+
+    public InstrumentedReadWriteLock instrument(String name, ReadWriteLock lock) {
+        IntSupplier probe = lock instanceof ReentrantReadWriteLock
+                ? ((ReentrantReadWriteLock) lock)::getQueueLength : () -> -1;
+        InstrumentedSharedLock readLock = new InstrumentedSharedLock(lock.readLock(),
+                register(name + ".read"), sampleMask, probe);
+        InstrumentedLock writeLock = new InstrumentedLock(lock.writeLock(),
+                register(name + ".write"), sampleMask, probe);
+        return new InstrumentedReadWriteLock(readLock, writeLock);
+    }
+
+    private LockStats register(String name) {
+        AtomicLong counter = nameCounters.computeIfAbsent(name, k -> new AtomicLong());
+        for (;;) {
+            long n = counter.incrementAndGet();
+            String unique = n == 1 ? name : name + "#" + n;
+            LockStats created = new LockStats(unique, sampleRate);
+            // 只有用户直接起了 "x#2" 这样的名字才会冲突，取下一个序号
+            if (stats.putIfAbsent(unique, created) == null) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * 移除锁的统计（锁本身仍可继续使用，只是不再出现在报表中）
+     */
+    public void unregister(InstrumentedLock lock) {
+        unregister(lock.getStats());
+    }
+
+    public void unregister(InstrumentedReadWriteLock lock) {
+        unregister(((InstrumentedSharedLock) lock.readLock()).getStats());
+        unregister(((InstrumentedLock) lock.writeLock()).getStats());
+    }
+
+    private void unregister(LockStats removed) {
+        stats.remove(removed.getName(), removed);
+    }
+
+    /**
+     * 按估算总等待时间从高到低排序
+     */
+    public List<LockStats> hottest(int limit) {
+        List<LockStats> list = new ArrayList<>(stats.values());
+        list.sort(Comparator.comparingLong(LockStats::getEstimatedTotalWaitNanos).reversed());
+        return list.size() > limit ? list.subList(0, limit) : list;
+    }
+
+    public LockStats getStats(String name) {
+        return stats.get(name);
+    }
+
+    public String report() {
+        return report(Integer.MAX_VALUE);
+    }
+
+    /**
+     * 文本报表，时间单位：总等待 ms，分位数 us
+     */
+    public String report(int limit) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-24s %12s %10s %12s %10s %10s %10s %10s %8s %6s%n",
+                "lock", "acquires", "handoffs", "wait(ms)", "wait p50", "wait p99",
+                "hold p50", "hold p99", "avgQ", "maxQ"));
+        for (LockStats s : hottest(limit)) {
+            HistogramSnapshot wait = s.getWaitSnapshot();
+            HistogramSnapshot hold = s.getHoldSnapshot();
+            sb.append(String.format("%-24s %12d %10d %12.2f %10.1f %10.1f %10.1f %10.1f %8.2f %6d%n",
+                    s.getName(), s.getAcquisitions(), s.getHandoffs(),
+                    s.getEstimatedTotalWaitNanos() / 1e6,
+                    wait.percentile(50) / 1e3, wait.percentile(99) / 1e3,
+                    hold.percentile(50) / 1e3, hold.percentile(99) / 1e3,
+                    s.getAverageQueueLength(), s.getMaxQueueLength()));
+        }
+        return sb.toString();
+    }
+}
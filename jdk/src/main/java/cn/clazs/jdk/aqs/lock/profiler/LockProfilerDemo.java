@@ -0,0 +1,163 @@
+package cn.clazs.jdk.aqs.lock.profiler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 锁竞争分析演示
+ *
+ * 同时运行几种典型场景，最后输出按总等待时间排序的报表：
+ * - 公平锁 / 非公平锁：同样的临界区，公平锁 handoffs 接近 acquires（每次都换线程），非公平锁少得多
+ * - 读多写少的读写锁
+ * - 低竞争的锁（作为对照）
+ * - 生产者-消费者（Condition.await 期间不计入持有时间）
+ *
+ * @author clazs
+ */
+public class LockProfilerDemo {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int OPERATIONS_PER_THREAD = 20000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("========== 锁竞争分析演示 ==========\n");
+        LockProfiler profiler = new LockProfiler(8);
+
+        System.out.println("【演示 1】公平锁 vs 非公平锁");
+        runExclusive(profiler.instrument("fairLock", new ReentrantLock(true)));
+        runExclusive(profiler.instrument("unfairLock", new ReentrantLock(false)));
+
+        System.out.println("【演示 2】读多写少的读写锁（读:写 = 9:1）");
+        runReadWrite(profiler.instrument("configCache", new ReentrantReadWriteLock()));
+
+        System.out.println("【演示 3】低竞争的锁（每个线程大部分时间在锁外）");
+        runLowContention(profiler.instrument("metricsLock", new ReentrantLock()));
+
+        System.out.println("【演示 4】生产者-消费者");
+        runProducerConsumer(profiler.instrument("taskQueue", new ReentrantLock()));
+
+        System.out.println("\n========== 报表（按总等待时间排序，分位数单位 us） ==========");
+        System.out.print(profiler.report());
+    }
+
+    private static void runExclusive(Lock lock) throws InterruptedException {
+        long[] counter = new long[1];
+        runThreads(() -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                lock.lock();
+                try {
+                    counter[0]++;
+                    spin(50);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    private static void runReadWrite(ReadWriteLock rwLock) throws InterruptedException {
+        Map<Integer, Integer> cache = new HashMap<>();
+        runThreads(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                int key = random.nextInt(100);
+                if (random.nextInt(10) == 0) {
+                    rwLock.writeLock().lock();
+                    try {
+                        cache.put(key, i);
+                        spin(50);
+                    } finally {
+                        rwLock.writeLock().unlock();
+                    }
+                } else {
+                    rwLock.readLock().lock();
+                    try {
+                        cache.get(key);
+                        spin(50);
+                    } finally {
+                        rwLock.readLock().unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    private static void runLowContention(Lock lock) throws InterruptedException {
+        runThreads(() -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD / 10; i++) {
+                lock.lock();
+                try {
+                    spin(10);
+                } finally {
+                    lock.unlock();
+                }
+                spin(5000);
+            }
+        });
+    }
+
+    private static void runProducerConsumer(Lock lock) throws InterruptedException {
+        Condition notEmpty = lock.newCondition();
+        Deque<Integer> queue = new ArrayDeque<>();
+        int total = 20000;
+        Thread consumer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                lock.lock();
+                try {
+                    while (queue.isEmpty()) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    queue.poll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }, "Consumer");
+        consumer.start();
+        for (int i = 0; i < total; i++) {
+            lock.lock();
+            try {
+                queue.offer(i);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        consumer.join();
+    }
+
+    private static void runThreads(Runnable task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+        long start = System.nanoTime();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            new Thread(() -> {
+                task.run();
+                done.countDown();
+            }, "Worker-" + i).start();
+        }
+        done.await();
+        System.out.println("  耗时: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * 模拟临界区内/外的计算
+     */
+    private static void spin(int iterations) {
+        long x = 0;
+        for (int i = 0; i < iterations; i++) {
+            x += i * 31L;
+        }
+        if (x == 42) {
+            System.out.print("");
+        }
+    }
+}
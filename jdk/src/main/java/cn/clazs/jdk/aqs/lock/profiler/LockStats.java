@@ -0,0 +1,123 @@
+package cn.clazs.jdk.aqs.lock.profiler;
+
+import cn.clazs.jdk.dynamicproxy.metrics.HistogramSnapshot;
+import cn.clazs.jdk.dynamicproxy.metrics.StripedHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单把锁的统计数据
+ *
+ * - 获取次数、持有者切换（hand-off）次数：每次都统计
+ *   · 独占锁在锁内对普通字段自增，由锁本身保证只有一个写者，不需要 CAS，也没有 volatile 写的内存屏障，
+ *     不给被测量的临界区增加额外开销。代价是 getAcquisitions() 等查询在不持有锁的线程上读，可能读到稍旧的值
+ *     （报表本来就是某一时刻的近似值）
+ *   · 读锁是共享的，用 LongAdder
+ * - 等待时间、持有时间、获取时的排队长度：只统计被采样的获取，总等待时间按采样率放大估算
+ *
+ * @author clazs
+ */
+public class LockStats {
+
+    private final String name;
+    private final int sampleRate;
+
+    private final StripedHistogram waitHistogram = new StripedHistogram();
+    private final StripedHistogram holdHistogram = new StripedHistogram();
+    private final LongAdder sampledWaitNanos = new LongAdder();
+    private final LongAdder sampledHoldNanos = new LongAdder();
+    private final LongAdder queueLengthSum = new LongAdder();
+    private final LongAdder queueSamples = new LongAdder();
+    private volatile int maxQueueLength;
+
+    // 只在持有独占锁时读写（单写者），查询线程无锁读取
+    private long exclusiveAcquisitions;
+    private long handoffs;
+    private long lastOwnerId = -1;
+
+    private final LongAdder sharedAcquisitions = new LongAdder();
+
+    LockStats(String name, int sampleRate) {
+        this.name = name;
+        this.sampleRate = sampleRate;
+    }
+
+    // ==================== 记录（包内使用） ====================
+
+    /**
+     * 独占获取成功后调用，调用方必须持有锁
+     */
+    void onExclusiveAcquired(long ownerId) {
+        exclusiveAcquisitions++;
+        if (lastOwnerId != ownerId) {
+            handoffs++;
+            lastOwnerId = ownerId;
+        }
+    }
+
+    void onSharedAcquired() {
+        sharedAcquisitions.increment();
+    }
+
+    void recordWait(long nanos, int queueLength) {
+        waitHistogram.record(nanos, false);
+        sampledWaitNanos.add(nanos);
+        if (queueLength >= 0) {
+            queueLengthSum.add(queueLength);
+            queueSamples.increment();
+            if (queueLength > maxQueueLength) {
+                maxQueueLength = queueLength;
+            }
+        }
+    }
+
+    void recordHold(long nanos) {
+        holdHistogram.record(nanos, false);
+        sampledHoldNanos.add(nanos);
+    }
+
+    // ==================== 查询 ====================
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAcquisitions() {
+        return exclusiveAcquisitions + sharedAcquisitions.sum();
+    }
+
+    /**
+     * 持有者发生变化的次数（独占锁），越高说明锁在线程之间来回"传递"越频繁
+     */
+    public long getHandoffs() {
+        return handoffs;
+    }
+
+    /**
+     * 估算的总等待时间 = 采样等待时间 * 采样率
+     */
+    public long getEstimatedTotalWaitNanos() {
+        return sampledWaitNanos.sum() * sampleRate;
+    }
+
+    public long getEstimatedTotalHoldNanos() {
+        return sampledHoldNanos.sum() * sampleRate;
+    }
+
+    public HistogramSnapshot getWaitSnapshot() {
+        return waitHistogram.snapshot();
+    }
+
+    public HistogramSnapshot getHoldSnapshot() {
+        return holdHistogram.snapshot();
+    }
+
+    public double getAverageQueueLength() {
+        long samples = queueSamples.sum();
+        return samples == 0 ? 0 : (double) queueLengthSum.sum() / samples;
+    }
+
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+}
@@ -0,0 +1,387 @@
+package cn.clazs.jdk.aqs.pool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.AbstractQueuedLongSynchronizer;
+
+/**
+ * 有界对象池（连接池）
+ *
+ * SemaphoreDemo.demoConnectionPool 只用 Semaphore 控制"许可数"，并没有真正的对象复用；
+ * 这里参考 HikariCP 的 ConcurrentBag 思路实现一个真正可用的池：
+ *
+ *         ┌──────────────────────────── borrow ────────────────────────────┐
+ *         │ 1. 线程本地缓存（无竞争，同一线程借还通常命中自己刚还的对象）       │
+ *         │ 2. 共享无锁栈（Treiber Stack，归还时本地缓存满了或有人在等就放这里）│
+ *         │ 3. 扫描全部条目，CAS 抢别的线程本地缓存里的空闲对象                  │
+ *         │ 4. 未达上限则新建                                                │
+ *         │ 5. 基于 AQS 的限时等待，被归还唤醒后回到第 1 步                     │
+ *         └─────────────────────────────────────────────────────────────────┘
+ *
+ * AQS 等待的语义（ReturnSignal）：
+ * - state 是"归还序号"，等待者记下序号后再尝试一次，失败则等待 state 发生变化
+ * - 只有存在等待者时，归还方才递增序号并唤醒，平时归还不碰任何共享计数
+ *
+ * 另外支持：借出时校验、空闲超时回收、空闲校验
+ *
+ * @author clazs
+ */
+@Slf4j
+public class ObjectPool<T> implements AutoCloseable {
+
+    private final PooledObjectFactory<T> factory;
+    private final PoolConfig config;
+
+    // 所有存活的条目（读多写少，写只在创建/销毁时发生）
+    private final CopyOnWriteArrayList<PoolEntry<T>> allEntries = new CopyOnWriteArrayList<>();
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    private final AtomicReference<Node<T>> idleStack = new AtomicReference<>();
+    private final ThreadLocal<ArrayList<PoolEntry<T>>> localCache;
+
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ReturnSignal signal = new ReturnSignal();
+
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ObjectPool(PooledObjectFactory<T> factory, PoolConfig config) {
+        if (config.getMaxTotal() <= 0) {
+            throw new IllegalArgumentException("maxTotal 必须大于 0");
+        }
+        this.factory = factory;
+        this.config = config;
+        int cacheSize = config.getThreadLocalCacheSize();
+        this.localCache = ThreadLocal.withInitial(() -> new ArrayList<>(Math.max(cacheSize, 1)));
+
+        if (config.getEvictionIntervalMillis() > 0) {
+            evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "object-pool-evictor");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = config.getEvictionIntervalMillis();
+            evictor.scheduleWithFixedDelay(this::evict, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+
+    /**
+     * 借出一个对象，最多等待 timeout
+     *
+     * @throws TimeoutException     超时仍未借到
+     * @throws InterruptedException 等待期间被中断
+     */
+    public PoolEntry<T> borrow(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        // 快速路径：不登记为等待者
+        PoolEntry<T> entry = tryBorrowValidated();
+        if (entry != null) {
+            return entry;
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        // 先登记等待者，再读序号、再重试，保证不会错过登记之后的归还
+        waiters.incrementAndGet();
+        try {
+            for (;;) {
+                long seq = signal.sequence();
+                entry = tryBorrowValidated();
+                if (entry != null) {
+                    return entry;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException("获取对象超时，当前总数: " + totalCount.get()
+                            + "，等待者: " + waiters.get());
+                }
+                signal.await(seq, remaining);
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    private PoolEntry<T> tryBorrowValidated() {
+        for (;;) {
+            if (closed) {
+                throw new IllegalStateException("对象池已关闭");
+            }
+            PoolEntry<T> entry = tryBorrow();
+            if (entry == null) {
+                return null;
+            }
+            if (!config.isTestOnBorrow() || isValid(entry)) {
+                return entry;
+            }
+            destroy(entry);
+        }
+    }
+
+    private PoolEntry<T> tryBorrow() {
+        // 1. 线程本地缓存，从最近归还的开始
+        ArrayList<PoolEntry<T>> local = localCache.get();
+        for (int i = local.size() - 1; i >= 0; i--) {
+            PoolEntry<T> entry = local.remove(i);
+            if (entry.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+                return entry;
+            }
+        }
+
+        // 2. 共享栈
+        for (PoolEntry<T> entry = pop(); entry != null; entry = pop()) {
+            if (entry.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+                return entry;
+            }
+        }
+
+        // 3. 扫描全部条目（从其他线程的本地缓存里"偷"）
+        for (PoolEntry<T> entry : allEntries) {
+            if (entry.state() == PoolEntry.IDLE && entry.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+                return entry;
+            }
+        }
+
+        // 4. 新建
+        return tryCreate();
+    }
+
+    private PoolEntry<T> tryCreate() {
+        for (;;) {
+            int count = totalCount.get();
+            if (count >= config.getMaxTotal()) {
+                return null;
+            }
+            if (totalCount.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+        try {
+            PoolEntry<T> entry = new PoolEntry<>(factory.create(), this, PoolEntry.IN_USE);
+            allEntries.add(entry);
+            return entry;
+        } catch (Exception e) {
+            totalCount.decrementAndGet();
+            wakeWaiters();
+            throw new IllegalStateException("创建池对象失败", e);
+        }
+    }
+
+    /**
+     * 已经 invalidate 或被销毁（REMOVED）的条目归还时什么也不做，
+     * 这样 try-with-resources 块里调用 invalidate() 之后的自动 close() 不会报错；
+     * 只有仍然存活、却已经是空闲状态的条目被再次归还才抛异常
+     */
+    void release(PoolEntry<T> entry) {
+        entry.lastReturnedMillis = System.currentTimeMillis();
+        if (!entry.compareAndSet(PoolEntry.IN_USE, PoolEntry.IDLE)) {
+            if (entry.state() == PoolEntry.REMOVED) {
+                return;
+            }
+            throw new IllegalStateException("条目未被借出或已归还");
+        }
+        if (closed) {
+            if (entry.compareAndSet(PoolEntry.IDLE, PoolEntry.REMOVED)) {
+                destroy(entry);
+            }
+            return;
+        }
+        // 有人在等：放到共享栈，直接交给等待者
+        if (waiters.get() > 0) {
+            push(entry);
+            wakeWaiters();
+            return;
+        }
+        ArrayList<PoolEntry<T>> local = localCache.get();
+        if (local.size() < config.getThreadLocalCacheSize()) {
+            local.add(entry);
+        } else {
+            push(entry);
+        }
+    }
+
+    void invalidate(PoolEntry<T> entry) {
+        if (entry.compareAndSet(PoolEntry.IN_USE, PoolEntry.REMOVED)) {
+            destroy(entry);
+        }
+    }
+
+    private boolean isValid(PoolEntry<T> entry) {
+        try {
+            return factory.validate(entry.get());
+        } catch (RuntimeException e) {
+            log.warn("校验池对象时发生异常", e);
+            return false;
+        }
+    }
+
+    private void destroy(PoolEntry<T> entry) {
+        entry.compareAndSet(PoolEntry.IN_USE, PoolEntry.REMOVED);
+        entry.compareAndSet(PoolEntry.IDLE, PoolEntry.REMOVED);
+        if (allEntries.remove(entry)) {
+            totalCount.decrementAndGet();
+        }
+        try {
+            factory.destroy(entry.get());
+        } catch (RuntimeException e) {
+            log.warn("销毁池对象时发生异常", e);
+        }
+        // 腾出了名额，等待者可以去新建
+        wakeWaiters();
+    }
+
+    private void wakeWaiters() {
+        if (waiters.get() > 0) {
+            signal.signalAll();
+        }
+    }
+
+    /**
+     * 空闲回收 + 空闲校验（在回收线程中执行）
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        long idleTimeout = config.getIdleTimeoutMillis();
+        for (PoolEntry<T> entry : allEntries) {
+            if (entry.state() != PoolEntry.IDLE) {
+                continue;
+            }
+            boolean idleTooLong = idleTimeout > 0 && now - entry.lastReturnedMillis > idleTimeout
+                    && totalCount.get() > config.getMinIdle();
+            if (idleTooLong) {
+                if (entry.compareAndSet(PoolEntry.IDLE, PoolEntry.REMOVED)) {
+                    destroy(entry);
+                }
+                continue;
+            }
+            // 校验时先占住（IN_USE），校验通过再放回
+            if (config.isTestWhileIdle() && entry.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+                if (isValid(entry)) {
+                    entry.compareAndSet(PoolEntry.IN_USE, PoolEntry.IDLE);
+                    push(entry);
+                    wakeWaiters();
+                } else {
+                    destroy(entry);
+                }
+            }
+        }
+    }
+
+    // ==================== 无锁栈 ====================
+
+    private void push(PoolEntry<T> entry) {
+        Node<T> node = new Node<>(entry);
+        for (;;) {
+            Node<T> head = idleStack.get();
+            node.next = head;
+            if (idleStack.compareAndSet(head, node)) {
+                return;
+            }
+        }
+    }
+
+    private PoolEntry<T> pop() {
+        for (;;) {
+            Node<T> head = idleStack.get();
+            if (head == null) {
+                return null;
+            }
+            if (idleStack.compareAndSet(head, head.next)) {
+                return head.entry;
+            }
+        }
+    }
+
+    private static final class Node<T> {
+        final PoolEntry<T> entry;
+        Node<T> next;
+
+        Node(PoolEntry<T> entry) {
+            this.entry = entry;
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    public int getTotal() {
+        return totalCount.get();
+    }
+
+    public int getIdle() {
+        int idle = 0;
+        for (PoolEntry<T> entry : allEntries) {
+            if (entry.state() == PoolEntry.IDLE) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    public int getWaiters() {
+        return waiters.get();
+    }
+
+    /**
+     * 关闭：销毁所有空闲对象，借出中的对象在归还时销毁
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (PoolEntry<T> entry : allEntries) {
+            if (entry.compareAndSet(PoolEntry.IDLE, PoolEntry.REMOVED)) {
+                destroy(entry);
+            }
+        }
+        signal.signalAll();
+    }
+
+    /**
+     * 基于 AQS 的"归还序号"同步器
+     *
+     * - state：归还序号，只增不减
+     * - 获取（共享模式）：序号与调用方记下的不同即成功，否则排队等待
+     * - 释放：序号 +1，唤醒所有等待者（共享模式下会沿队列传播）
+     */
+    private static final class ReturnSignal extends AbstractQueuedLongSynchronizer {
+
+        private static final long serialVersionUID = 1L;
+
+        long sequence() {
+            return getState();
+        }
+
+        void await(long seenSequence, long nanos) throws InterruptedException {
+            tryAcquireSharedNanos(seenSequence, nanos);
+        }
+
+        void signalAll() {
+            releaseShared(1);
+        }
+
+        @Override
+        protected long tryAcquireShared(long seenSequence) {
+            return getState() != seenSequence ? 1 : -1;
+        }
+
+        @Override
+        protected boolean tryReleaseShared(long ignored) {
+            for (;;) {
+                long s = getState();
+                if (compareAndSetState(s, s + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
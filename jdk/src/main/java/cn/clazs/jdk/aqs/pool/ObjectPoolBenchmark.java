@@ -0,0 +1,114 @@
+package cn.clazs.jdk.aqs.pool;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对象池借还吞吐量对比（JMH），线程数 1 ~ 64
+ *
+ * - objectPool:         本包的 ObjectPool（线程本地缓存 + 无锁栈 + AQS 等待）
+ * - semaphoreQueue:     Semaphore 控制数量 + ConcurrentLinkedQueue 存放对象
+ * - linkedBlockingQueue: LinkedBlockingQueue 的 poll/offer
+ *
+ * 池大小固定为 16，线程数超过 16 后会出现等待
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectPoolBenchmark {
+
+    private static final int POOL_SIZE = 16;
+    private static final int WORK_TOKENS = 20;
+
+    private ObjectPool<Object> objectPool;
+    private Semaphore semaphore;
+    private ConcurrentLinkedQueue<Object> semaphoreQueue;
+    private LinkedBlockingQueue<Object> blockingQueue;
+
+    @Setup
+    public void setup() {
+        PoolConfig config = new PoolConfig();
+        config.setMaxTotal(POOL_SIZE);
+        config.setEvictionIntervalMillis(0);
+        objectPool = new ObjectPool<>(Object::new, config);
+
+        semaphore = new Semaphore(POOL_SIZE);
+        semaphoreQueue = new ConcurrentLinkedQueue<>();
+        blockingQueue = new LinkedBlockingQueue<>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            semaphoreQueue.offer(new Object());
+            blockingQueue.offer(new Object());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        objectPool.close();
+    }
+
+    @Benchmark
+    public void objectPool() throws Exception {
+        try (PoolEntry<Object> entry = objectPool.borrow(10, TimeUnit.SECONDS)) {
+            Blackhole.consumeCPU(WORK_TOKENS);
+        }
+    }
+
+    @Benchmark
+    public void semaphoreQueue() throws InterruptedException {
+        semaphore.acquire();
+        Object object = semaphoreQueue.poll();
+        try {
+            Blackhole.consumeCPU(WORK_TOKENS);
+        } finally {
+            semaphoreQueue.offer(object);
+            semaphore.release();
+        }
+    }
+
+    @Benchmark
+    public void linkedBlockingQueue() throws InterruptedException {
+        Object object = blockingQueue.poll(10, TimeUnit.SECONDS);
+        try {
+            Blackhole.consumeCPU(WORK_TOKENS);
+        } finally {
+            blockingQueue.offer(object);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int[] threadCounts = {1, 2, 4, 8, 16, 32, 64};
+        StringBuilder summary = new StringBuilder();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(ObjectPoolBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                summary.append(String.format("threads=%-3d %-22s %10.3f ops/us%n", threads,
+                        result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                        result.getPrimaryResult().getScore()));
+            }
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+}
@@ -0,0 +1,104 @@
+package cn.clazs.jdk.aqs.pool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对象池演示：与 SemaphoreDemo.demoConnectionPool 相同的场景（3 个连接、10 个客户端），
+ * 但这里的连接是真正被复用的对象
+ *
+ * @author clazs
+ */
+public class ObjectPoolDemo {
+
+    /**
+     * 模拟的数据库连接
+     */
+    static class FakeConnection {
+        private static final AtomicInteger ID = new AtomicInteger();
+        final int id = ID.incrementAndGet();
+        volatile boolean broken;
+
+        @Override
+        public String toString() {
+            return "Connection-" + id;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== 对象池演示 ==========\n");
+
+        PoolConfig config = new PoolConfig();
+        config.setMaxTotal(3);
+        config.setTestOnBorrow(true);
+        config.setIdleTimeoutMillis(500);
+        config.setEvictionIntervalMillis(200);
+
+        PooledObjectFactory<FakeConnection> factory = new PooledObjectFactory<FakeConnection>() {
+            @Override
+            public FakeConnection create() {
+                FakeConnection connection = new FakeConnection();
+                System.out.println("  [工厂] 创建 " + connection);
+                return connection;
+            }
+
+            @Override
+            public boolean validate(FakeConnection connection) {
+                return !connection.broken;
+            }
+
+            @Override
+            public void destroy(FakeConnection connection) {
+                System.out.println("  [工厂] 销毁 " + connection);
+            }
+        };
+
+        try (ObjectPool<FakeConnection> pool = new ObjectPool<>(factory, config)) {
+            System.out.println("【演示 1】10 个客户端竞争 3 个连接");
+            CountDownLatch done = new CountDownLatch(10);
+            for (int i = 1; i <= 10; i++) {
+                final int clientId = i;
+                new Thread(() -> {
+                    try (PoolEntry<FakeConnection> entry = pool.borrow(5, TimeUnit.SECONDS)) {
+                        System.out.println("客户端 " + clientId + " 获取到 " + entry.get() + "，执行查询...");
+                        Thread.sleep(200);
+                    } catch (InterruptedException | TimeoutException e) {
+                        System.out.println("客户端 " + clientId + " 获取连接失败: " + e);
+                    } finally {
+                        done.countDown();
+                    }
+                }, "Client-" + i).start();
+            }
+            done.await();
+            System.out.println("总连接数: " + pool.getTotal() + "，空闲: " + pool.getIdle());
+
+            System.out.println("\n【演示 2】连接损坏，借出校验失败后自动替换");
+            try (PoolEntry<FakeConnection> entry = pool.borrow(1, TimeUnit.SECONDS)) {
+                entry.get().broken = true;
+                System.out.println("标记 " + entry.get() + " 为损坏");
+            }
+            try (PoolEntry<FakeConnection> entry = pool.borrow(1, TimeUnit.SECONDS)) {
+                System.out.println("再次借出: " + entry.get());
+            }
+
+            System.out.println("\n【演示 3】超时");
+            PoolEntry<FakeConnection> a = pool.borrow(1, TimeUnit.SECONDS);
+            PoolEntry<FakeConnection> b = pool.borrow(1, TimeUnit.SECONDS);
+            PoolEntry<FakeConnection> c = pool.borrow(1, TimeUnit.SECONDS);
+            try {
+                pool.borrow(300, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                System.out.println("第 4 次借出超时: " + e.getMessage());
+            }
+            a.close();
+            b.close();
+            c.close();
+
+            System.out.println("\n【演示 4】空闲回收（idleTimeout=500ms）");
+            Thread.sleep(1000);
+            System.out.println("回收后总连接数: " + pool.getTotal());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package cn.clazs.jdk.aqs.pool;
+
+import lombok.Data;
+
+/**
+ * 对象池配置
+ *
+ * @author clazs
+ */
+@Data
+public class PoolConfig {
+
+    /**
+     * 池中最多的对象数
+     */
+    private int maxTotal = 16;
+
+    /**
+     * 空闲回收时至少保留的对象数
+     */
+    private int minIdle = 0;
+
+    /**
+     * 每个线程本地缓存的最多条目数
+     */
+    private int threadLocalCacheSize = 4;
+
+    /**
+     * 借出时是否校验
+     */
+    private boolean testOnBorrow = false;
+
+    /**
+     * 空闲回收任务执行时是否顺便校验空闲对象
+     */
+    private boolean testWhileIdle = false;
+
+    /**
+     * 空闲多久（毫秒）之后可以被回收，<= 0 表示不回收
+     */
+    private long idleTimeoutMillis = 60_000;
+
+    /**
+     * 空闲回收任务的执行间隔（毫秒），<= 0 表示不启动回收任务
+     */
+    private long evictionIntervalMillis = 30_000;
+}
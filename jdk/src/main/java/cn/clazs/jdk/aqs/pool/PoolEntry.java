@@ -0,0 +1,68 @@
+package cn.clazs.jdk.aqs.pool;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 池中条目：包装真实对象及其状态，借出后通过 close() 归还
+ *
+ * <pre>
+ * try (PoolEntry&lt;Connection&gt; entry = pool.borrow(1, TimeUnit.SECONDS)) {
+ *     entry.get().query(...);
+ * }
+ * </pre>
+ *
+ * 状态只通过 CAS 转换：IDLE -> IN_USE（借出）、IN_USE -> IDLE（归还）、* -> REMOVED（销毁）
+ * 同一个条目的引用可能同时出现在线程本地缓存、共享栈中，谁 CAS 成功谁拿到
+ *
+ * @author clazs
+ */
+public class PoolEntry<T> implements AutoCloseable {
+
+    static final int IDLE = 0;
+    static final int IN_USE = 1;
+    static final int REMOVED = 2;
+
+    private static final AtomicIntegerFieldUpdater<PoolEntry> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(PoolEntry.class, "state");
+
+    private final T object;
+    private final ObjectPool<T> pool;
+    private volatile int state;
+
+    // 最近一次归还的时间，用于空闲回收
+    volatile long lastReturnedMillis;
+
+    PoolEntry(T object, ObjectPool<T> pool, int initialState) {
+        this.object = object;
+        this.pool = pool;
+        this.state = initialState;
+        this.lastReturnedMillis = System.currentTimeMillis();
+    }
+
+    public T get() {
+        return object;
+    }
+
+    /**
+     * 归还到池中；已经 invalidate() 过的条目调用它什么也不做
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    /**
+     * 标记对象已损坏：不归还，直接销毁。可以在 try-with-resources 块里调用，块结束时的 close() 会被忽略
+     */
+    public void invalidate() {
+        pool.invalidate(this);
+    }
+
+    int state() {
+        return state;
+    }
+
+    boolean compareAndSet(int expect, int update) {
+        return STATE.compareAndSet(this, expect, update);
+    }
+}
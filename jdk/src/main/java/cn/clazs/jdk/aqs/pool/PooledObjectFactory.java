@@ -0,0 +1,27 @@
+package cn.clazs.jdk.aqs.pool;
+
+/**
+ * 池化对象的工厂：负责创建、校验、销毁
+ *
+ * @author clazs
+ */
+public interface PooledObjectFactory<T> {
+
+    /**
+     * 创建一个新对象（例如建立数据库连接）
+     */
+    T create() throws Exception;
+
+    /**
+     * 校验对象是否仍然可用（例如发送 SELECT 1），默认总是可用
+     */
+    default boolean validate(T object) {
+        return true;
+    }
+
+    /**
+     * 销毁对象（例如关闭连接），默认什么都不做
+     */
+    default void destroy(T object) {
+    }
+}
@@ -0,0 +1,39 @@
+package cn.clazs.jdk.dynamicproxy.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标注在接口方法上，表示该方法的返回值按参数缓存
+ *
+ * 示例：
+ * <pre>
+ * public interface UserQueryService {
+ *     &#64;Cached(ttl = 30, unit = TimeUnit.SECONDS, maxSize = 10_000)
+ *     String findName(long userId);
+ * }
+ * </pre>
+ *
+ * @author clazs
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cached {
+
+    /**
+     * 过期时间，<= 0 表示永不过期
+     */
+    long ttl() default 60;
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * 最大缓存条目数，超出后按近似 LFU（频次相同再比较最近访问时间）淘汰
+     */
+    int maxSize() default 1024;
+}
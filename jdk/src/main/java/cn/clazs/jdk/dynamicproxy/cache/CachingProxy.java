@@ -0,0 +1,159 @@
+package cn.clazs.jdk.dynamicproxy.cache;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基于 JDK 动态代理的记忆化缓存代理
+ *
+ * 接口方法上标注 {@link Cached} 即按参数缓存返回值，没有标注的方法直接转发
+ *
+ * 与 MyInvocationHandler 的区别：
+ * - 目标方法通过预先绑定好的 MethodHandle 调用，不走 Method.invoke
+ * - 每个 @Cached 方法有自己独立的 MemoCache（容量、TTL 各自配置）
+ *
+ * 使用方式：
+ * <pre>
+ * UserQueryService service = CachingProxy.wrap(UserQueryService.class, new UserQueryServiceImpl());
+ * CachingProxy.caches(service).forEach((name, cache) -> System.out.println(name + " " + cache));
+ * </pre>
+ *
+ * @author clazs
+ */
+public class CachingProxy {
+
+    private CachingProxy() {
+    }
+
+    public static <T> T wrap(Class<T> iface, T target) {
+        CachingInvocationHandler handler = new CachingInvocationHandler(iface, target);
+        Object proxy = Proxy.newProxyInstance(iface.getClassLoader(), new Class[]{iface}, handler);
+        return iface.cast(proxy);
+    }
+
+    /**
+     * 获取代理对象上各方法的缓存（方法描述如 findName(long) -> 缓存），用于查看命中率等统计
+     */
+    public static Map<String, MemoCache> caches(Object proxy) {
+        InvocationHandler handler = Proxy.getInvocationHandler(proxy);
+        if (!(handler instanceof CachingInvocationHandler)) {
+            throw new IllegalArgumentException("不是 CachingProxy 创建的代理对象");
+        }
+        return ((CachingInvocationHandler) handler).caches();
+    }
+
+    static final class CachingInvocationHandler implements InvocationHandler {
+
+        private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+        private final Map<Method, Invoker> invokers = new HashMap<>();
+
+        CachingInvocationHandler(Class<?> iface, Object target) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                for (Method m : iface.getMethods()) {
+                    MethodHandle handle = spread(lookup, m, target);
+                    Cached cached = m.getAnnotation(Cached.class);
+                    if (cached == null) {
+                        invokers.put(m, new Invoker(handle, null, describe(m)));
+                        continue;
+                    }
+                    if (m.getReturnType() == void.class) {
+                        throw new IllegalArgumentException("@Cached 不能用在 void 方法上: " + m);
+                    }
+                    MemoCache cache = new MemoCache(cached.ttl(), cached.unit(), cached.maxSize());
+                    invokers.put(m, new Invoker(handle, cache, describe(m)));
+                }
+                for (String name : new String[]{"equals", "hashCode", "toString"}) {
+                    for (Method m : Object.class.getMethods()) {
+                        if (m.getName().equals(name)) {
+                            invokers.putIfAbsent(m, new Invoker(spread(lookup, m, target), null, name));
+                        }
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("无法解析方法句柄: " + iface.getName(), e);
+            }
+        }
+
+        /**
+         * 方法描述，例如 findName(long)，用于区分重载
+         */
+        private static String describe(Method m) {
+            StringBuilder sb = new StringBuilder(m.getName()).append('(');
+            Class<?>[] params = m.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(params[i].getSimpleName());
+            }
+            return sb.append(')').toString();
+        }
+
+        private static MethodHandle spread(MethodHandles.Lookup lookup, Method m, Object target)
+                throws IllegalAccessException {
+            m.setAccessible(true);
+            return lookup.unreflect(m)
+                    .bindTo(target)
+                    .asSpreader(Object[].class, m.getParameterCount())
+                    .asType(SPREAD_TYPE);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Invoker invoker = invokers.get(method);
+            if (invoker == null) {
+                throw new UnsupportedOperationException("未代理的方法: " + method);
+            }
+            return invoker.invoke(args);
+        }
+
+        Map<String, MemoCache> caches() {
+            Map<String, MemoCache> result = new TreeMap<>();
+            for (Invoker invoker : invokers.values()) {
+                if (invoker.cache != null) {
+                    result.put(invoker.name, invoker.cache);
+                }
+            }
+            return Collections.unmodifiableMap(result);
+        }
+    }
+
+    /**
+     * 单个方法的调用器：有缓存走缓存，没有则直接调用
+     */
+    static final class Invoker implements MemoCache.Loader {
+        private static final Object[] NO_ARGS = new Object[0];
+
+        final MethodHandle handle;
+        final MemoCache cache;
+        final String name;
+
+        Invoker(MethodHandle handle, MemoCache cache, String name) {
+            this.handle = handle;
+            this.cache = cache;
+            this.name = name;
+        }
+
+        Object invoke(Object[] args) throws Throwable {
+            if (cache == null) {
+                return load(args);
+            }
+            return cache.get(args, this);
+        }
+
+        @Override
+        public Object load(Object[] args) throws Throwable {
+            return handle.invokeExact(args == null ? NO_ARGS : args);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package cn.clazs.jdk.dynamicproxy.cache;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存代理基准测试（JMH）
+ *
+ * - hitPath:   预热后反复查询同一个 key，衡量命中路径的延迟
+ * - zipfian:   key 服从 Zipf 分布（s=0.99，10 万个 key），缓存容量 1 万，TearDown 时打印命中率
+ * - backend:   直接调用目标对象（模拟约 1us 的查库开销），作为参照
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CachingProxyBenchmark {
+
+    private static final int KEY_SPACE = 100_000;
+    private static final int SAMPLE_COUNT = 1 << 20;
+
+    public interface PriceService {
+        @Cached(ttl = 10, unit = TimeUnit.MINUTES, maxSize = 10_000)
+        long price(long skuId);
+    }
+
+    public static class PriceServiceImpl implements PriceService {
+        @Override
+        public long price(long skuId) {
+            // 模拟约 1us 的后端开销
+            Blackhole.consumeCPU(300);
+            return skuId * 31;
+        }
+    }
+
+    private PriceService backend;
+    private PriceService cached;
+    private long[] zipfKeys;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        backend = new PriceServiceImpl();
+        cached = CachingProxy.wrap(PriceService.class, backend);
+        cached.price(1L);
+
+        ZipfianGenerator zipf = new ZipfianGenerator(KEY_SPACE, 0.99, new Random(42));
+        zipfKeys = new long[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            zipfKeys[i] = zipf.next();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.println("\n缓存统计: " + CachingProxy.caches(cached));
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+    }
+
+    @Benchmark
+    public long backend() {
+        return backend.price(1L);
+    }
+
+    @Benchmark
+    public long hitPath() {
+        return cached.price(1L);
+    }
+
+    @Benchmark
+    public long zipfian(Cursor cursor) {
+        long key = zipfKeys[cursor.index++ & (SAMPLE_COUNT - 1)];
+        return cached.price(key);
+    }
+
+    /**
+     * Zipf 分布生成器（预计算累积分布 + 二分查找），rank 越小越热
+     */
+    static final class ZipfianGenerator {
+        private final double[] cdf;
+        private final Random random;
+
+        ZipfianGenerator(int n, double s, Random random) {
+            this.random = random;
+            this.cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, s);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        long next() {
+            double u = random.nextDouble();
+            int lo = 0;
+            int hi = cdf.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < u) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CachingProxyBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
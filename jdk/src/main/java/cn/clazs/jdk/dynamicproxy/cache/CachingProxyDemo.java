@@ -0,0 +1,116 @@
+package cn.clazs.jdk.dynamicproxy.cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存代理演示
+ *
+ * 1. 命中/未命中
+ * 2. 单飞：20 个线程同时查询同一个 key，目标方法只被调用 1 次
+ * 3. TTL 过期后重新加载
+ * 4. 超过 maxSize 后的淘汰
+ *
+ * @author clazs
+ */
+public class CachingProxyDemo {
+
+    /**
+     * 被代理的接口（UserService 风格）
+     */
+    public interface UserQueryService {
+        @Cached(ttl = 500, unit = TimeUnit.MILLISECONDS, maxSize = 100)
+        String findName(long userId);
+
+        @Cached(maxSize = 10)
+        int countOrders(long userId, String status);
+
+        // 没有 @Cached，直接转发
+        void updateName(long userId, String name);
+    }
+
+    static class UserQueryServiceImpl implements UserQueryService {
+        final AtomicInteger realCalls = new AtomicInteger();
+
+        @Override
+        public String findName(long userId) {
+            realCalls.incrementAndGet();
+            sleep(100); // 模拟查库
+            return "user-" + userId;
+        }
+
+        @Override
+        public int countOrders(long userId, String status) {
+            realCalls.incrementAndGet();
+            return (int) (userId % 7) + status.length();
+        }
+
+        @Override
+        public void updateName(long userId, String name) {
+            System.out.println("   更新用户名: " + userId + " -> " + name);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        UserQueryServiceImpl realObject = new UserQueryServiceImpl();
+        UserQueryService proxy = CachingProxy.wrap(UserQueryService.class, realObject);
+
+        System.out.println("【演示 1】命中与未命中");
+        long start = System.nanoTime();
+        proxy.findName(1L);
+        System.out.println("   第一次调用耗时: " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        start = System.nanoTime();
+        proxy.findName(1L);
+        System.out.println("   第二次调用耗时: " + (System.nanoTime() - start) / 1_000 + "us（命中缓存）");
+
+        System.out.println("\n【演示 2】单飞：20 个线程同时查询 userId=2");
+        realObject.realCalls.set(0);
+        CountDownLatch startGate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            new Thread(() -> {
+                try {
+                    startGate.await();
+                    proxy.findName(2L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "Query-" + i).start();
+        }
+        startGate.countDown();
+        done.await();
+        System.out.println("   目标方法真实调用次数: " + realObject.realCalls.get());
+
+        System.out.println("\n【演示 3】TTL 过期");
+        realObject.realCalls.set(0);
+        Thread.sleep(600);
+        proxy.findName(2L);
+        System.out.println("   过期后再次查询，真实调用次数: " + realObject.realCalls.get());
+
+        System.out.println("\n【演示 4】maxSize=10 的淘汰");
+        for (int round = 0; round < 3; round++) {
+            for (long id = 0; id < 30; id++) {
+                // id < 5 的是热点，每轮多访问几次
+                int repeat = id < 5 ? 5 : 1;
+                for (int r = 0; r < repeat; r++) {
+                    proxy.countOrders(id, "PAID");
+                }
+            }
+        }
+        proxy.updateName(1L, "张三");
+
+        System.out.println("\n各方法缓存统计:");
+        CachingProxy.caches(proxy).forEach((name, cache) -> System.out.println("   " + name + " -> " + cache));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package cn.clazs.jdk.dynamicproxy.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个方法的记忆化缓存
+ *
+ * 1. 缓存键：直接包装 JDK Proxy 传进来的 Object[]（每次调用都是新数组，调用方拿不到），
+ *    不拷贝、不拼字符串，基本类型参数不会再产生额外对象；命中路径上的 ArgsKey 不逃逸，可被 JIT 标量替换
+ * 2. 淘汰：近似 LFU（参考 Redis 的采样淘汰）
+ *    - 条目同时登记在一个定长 slots 数组里，满了以后随机采样 5 个，淘汰 频次最低（相同则最久未访问）的那个
+ *    - 采样到但没被淘汰的条目频次减半（老化），避免历史热点永远占着位置
+ *    - 频次计数封顶 255，热点 key 很快不再写计数，减少缓存行争用
+ * 3. 单飞（single-flight）：同一个 key 并发未命中时，只有一个线程真正调用目标方法，
+ *    其他线程等待同一个 CompletableFuture；调用失败时异常传给所有等待者，且不缓存。
+ *    等待别人加载的调用单独计为 join，不算命中（它同样要等一次完整的加载）
+ * 4. 过期：命中时惰性检查 TTL，过期条目被新的加载条目替换。
+ *    时间用 System.nanoTime()，TTL 以纳秒保存，亚毫秒的 TTL 不会被取整成 0（"永不过期"）
+ *
+ * @author clazs
+ */
+public class MemoCache {
+
+    private static final int SAMPLE_SIZE = 5;
+    private static final int FREQUENCY_CAP = 255;
+
+    /**
+     * 真正的加载逻辑（调用目标方法）
+     */
+    public interface Loader {
+        Object load(Object[] args) throws Throwable;
+    }
+
+    private final ConcurrentHashMap<ArgsKey, Entry> map = new ConcurrentHashMap<>();
+    // <= 0 表示永不过期
+    private final long ttlNanos;
+    private final int maxSize;
+
+    // slots/used 只在 evictionLock 内访问，只有未命中（慢路径）才会加锁
+    private final Entry[] slots;
+    private int used;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder joins = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttl <= 0 表示永不过期
+     */
+    public MemoCache(long ttl, TimeUnit unit, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize 必须大于 0: " + maxSize);
+        }
+        // 大于约 146 年的 TTL 加到 nanoTime 上会溢出，按永不过期处理
+        long nanos = unit.toNanos(ttl);
+        this.ttlNanos = nanos >= Long.MAX_VALUE / 2 ? 0 : nanos;
+        this.maxSize = maxSize;
+        this.slots = new Entry[maxSize];
+    }
+
+    public Object get(Object[] args, Loader loader) throws Throwable {
+        ArgsKey key = new ArgsKey(args);
+        long now = System.nanoTime();
+
+        Entry entry = map.get(key);
+        if (entry != null) {
+            if (entry.loading != null) {
+                // 别人正在加载，合并到同一次调用
+                joins.increment();
+                return await(entry.loading);
+            }
+            if (!entry.isExpired(now)) {
+                entry.touch(now);
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return load(key, loader, now);
+    }
+
+    private Object load(ArgsKey key, Loader loader, long now) throws Throwable {
+        Entry loadingEntry = new Entry(key, new CompletableFuture<>());
+        for (;;) {
+            Entry current = map.get(key);
+            if (current != null) {
+                if (current.loading != null) {
+                    return await(current.loading);
+                }
+                if (!current.isExpired(now)) {
+                    current.touch(now);
+                    return current.value;
+                }
+                // 已过期：用加载条目替换掉它
+                if (map.replace(key, current, loadingEntry)) {
+                    release(current);
+                    break;
+                }
+            } else if (map.putIfAbsent(key, loadingEntry) == null) {
+                break;
+            }
+        }
+
+        // 只有抢到加载权的线程会走到这里
+        loads.increment();
+        Object value;
+        try {
+            value = loader.load(key.args);
+        } catch (Throwable t) {
+            map.remove(key, loadingEntry);
+            loadingEntry.loading.completeExceptionally(t);
+            throw t;
+        }
+
+        long loadedAt = System.nanoTime();
+        Entry loaded = new Entry(key, value, ttlNanos > 0, loadedAt + ttlNanos, loadedAt);
+        if (map.replace(key, loadingEntry, loaded)) {
+            admit(loaded);
+        }
+        loadingEntry.loading.complete(value);
+        return value;
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 新条目登记到 slots，满了则采样淘汰
+     */
+    private void admit(Entry entry) {
+        evictionLock.lock();
+        try {
+            // 登记前条目可能已被并发替换（过期重载），这时不再登记
+            if (entry.removed || map.get(entry.key) != entry) {
+                return;
+            }
+            if (used < maxSize) {
+                entry.slot = used;
+                slots[used++] = entry;
+                return;
+            }
+            Entry victim = sampleVictim();
+            map.remove(victim.key, victim);
+            victim.removed = true;
+            entry.slot = victim.slot;
+            victim.slot = -1;
+            slots[entry.slot] = entry;
+            evictions.increment();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private Entry sampleVictim() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        Entry victim = null;
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            Entry candidate = slots[random.nextInt(used)];
+            if (candidate.isExpired(now)) {
+                return candidate;
+            }
+            if (victim == null || isColder(candidate, victim)) {
+                if (victim != null) {
+                    victim.frequency >>>= 1;
+                }
+                victim = candidate;
+            } else {
+                candidate.frequency >>>= 1;
+            }
+        }
+        return victim;
+    }
+
+    private static boolean isColder(Entry a, Entry b) {
+        if (a.frequency != b.frequency) {
+            return a.frequency < b.frequency;
+        }
+        return a.lastAccess - b.lastAccess < 0;
+    }
+
+    /**
+     * 条目被替换后，从 slots 中移除（用最后一个条目填洞）
+     */
+    private void release(Entry entry) {
+        evictionLock.lock();
+        try {
+            entry.removed = true;
+            int slot = entry.slot;
+            if (slot < 0) {
+                return;
+            }
+            Entry last = slots[--used];
+            slots[slot] = last;
+            last.slot = slot;
+            slots[used] = null;
+            entry.slot = -1;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            map.clear();
+            for (int i = 0; i < used; i++) {
+                slots[i].removed = true;
+                slots[i].slot = -1;
+                slots[i] = null;
+            }
+            used = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    public int size() {
+        return map.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 等待其他线程正在进行的加载（单飞合并）的次数
+     */
+    public long getJoinCount() {
+        return joins.sum();
+    }
+
+    /**
+     * 真正调用目标方法的次数（单飞合并后的次数）
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum() + joins.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d, hits=%d, misses=%d, joins=%d, loads=%d, evictions=%d, hitRatio=%.2f%%",
+                size(), getHitCount(), getMissCount(), getJoinCount(), getLoadCount(), getEvictionCount(),
+                hitRatio() * 100);
+    }
+
+    // ==================== 内部结构 ====================
+
+    /**
+     * 参数数组作为缓存键
+     */
+    static final class ArgsKey {
+        private static final Object[] NO_ARGS = new Object[0];
+
+        final Object[] args;
+        final int hash;
+
+        ArgsKey(Object[] args) {
+            this.args = args == null ? NO_ARGS : args;
+            this.hash = Arrays.deepHashCode(this.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ArgsKey)) {
+                return false;
+            }
+            ArgsKey other = (ArgsKey) o;
+            return hash == other.hash && Arrays.deepEquals(args, other.args);
+        }
+    }
+
+    /**
+     * 缓存条目：加载中（loading != null）或已加载（value/expireAt 有效）
+     */
+    static final class Entry {
+        final ArgsKey key;
+        final CompletableFuture<Object> loading;
+        final Object value;
+        final boolean expires;
+        final long expireAt;            // System.nanoTime() 时间点，只在 expires 时有效
+
+        // 访问统计，允许竞态写（近似即可）
+        int frequency;
+        long lastAccess;
+
+        // 以下字段只在 evictionLock 内读写
+        int slot = -1;
+        boolean removed;
+
+        Entry(ArgsKey key, CompletableFuture<Object> loading) {
+            this.key = key;
+            this.loading = loading;
+            this.value = null;
+            this.expires = false;
+            this.expireAt = 0;
+        }
+
+        Entry(ArgsKey key, Object value, boolean expires, long expireAt, long now) {
+            this.key = key;
+            this.loading = null;
+            this.value = value;
+            this.expires = expires;
+            this.expireAt = expireAt;
+            this.frequency = 1;
+            this.lastAccess = now;
+        }
+
+        boolean isExpired(long now) {
+            // nanoTime 可能为负、可能回绕，只能比较差值
+            return expires && now - expireAt >= 0;
+        }
+
+        void touch(long now) {
+            if (frequency < FREQUENCY_CAP) {
+                frequency++;
+            }
+            if (lastAccess != now) {
+                lastAccess = now;
+            }
+        }
+    }
+}
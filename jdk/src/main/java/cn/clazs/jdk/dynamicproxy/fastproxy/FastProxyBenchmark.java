@@ -0,0 +1,124 @@
+package cn.clazs.jdk.dynamicproxy.fastproxy;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代理调用开销对比（JMH）
+ *
+ * - direct:        直接调用实现类
+ * - jdkReflection: JDK Proxy + Method.invoke（即 MyInvocationHandler 的做法，去掉了打印）
+ * - methodHandle:  JDK Proxy + 缓存的 MethodHandle
+ * - fastProxy:     生成字节码的代理
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FastProxyBenchmark {
+
+    /**
+     * UserService 风格的接口，方法有参数、有返回值，避免被 JIT 当成死代码消除
+     */
+    public interface OrderService {
+        int addOrder(int userId, long amount);
+
+        String findOrder(String orderNo);
+    }
+
+    public static class OrderServiceImpl implements OrderService {
+        @Override
+        public int addOrder(int userId, long amount) {
+            return userId + (int) amount;
+        }
+
+        @Override
+        public String findOrder(String orderNo) {
+            return orderNo;
+        }
+    }
+
+    private OrderService direct;
+    private OrderService jdkReflection;
+    private OrderService methodHandle;
+    private OrderService fastProxy;
+
+    private int userId = 42;
+    private long amount = 100L;
+    private String orderNo = "NO-1";
+
+    @Setup
+    public void setup() {
+        OrderService target = new OrderServiceImpl();
+        direct = target;
+
+        InvocationHandler reflective = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return method.invoke(target, args);
+            }
+        };
+        jdkReflection = (OrderService) Proxy.newProxyInstance(
+                OrderService.class.getClassLoader(), new Class[]{OrderService.class}, reflective);
+
+        methodHandle = FastProxyFactory.createMethodHandleProxy(OrderService.class, target, MethodListener.NOOP);
+        fastProxy = FastProxyFactory.create(OrderService.class, target);
+    }
+
+    @Benchmark
+    public int direct() {
+        return direct.addOrder(userId, amount);
+    }
+
+    @Benchmark
+    public int jdkReflection() {
+        return jdkReflection.addOrder(userId, amount);
+    }
+
+    @Benchmark
+    public int methodHandle() {
+        return methodHandle.addOrder(userId, amount);
+    }
+
+    @Benchmark
+    public int fastProxy() {
+        return fastProxy.addOrder(userId, amount);
+    }
+
+    @Benchmark
+    public String directRef() {
+        return direct.findOrder(orderNo);
+    }
+
+    @Benchmark
+    public String jdkReflectionRef() {
+        return jdkReflection.findOrder(orderNo);
+    }
+
+    @Benchmark
+    public String fastProxyRef() {
+        return fastProxy.findOrder(orderNo);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FastProxyBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
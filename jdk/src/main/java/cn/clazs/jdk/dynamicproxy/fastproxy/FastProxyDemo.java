@@ -0,0 +1,50 @@
+package cn.clazs.jdk.dynamicproxy.fastproxy;
+
+import cn.clazs.jdk.dynamicproxy.jdkdynamic.UserService;
+import cn.clazs.jdk.dynamicproxy.jdkdynamic.UserServiceImpl;
+
+import java.lang.reflect.Method;
+
+/**
+ * 快速代理演示：与 JdkDynamicProxyDemo 使用同一个 UserService 接口
+ *
+ * @author clazs
+ */
+public class FastProxyDemo {
+
+    public static void main(String[] args) {
+        UserService realObject = new UserServiceImpl();
+
+        // 方法下标 -> Method，用于在回调里打印方法名（只在创建时反射一次）
+        Method[] methods = FastProxyFactory.proxyMethods(UserService.class);
+
+        MethodListener listener = new MethodListener() {
+            @Override
+            public long before(int methodIndex) {
+                System.out.println(">>> [代理前置] 方法名: " + methods[methodIndex].getName());
+                return System.nanoTime();
+            }
+
+            @Override
+            public void afterReturning(int methodIndex, long token) {
+                System.out.println(">>> [代理后置] 方法执行完毕，耗时 " + (System.nanoTime() - token) / 1000 + "us\n");
+            }
+
+            @Override
+            public void afterThrowing(int methodIndex, long token, Throwable ex) {
+                System.out.println(">>> [代理异常] " + ex);
+            }
+        };
+
+        UserService proxy = FastProxyFactory.create(UserService.class, realObject, listener);
+        System.out.println("##### 字节码代理 #####");
+        System.out.println("代理类: " + proxy.getClass().getName());
+        proxy.addUser("李四");
+        proxy.deleteUser("王五");
+
+        UserService mhProxy = FastProxyFactory.createMethodHandleProxy(UserService.class, realObject, listener);
+        System.out.println("##### MethodHandle 代理（兜底路径） #####");
+        System.out.println("代理类: " + mhProxy.getClass().getName());
+        mhProxy.addUser("赵六");
+    }
+}
@@ -0,0 +1,195 @@
+package cn.clazs.jdk.dynamicproxy.fastproxy;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 无反射的动态代理工厂
+ *
+ * JDK 动态代理（见 jdkdynamic 包）的每次调用：
+ * 1. 参数装箱 + 分配 Object[]
+ * 2. MyInvocationHandler 里 Method.invoke 反射调用，JIT 很难内联
+ *
+ * 本工厂的两条路径：
+ * - 字节码路径（首选）：为接口生成实现类，方法体直接 invokeinterface 目标对象，
+ *   拦截逻辑通过 MethodListener 以"方法下标 + long 令牌"回调，全程无反射、无数组、无装箱
+ * - MethodHandle 路径（兜底）：接口或签名中有非 public 类型时无法从独立类加载器访问，
+ *   退回 JDK Proxy，但用预先缓存好的 MethodHandle 替代 Method.invoke
+ *
+ * 生成的代理类按接口缓存（ClassValue），每个接口只生成一次
+ *
+ * 使用方式：
+ * <pre>
+ * UserService proxy = FastProxyFactory.create(UserService.class, new UserServiceImpl(), listener);
+ * </pre>
+ *
+ * @author clazs
+ */
+public class FastProxyFactory {
+
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    private static final ClassValue<Constructor<?>> PROXY_CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> iface) {
+            return generateProxyClass(iface);
+        }
+    };
+
+    private FastProxyFactory() {
+    }
+
+    /**
+     * 创建纯转发的代理（等价于直接调用目标对象）
+     */
+    public static <T> T create(Class<T> iface, T target) {
+        return create(iface, target, MethodListener.NOOP);
+    }
+
+    /**
+     * 创建代理
+     *
+     * @param iface    被代理的接口
+     * @param target   真实对象
+     * @param listener 方法前置/后置回调，方法下标与 {@link #proxyMethods(Class)} 的顺序一致
+     */
+    public static <T> T create(Class<T> iface, T target, MethodListener listener) {
+        if (!iface.isInterface()) {
+            throw new IllegalArgumentException(iface.getName() + " 不是接口");
+        }
+        if (target == null || listener == null) {
+            throw new NullPointerException("target 和 listener 不能为空");
+        }
+        Constructor<?> constructor = PROXY_CONSTRUCTORS.get(iface);
+        if (constructor == null) {
+            return createMethodHandleProxy(iface, target, listener);
+        }
+        try {
+            return iface.cast(constructor.newInstance(target, listener));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建代理对象失败: " + iface.getName(), e);
+        }
+    }
+
+    /**
+     * 强制走 MethodHandle 路径（JDK Proxy + 缓存的 MethodHandle），主要用于基准测试对比
+     */
+    public static <T> T createMethodHandleProxy(Class<T> iface, T target, MethodListener listener) {
+        Method[] methods = proxyMethods(iface);
+        Object proxy = Proxy.newProxyInstance(
+                iface.getClassLoader(),
+                new Class[]{iface},
+                new MethodHandleInvocationHandler(target, methods, listener)
+        );
+        return iface.cast(proxy);
+    }
+
+    /**
+     * 返回代理会拦截的方法，数组下标就是 MethodListener 收到的 methodIndex
+     *
+     * 规则：接口（含父接口）中所有非 static 的 public 方法，按 名称 + 描述符 排序，同签名只保留一个
+     */
+    public static Method[] proxyMethods(Class<?> iface) {
+        Map<String, Method> unique = new LinkedHashMap<>();
+        for (Method m : iface.getMethods()) {
+            if (Modifier.isStatic(m.getModifiers())) {
+                continue;
+            }
+            String key = m.getName() + Arrays.toString(m.getParameterTypes());
+            Method existing = unique.get(key);
+            // 协变返回值：保留返回类型更具体的那个
+            if (existing == null || existing.getReturnType().isAssignableFrom(m.getReturnType())) {
+                unique.put(key, m);
+            }
+        }
+        List<Method> list = new ArrayList<>(unique.values());
+        list.sort(Comparator.comparing((Method m) -> m.getName())
+                .thenComparing(ProxyClassGenerator::methodDescriptor));
+        return list.toArray(new Method[0]);
+    }
+
+    /**
+     * 生成并加载代理类，返回其构造器；无法生成时返回 null（调用方退回 MethodHandle 路径）
+     */
+    private static Constructor<?> generateProxyClass(Class<?> iface) {
+        if (!isAccessible(iface)) {
+            return null;
+        }
+        Method[] methods = proxyMethods(iface);
+        for (Method m : methods) {
+            if (!isAccessible(m.getDeclaringClass()) || !isAccessible(m.getReturnType())) {
+                return null;
+            }
+            for (Class<?> p : m.getParameterTypes()) {
+                if (!isAccessible(p)) {
+                    return null;
+                }
+            }
+        }
+
+        String className = "cn/clazs/jdk/dynamicproxy/fastproxy/$FastProxy$" + CLASS_COUNTER.incrementAndGet();
+        byte[] bytes;
+        try {
+            bytes = new ProxyClassGenerator(className, iface, methods).generate();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        ProxyClassLoader loader = new ProxyClassLoader(iface.getClassLoader());
+        Class<?> proxyClass = loader.define(className.replace('/', '.'), bytes);
+        try {
+            return proxyClass.getConstructor(iface, MethodListener.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("生成的代理类缺少构造器: " + proxyClass.getName(), e);
+        }
+    }
+
+    /**
+     * 生成的类位于独立的类加载器（独立的运行时包），只能访问 public 类型
+     */
+    private static boolean isAccessible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 代理类的类加载器：父加载器是接口所在的加载器，MethodListener 固定从本工厂的加载器解析
+     */
+    private static final class ProxyClassLoader extends ClassLoader {
+
+        ProxyClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (MethodListener.class.getName().equals(name)) {
+                return MethodListener.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+}
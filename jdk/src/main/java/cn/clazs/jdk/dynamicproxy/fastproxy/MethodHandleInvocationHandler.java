@@ -0,0 +1,91 @@
+package cn.clazs.jdk.dynamicproxy.fastproxy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于缓存 MethodHandle 的 InvocationHandler
+ *
+ * 对比 MyInvocationHandler：
+ * - 创建时为每个方法解析一次 MethodHandle，并提前绑定目标对象、统一成 (Object[])Object 形状
+ * - 调用时只做一次 Map 查找 + invokeExact，不再走 Method.invoke 的访问检查和反射分派
+ *
+ * Object[] 参数数组由 JDK Proxy 生成的类分配，这条路径无法消除，所以只作为字节码路径的兜底
+ *
+ * @author clazs
+ */
+class MethodHandleInvocationHandler implements InvocationHandler {
+
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Map<Method, Entry> entries = new HashMap<>();
+    private final MethodListener listener;
+
+    MethodHandleInvocationHandler(Object target, Method[] methods, MethodListener listener) {
+        this.listener = listener;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            for (int i = 0; i < methods.length; i++) {
+                entries.put(methods[i], new Entry(i, spread(lookup, methods[i], target)));
+            }
+            // equals/hashCode/toString 也转发给目标对象，但不触发回调
+            for (String name : new String[]{"equals", "hashCode", "toString"}) {
+                for (Method m : Object.class.getMethods()) {
+                    if (m.getName().equals(name) && !entries.containsKey(m)) {
+                        entries.put(m, new Entry(-1, spread(lookup, m, target)));
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法解析方法句柄", e);
+        }
+    }
+
+    private static MethodHandle spread(MethodHandles.Lookup lookup, Method m, Object target)
+            throws IllegalAccessException {
+        m.setAccessible(true);
+        int arity = m.getParameterCount();
+        return lookup.unreflect(m)
+                .bindTo(target)
+                .asSpreader(Object[].class, arity)
+                .asType(SPREAD_TYPE);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Entry entry = entries.get(method);
+        if (entry == null) {
+            throw new UnsupportedOperationException("未代理的方法: " + method);
+        }
+        Object[] actualArgs = args == null ? NO_ARGS : args;
+        if (entry.index < 0) {
+            return entry.handle.invokeExact(actualArgs);
+        }
+        long token = listener.before(entry.index);
+        Object result;
+        try {
+            result = entry.handle.invokeExact(actualArgs);
+        } catch (Throwable t) {
+            listener.afterThrowing(entry.index, token, t);
+            throw t;
+        }
+        listener.afterReturning(entry.index, token);
+        return result;
+    }
+
+    private static final class Entry {
+        final int index;
+        final MethodHandle handle;
+
+        Entry(int index, MethodHandle handle) {
+            this.index = index;
+            this.handle = handle;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package cn.clazs.jdk.dynamicproxy.fastproxy;
+
+/**
+ * 快速代理的方法拦截回调
+ *
+ * 与 InvocationHandler 的区别：
+ * - 不接收 Method 和 Object[] 参数，只接收方法下标（下标顺序见 FastProxyFactory.proxyMethods）
+ * - 真正的方法调用由生成的字节码直接 invokeinterface 到目标对象，回调只负责"前置/后置"
+ * - before 返回的 long 令牌会原样传给 after 系列方法（例如可以是 System.nanoTime()），
+ *   这样计时类的拦截器不需要 ThreadLocal，也不会产生任何分配
+ *
+ * @author clazs
+ */
+public interface MethodListener {
+
+    /**
+     * 什么都不做的回调，用于纯转发场景
+     */
+    MethodListener NOOP = new MethodListener() {
+        @Override
+        public long before(int methodIndex) {
+            return 0L;
+        }
+
+        @Override
+        public void afterReturning(int methodIndex, long token) {
+        }
+
+        @Override
+        public void afterThrowing(int methodIndex, long token, Throwable ex) {
+        }
+    };
+
+    /**
+     * 调用目标方法之前触发
+     *
+     * @param methodIndex 方法下标
+     * @return 令牌，会传给 afterReturning / afterThrowing
+     */
+    long before(int methodIndex);
+
+    /**
+     * 目标方法正常返回后触发
+     */
+    void afterReturning(int methodIndex, long token);
+
+    /**
+     * 目标方法抛出异常后触发（异常随后会原样抛给调用方）
+     */
+    void afterThrowing(int methodIndex, long token, Throwable ex);
+}
@@ -0,0 +1,486 @@
+package cn.clazs.jdk.dynamicproxy.fastproxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 代理类字节码生成器（不依赖 ASM，手写 class 文件）
+ *
+ * 为接口 I 生成如下等价的类：
+ * <pre>
+ * public final class $FastProxy$N implements I {
+ *     private final I target;
+ *     private final MethodListener listener;
+ *
+ *     public R m(A a, B b) {
+ *         long token = listener.before(idx);
+ *         R r;
+ *         try {
+ *             r = target.m(a, b);          // 直接 invokeinterface，没有反射、没有 Object[]
+ *         } catch (Throwable t) {
+ *             listener.afterThrowing(idx, token, t);
+ *             throw t;
+ *         }
+ *         listener.afterReturning(idx, token);
+ *         return r;
+ *     }
+ *
+ *     // 接口没有声明的 equals / hashCode / toString 直接转发给目标对象，不触发回调（与 MethodHandle 路径一致）
+ *     public boolean equals(Object o) { return target.equals(o); }
+ * }
+ * </pre>
+ *
+ * 注意：class 文件版本使用 49（Java 5），这样 JVM 走类型推导校验器，不需要手写 StackMapTable
+ *
+ * @author clazs
+ */
+class ProxyClassGenerator {
+
+    private static final int CLASS_VERSION = 49;
+
+    private static final String LISTENER = MethodListener.class.getName().replace('.', '/');
+    private static final String LISTENER_DESC = "L" + LISTENER + ";";
+    private static final String[][] OBJECT_METHODS = {
+            {"equals", "(Ljava/lang/Object;)Z"},
+            {"hashCode", "()I"},
+            {"toString", "()Ljava/lang/String;"},
+    };
+
+    // 常量池
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final String className;
+    private final Class<?> iface;
+    private final Method[] methods;
+
+    ProxyClassGenerator(String className, Class<?> iface, Method[] methods) {
+        this.className = className;
+        this.iface = iface;
+        this.methods = methods;
+    }
+
+    byte[] generate() {
+        try {
+            String ifaceName = internalName(iface);
+            String targetDesc = "L" + ifaceName + ";";
+
+            int thisClass = classRef(className);
+            int superClass = classRef("java/lang/Object");
+            int ifaceClass = classRef(ifaceName);
+
+            int targetField = fieldRef(className, "target", targetDesc);
+            int listenerField = fieldRef(className, "listener", LISTENER_DESC);
+            int objectInit = methodRef("java/lang/Object", "<init>", "()V", false);
+            int before = methodRef(LISTENER, "before", "(I)J", true);
+            int afterReturning = methodRef(LISTENER, "afterReturning", "(IJ)V", true);
+            int afterThrowing = methodRef(LISTENER, "afterThrowing", "(IJLjava/lang/Throwable;)V", true);
+            int codeAttr = utf8("Code");
+
+            ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+            DataOutputStream body = new DataOutputStream(bodyBytes);
+
+            // access_flags / this / super / interfaces
+            body.writeShort(0x0001 | 0x0010 | 0x0020); // PUBLIC | FINAL | SUPER
+            body.writeShort(thisClass);
+            body.writeShort(superClass);
+            body.writeShort(1);
+            body.writeShort(ifaceClass);
+
+            // fields
+            body.writeShort(2);
+            writeField(body, "target", targetDesc);
+            writeField(body, "listener", LISTENER_DESC);
+
+            // methods：构造器 + 接口方法 + 接口未声明的 Object 方法
+            List<String[]> objectMethods = new ArrayList<>();
+            for (String[] om : OBJECT_METHODS) {
+                if (!declares(om[0], om[1])) {
+                    objectMethods.add(om);
+                }
+            }
+            body.writeShort(1 + methods.length + objectMethods.size());
+            writeConstructor(body, codeAttr, "(" + targetDesc + LISTENER_DESC + ")V",
+                    objectInit, targetField, listenerField);
+            for (int i = 0; i < methods.length; i++) {
+                writeProxyMethod(body, codeAttr, i, methods[i],
+                        targetField, listenerField, before, afterReturning, afterThrowing);
+            }
+            for (String[] om : objectMethods) {
+                writeObjectMethod(body, codeAttr, om[0], om[1], targetField);
+            }
+
+            // class attributes
+            body.writeShort(0);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeInt(0xCAFEBABE);
+            dos.writeShort(0);
+            dos.writeShort(CLASS_VERSION);
+            dos.writeShort(poolCount);
+            pool.flush();
+            poolBytes.writeTo(dos);
+            body.flush();
+            bodyBytes.writeTo(dos);
+            dos.flush();
+            return out.toByteArray();
+        } catch (IOException e) {
+            // 只写内存流，不会发生
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeField(DataOutputStream out, String name, String desc) throws IOException {
+        out.writeShort(0x0002 | 0x0010); // PRIVATE | FINAL
+        out.writeShort(utf8(name));
+        out.writeShort(utf8(desc));
+        out.writeShort(0);
+    }
+
+    private void writeConstructor(DataOutputStream out, int codeAttr, String desc,
+                                  int objectInit, int targetField, int listenerField) throws IOException {
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(0x2a);                           // aload_0
+        code.writeByte(0xb7);                           // invokespecial Object.<init>
+        code.writeShort(objectInit);
+        code.writeByte(0x2a);                           // aload_0
+        code.writeByte(0x2b);                           // aload_1
+        code.writeByte(0xb5);                           // putfield target
+        code.writeShort(targetField);
+        code.writeByte(0x2a);                           // aload_0
+        code.writeByte(0x2c);                           // aload_2
+        code.writeByte(0xb5);                           // putfield listener
+        code.writeShort(listenerField);
+        code.writeByte(0xb1);                           // return
+        code.flush();
+
+        out.writeShort(0x0001);
+        out.writeShort(utf8("<init>"));
+        out.writeShort(utf8(desc));
+        out.writeShort(1);
+        writeCode(out, codeAttr, 2, 3, codeBytes.toByteArray(), null);
+    }
+
+    private void writeProxyMethod(DataOutputStream out, int codeAttr, int index, Method m,
+                                  int targetField, int listenerField,
+                                  int before, int afterReturning, int afterThrowing) throws IOException {
+        String desc = methodDescriptor(m);
+        int targetMethod = methodRef(internalName(m.getDeclaringClass()), m.getName(), desc, true);
+
+        Class<?>[] params = m.getParameterTypes();
+        int argSlots = 0;
+        for (Class<?> p : params) {
+            argSlots += slots(p);
+        }
+        Class<?> ret = m.getReturnType();
+        int tokenSlot = 1 + argSlots;
+        int resultSlot = tokenSlot + 2;
+        int exSlot = resultSlot + 2;
+        if (exSlot > 255) {
+            throw new IllegalArgumentException("参数过多，不支持生成代理: " + m);
+        }
+
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+
+        // long token = listener.before(idx)
+        code.writeByte(0x2a);
+        code.writeByte(0xb4);
+        code.writeShort(listenerField);
+        pushInt(code, index);
+        code.writeByte(0xb9);
+        code.writeShort(before);
+        code.writeByte(2);
+        code.writeByte(0);
+        code.writeByte(0x37);                           // lstore
+        code.writeByte(tokenSlot);
+
+        // try { target.m(args) }
+        int tryStart = code.size();
+        code.writeByte(0x2a);
+        code.writeByte(0xb4);
+        code.writeShort(targetField);
+        int slot = 1;
+        for (Class<?> p : params) {
+            code.writeByte(loadOpcode(p));
+            code.writeByte(slot);
+            slot += slots(p);
+        }
+        code.writeByte(0xb9);
+        code.writeShort(targetMethod);
+        code.writeByte(1 + argSlots);
+        code.writeByte(0);
+        int tryEnd = code.size();
+
+        if (ret != void.class) {
+            code.writeByte(storeOpcode(ret));
+            code.writeByte(resultSlot);
+        }
+
+        // listener.afterReturning(idx, token)
+        code.writeByte(0x2a);
+        code.writeByte(0xb4);
+        code.writeShort(listenerField);
+        pushInt(code, index);
+        code.writeByte(0x16);                           // lload
+        code.writeByte(tokenSlot);
+        code.writeByte(0xb9);
+        code.writeShort(afterReturning);
+        code.writeByte(4);
+        code.writeByte(0);
+
+        if (ret != void.class) {
+            code.writeByte(loadOpcode(ret));
+            code.writeByte(resultSlot);
+        }
+        code.writeByte(returnOpcode(ret));
+
+        // catch (Throwable t) { listener.afterThrowing(idx, token, t); throw t; }
+        int handler = code.size();
+        code.writeByte(0x3a);                           // astore
+        code.writeByte(exSlot);
+        code.writeByte(0x2a);
+        code.writeByte(0xb4);
+        code.writeShort(listenerField);
+        pushInt(code, index);
+        code.writeByte(0x16);
+        code.writeByte(tokenSlot);
+        code.writeByte(0x19);                           // aload
+        code.writeByte(exSlot);
+        code.writeByte(0xb9);
+        code.writeShort(afterThrowing);
+        code.writeByte(5);
+        code.writeByte(0);
+        code.writeByte(0x19);
+        code.writeByte(exSlot);
+        code.writeByte(0xbf);                           // athrow
+        code.flush();
+
+        out.writeShort(0x0001 | 0x0010);                // PUBLIC | FINAL
+        out.writeShort(utf8(m.getName()));
+        out.writeShort(utf8(desc));
+        out.writeShort(1);
+        int maxStack = Math.max(5, 1 + argSlots);
+        writeCode(out, codeAttr, maxStack, exSlot + 1, codeBytes.toByteArray(),
+                new int[]{tryStart, tryEnd, handler});
+    }
+
+    private boolean declares(String name, String desc) {
+        for (Method m : methods) {
+            if (m.getName().equals(name) && methodDescriptor(m).equals(desc)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Object 方法：invokevirtual 目标对象的同名方法，参数最多一个引用
+     */
+    private void writeObjectMethod(DataOutputStream out, int codeAttr, String name, String desc,
+                                   int targetField) throws IOException {
+        int objectMethod = methodRef("java/lang/Object", name, desc, false);
+        boolean hasArg = desc.startsWith("(L");
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(0x2a);                           // aload_0
+        code.writeByte(0xb4);                           // getfield target
+        code.writeShort(targetField);
+        if (hasArg) {
+            code.writeByte(0x2b);                       // aload_1
+        }
+        code.writeByte(0xb6);                           // invokevirtual
+        code.writeShort(objectMethod);
+        code.writeByte(desc.endsWith(";") ? 0xb0 : 0xac); // areturn / ireturn
+        code.flush();
+
+        out.writeShort(0x0001 | 0x0010);                // PUBLIC | FINAL
+        out.writeShort(utf8(name));
+        out.writeShort(utf8(desc));
+        out.writeShort(1);
+        writeCode(out, codeAttr, hasArg ? 2 : 1, hasArg ? 2 : 1, codeBytes.toByteArray(), null);
+    }
+
+    private void writeCode(DataOutputStream out, int codeAttr, int maxStack, int maxLocals,
+                           byte[] code, int[] exceptionEntry) throws IOException {
+        int exceptionTableLength = exceptionEntry == null ? 0 : 1;
+        out.writeShort(codeAttr);
+        out.writeInt(2 + 2 + 4 + code.length + 2 + exceptionTableLength * 8 + 2);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(exceptionTableLength);
+        if (exceptionEntry != null) {
+            out.writeShort(exceptionEntry[0]);
+            out.writeShort(exceptionEntry[1]);
+            out.writeShort(exceptionEntry[2]);
+            out.writeShort(0);                          // catch_type = any
+        }
+        out.writeShort(0);
+    }
+
+    // ==================== 常量池 ====================
+
+    private int utf8(String s) throws IOException {
+        Integer idx = poolIndex.get("U" + s);
+        if (idx != null) {
+            return idx;
+        }
+        pool.writeByte(1);
+        pool.writeUTF(s);
+        return register("U" + s, 1);
+    }
+
+    private int classRef(String internalName) throws IOException {
+        Integer idx = poolIndex.get("C" + internalName);
+        if (idx != null) {
+            return idx;
+        }
+        int name = utf8(internalName);
+        pool.writeByte(7);
+        pool.writeShort(name);
+        return register("C" + internalName, 1);
+    }
+
+    private int nameAndType(String name, String desc) throws IOException {
+        String key = "N" + name + ":" + desc;
+        Integer idx = poolIndex.get(key);
+        if (idx != null) {
+            return idx;
+        }
+        int n = utf8(name);
+        int d = utf8(desc);
+        pool.writeByte(12);
+        pool.writeShort(n);
+        pool.writeShort(d);
+        return register(key, 1);
+    }
+
+    private int fieldRef(String owner, String name, String desc) throws IOException {
+        return memberRef(9, owner, name, desc);
+    }
+
+    private int methodRef(String owner, String name, String desc, boolean isInterface) throws IOException {
+        return memberRef(isInterface ? 11 : 10, owner, name, desc);
+    }
+
+    private int memberRef(int tag, String owner, String name, String desc) throws IOException {
+        String key = "M" + tag + owner + "." + name + ":" + desc;
+        Integer idx = poolIndex.get(key);
+        if (idx != null) {
+            return idx;
+        }
+        int c = classRef(owner);
+        int nt = nameAndType(name, desc);
+        pool.writeByte(tag);
+        pool.writeShort(c);
+        pool.writeShort(nt);
+        return register(key, 1);
+    }
+
+    private int register(String key, int size) {
+        int idx = poolCount;
+        poolCount += size;
+        poolIndex.put(key, idx);
+        return idx;
+    }
+
+    // ==================== 类型工具 ====================
+
+    private static void pushInt(DataOutputStream code, int value) throws IOException {
+        if (value <= 5) {
+            code.writeByte(0x03 + value);               // iconst_<n>
+        } else if (value <= Byte.MAX_VALUE) {
+            code.writeByte(0x10);                       // bipush
+            code.writeByte(value);
+        } else {
+            code.writeByte(0x11);                       // sipush
+            code.writeShort(value);
+        }
+    }
+
+    private static int slots(Class<?> type) {
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private static int loadOpcode(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return 0x19;
+        }
+        if (type == long.class) {
+            return 0x16;
+        }
+        if (type == float.class) {
+            return 0x17;
+        }
+        if (type == double.class) {
+            return 0x18;
+        }
+        return 0x15;
+    }
+
+    private static int storeOpcode(Class<?> type) {
+        // xstore = xload + 0x21
+        return loadOpcode(type) + 0x21;
+    }
+
+    private static int returnOpcode(Class<?> type) {
+        if (type == void.class) {
+            return 0xb1;
+        }
+        if (!type.isPrimitive()) {
+            return 0xb0;
+        }
+        if (type == long.class) {
+            return 0xad;
+        }
+        if (type == float.class) {
+            return 0xae;
+        }
+        if (type == double.class) {
+            return 0xaf;
+        }
+        return 0xac;
+    }
+
+    static String internalName(Class<?> c) {
+        return c.getName().replace('.', '/');
+    }
+
+    static String methodDescriptor(Method m) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> p : m.getParameterTypes()) {
+            sb.append(descriptor(p));
+        }
+        return sb.append(')').append(descriptor(m.getReturnType())).toString();
+    }
+
+    private static String descriptor(Class<?> c) {
+        if (c.isArray()) {
+            return internalName(c);
+        }
+        if (!c.isPrimitive()) {
+            return "L" + internalName(c) + ";";
+        }
+        if (c == void.class) return "V";
+        if (c == boolean.class) return "Z";
+        if (c == byte.class) return "B";
+        if (c == char.class) return "C";
+        if (c == short.class) return "S";
+        if (c == int.class) return "I";
+        if (c == long.class) return "J";
+        if (c == float.class) return "F";
+        return "D";
+    }
+}
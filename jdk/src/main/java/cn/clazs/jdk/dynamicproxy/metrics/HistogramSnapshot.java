@@ -0,0 +1,120 @@
+package cn.clazs.jdk.dynamicproxy.metrics;
+
+/**
+ * 直方图的不可变快照，提供 HDR 风格的百分位查询
+ *
+ * 百分位返回的是"所在桶的上界"（与 HdrHistogram 的 highestEquivalentValue 一致），
+ * 所以结果只会高估、不会低估，误差在 3% 以内
+ *
+ * @author clazs
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long sampleCount;
+    private final long callCount;
+    private final long errorCount;
+
+    HistogramSnapshot(long[] counts, long unsampledCount, long errorCount) {
+        this.counts = counts;
+        this.errorCount = errorCount;
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        this.sampleCount = total;
+        this.callCount = total + unsampledCount;
+    }
+
+    /**
+     * 调用次数（包含未被采样计时的调用）
+     */
+    public long getCount() {
+        return callCount;
+    }
+
+    /**
+     * 直方图中的样本数
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @param percentile 0 ~ 100，例如 99.9
+     * @return 纳秒
+     */
+    public long percentile(double percentile) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        double p = Math.min(Math.max(percentile, 0.0), 100.0);
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * sampleCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return StripedHistogram.bucketUpperBound(i);
+            }
+        }
+        return getMax();
+    }
+
+    public long getMin() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                return StripedHistogram.bucketLowerBound(i);
+            }
+        }
+        return 0;
+    }
+
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return StripedHistogram.bucketUpperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 平均值（按桶中点估算）
+     */
+    public double getMean() {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                double mid = (StripedHistogram.bucketLowerBound(i) + StripedHistogram.bucketUpperBound(i)) / 2.0;
+                sum += mid * counts[i];
+            }
+        }
+        return sum / sampleCount;
+    }
+
+    /**
+     * 两个快照相减，用于计算某个时间窗口内的增量
+     */
+    public HistogramSnapshot minus(HistogramSnapshot earlier) {
+        long[] diff = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            diff[i] = counts[i] - earlier.counts[i];
+        }
+        long unsampled = (callCount - sampleCount) - (earlier.callCount - earlier.sampleCount);
+        return new HistogramSnapshot(diff, unsampled, errorCount - earlier.errorCount);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, errors=%d, samples=%d, mean=%.0fns, p50=%dns, p90=%dns, p99=%dns, p999=%dns, max=%dns",
+                callCount, errorCount, sampleCount, getMean(),
+                percentile(50), percentile(90), percentile(99), percentile(99.9), getMax());
+    }
+}
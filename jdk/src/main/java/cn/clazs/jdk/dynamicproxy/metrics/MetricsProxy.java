@@ -0,0 +1,149 @@
+package cn.clazs.jdk.dynamicproxy.metrics;
+
+import cn.clazs.jdk.dynamicproxy.fastproxy.FastProxyFactory;
+import cn.clazs.jdk.dynamicproxy.fastproxy.MethodListener;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 延迟指标代理：为任意接口的每个方法记录 调用次数、错误次数、延迟直方图
+ *
+ * 实现要点：
+ * - 基于 FastProxyFactory 生成的代理，调用本身没有反射和参数数组
+ * - before 返回 System.nanoTime() 作为令牌，不需要 ThreadLocal 保存开始时间
+ * - 方法下标直接映射到预先创建好的直方图数组，热路径上没有 Map 查找
+ * - 直方图按线程分段写入，读取时合并
+ *
+ * 热路径开销 ≈ 两次 nanoTime + 一次无竞争的原子自增，通常在 30~60ns；
+ * 在 nanoTime 较慢的虚拟机上可以开启采样：每次调用都计数，但只有 1/sampleRate 的调用计时
+ *
+ * 使用方式：
+ * <pre>
+ * MetricsRegistry registry = new MetricsRegistry();
+ * UserService service = MetricsProxy.wrap(UserService.class, new UserServiceImpl(), registry);
+ * System.out.println(registry.scrape());
+ * </pre>
+ *
+ * @author clazs
+ */
+public class MetricsProxy {
+
+    private MetricsProxy() {
+    }
+
+    public static <T> T wrap(Class<T> iface, T target, MetricsRegistry registry) {
+        return wrap(iface, target, registry, 1);
+    }
+
+    /**
+     * @param sampleRate 计时采样率，必须是 2 的幂；1 表示每次调用都计时
+     */
+    public static <T> T wrap(Class<T> iface, T target, MetricsRegistry registry, int sampleRate) {
+        if (sampleRate <= 0 || (sampleRate & (sampleRate - 1)) != 0) {
+            throw new IllegalArgumentException("sampleRate 必须是 2 的幂: " + sampleRate);
+        }
+        Method[] methods = FastProxyFactory.proxyMethods(iface);
+        StripedHistogram[] histograms = new StripedHistogram[methods.length];
+
+        // 统计重名方法，重载的方法在指标名上带参数类型以区分
+        Map<String, Integer> nameCount = new HashMap<>();
+        for (Method m : methods) {
+            nameCount.merge(m.getName(), 1, Integer::sum);
+        }
+        for (int i = 0; i < methods.length; i++) {
+            histograms[i] = registry.histogram(metricName(iface, methods[i], nameCount.get(methods[i].getName()) > 1));
+        }
+        MethodListener listener = sampleRate == 1
+                ? new MetricsListener(histograms)
+                : new SampledMetricsListener(histograms, sampleRate - 1);
+        return FastProxyFactory.create(iface, target, listener);
+    }
+
+    private static String metricName(Class<?> iface, Method m, boolean overloaded) {
+        StringBuilder sb = new StringBuilder(iface.getSimpleName()).append('.').append(m.getName());
+        if (overloaded) {
+            sb.append('(');
+            Class<?>[] params = m.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(params[i].getSimpleName());
+            }
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 计时回调
+     */
+    static final class MetricsListener implements MethodListener {
+
+        private final StripedHistogram[] histograms;
+
+        MetricsListener(StripedHistogram[] histograms) {
+            this.histograms = histograms;
+        }
+
+        @Override
+        public long before(int methodIndex) {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void afterReturning(int methodIndex, long token) {
+            histograms[methodIndex].record(System.nanoTime() - token, false);
+        }
+
+        @Override
+        public void afterThrowing(int methodIndex, long token, Throwable ex) {
+            histograms[methodIndex].record(System.nanoTime() - token, true);
+        }
+    }
+
+    /**
+     * 采样计时回调：未被采样的调用返回令牌 -1，只计数不计时
+     */
+    static final class SampledMetricsListener implements MethodListener {
+
+        private static final long NOT_SAMPLED = -1L;
+
+        private final StripedHistogram[] histograms;
+        private final int sampleMask;
+
+        SampledMetricsListener(StripedHistogram[] histograms, int sampleMask) {
+            this.histograms = histograms;
+            this.sampleMask = sampleMask;
+        }
+
+        @Override
+        public long before(int methodIndex) {
+            if ((ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+                return NOT_SAMPLED;
+            }
+            return System.nanoTime();
+        }
+
+        @Override
+        public void afterReturning(int methodIndex, long token) {
+            record(methodIndex, token, false);
+        }
+
+        @Override
+        public void afterThrowing(int methodIndex, long token, Throwable ex) {
+            record(methodIndex, token, true);
+        }
+
+        private void record(int methodIndex, long token, boolean failure) {
+            if (token == NOT_SAMPLED) {
+                histograms[methodIndex].recordCall(failure);
+            } else {
+                histograms[methodIndex].record(System.nanoTime() - token, failure);
+            }
+        }
+    }
+}
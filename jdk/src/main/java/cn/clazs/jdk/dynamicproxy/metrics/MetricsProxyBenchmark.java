@@ -0,0 +1,75 @@
+package cn.clazs.jdk.dynamicproxy.metrics;
+
+import cn.clazs.jdk.dynamicproxy.fastproxy.FastProxyBenchmark.OrderService;
+import cn.clazs.jdk.dynamicproxy.fastproxy.FastProxyBenchmark.OrderServiceImpl;
+import cn.clazs.jdk.dynamicproxy.fastproxy.FastProxyFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标代理的单次调用开销（JMH），多线程下观察分段直方图是否有竞争
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsProxyBenchmark {
+
+    private OrderService direct;
+    private OrderService plainProxy;
+    private OrderService metricsProxy;
+    private OrderService sampledMetricsProxy;
+
+    @Setup
+    public void setup() {
+        OrderService target = new OrderServiceImpl();
+        direct = target;
+        plainProxy = FastProxyFactory.create(OrderService.class, target);
+        metricsProxy = MetricsProxy.wrap(OrderService.class, target, new MetricsRegistry());
+        sampledMetricsProxy = MetricsProxy.wrap(OrderService.class, target, new MetricsRegistry(), 16);
+    }
+
+    @Benchmark
+    public int direct() {
+        return direct.addOrder(42, 100L);
+    }
+
+    @Benchmark
+    public int plainProxy() {
+        return plainProxy.addOrder(42, 100L);
+    }
+
+    @Benchmark
+    public int metricsProxy() {
+        return metricsProxy.addOrder(42, 100L);
+    }
+
+    @Benchmark
+    public int sampledMetricsProxy() {
+        return sampledMetricsProxy.addOrder(42, 100L);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int metricsProxy8Threads() {
+        return metricsProxy.addOrder(42, 100L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MetricsProxyBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
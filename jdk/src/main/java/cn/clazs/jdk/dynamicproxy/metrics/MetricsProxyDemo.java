@@ -0,0 +1,69 @@
+package cn.clazs.jdk.dynamicproxy.metrics;
+
+import cn.clazs.jdk.dynamicproxy.jdkdynamic.UserService;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 延迟指标代理演示：多线程调用后导出百分位快照
+ *
+ * @author clazs
+ */
+public class MetricsProxyDemo {
+
+    public static void main(String[] args) throws InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        // 不打印日志的 UserService 实现，模拟不同耗时以及偶发异常
+        UserService realObject = new UserService() {
+            @Override
+            public void addUser(String username) {
+                busyWork(ThreadLocalRandom.current().nextInt(1_000, 50_000));
+            }
+
+            @Override
+            public void deleteUser(String username) {
+                if (ThreadLocalRandom.current().nextInt(100) == 0) {
+                    throw new IllegalStateException("用户不存在: " + username);
+                }
+                busyWork(500);
+            }
+        };
+
+        UserService proxy = MetricsProxy.wrap(UserService.class, realObject, registry);
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    proxy.addUser("user-" + i);
+                    try {
+                        proxy.deleteUser("user-" + i);
+                    } catch (IllegalStateException ignored) {
+                        // 错误次数会被代理记录
+                    }
+                }
+            }, "Caller-" + t);
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.println("##### 百分位快照 #####");
+        registry.snapshots().forEach((name, snapshot) -> System.out.println(name + " -> " + snapshot));
+
+        System.out.println("\n##### Prometheus 抓取格式 #####");
+        System.out.print(registry.scrape());
+    }
+
+    private static long sink;
+
+    private static void busyWork(int iterations) {
+        long x = 0;
+        for (int i = 0; i < iterations; i++) {
+            x += i * 31L;
+        }
+        sink += x;
+    }
+}
@@ -0,0 +1,70 @@
+package cn.clazs.jdk.dynamicproxy.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 指标注册表：按名称持有直方图，并提供可被抓取（scrape）的文本导出
+ *
+ * 导出格式兼容 Prometheus 的 summary 文本格式：
+ * <pre>
+ * method_latency_nanos{method="UserService.addUser",quantile="0.99"} 1234
+ * method_latency_nanos_count{method="UserService.addUser"} 100
+ * method_errors_total{method="UserService.addUser"} 0
+ * </pre>
+ *
+ * @author clazs
+ */
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final ConcurrentMap<String, StripedHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * 获取（不存在则创建）指定名称的直方图
+     */
+    public StripedHistogram histogram(String name) {
+        StripedHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, k -> new StripedHistogram());
+        }
+        return histogram;
+    }
+
+    /**
+     * 所有直方图的快照，按名称排序
+     */
+    public Map<String, HistogramSnapshot> snapshots() {
+        Map<String, HistogramSnapshot> result = new TreeMap<>();
+        histograms.forEach((name, histogram) -> result.put(name, histogram.snapshot()));
+        return result;
+    }
+
+    /**
+     * 导出为 Prometheus 文本格式
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE method_latency_nanos summary\n");
+        Map<String, HistogramSnapshot> snapshots = snapshots();
+        for (Map.Entry<String, HistogramSnapshot> e : snapshots.entrySet()) {
+            String label = "method=\"" + e.getKey() + "\"";
+            HistogramSnapshot s = e.getValue();
+            for (double q : QUANTILES) {
+                sb.append("method_latency_nanos{").append(label)
+                        .append(",quantile=\"").append(q).append("\"} ")
+                        .append(s.percentile(q * 100)).append('\n');
+            }
+            sb.append("method_latency_nanos_count{").append(label).append("} ").append(s.getCount()).append('\n');
+        }
+        sb.append("# TYPE method_errors_total counter\n");
+        for (Map.Entry<String, HistogramSnapshot> e : snapshots.entrySet()) {
+            sb.append("method_errors_total{method=\"").append(e.getKey()).append("\"} ")
+                    .append(e.getValue().getErrorCount()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package cn.clazs.jdk.dynamicproxy.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 分段（striped）的 HDR 风格延迟直方图
+ *
+ * 桶的划分（对数-线性，与 HdrHistogram 思路相同）：
+ * - 值 < 64 的每个值一个桶
+ * - 之后每个 2 的幂区间再均分 32 个桶，相对误差约 3%
+ * - 最大记录值约 2^44 ns（约 4.8 小时），超出的记到最后一个桶
+ *
+ * 并发写入：
+ * - 按线程 id 选择分段，每个分段是一个独立的 AtomicLongArray（首次使用时才分配）
+ * - 不同线程大概率落在不同分段上，避免同一缓存行上的 CAS 竞争
+ * - 读取（snapshot）时把所有分段合并，读是低频操作，代价由读方承担
+ *
+ * @author clazs
+ */
+public class StripedHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;          // 32
+    static final int FIRST_GROUP_SIZE = SUB_BUCKET_COUNT << 1;          // 64
+    static final int MAX_MAGNITUDE = 43;
+    static final int BUCKET_COUNT = FIRST_GROUP_SIZE + (MAX_MAGNITUDE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    // 每个分段数组的末尾额外放 未采样的调用次数、错误次数
+    // 总调用次数 = 直方图样本数 + 未采样次数，这样被计时的调用只需要一次原子自增
+    private static final int UNSAMPLED_SLOT = BUCKET_COUNT;
+    private static final int ERROR_SLOT = BUCKET_COUNT + 1;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final int mask;
+
+    public StripedHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedHistogram(int concurrency) {
+        int size = 1;
+        while (size < concurrency && size < 64) {
+            size <<= 1;
+        }
+        this.stripes = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 记录一次调用及其耗时
+     *
+     * @param nanos   耗时（纳秒）
+     * @param failure 是否以异常结束
+     */
+    public void record(long nanos, boolean failure) {
+        AtomicLongArray stripe = stripe();
+        stripe.getAndIncrement(bucketIndex(nanos));
+        if (failure) {
+            stripe.getAndIncrement(ERROR_SLOT);
+        }
+    }
+
+    /**
+     * 只记录调用次数（未被采样计时的调用）
+     */
+    public void recordCall(boolean failure) {
+        AtomicLongArray stripe = stripe();
+        stripe.getAndIncrement(UNSAMPLED_SLOT);
+        if (failure) {
+            stripe.getAndIncrement(ERROR_SLOT);
+        }
+    }
+
+    private AtomicLongArray stripe() {
+        int idx = (int) Thread.currentThread().getId() & mask;
+        AtomicLongArray stripe = stripes.get(idx);
+        if (stripe == null) {
+            AtomicLongArray created = new AtomicLongArray(BUCKET_COUNT + 2);
+            if (stripes.compareAndSet(idx, null, created)) {
+                return created;
+            }
+            stripe = stripes.get(idx);
+        }
+        return stripe;
+    }
+
+    /**
+     * 合并所有分段，得到一个不可变快照
+     */
+    public HistogramSnapshot snapshot() {
+        long[] merged = new long[BUCKET_COUNT];
+        long unsampled = 0;
+        long errors = 0;
+        for (int s = 0; s < stripes.length(); s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                merged[i] += stripe.get(i);
+            }
+            unsampled += stripe.get(UNSAMPLED_SLOT);
+            errors += stripe.get(ERROR_SLOT);
+        }
+        return new HistogramSnapshot(merged, unsampled, errors);
+    }
+
+    // ==================== 桶下标计算 ====================
+
+    static int bucketIndex(long value) {
+        if (value < FIRST_GROUP_SIZE) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;                        // >= 1
+        int sub = (int) (value >>> shift);                              // [32, 64)
+        return FIRST_GROUP_SIZE + (shift - 1) * SUB_BUCKET_COUNT + (sub - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * 桶的下界（含）
+     */
+    static long bucketLowerBound(int index) {
+        if (index < FIRST_GROUP_SIZE) {
+            return index;
+        }
+        int offset = index - FIRST_GROUP_SIZE;
+        int shift = offset / SUB_BUCKET_COUNT + 1;
+        long sub = offset % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return sub << shift;
+    }
+
+    /**
+     * 桶的上界（含）
+     */
+    static long bucketUpperBound(int index) {
+        if (index < FIRST_GROUP_SIZE) {
+            return index;
+        }
+        int offset = index - FIRST_GROUP_SIZE;
+        int shift = offset / SUB_BUCKET_COUNT + 1;
+        long sub = offset % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
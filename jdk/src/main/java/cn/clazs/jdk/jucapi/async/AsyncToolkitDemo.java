@@ -0,0 +1,118 @@
+package cn.clazs.jdk.jucapi.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AsyncToolkit 演示
+ *
+ * 场景：用户主页 = 查询用户（阻塞 I/O） + 查询订单（阻塞 I/O） -> 渲染（CPU）
+ *
+ * @author clazs
+ */
+public class AsyncToolkitDemo {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== AsyncToolkit 演示 ==========\n");
+
+        try (AsyncToolkit toolkit = new AsyncToolkit()
+                .registerWorkload("io", 16, 1000)
+                .registerWorkload("cpu", 2, 1000)
+                .registerWorkload("import", 4, 20)) {
+
+            System.out.println("【演示 1】200 个主页请求，阻塞调用全部在 io 池上执行");
+            demoPipeline(toolkit);
+
+            System.out.println("\n【演示 2】超时：查询耗时 2s，100ms 超时，执行中的线程被中断");
+            demoTimeout(toolkit);
+
+            System.out.println("\n【演示 3】取消向上游传播：取消渲染阶段，还在查询的用户阶段也被取消");
+            demoCancelPropagation(toolkit);
+
+            System.out.println("\n【演示 4】有界队列：import 池 4 线程 + 20 队列，第 25 个起被拒绝");
+            demoRejection(toolkit);
+
+            System.out.println("\n========== 报表（耗时单位 us） ==========");
+            System.out.print(toolkit.report());
+        }
+    }
+
+    private static void demoPipeline(AsyncToolkit toolkit) throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<String>> pages = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            final long userId = i;
+            TaskFuture<String> user = toolkit.supplyAsync("io", "loadUser", () -> {
+                Thread.sleep(20);
+                return "user-" + userId;
+            });
+            TaskFuture<Integer> orders = toolkit.supplyAsync("io", "loadOrders", () -> {
+                Thread.sleep(30);
+                return (int) (userId % 7);
+            });
+            // 合并两个结果后再交给 cpu 池渲染
+            CompletableFuture<String> merged = user.thenCombine(orders, (u, o) -> u + " 有 " + o + " 个订单");
+            TaskFuture<String> page = toolkit.thenApplyAsync(merged, "cpu", "render", s -> "<html>" + s + "</html>");
+            pages.add(toolkit.withTimeout(page, 5, TimeUnit.SECONDS));
+        }
+        CompletableFuture.allOf(pages.toArray(new CompletableFuture[0])).get();
+        System.out.println("示例结果: " + pages.get(3).get());
+        System.out.println("耗时: " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms"
+                + "，commonPool 活跃线程: " + ForkJoinPool.commonPool().getActiveThreadCount());
+    }
+
+    private static void demoTimeout(AsyncToolkit toolkit) throws InterruptedException {
+        TaskFuture<String> slow = toolkit.supplyAsync("io", "slowQuery", () -> {
+            try {
+                Thread.sleep(2000);
+                return "done";
+            } catch (InterruptedException e) {
+                System.out.println("  [" + Thread.currentThread().getName() + "] 查询被中断");
+                throw e;
+            }
+        });
+        toolkit.withTimeout(slow, 100, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        try {
+            slow.get();
+        } catch (ExecutionException e) {
+            System.out.println("结果: " + e.getCause() + "，等待了 "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        }
+        // 等待被中断的线程打印日志
+        Thread.sleep(50);
+    }
+
+    private static void demoCancelPropagation(AsyncToolkit toolkit) throws InterruptedException {
+        TaskFuture<String> user = toolkit.supplyAsync("io", "loadUser", () -> {
+            Thread.sleep(1000);
+            return "user";
+        });
+        TaskFuture<String> page = toolkit.thenApplyAsync(user, "cpu", "render", s -> "<html>" + s + "</html>");
+        Thread.sleep(50);
+        page.cancel(true);
+        Thread.sleep(50);
+        System.out.println("render 已取消: " + page.isCancelled() + "，loadUser 已取消: " + user.isCancelled());
+    }
+
+    private static void demoRejection(AsyncToolkit toolkit) {
+        int rejected = 0;
+        List<TaskFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            TaskFuture<Object> f = toolkit.supplyAsync("import", "batchImport", () -> {
+                Thread.sleep(100);
+                return null;
+            });
+            futures.add(f);
+            if (f.isCompletedExceptionally()) {
+                rejected++;
+            }
+        }
+        System.out.println("提交 50 个，被拒绝 " + rejected + " 个");
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+    }
+}
@@ -0,0 +1,71 @@
+package cn.clazs.jdk.jucapi.async;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 扇出工具：多个候选结果中取第一个成功的
+ *
+ * 与 CompletableFuture.anyOf 的区别：
+ * - anyOf 取第一个完成的，哪怕它是异常；这里忽略失败，只有全部失败才失败（其余异常作为 suppressed 附上）
+ * - anyOf 返回后其余任务继续运行，白白占用线程和连接；这里结果确定后立即 cancel(true) 其余候选
+ *   （AsyncToolkit 创建的 TaskFuture 会中断执行线程，普通 CompletableFuture 只是标记取消）
+ * - 返回值带泛型，不需要从 Object 强转
+ *
+ * @author clazs
+ */
+public final class FanOut {
+
+    private FanOut() {
+    }
+
+    public static <T> CompletableFuture<T> firstSuccessful(Collection<? extends CompletableFuture<? extends T>> candidates) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (candidates.isEmpty()) {
+            result.completeExceptionally(new IllegalArgumentException("没有候选任务"));
+            return result;
+        }
+        List<CompletableFuture<? extends T>> all = new ArrayList<>(candidates);
+        AtomicInteger remaining = new AtomicInteger(all.size());
+        List<Throwable> errors = new ArrayList<>();
+        for (CompletableFuture<? extends T> candidate : all) {
+            candidate.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                    return;
+                }
+                synchronized (errors) {
+                    errors.add(error);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    Throwable first;
+                    synchronized (errors) {
+                        first = errors.get(0);
+                        // 多个候选可能以同一个异常实例失败，自我抑制会抛 IllegalArgumentException，result 就永远不会完成
+                        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                        seen.add(first);
+                        for (int i = 1; i < errors.size(); i++) {
+                            if (seen.add(errors.get(i))) {
+                                first.addSuppressed(errors.get(i));
+                            }
+                        }
+                    }
+                    result.completeExceptionally(first);
+                }
+            });
+        }
+        // 结果确定（成功、全部失败、或调用方取消）后取消其余候选
+        result.whenComplete((value, error) -> {
+            for (CompletableFuture<? extends T> candidate : all) {
+                candidate.cancel(true);
+            }
+        });
+        return result;
+    }
+}
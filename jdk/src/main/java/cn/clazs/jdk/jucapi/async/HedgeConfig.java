@@ -0,0 +1,48 @@
+package cn.clazs.jdk.jucapi.async;
+
+import lombok.Data;
+
+/**
+ * 对冲请求配置
+ *
+ * @author clazs
+ */
+@Data
+public class HedgeConfig {
+
+    /**
+     * 按历史延迟的哪个分位数决定对冲延迟，例如 95 表示主请求超过 p95 还没返回才发对冲请求
+     */
+    private double percentile = 95;
+
+    /**
+     * 样本不足时使用的对冲延迟（毫秒）
+     */
+    private long initialDelayMillis = 50;
+
+    /**
+     * 对冲延迟的下限 / 上限（毫秒），防止延迟整体很低时几乎每个请求都被对冲
+     */
+    private long minDelayMillis = 10;
+    private long maxDelayMillis = 1000;
+
+    /**
+     * 计算分位数前至少需要的成功样本数
+     */
+    private int minSamples = 100;
+
+    /**
+     * 每次请求最多发出的尝试次数（主请求 + 对冲 + 失败重试）
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 额外负载上限：对冲请求数不超过主请求数的这个比例（令牌桶，每个主请求存入 ratio 个令牌）
+     */
+    private double maxExtraLoadRatio = 0.1;
+
+    /**
+     * 令牌桶容量，允许短时间内集中对冲的次数
+     */
+    private int maxBurst = 10;
+}
@@ -0,0 +1,123 @@
+package cn.clazs.jdk.jucapi.async;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对冲请求与"第一个成功者胜出"演示
+ *
+ * 模拟的副本：95% 的请求 5~15ms，5% 的请求卡住 300ms（GC、慢盘、网络抖动）
+ *
+ * @author clazs
+ */
+public class HedgedCallDemo {
+
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== 对冲请求演示 ==========\n");
+
+        try (AsyncToolkit toolkit = new AsyncToolkit().registerWorkload("replica", 64, 1000)) {
+            System.out.println("【演示 1】firstSuccessful vs anyOf：第一个完成的是失败，慢的成功");
+            demoFirstSuccessful(toolkit);
+
+            List<Callable<String>> replicas = Arrays.asList(replica("A"), replica("B"), replica("C"));
+
+            System.out.println("\n【演示 2】不对冲（maxAttempts = 1）");
+            HedgeConfig noHedge = new HedgeConfig();
+            noHedge.setMaxAttempts(1);
+            run(new HedgedCaller(toolkit, "replica", "read.noHedge", noHedge), replicas);
+
+            System.out.println("\n【演示 3】超过 p95 对冲，额外负载上限 10%");
+            HedgeConfig hedge = new HedgeConfig();
+            hedge.setPercentile(95);
+            hedge.setInitialDelayMillis(20);
+            run(new HedgedCaller(toolkit, "replica", "read", hedge), replicas);
+
+            System.out.println("\n【演示 4】副本 A 全部失败：立即切换到下一个副本");
+            List<Callable<String>> withBroken = Arrays.asList(() -> {
+                throw new IllegalStateException("副本 A 宕机");
+            }, replica("B"), replica("C"));
+            run(new HedgedCaller(toolkit, "replica", "read.failover", hedge), withBroken);
+
+            Thread.sleep(100);
+            System.out.println("\n仍在执行的副本调用: " + RUNNING.get() + "（输家都已被中断）");
+            System.out.println("\n========== 阶段指标（耗时单位 us） ==========");
+            System.out.print(toolkit.report());
+        }
+    }
+
+    private static void demoFirstSuccessful(AsyncToolkit toolkit) throws Exception {
+        TaskFuture<String> failFast = toolkit.supplyAsync("replica", "race", () -> {
+            Thread.sleep(50);
+            throw new IllegalStateException("快但失败");
+        });
+        TaskFuture<String> slowOk = toolkit.supplyAsync("replica", "race", () -> {
+            Thread.sleep(150);
+            return "慢但成功";
+        });
+        TaskFuture<String> verySlow = toolkit.supplyAsync("replica", "race", () -> {
+            Thread.sleep(3000);
+            return "非常慢";
+        });
+        CompletableFuture<Object> anyOf = CompletableFuture.anyOf(failFast, slowOk, verySlow);
+        anyOf.handle((v, e) -> {
+            System.out.println("anyOf:           " + (e != null ? "异常 " + e.getCause().getMessage() : v));
+            return null;
+        }).join();
+
+        CompletableFuture<String> first = FanOut.firstSuccessful(Arrays.asList(failFast, slowOk, verySlow));
+        System.out.println("firstSuccessful: " + first.get());
+        System.out.println("最慢的候选已取消: " + verySlow.isCancelled());
+    }
+
+    private static Callable<String> replica(String name) {
+        return () -> {
+            RUNNING.incrementAndGet();
+            try {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long millis = random.nextInt(100) < 5 ? 300 : 5 + random.nextInt(10);
+                Thread.sleep(millis);
+                return name;
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * 并发 20 发起 1000 次调用，统计端到端延迟
+     */
+    private static void run(HedgedCaller caller, List<Callable<String>> replicas) throws InterruptedException {
+        int total = 1000;
+        Semaphore concurrency = new Semaphore(20);
+        long[] latencies = new long[total];
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            concurrency.acquire();
+            final int index = i;
+            long start = System.nanoTime();
+            CompletableFuture<String> f = caller.call(replicas);
+            f.whenComplete((v, e) -> {
+                latencies[index] = System.nanoTime() - start;
+                concurrency.release();
+            });
+            futures.add(f);
+        }
+        concurrency.acquire(20);
+        long failed = futures.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+        Arrays.sort(latencies);
+        System.out.printf("p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms 失败=%d%n",
+                latencies[total / 2] / 1e6, latencies[total * 99 / 100] / 1e6,
+                latencies[total * 999 / 1000] / 1e6, latencies[total - 1] / 1e6, failed);
+        System.out.println(caller);
+        TimeUnit.MILLISECONDS.sleep(10);
+    }
+}
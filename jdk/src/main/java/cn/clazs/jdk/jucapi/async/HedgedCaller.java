@@ -0,0 +1,288 @@
+package cn.clazs.jdk.jucapi.async;
+
+import cn.clazs.jdk.dynamicproxy.metrics.HistogramSnapshot;
+import cn.clazs.jdk.dynamicproxy.metrics.StripedHistogram;
+import io.netty.util.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲请求（hedged request）：降低向多个副本扇出调用的尾延迟
+ *
+ * 一次调用的过程：
+ * 1. 向第一个副本发出主请求
+ * 2. 超过"对冲延迟"还没有成功结果，就向下一个副本再发一次（对冲），以此类推，最多 maxAttempts 次
+ * 3. 某次尝试失败时立即换下一个副本（不等对冲延迟）；只有全部尝试都失败才失败
+ * 4. 第一个成功的结果胜出，其余尝试 cancel(true)，执行中的线程被中断
+ *
+ * 对冲延迟 = 最近一批成功请求延迟的 p{percentile}，夹在 [minDelay, maxDelay] 之间：
+ * 只有落在尾部的慢请求才会被对冲，理论上额外负载约为 (100 - percentile)%
+ *
+ * 额外负载上限：令牌桶，每个主请求存入 maxExtraLoadRatio 个令牌，每次对冲消耗 1 个，
+ * 下游整体变慢时（所有请求都超过对冲延迟）对冲不会让负载翻倍，拿不到令牌就只等主请求
+ *
+ * 定时使用 AsyncToolkit 的共享时间轮，各次尝试作为普通阶段提交到指定负载的线程池上，
+ * 主请求、对冲请求分别以 stage、stage.hedge 记录到 AsyncToolkit 的阶段指标中
+ *
+ * @author clazs
+ */
+public class HedgedCaller {
+
+    private static final long MILLI_TOKENS = 1000;
+
+    private final AsyncToolkit toolkit;
+    private final String workload;
+    private final String stage;
+    private final HedgeConfig config;
+
+    // 成功尝试的延迟，每积累 minSamples 个样本重新计算一次对冲延迟
+    private final StripedHistogram latency = new StripedHistogram();
+    private final AtomicLong samplesSinceUpdate = new AtomicLong();
+    private volatile HistogramSnapshot windowBase;
+    private volatile long hedgeDelayNanos;
+
+    // 令牌桶，单位：千分之一个令牌
+    private final AtomicLong budget;
+    private final long depositPerRequest;
+    private final long maxBudget;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder budgetDenied = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+
+    public HedgedCaller(AsyncToolkit toolkit, String workload, String stage, HedgeConfig config) {
+        toolkit.workload(workload);
+        this.toolkit = toolkit;
+        this.workload = workload;
+        this.stage = stage;
+        this.config = config;
+        this.hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getInitialDelayMillis());
+        this.windowBase = latency.snapshot();
+        this.depositPerRequest = (long) (config.getMaxExtraLoadRatio() * MILLI_TOKENS);
+        this.maxBudget = config.getMaxBurst() * MILLI_TOKENS;
+        this.budget = new AtomicLong(maxBudget);
+    }
+
+    /**
+     * 发起一次对冲调用
+     *
+     * @param replicas 各副本上的同一个调用，按顺序依次作为主请求、对冲请求，尝试次数超过副本数时循环使用
+     */
+    public <T> CompletableFuture<T> call(List<? extends Callable<T>> replicas) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("没有副本");
+        }
+        requests.increment();
+        deposit();
+        Call<T> call = new Call<>(replicas);
+        call.launch(false);
+        call.scheduleHedge();
+        return call.result;
+    }
+
+    /**
+     * 一次调用的状态，尝试的启动与失败计数由 this 锁保护（每次调用只有几个尝试，竞争可以忽略）
+     */
+    private final class Call<T> {
+        final List<? extends Callable<T>> replicas;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final List<TaskFuture<T>> attempts = new ArrayList<>();
+        int started;
+        int failed;
+        Throwable firstError;
+        volatile Timeout hedgeTimer;
+
+        Call(List<? extends Callable<T>> replicas) {
+            this.replicas = replicas;
+            result.whenComplete((value, error) -> {
+                Timeout timer = hedgeTimer;
+                if (timer != null) {
+                    timer.cancel();
+                }
+                List<TaskFuture<T>> losers;
+                synchronized (this) {
+                    losers = new ArrayList<>(attempts);
+                }
+                for (TaskFuture<T> attempt : losers) {
+                    attempt.cancel(true);
+                }
+            });
+        }
+
+        boolean launch(boolean hedge) {
+            int index;
+            synchronized (this) {
+                if (result.isDone() || started >= config.getMaxAttempts()) {
+                    return false;
+                }
+                index = started++;
+            }
+            long attemptStart = System.nanoTime();
+            TaskFuture<T> attempt = toolkit.supplyAsync(workload, hedge ? stage + ".hedge" : stage,
+                    replicas.get(index % replicas.size()));
+            synchronized (this) {
+                attempts.add(attempt);
+            }
+            if (result.isDone()) {
+                // 与结果完成的回调并发，补一次取消
+                attempt.cancel(true);
+            }
+            attempt.whenComplete((value, error) -> onAttemptComplete(hedge, attemptStart, value, error));
+            return true;
+        }
+
+        void onAttemptComplete(boolean hedge, long attemptStart, T value, Throwable error) {
+            if (error == null) {
+                if (result.complete(value)) {
+                    recordLatency(System.nanoTime() - attemptStart);
+                    if (hedge) {
+                        hedgeWins.increment();
+                    }
+                }
+                return;
+            }
+            if (error instanceof CancellationException || result.isDone()) {
+                // 输家被取消
+                return;
+            }
+            boolean retry;
+            boolean allFailed;
+            synchronized (this) {
+                failed++;
+                if (firstError == null) {
+                    firstError = error;
+                } else if (firstError != error) {
+                    firstError.addSuppressed(error);
+                }
+                retry = started < config.getMaxAttempts();
+                allFailed = !retry && failed == started;
+            }
+            if (retry && launch(false)) {
+                failovers.increment();
+            } else if (allFailed) {
+                result.completeExceptionally(firstError);
+            }
+        }
+
+        void scheduleHedge() {
+            if (result.isDone()) {
+                return;
+            }
+            hedgeTimer = toolkit.schedule(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                synchronized (this) {
+                    if (started >= config.getMaxAttempts()) {
+                        return;
+                    }
+                }
+                if (!tryAcquireBudget()) {
+                    budgetDenied.increment();
+                    return;
+                }
+                if (launch(true)) {
+                    hedges.increment();
+                    scheduleHedge();
+                } else {
+                    refund();
+                }
+            }, hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ==================== 对冲延迟 ====================
+
+    private void recordLatency(long nanos) {
+        latency.record(nanos, false);
+        if (samplesSinceUpdate.incrementAndGet() >= config.getMinSamples()) {
+            samplesSinceUpdate.set(0);
+            HistogramSnapshot current = latency.snapshot();
+            HistogramSnapshot window = current.minus(windowBase);
+            windowBase = current;
+            long delay = window.percentile(config.getPercentile());
+            long min = TimeUnit.MILLISECONDS.toNanos(config.getMinDelayMillis());
+            long max = TimeUnit.MILLISECONDS.toNanos(config.getMaxDelayMillis());
+            hedgeDelayNanos = Math.max(min, Math.min(max, delay));
+        }
+    }
+
+    // ==================== 令牌桶 ====================
+
+    private void deposit() {
+        while (true) {
+            long current = budget.get();
+            long next = Math.min(maxBudget, current + depositPerRequest);
+            if (next == current || budget.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryAcquireBudget() {
+        while (true) {
+            long current = budget.get();
+            if (current < MILLI_TOKENS) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - MILLI_TOKENS)) {
+                return true;
+            }
+        }
+    }
+
+    private void refund() {
+        budget.addAndGet(MILLI_TOKENS);
+    }
+
+    // ==================== 统计 ====================
+
+    public long getHedgeDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos);
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    public long getBudgetDenied() {
+        return budgetDenied.sum();
+    }
+
+    public long getFailovers() {
+        return failovers.sum();
+    }
+
+    /**
+     * 对冲带来的额外负载比例
+     */
+    public double getExtraLoadRatio() {
+        long n = requests.sum();
+        return n == 0 ? 0 : (double) hedges.sum() / n;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HedgedCaller{stage=%s, requests=%d, hedges=%d (%.1f%%), hedgeWins=%d, "
+                        + "budgetDenied=%d, failovers=%d, hedgeDelay=%dms}",
+                stage, getRequests(), getHedges(), getExtraLoadRatio() * 100, getHedgeWins(),
+                getBudgetDenied(), getFailovers(), getHedgeDelayMillis());
+    }
+}
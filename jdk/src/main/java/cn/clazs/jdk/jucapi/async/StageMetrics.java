@@ -0,0 +1,105 @@
+package cn.clazs.jdk.jucapi.async;
+
+import cn.clazs.jdk.dynamicproxy.metrics.HistogramSnapshot;
+import cn.clazs.jdk.dynamicproxy.metrics.StripedHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个阶段（stage）的指标
+ *
+ * - 排队时间：提交到线程池 -> 开始执行，持续偏高说明该负载的线程数不够
+ * - 执行时间：开始执行 -> 结束（成功或异常）
+ * - 提交时的队列深度：平均值与最大值
+ * - 超时、取消、拒绝次数
+ *
+ * @author clazs
+ */
+public class StageMetrics {
+
+    private final String stage;
+    private final String workload;
+
+    private final StripedHistogram queueWait = new StripedHistogram();
+    private final StripedHistogram runTime = new StripedHistogram();
+    private final LongAdder queueDepthSum = new LongAdder();
+    private final LongAdder submitted = new LongAdder();
+    private volatile int maxQueueDepth;
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    StageMetrics(String stage, String workload) {
+        this.stage = stage;
+        this.workload = workload;
+    }
+
+    void onSubmit(int queueDepth) {
+        submitted.increment();
+        queueDepthSum.add(queueDepth);
+        if (queueDepth > maxQueueDepth) {
+            maxQueueDepth = queueDepth;
+        }
+    }
+
+    void onStart(long queueNanos) {
+        queueWait.record(queueNanos, false);
+    }
+
+    void onFinish(long runNanos, boolean failure) {
+        runTime.record(runNanos, failure);
+    }
+
+    void onTimeout() {
+        timeouts.increment();
+    }
+
+    void onCancel() {
+        cancellations.increment();
+    }
+
+    void onReject() {
+        rejections.increment();
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getWorkload() {
+        return workload;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public HistogramSnapshot getQueueWaitSnapshot() {
+        return queueWait.snapshot();
+    }
+
+    public HistogramSnapshot getRunTimeSnapshot() {
+        return runTime.snapshot();
+    }
+
+    public double getAverageQueueDepth() {
+        long n = submitted.sum();
+        return n == 0 ? 0 : (double) queueDepthSum.sum() / n;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getCancellations() {
+        return cancellations.sum();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+}
@@ -0,0 +1,115 @@
+package cn.clazs.jdk.jucapi.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AsyncToolkit 返回的 CompletableFuture，补上了原生 CompletableFuture 缺少的两点：
+ *
+ * 1. cancel / 超时会中断正在执行任务的线程（原生 cancel 的 mayInterruptIfRunning 参数没有任何作用），
+ *    还在排队的任务开始执行前会发现自己已完成，直接跳过
+ * 2. 取消向上游传播：本阶段被取消或超时后，如果上游阶段的所有下游（通过 AsyncToolkit 创建的）都已取消，
+ *    上游也会被取消；向下游的传播由 CompletableFuture 本身完成（下游以 CancellationException 异常完成）
+ *
+ * @author clazs
+ */
+public class TaskFuture<T> extends CompletableFuture<T> {
+
+    private final StageMetrics metrics;
+    private final TaskFuture<?> upstream;
+    private final AtomicInteger dependents = new AtomicInteger();
+
+    // runner / interruptSent 由 runnerLock 保护：保证中断只会落在执行本任务期间，不会误伤线程池里的下一个任务
+    private final Object runnerLock = new Object();
+    private Thread runner;
+    private boolean interruptSent;
+
+    TaskFuture(StageMetrics metrics, TaskFuture<?> upstream) {
+        this.metrics = metrics;
+        this.upstream = upstream;
+        if (upstream != null) {
+            upstream.dependents.incrementAndGet();
+        }
+    }
+
+    void run(Callable<T> body, long submitNanos) {
+        long start = System.nanoTime();
+        synchronized (runnerLock) {
+            if (isDone()) {
+                // 排队期间已被取消或超时
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+        metrics.onStart(start - submitNanos);
+        boolean failed = false;
+        try {
+            complete(body.call());
+        } catch (Throwable t) {
+            failed = true;
+            completeExceptionally(t);
+        } finally {
+            boolean clearInterrupt;
+            synchronized (runnerLock) {
+                runner = null;
+                clearInterrupt = interruptSent;
+            }
+            if (clearInterrupt) {
+                // 清除取消时发出的中断标记，线程回到池中继续执行其他任务
+                Thread.interrupted();
+            }
+            metrics.onFinish(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            metrics.onCancel();
+            if (mayInterruptIfRunning) {
+                interruptRunner();
+            }
+            propagateUpstream();
+        }
+        return cancelled;
+    }
+
+    /**
+     * 由定时轮触发
+     */
+    boolean timeout(TimeoutException e) {
+        boolean timedOut = completeExceptionally(e);
+        if (timedOut) {
+            metrics.onTimeout();
+            interruptRunner();
+            propagateUpstream();
+        }
+        return timedOut;
+    }
+
+    private void interruptRunner() {
+        synchronized (runnerLock) {
+            if (runner != null) {
+                interruptSent = true;
+                runner.interrupt();
+            }
+        }
+    }
+
+    private void propagateUpstream() {
+        if (upstream != null && upstream.dependents.decrementAndGet() == 0) {
+            upstream.cancel(true);
+        }
+    }
+
+    public String getStage() {
+        return metrics.getStage();
+    }
+
+    StageMetrics metrics() {
+        return metrics;
+    }
+}
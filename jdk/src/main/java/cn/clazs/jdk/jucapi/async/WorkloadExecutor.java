@@ -0,0 +1,70 @@
+package cn.clazs.jdk.jucapi.async;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 某一类工作负载（CPU 计算、阻塞 I/O、远程调用……）专用的有界线程池
+ *
+ * - 固定线程数 + 有界队列，队列满时直接拒绝（AbortPolicy），由调用方得到一个异常完成的 Future，
+ *   而不是像 CallerRunsPolicy 那样把阻塞任务拖回调用线程
+ * - 线程名 async-{workload}-{n}，线程 dump 中能直接看出是哪类负载
+ * - 不同负载互相隔离：阻塞 I/O 把自己的池占满，也不会影响 CPU 池和 ForkJoinPool.commonPool()
+ *
+ * @author clazs
+ */
+public class WorkloadExecutor {
+
+    private final String name;
+    private final int capacity;
+    private final ThreadPoolExecutor executor;
+
+    WorkloadExecutor(String name, int threads, int queueCapacity) {
+        this.name = name;
+        this.capacity = queueCapacity;
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "async-" + name + "-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return capacity;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * 当前存活的线程数（线程按需创建，刚启动时小于配置的线程数）
+     */
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public long getCompletedTaskCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,18 @@
+package cn.clazs.jdk.jucapi.batch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 批量加载函数：一次调用查询一批 key
+ *
+ * 返回的 Map 中缺少的 key 视为"不存在"，对应的 load 以 null 完成（不进入缓存）
+ *
+ * @author clazs
+ */
+@FunctionalInterface
+public interface BatchFunction<K, V> {
+
+    CompletionStage<Map<K, V>> load(List<K> keys);
+}
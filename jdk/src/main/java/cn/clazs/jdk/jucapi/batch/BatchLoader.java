@@ -0,0 +1,326 @@
+package cn.clazs.jdk.jucapi.batch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批量合并加载器（DataLoader 风格）
+ *
+ * 并发的 load(key) 先进入当前批次，满足以下任一条件就派发一次批量调用：
+ * - 批次中的 key 数达到 maxBatchSize（由触发的调用线程直接派发）
+ * - 批次中第一个 key 到达后经过 maxDelayMicros（由定时线程派发，所有 BatchLoader 共享一个定时线程）
+ *
+ * 批量结果按 key 分发回每个调用方的 CompletableFuture：
+ * - 同一批次内重复的 key 共享同一个 future，只查询一次
+ * - 开启缓存后缓存的是 future 本身，正在加载中的 key 也会被后来的调用复用；失败的结果和批量结果中缺少的 key 不缓存
+ * - 共享的 future 不直接交给调用方，每个调用方拿到各自的副本（见 copy），
+ *   一个调用方 cancel() / obtrudeValue() 不会影响同一个 key 的其他调用方
+ *
+ * 注意：BatchFunction 应当是异步的（把查询交给 IO 线程），否则攒满批次的那个调用方会被阻塞到查询结束
+ *
+ * @author clazs
+ */
+@Slf4j
+public class BatchLoader<K, V> implements AutoCloseable {
+
+    private final BatchFunction<K, V> batchFunction;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final boolean cacheEnabled;
+    private final int cacheMaxSize;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> cache = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    private Batch<K, V> pending;                 // 由 lock 保护
+    private boolean closed;                      // 由 lock 保护
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder dedupHits = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder dispatchedKeys = new LongAdder();
+
+    /**
+     * 一个待派发的批次，key 保持到达顺序
+     */
+    private static final class Batch<K, V> {
+        final LinkedHashMap<K, CompletableFuture<V>> entries = new LinkedHashMap<>();
+    }
+
+    private static final ScheduledThreadPoolExecutor TIMER = newTimer();
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "batch-loader-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    public BatchLoader(BatchFunction<K, V> batchFunction, BatchLoaderConfig config) {
+        if (config.getMaxBatchSize() < 1) {
+            throw new IllegalArgumentException("maxBatchSize 必须大于 0");
+        }
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = config.getMaxBatchSize();
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(config.getMaxDelayMicros());
+        this.cacheEnabled = config.isCacheEnabled();
+        this.cacheMaxSize = config.getCacheMaxSize();
+    }
+
+    public CompletableFuture<V> load(K key) {
+        Objects.requireNonNull(key, "key");
+        loads.increment();
+        if (cacheEnabled) {
+            CompletableFuture<V> cached = cache.get(key);
+            if (cached != null) {
+                cacheHits.increment();
+                return copy(cached);
+            }
+        }
+
+        CompletableFuture<V> future;
+        Batch<K, V> batch;
+        boolean first = false;
+        boolean full = false;
+        synchronized (lock) {
+            if (closed) {
+                // 关闭后不再进入批次：否则 key 留在 pending 里，定时派发又被拒绝，future 永远不会完成
+                future = new CompletableFuture<>();
+                future.completeExceptionally(new IllegalStateException("BatchLoader 已关闭"));
+                return future;
+            }
+            if (cacheEnabled) {
+                // 另一个线程可能刚把同一个 key 放进缓存
+                CompletableFuture<V> cached = cache.get(key);
+                if (cached != null) {
+                    cacheHits.increment();
+                    return copy(cached);
+                }
+            }
+            batch = pending;
+            if (batch == null) {
+                batch = pending = new Batch<>();
+                first = true;
+            }
+            future = batch.entries.get(key);
+            if (future != null) {
+                dedupHits.increment();
+                return copy(future);
+            }
+            future = new CompletableFuture<>();
+            batch.entries.put(key, future);
+            if (cacheEnabled) {
+                putCache(key, future);
+            }
+            if (batch.entries.size() >= maxBatchSize) {
+                pending = null;
+                full = true;
+            }
+        }
+
+        if (full) {
+            dispatch(batch);
+        } else if (first) {
+            Batch<K, V> scheduled = batch;
+            // 到期时批次可能已经攒满派发或被 close() 派发，flush 会跳过
+            TIMER.schedule(() -> flush(scheduled), maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+        return copy(future);
+    }
+
+    /**
+     * 共享 future 的副本：异常原样传递（thenApply 会包一层 CompletionException）
+     */
+    private static <V> CompletableFuture<V> copy(CompletableFuture<V> shared) {
+        CompletableFuture<V> copy = new CompletableFuture<>();
+        shared.whenComplete((value, error) -> {
+            if (error != null) {
+                copy.completeExceptionally(error);
+            } else {
+                copy.complete(value);
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * 批量 load，返回的 Map 保持 keys 的顺序
+     */
+    public CompletableFuture<Map<K, V>> loadMany(List<K> keys) {
+        List<CompletableFuture<V>> futures = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            futures.add(load(key));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<K, V> result = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                result.put(keys.get(i), futures.get(i).join());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 不等时间窗口，立即派发当前批次
+     */
+    public void dispatch() {
+        Batch<K, V> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = null;
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    private void flush(Batch<K, V> batch) {
+        synchronized (lock) {
+            // 批次已经因为攒满被派发
+            if (pending != batch) {
+                return;
+            }
+            pending = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        List<K> keys = new ArrayList<>(batch.entries.keySet());
+        batches.increment();
+        dispatchedKeys.add(keys.size());
+
+        CompletionStage<Map<K, V>> stage;
+        try {
+            stage = batchFunction.load(keys);
+        } catch (Throwable t) {
+            fail(batch, t);
+            return;
+        }
+        stage.whenComplete((values, error) -> {
+            if (error != null) {
+                fail(batch, error);
+                return;
+            }
+            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entries.entrySet()) {
+                if (values == null || !values.containsKey(entry.getKey())) {
+                    // 缺少的 key 以 null 完成但不缓存：数据之后可能出现，下次 load 重新查询
+                    if (cacheEnabled) {
+                        cache.remove(entry.getKey(), entry.getValue());
+                    }
+                    entry.getValue().complete(null);
+                } else {
+                    entry.getValue().complete(values.get(entry.getKey()));
+                }
+            }
+        });
+    }
+
+    private void fail(Batch<K, V> batch, Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        log.warn("批量加载失败, keys={}: {}", batch.entries.size(), error.toString());
+        for (Map.Entry<K, CompletableFuture<V>> entry : batch.entries.entrySet()) {
+            if (cacheEnabled) {
+                cache.remove(entry.getKey(), entry.getValue());
+            }
+            entry.getValue().completeExceptionally(error);
+        }
+    }
+
+    private void putCache(K key, CompletableFuture<V> future) {
+        if (cache.size() >= cacheMaxSize) {
+            // 近似淘汰：ConcurrentHashMap 的迭代顺序与插入无关，相当于随机淘汰一个
+            Iterator<K> iterator = cache.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        cache.put(key, future);
+    }
+
+    // ==================== 缓存管理 ====================
+
+    /**
+     * 预先放入已知的值，之后的 load 不再查询
+     */
+    public void prime(K key, V value) {
+        if (cacheEnabled) {
+            cache.putIfAbsent(key, CompletableFuture.completedFuture(value));
+        }
+    }
+
+    public void clear(K key) {
+        cache.remove(key);
+    }
+
+    public void clearAll() {
+        cache.clear();
+    }
+
+    // ==================== 统计 ====================
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    public long getDedupCount() {
+        return dedupHits.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) dispatchedKeys.sum() / count;
+    }
+
+    /**
+     * 派发剩余批次，之后的 load 立即返回失败的 future
+     */
+    @Override
+    public void close() {
+        Batch<K, V> batch;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            batch = pending;
+            pending = null;
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchLoader{loads=%d, cacheHits=%d, dedup=%d, batches=%d, avgBatchSize=%.1f}",
+                getLoadCount(), getCacheHitCount(), getDedupCount(), getBatchCount(), getAverageBatchSize());
+    }
+}
@@ -0,0 +1,129 @@
+package cn.clazs.jdk.jucapi.batch;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量合并 vs 逐个查询的吞吐量对比（JMH），单位：每秒完成的 load 次数
+ *
+ * 每次操作模拟一个请求处理过程中发起 KEYS_PER_REQUEST 个独立查询（N+1 问题），
+ * 后端每次调用有固定开销 callCostTokens，每个 key 另有少量开销 KEY_COST_TOKENS
+ *
+ * - unbatched: 每个 key 一次后端调用
+ * - batched:   经过 BatchLoader 合并（跨线程合并，同批次去重）
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchLoaderBenchmark {
+
+    private static final int KEYS_PER_REQUEST = 32;
+    private static final int KEY_SPACE = 100_000;
+    private static final int KEY_COST_TOKENS = 50;
+
+    /**
+     * 后端单次调用的固定开销（序列化、网络往返、解析请求）
+     */
+    @Param({"2000", "20000"})
+    public int callCostTokens;
+
+    private ExecutorService backend;
+    private BatchLoader<Integer, Integer> loader;
+
+    @Setup
+    public void setup() {
+        backend = Executors.newFixedThreadPool(4);
+        BatchLoaderConfig config = new BatchLoaderConfig();
+        config.setMaxBatchSize(128);
+        config.setMaxDelayMicros(200);
+        loader = new BatchLoader<>(this::queryMany, config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loader.close();
+        backend.shutdown();
+    }
+
+    private CompletableFuture<Integer> queryOne(int key) {
+        return CompletableFuture.supplyAsync(() -> {
+            Blackhole.consumeCPU(callCostTokens + KEY_COST_TOKENS);
+            return key * 31;
+        }, backend);
+    }
+
+    private CompletableFuture<Map<Integer, Integer>> queryMany(List<Integer> keys) {
+        return CompletableFuture.supplyAsync(() -> {
+            Blackhole.consumeCPU(callCostTokens + (long) KEY_COST_TOKENS * keys.size());
+            Map<Integer, Integer> values = new HashMap<>(keys.size() * 2);
+            for (Integer key : keys) {
+                values.put(key, key * 31);
+            }
+            return values;
+        }, backend);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS_PER_REQUEST)
+    public void unbatched(Blackhole blackhole) {
+        CompletableFuture<?>[] futures = new CompletableFuture[KEYS_PER_REQUEST];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < KEYS_PER_REQUEST; i++) {
+            futures[i] = queryOne(random.nextInt(KEY_SPACE));
+        }
+        blackhole.consume(CompletableFuture.allOf(futures).join());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS_PER_REQUEST)
+    public void batched(Blackhole blackhole) {
+        CompletableFuture<?>[] futures = new CompletableFuture[KEYS_PER_REQUEST];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < KEYS_PER_REQUEST; i++) {
+            futures[i] = loader.load(random.nextInt(KEY_SPACE));
+        }
+        blackhole.consume(CompletableFuture.allOf(futures).join());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int[] threadCounts = {1, 4, 16};
+        StringBuilder summary = new StringBuilder();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(BatchLoaderBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                summary.append(String.format("threads=%-3d callCost=%-6s %-10s %12.0f loads/s%n", threads,
+                        result.getParams().getParam("callCostTokens"),
+                        result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                        result.getPrimaryResult().getScore()));
+            }
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+}
@@ -0,0 +1,32 @@
+package cn.clazs.jdk.jucapi.batch;
+
+import lombok.Data;
+
+/**
+ * 批量加载器配置
+ *
+ * @author clazs
+ */
+@Data
+public class BatchLoaderConfig {
+
+    /**
+     * 单批最多的 key 数，攒够立即派发（不等时间窗口）
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * 时间窗口（微秒）：批次中第一个 key 到达后最多等这么久就派发
+     */
+    private long maxDelayMicros = 1000;
+
+    /**
+     * 是否缓存结果；关闭时仍会对同一批次内的重复 key 去重
+     */
+    private boolean cacheEnabled = false;
+
+    /**
+     * 缓存的最大条目数，超过后随机淘汰
+     */
+    private int cacheMaxSize = 10_000;
+}
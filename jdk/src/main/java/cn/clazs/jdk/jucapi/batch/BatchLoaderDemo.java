@@ -0,0 +1,147 @@
+package cn.clazs.jdk.jucapi.batch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量合并加载演示：N+1 查询问题
+ *
+ * 100 个订单各自查询下单用户（只有 20 个不同用户），
+ * 逐个查询需要 100 次后端调用，批量合并 + 去重后只需要几次
+ *
+ * @author clazs
+ */
+public class BatchLoaderDemo {
+
+    private static final AtomicInteger BACKEND_CALLS = new AtomicInteger();
+    private static final AtomicBoolean BACKEND_DOWN = new AtomicBoolean();
+    private static volatile boolean verbose = true;
+    private static final ExecutorService BACKEND = Executors.newFixedThreadPool(4);
+
+    /**
+     * 模拟的用户服务：每次调用固定 5ms 开销，与 key 数无关
+     */
+    private static CompletableFuture<Map<Long, String>> queryUsers(List<Long> ids) {
+        return CompletableFuture.supplyAsync(() -> {
+            int call = BACKEND_CALLS.incrementAndGet();
+            if (verbose) {
+                System.out.println("  [后端] 第 " + call + " 次调用, " + ids.size() + " 个 key: " + ids);
+            }
+            sleep(5);
+            if (BACKEND_DOWN.get()) {
+                throw new IllegalStateException("用户服务不可用");
+            }
+            Map<Long, String> users = new HashMap<>();
+            for (Long id : ids) {
+                // id >= 1000 的用户不存在
+                if (id < 1000) {
+                    users.put(id, "user-" + id);
+                }
+            }
+            return users;
+        }, BACKEND);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== 批量合并加载演示 ==========\n");
+
+        System.out.println("【演示 1】逐个查询：100 个订单");
+        BACKEND_CALLS.set(0);
+        verbose = false;
+        List<CompletableFuture<Map<Long, String>>> single = new ArrayList<>();
+        for (int order = 0; order < 100; order++) {
+            long userId = order % 20;
+            List<Long> ids = new ArrayList<>();
+            ids.add(userId);
+            single.add(queryUsers(ids));
+        }
+        CompletableFuture.allOf(single.toArray(new CompletableFuture[0])).join();
+        System.out.println("后端调用次数: " + BACKEND_CALLS.get());
+        verbose = true;
+
+        System.out.println("\n【演示 2】批量合并：4 个线程并发查询同样的 100 个订单");
+        BACKEND_CALLS.set(0);
+        BatchLoaderConfig config = new BatchLoaderConfig();
+        config.setMaxBatchSize(50);
+        config.setMaxDelayMicros(2000);
+        try (BatchLoader<Long, String> loader = new BatchLoader<>(BatchLoaderDemo::queryUsers, config)) {
+            List<CompletableFuture<String>> futures = loadOrders(loader);
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            System.out.println("订单 0 的用户: " + futures.get(0).join() + "，订单 99 的用户: " + futures.get(99).join());
+            System.out.println("后端调用次数: " + BACKEND_CALLS.get() + "，" + loader);
+        }
+
+        System.out.println("\n【演示 3】按大小切批：maxBatchSize = 10，25 个不同 key");
+        BACKEND_CALLS.set(0);
+        config.setMaxBatchSize(10);
+        try (BatchLoader<Long, String> loader = new BatchLoader<>(BatchLoaderDemo::queryUsers, config)) {
+            List<Long> ids = new ArrayList<>();
+            for (long id = 100; id < 125; id++) {
+                ids.add(id);
+            }
+            Map<Long, String> users = loader.loadMany(ids).join();
+            System.out.println("前两批攒满立即派发，最后 5 个等时间窗口到期，共取回 " + users.size() + " 个用户");
+            System.out.println("不存在的用户: " + loader.load(1001L).join());
+        }
+
+        System.out.println("\n【演示 4】开启缓存：重复查询不再访问后端，失败结果不缓存");
+        BACKEND_CALLS.set(0);
+        config.setMaxBatchSize(50);
+        config.setCacheEnabled(true);
+        try (BatchLoader<Long, String> loader = new BatchLoader<>(BatchLoaderDemo::queryUsers, config)) {
+            loader.prime(0L, "admin");
+            CompletableFuture.allOf(loadOrders(loader).toArray(new CompletableFuture[0])).join();
+            System.out.println("第一轮后端调用: " + BACKEND_CALLS.get());
+            CompletableFuture.allOf(loadOrders(loader).toArray(new CompletableFuture[0])).join();
+            System.out.println("第二轮后端调用: " + BACKEND_CALLS.get() + "（全部命中缓存），用户 0 = " + loader.load(0L).join());
+
+            BACKEND_DOWN.set(true);
+            CompletableFuture<String> failed = loader.load(500L);
+            System.out.println("后端故障时: " + failed.handle((v, e) -> e == null ? v : e.getMessage()).join());
+            BACKEND_DOWN.set(false);
+            System.out.println("后端恢复后重新加载: " + loader.load(500L).join());
+            System.out.println(loader);
+        }
+
+        BACKEND.shutdown();
+    }
+
+    /**
+     * 4 个线程各自查询 25 个订单的用户
+     */
+    private static List<CompletableFuture<String>> loadOrders(BatchLoader<Long, String> loader) throws Exception {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(null);
+        }
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int from = t * 25;
+            threads[t] = new Thread(() -> {
+                for (int order = from; order < from + 25; order++) {
+                    futures.set(order, loader.load((long) (order % 20)));
+                }
+            }, "Order-" + t);
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return futures;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package cn.clazs.jdk.jucapi.handoff;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 自适应 自旋-再-park 的单槽交接器：多个生产者 put，一个消费者 take
+ *
+ * 典型用法：I/O 线程与业务线程之间的请求/响应，两个方向各用一个实例
+ *
+ * 消费者等待策略：
+ * 1. 先自旋 spinBudget 次检查槽位（不 park，对方在微秒内交付时延迟最低）
+ * 2. 还没等到则登记 waiter 并 park，生产者放入元素后发现有 waiter 才 unpark
+ *
+ * 自适应（思路同 HotSpot 的自适应自旋锁）：
+ * - 在自旋阶段等到了：说明对方响应快，自旋预算翻倍（上限 MAX_SPINS）
+ * - 自旋落空不得不 park：说明自旋是浪费，预算减半（下限 MIN_SPINS）
+ * - 单核机器上忙等没有意义（对方拿不到 CPU），改为 yield 若干次，让对方先运行完再检查，预算在 1 ~ 8 之间调整
+ *
+ * 不丢唤醒：消费者"写 waiter -> 读槽位"，生产者"CAS 槽位 -> 读 waiter"，
+ * 两边都是 volatile 写后读，至少有一方能看到对方的写入
+ *
+ * 注：Java 8 没有 VarHandle 与 Thread.onSpinWait，这里用 AtomicReferenceFieldUpdater + volatile 实现
+ *
+ * @author clazs
+ */
+public class AdaptiveHandoff<T> {
+
+    private static final boolean MULTI_CPU = Runtime.getRuntime().availableProcessors() > 1;
+    private static final int MIN_SPINS = MULTI_CPU ? 64 : 1;
+    private static final int MAX_SPINS = MULTI_CPU ? 1 << 14 : 8;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AdaptiveHandoff, Object> ITEM =
+            AtomicReferenceFieldUpdater.newUpdater(AdaptiveHandoff.class, Object.class, "item");
+
+    private volatile Object item;
+    private volatile Thread waiter;
+
+    // 只有消费者线程读写
+    private int spinBudget = MULTI_CPU ? 1024 : 2;
+
+    /**
+     * 放入元素并唤醒消费者；槽位被占用（消费者还没取走上一个）时等待
+     */
+    public void put(T value) throws InterruptedException {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        long backoff = 1000;
+        while (!ITEM.compareAndSet(this, null, value)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (MULTI_CPU) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, backoff);
+                backoff = Math.min(backoff << 1, TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+    }
+
+    /**
+     * 非阻塞放入，槽位被占用时返回 false
+     */
+    public boolean offer(T value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        if (!ITEM.compareAndSet(this, null, value)) {
+            return false;
+        }
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+        return true;
+    }
+
+    public T take() throws InterruptedException {
+        return await(0L);
+    }
+
+    /**
+     * @return 超时返回 null
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(Math.max(unit.toNanos(timeout), 1L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T await(long nanos) throws InterruptedException {
+        int budget = spinBudget;
+        for (int i = 0; i < budget; i++) {
+            Object value = item;
+            if (value != null) {
+                ITEM.lazySet(this, null);
+                spinBudget = Math.min(MAX_SPINS, Math.max(budget << 1, MIN_SPINS));
+                return (T) value;
+            }
+            if (!MULTI_CPU) {
+                Thread.yield();
+            }
+        }
+        spinBudget = Math.max(MIN_SPINS, budget >>> 1);
+
+        long deadline = nanos == 0 ? 0 : System.nanoTime() + nanos;
+        waiter = Thread.currentThread();
+        try {
+            while (true) {
+                Object value = item;
+                if (value != null) {
+                    ITEM.lazySet(this, null);
+                    return (T) value;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (nanos == 0) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * 当前自旋预算（用于观察自适应效果）
+     */
+    public int getSpinBudget() {
+        return spinBudget;
+    }
+}
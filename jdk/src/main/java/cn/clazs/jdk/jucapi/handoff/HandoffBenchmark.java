@@ -0,0 +1,307 @@
+package cn.clazs.jdk.jucapi.handoff;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.Exchanger;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 线程间 ping-pong 往返延迟对比（JMH）
+ *
+ * 基准线程发出请求，echo 线程收到后立即回复，测一次往返（两次交接）的耗时：
+ * - waitNotify:  synchronized + wait/notifyAll（OddEvenPrinter1 的方式）
+ * - condition:   ReentrantLock + 两个 Condition
+ * - parkUnpark:  volatile 序号 + LockSupport.park/unpark
+ * - synchronousQueue: 两个 SynchronousQueue，一个方向一个
+ * - exchanger:   Exchanger，请求、响应各 exchange 一次
+ * - busySpin:    AtomicLong 序号，双方一直自旋（Java 8 没有 VarHandle，用 AtomicLong.lazySet / get 代替）
+ * - adaptive:    本包的 AdaptiveHandoff，两个方向各一个
+ *
+ * 注意：busySpin 需要两个线程同时占有 CPU，单核机器上它的延迟取决于调度时间片，没有参考价值
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandoffBenchmark {
+
+    @Param({"waitNotify", "condition", "parkUnpark", "synchronousQueue", "exchanger", "busySpin", "adaptive"})
+    private String mechanism;
+
+    private PingPong pingPong;
+    private Thread echoThread;
+
+    @Setup
+    public void setup() {
+        switch (mechanism) {
+            case "waitNotify":
+                pingPong = new WaitNotifyPingPong();
+                break;
+            case "condition":
+                pingPong = new ConditionPingPong();
+                break;
+            case "parkUnpark":
+                pingPong = new ParkPingPong();
+                break;
+            case "synchronousQueue":
+                pingPong = new SynchronousQueuePingPong();
+                break;
+            case "exchanger":
+                pingPong = new ExchangerPingPong();
+                break;
+            case "busySpin":
+                pingPong = new BusySpinPingPong();
+                break;
+            case "adaptive":
+                pingPong = new AdaptivePingPong();
+                break;
+            default:
+                throw new IllegalArgumentException("未知的 mechanism: " + mechanism);
+        }
+        pingPong.caller = Thread.currentThread();
+        echoThread = new Thread(() -> {
+            try {
+                pingPong.echoLoop();
+            } catch (InterruptedException e) {
+                // 结束
+            }
+        }, "echo");
+        pingPong.echo = echoThread;
+        echoThread.setDaemon(true);
+        echoThread.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        pingPong.running = false;
+        echoThread.interrupt();
+        echoThread.join(1000);
+    }
+
+    @Benchmark
+    public long roundTrip() throws InterruptedException {
+        return pingPong.ping();
+    }
+
+    // ==================== 各种交接方式 ====================
+
+    abstract static class PingPong {
+        volatile boolean running = true;
+        volatile Thread caller;
+        volatile Thread echo;
+
+        /**
+         * 基准线程：发请求并等待响应
+         */
+        abstract long ping() throws InterruptedException;
+
+        /**
+         * echo 线程：循环接收请求并回复，被中断后退出
+         */
+        abstract void echoLoop() throws InterruptedException;
+    }
+
+    /**
+     * 序号为奇数表示请求已发出、等待回复；偶数表示已回复
+     */
+    static final class WaitNotifyPingPong extends PingPong {
+        private final Object monitor = new Object();
+        private long seq;
+
+        @Override
+        long ping() throws InterruptedException {
+            synchronized (monitor) {
+                seq++;
+                monitor.notifyAll();
+                while ((seq & 1) == 1) {
+                    monitor.wait();
+                }
+                return seq;
+            }
+        }
+
+        @Override
+        void echoLoop() throws InterruptedException {
+            synchronized (monitor) {
+                while (running) {
+                    while ((seq & 1) == 0) {
+                        monitor.wait();
+                    }
+                    seq++;
+                    monitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    static final class ConditionPingPong extends PingPong {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition requested = lock.newCondition();
+        private final Condition replied = lock.newCondition();
+        private long seq;
+
+        @Override
+        long ping() throws InterruptedException {
+            lock.lock();
+            try {
+                seq++;
+                requested.signal();
+                while ((seq & 1) == 1) {
+                    replied.await();
+                }
+                return seq;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        void echoLoop() throws InterruptedException {
+            lock.lock();
+            try {
+                while (running) {
+                    while ((seq & 1) == 0) {
+                        requested.await();
+                    }
+                    seq++;
+                    replied.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static final class ParkPingPong extends PingPong {
+        private final AtomicLong seq = new AtomicLong();
+
+        @Override
+        long ping() {
+            long request = seq.incrementAndGet();
+            LockSupport.unpark(echo);
+            while (seq.get() == request) {
+                LockSupport.park(this);
+            }
+            return request;
+        }
+
+        @Override
+        void echoLoop() throws InterruptedException {
+            while (running) {
+                long current = seq.get();
+                if ((current & 1) == 1) {
+                    seq.incrementAndGet();
+                    LockSupport.unpark(caller);
+                } else {
+                    LockSupport.park(this);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+        }
+    }
+
+    static final class SynchronousQueuePingPong extends PingPong {
+        private static final Long PING = 1L;
+        private final SynchronousQueue<Long> requests = new SynchronousQueue<>();
+        private final SynchronousQueue<Long> responses = new SynchronousQueue<>();
+
+        @Override
+        long ping() throws InterruptedException {
+            requests.put(PING);
+            return responses.take();
+        }
+
+        @Override
+        void echoLoop() throws InterruptedException {
+            while (running) {
+                responses.put(requests.take());
+            }
+        }
+    }
+
+    static final class ExchangerPingPong extends PingPong {
+        private static final Long PING = 1L;
+        private final Exchanger<Long> exchanger = new Exchanger<>();
+
+        @Override
+        long ping() throws InterruptedException {
+            exchanger.exchange(PING);
+            return exchanger.exchange(null);
+        }
+
+        @Override
+        void echoLoop() throws InterruptedException {
+            while (running) {
+                Long request = exchanger.exchange(null);
+                exchanger.exchange(request);
+            }
+        }
+    }
+
+    static final class BusySpinPingPong extends PingPong {
+        private final AtomicLong seq = new AtomicLong();
+
+        @Override
+        long ping() {
+            long request = seq.get() + 1;
+            seq.lazySet(request);
+            while (seq.get() == request) {
+                // 自旋
+            }
+            return request;
+        }
+
+        @Override
+        void echoLoop() {
+            while (running) {
+                long current = seq.get();
+                if ((current & 1) == 1) {
+                    seq.lazySet(current + 1);
+                }
+            }
+        }
+    }
+
+    static final class AdaptivePingPong extends PingPong {
+        private static final Long PING = 1L;
+        private final AdaptiveHandoff<Long> requests = new AdaptiveHandoff<>();
+        private final AdaptiveHandoff<Long> responses = new AdaptiveHandoff<>();
+
+        @Override
+        long ping() throws InterruptedException {
+            requests.put(PING);
+            return responses.take();
+        }
+
+        @Override
+        void echoLoop() throws InterruptedException {
+            while (running) {
+                responses.put(requests.take());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HandoffBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
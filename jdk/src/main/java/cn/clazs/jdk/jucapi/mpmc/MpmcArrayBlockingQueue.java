@@ -0,0 +1,470 @@
+package cn.clazs.jdk.jucapi.mpmc;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于数组的有界无锁 MPMC（多生产者多消费者）队列
+ *
+ * 算法：Dmitry Vyukov 的 bounded MPMC queue
+ * - 每个槽位带一个序号 sequence[i]，初始为 i
+ * - 生产者：CAS 抢占 tail = pos，要求 sequence[pos & mask] == pos，写入元素后 sequence = pos + 1（发布）
+ * - 消费者：CAS 抢占 head = pos，要求 sequence[pos & mask] == pos + 1，取出元素后 sequence = pos + capacity（归还给下一轮生产者）
+ * - 生产者之间只竞争 tail，消费者之间只竞争 head，生产者与消费者通过槽位序号交接，互不加锁
+ *
+ * 与 LinkedBlockingQueue 对比：
+ * - 不为每个元素分配 Node，没有 GC 压力
+ * - 没有 putLock / takeLock，入队出队各一次 CAS
+ * - head / tail 用类继承的方式前后各填充 7 个 long，避免两个热点计数器落在同一缓存行（伪共享）
+ *
+ * 阻塞语义（BlockingQueue）：
+ * - take / poll(timeout)：先自旋、再 yield、最后 park，生产者入队后只在"确实有消费者在 park"时才 unpark，
+ *   消费者空闲很短时不会进入内核，交接延迟比 Condition.signal 低一个数量级
+ * - put / offer(timeout)：队列满时自旋、yield 后指数退避 parkNanos（线程池只用 offer，满了走拒绝策略）
+ *
+ * remove(Object)：扫描 [head, tail) 找到相等的元素后 CAS 把槽位置空，消费者出队时跳过空槽位。
+ * 因此 poll 用 getAndSet 取元素（而不是 get + lazySet），保证一个元素要么被取走、要么被 remove，不会两者都成功。
+ * ThreadPoolExecutor 依赖它：execute 与 shutdown 竞争时的 remove(task)、purge、shutdownNow 的 drainQueue。
+ * 迭代器是弱一致的快照，Iterator.remove 只删除快照中那个槽位上的元素（已被取走时什么也不做）
+ *
+ * 空槽位仍计入 size()，直到消费者越过它
+ *
+ * @author clazs
+ */
+public class MpmcArrayBlockingQueue<E> extends MpmcHeadPadding<E> implements BlockingQueue<E> {
+
+    // 与 SynchronousQueue 相同的考虑：单核机器上自旋只会拖延生产者拿到 CPU
+    private static final int DEFAULT_SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 256 : 0;
+    private static final int DEFAULT_YIELDS = 16;
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+    private final int spins;
+    private final int yields;
+
+    // park 中的消费者，生产者入队后唤醒一个
+    private final ConcurrentLinkedQueue<Thread> parkedConsumers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger parkedCount = new AtomicInteger();
+
+    public MpmcArrayBlockingQueue(int capacity) {
+        this(capacity, DEFAULT_SPINS, DEFAULT_YIELDS);
+    }
+
+    /**
+     * @param capacity 容量，向上取整到 2 的幂
+     * @param spins    消费者进入 yield 前的自旋次数
+     * @param yields   消费者进入 park 前的 yield 次数
+     */
+    public MpmcArrayBlockingQueue(int capacity, int spins, int yields) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("容量必须在 [2, 2^30] 之间: " + capacity);
+        }
+        this.capacity = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.lazySet(i, i);
+        }
+        this.spins = spins;
+        this.yields = yields;
+    }
+
+    // ==================== 无锁核心 ====================
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long pos = tail;
+        int index;
+        while (true) {
+            index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (casTail(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail;
+            } else if (diff < 0) {
+                // 槽位还没被上一轮消费者归还：队列满
+                return false;
+            } else {
+                // 被其他生产者抢先，重新读 tail
+                pos = tail;
+            }
+        }
+        buffer.lazySet(index, e);
+        // 发布：消费者看到 sequence == pos + 1 时一定能看到上面写入的元素。
+        // 必须是 volatile 写而不是 lazySet：signalConsumer 随后读 parkedCount，
+        // lazySet 之后的读可以重排到它前面（没有 StoreLoad 屏障），会丢失唤醒
+        sequences.set(index, pos + 1);
+        signalConsumer();
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        while (true) {
+            long pos = head;
+            int index;
+            while (true) {
+                index = (int) pos & mask;
+                long diff = sequences.get(index) - (pos + 1);
+                if (diff == 0) {
+                    if (casHead(pos, pos + 1)) {
+                        break;
+                    }
+                    pos = head;
+                } else if (diff < 0) {
+                    // 队列空（或生产者已抢占槽位但还没发布）
+                    return null;
+                } else {
+                    pos = head;
+                }
+            }
+            // getAndSet 与 remove 的 CAS 互斥：元素只会被其中一方拿到
+            E e = buffer.getAndSet(index, null);
+            sequences.lazySet(index, pos + capacity);
+            if (e != null) {
+                return e;
+            }
+            // 被 remove 置空的槽位，继续取下一个
+        }
+    }
+
+    @Override
+    public E peek() {
+        long start = head;
+        for (long pos = start; pos - start < capacity; pos++) {
+            int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) {
+                return null;
+            }
+            E e = buffer.get(index);
+            if (e != null) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 入队成功后调用。与消费者构成 Dekker 式握手：
+     * - 生产者：volatile 写 sequence -> 读 parkedCount
+     * - 消费者：登记（parkedCount 自增）-> 读 sequence（poll）
+     * 两边都是 volatile 访问，不会重排，至少有一方看到对方的写入，因此不会丢失唤醒
+     */
+    private void signalConsumer() {
+        if (parkedCount.get() > 0) {
+            Thread waiter = parkedConsumers.poll();
+            if (waiter != null) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    // ==================== 阻塞语义 ====================
+
+    @Override
+    public E take() throws InterruptedException {
+        return awaitElement(0L);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        // timeout <= 0 立即返回（BlockingQueue 约定，ThreadPoolExecutor 用 poll(0) 回收空闲线程），不自旋也不 park
+        if (nanos <= 0) {
+            return poll();
+        }
+        return awaitElement(nanos);
+    }
+
+    /**
+     * @param nanos 0 表示无限等待
+     */
+    private E awaitElement(long nanos) throws InterruptedException {
+        E e;
+        for (int i = 0; i < spins; i++) {
+            if ((e = poll()) != null) {
+                return e;
+            }
+        }
+        for (int i = 0; i < yields; i++) {
+            if ((e = poll()) != null) {
+                return e;
+            }
+            Thread.yield();
+        }
+
+        long deadline = nanos == 0 ? 0 : System.nanoTime() + nanos;
+        Thread current = Thread.currentThread();
+        boolean signalled = false;
+        while (true) {
+            if (Thread.interrupted()) {
+                passSignal(signalled);
+                throw new InterruptedException();
+            }
+            parkedConsumers.offer(current);
+            parkedCount.incrementAndGet();
+            boolean timedOut = false;
+            try {
+                // 登记后再检查一次，防止生产者在登记前入队、且没看到登记
+                if ((e = poll()) != null) {
+                    return e;
+                }
+                if (nanos == 0) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timedOut = true;
+                    } else {
+                        LockSupport.parkNanos(this, remaining);
+                    }
+                }
+            } finally {
+                // 被生产者唤醒时已经出队，remove 返回 false；超时 / 中断 / 伪唤醒时自己出队
+                signalled = !parkedConsumers.remove(current);
+                parkedCount.decrementAndGet();
+            }
+            if ((e = poll()) != null) {
+                return e;
+            }
+            if (timedOut) {
+                passSignal(signalled);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 被生产者选中唤醒、却没取到元素就离开（超时 / 中断）时，把唤醒转给下一个等待的消费者，
+     * 否则那次入队对应的唤醒就丢了，其他消费者可能一直 park
+     */
+    private void passSignal(boolean signalled) {
+        if (signalled) {
+            signalConsumer();
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (offer(e)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long backoff = 1000;
+        for (int i = 0; ; i++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (offer(e)) {
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            if (i < spins) {
+                continue;
+            }
+            if (i < spins + yields) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, Math.min(backoff, remaining));
+                backoff = Math.min(backoff << 1, MAX_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    // ==================== 其他 Queue / BlockingQueue 方法 ====================
+
+    /**
+     * 近似值：并发修改期间只保证在 [0, capacity] 之间
+     */
+    @Override
+    public int size() {
+        while (true) {
+            long before = head;
+            long currentTail = tail;
+            long after = head;
+            if (before == after) {
+                long size = currentTail - after;
+                return (int) Math.max(0, Math.min(size, capacity));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 删除一个相等的元素：CAS 把槽位置空，消费者出队时跳过
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        long start = head;
+        long end = tail;
+        for (long pos = start; pos < end && pos - start < capacity; pos++) {
+            int index = (int) pos & mask;
+            E e = buffer.get(index);
+            if (e != null && o.equals(e) && removeAt(index, pos, e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 槽位仍是第 pos 个元素且内容仍是 e 时置空；已被消费者取走时 CAS 失败
+     */
+    private boolean removeAt(int index, long pos, E e) {
+        return sequences.get(index) == pos + 1 && buffer.compareAndSet(index, e, null);
+    }
+
+    /**
+     * 弱一致快照：扫描 [head, tail) 中已发布的槽位
+     */
+    @Override
+    public Iterator<E> iterator() {
+        long start = head;
+        long end = tail;
+        List<long[]> positions = new ArrayList<>();
+        List<E> snapshot = new ArrayList<>();
+        for (long pos = start; pos < end && pos - start < capacity; pos++) {
+            int index = (int) pos & mask;
+            E e = buffer.get(index);
+            if (e != null && sequences.get(index) == pos + 1) {
+                positions.add(new long[]{index, pos});
+                snapshot.add(e);
+            }
+        }
+        return new Iterator<E>() {
+            private int cursor;
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < snapshot.size();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = cursor++;
+                return snapshot.get(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                long[] slot = positions.get(last);
+                removeAt((int) slot[0], slot[1], snapshot.get(last));
+                last = -1;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "MpmcArrayBlockingQueue{capacity=" + capacity + ", size=" + size() + '}';
+    }
+}
+
+/**
+ * 以下几个类只用于字段填充：对象字段按继承层次从父类到子类依次排布，
+ * 在 head / tail 两侧各放 7 个 long（56 字节）保证它们不与彼此或其他字段共享 64 字节缓存行
+ */
+abstract class MpmcPrePadding<E> extends AbstractQueue<E> {
+    long p00, p01, p02, p03, p04, p05, p06;
+}
+
+abstract class MpmcTailField<E> extends MpmcPrePadding<E> {
+    private static final AtomicLongFieldUpdater<MpmcTailField> TAIL =
+            AtomicLongFieldUpdater.newUpdater(MpmcTailField.class, "tail");
+
+    volatile long tail;
+
+    final boolean casTail(long expect, long update) {
+        return TAIL.compareAndSet(this, expect, update);
+    }
+}
+
+abstract class MpmcMidPadding<E> extends MpmcTailField<E> {
+    long p10, p11, p12, p13, p14, p15, p16;
+}
+
+abstract class MpmcHeadField<E> extends MpmcMidPadding<E> {
+    private static final AtomicLongFieldUpdater<MpmcHeadField> HEAD =
+            AtomicLongFieldUpdater.newUpdater(MpmcHeadField.class, "head");
+
+    volatile long head;
+
+    final boolean casHead(long expect, long update) {
+        return HEAD.compareAndSet(this, expect, update);
+    }
+}
+
+abstract class MpmcHeadPadding<E> extends MpmcHeadField<E> {
+    long p20, p21, p22, p23, p24, p25, p26;
+}
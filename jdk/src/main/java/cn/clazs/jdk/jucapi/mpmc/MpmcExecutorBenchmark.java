@@ -0,0 +1,103 @@
+package cn.clazs.jdk.jucapi.mpmc;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程池对比（JMH）：同样是 ThreadPoolExecutor，只替换工作队列
+ *
+ * - submitThroughput: 多个线程不停 execute 空任务，测提交 + 执行的吞吐量（队列满时 CallerRunsPolicy 由提交线程自己执行）
+ * - handoffLatency:   单线程提交一个任务并忙等它开始执行，测"提交 -> 工作线程开始执行"的延迟分布
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MpmcExecutorBenchmark {
+
+    @Param({"linked", "array", "mpmc"})
+    private String queueType;
+
+    @Param({"4"})
+    private int workers;
+
+    private ThreadPoolExecutor executor;
+    private final LongAdder executed = new LongAdder();
+    private final AtomicLong startedAt = new AtomicLong();
+    private Runnable countTask;
+    private Runnable stampTask;
+
+    @Setup
+    public void setup() {
+        BlockingQueue<Runnable> queue;
+        switch (queueType) {
+            case "linked":
+                queue = new LinkedBlockingQueue<>(1024);
+                break;
+            case "array":
+                queue = new ArrayBlockingQueue<>(1024);
+                break;
+            case "mpmc":
+                queue = new MpmcArrayBlockingQueue<>(1024);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的 queueType: " + queueType);
+        }
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.prestartAllCoreThreads();
+        countTask = executed::increment;
+        stampTask = () -> startedAt.set(System.nanoTime());
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(2)
+    public void submitThroughput() {
+        executor.execute(countTask);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long handoffLatency() {
+        startedAt.set(0);
+        long submitAt = System.nanoTime();
+        executor.execute(stampTask);
+        long started;
+        while ((started = startedAt.get()) == 0) {
+            // 让出 CPU，核数少于线程数时工作线程才能被调度
+            Thread.yield();
+        }
+        return started - submitAt;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MpmcExecutorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
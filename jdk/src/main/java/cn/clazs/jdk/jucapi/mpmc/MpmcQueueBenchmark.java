@@ -0,0 +1,102 @@
+package cn.clazs.jdk.jucapi.mpmc;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 队列吞吐量对比（JMH）：生产者 offer、消费者 poll，各 2 个线程
+ *
+ * - linked: LinkedBlockingQueue（双锁 + 每个元素一个 Node）
+ * - array:  ArrayBlockingQueue（单锁）
+ * - mpmc:   本包的 MpmcArrayBlockingQueue（无锁）
+ *
+ * 结果中 offer / poll 两行分别是生产者、消费者的成功操作吞吐量（失败的 offer / poll 不计入）
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class MpmcQueueBenchmark {
+
+    private static final Integer ELEMENT = 1;
+
+    @Param({"linked", "array", "mpmc"})
+    private String queueType;
+
+    @Param({"1024"})
+    private int capacity;
+
+    private BlockingQueue<Integer> queue;
+
+    @Setup
+    public void setup() {
+        switch (queueType) {
+            case "linked":
+                queue = new LinkedBlockingQueue<>(capacity);
+                break;
+            case "array":
+                queue = new ArrayBlockingQueue<>(capacity);
+                break;
+            case "mpmc":
+                queue = new MpmcArrayBlockingQueue<>(capacity);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的 queueType: " + queueType);
+        }
+    }
+
+    /**
+     * 只统计成功的操作
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long offered;
+        public long polled;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            offered = 0;
+            polled = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(2)
+    public void offer(Counters counters) {
+        if (queue.offer(ELEMENT)) {
+            counters.offered++;
+        }
+    }
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(2)
+    public void poll(Counters counters) {
+        if (queue.poll() != null) {
+            counters.polled++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MpmcQueueBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
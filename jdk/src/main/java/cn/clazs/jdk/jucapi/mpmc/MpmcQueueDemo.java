@@ -0,0 +1,146 @@
+package cn.clazs.jdk.jucapi.mpmc;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MPMC 队列与自旋线程池演示
+ *
+ * @author clazs
+ */
+public class MpmcQueueDemo {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== MPMC 队列演示 ==========\n");
+
+        System.out.println("【演示 1】4 个生产者、4 个消费者，校验不丢不重");
+        demoCorrectness();
+
+        System.out.println("\n【演示 2】有界：队列满时 offer 返回 false，线程池走拒绝策略");
+        demoBounded();
+
+        System.out.println("\n【演示 3】交接延迟：提交任务到任务开始执行");
+        demoHandoffLatency();
+    }
+
+    private static void demoCorrectness() throws InterruptedException {
+        MpmcArrayBlockingQueue<Long> queue = new MpmcArrayBlockingQueue<>(1024);
+        int producers = 4;
+        int consumers = 4;
+        long perProducer = 1_000_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicLong count = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+
+        long start = System.nanoTime();
+        for (int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                try {
+                    for (long i = 1; i <= perProducer; i++) {
+                        queue.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "Producer-" + p).start();
+        }
+        long total = producers * perProducer;
+        for (int c = 0; c < consumers; c++) {
+            new Thread(() -> {
+                try {
+                    long localSum = 0;
+                    while (count.get() < total) {
+                        Long value = queue.poll(10, TimeUnit.MILLISECONDS);
+                        if (value != null) {
+                            localSum += value;
+                            count.incrementAndGet();
+                        }
+                    }
+                    sum.addAndGet(localSum);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "Consumer-" + c).start();
+        }
+        done.await();
+        long expected = producers * perProducer * (perProducer + 1) / 2;
+        System.out.println("传递 " + count.get() + " 个元素，耗时 "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        System.out.println("求和: " + sum.get() + "，期望: " + expected + "，" + (sum.get() == expected ? "正确" : "错误"));
+    }
+
+    private static void demoBounded() throws InterruptedException {
+        MpmcArrayBlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(3);
+        System.out.println("容量 3 向上取整为 " + queue.capacity());
+        for (int i = 1; i <= 5; i++) {
+            System.out.println("offer(" + i + ") = " + queue.offer(i));
+        }
+
+        ThreadPoolExecutor executor = new SpinningThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, 2);
+        CountDownLatch block = new CountDownLatch(1);
+        try {
+            for (int i = 1; i <= 4; i++) {
+                final int taskId = i;
+                executor.execute(() -> {
+                    try {
+                        block.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                System.out.println("任务 " + taskId + " 已提交，队列长度 " + executor.getQueue().size());
+            }
+        } catch (RejectedExecutionException e) {
+            System.out.println("任务被拒绝: 1 个执行中 + 2 个排队，队列已满");
+        }
+        block.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private static void demoHandoffLatency() throws Exception {
+        ExecutorService linked = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(1024));
+        ExecutorService spinning = SpinningThreadPoolExecutor.newFixedThreadPool(1, 1024);
+        // 预热
+        measure(linked, 20000);
+        measure(spinning, 20000);
+        System.out.printf("LinkedBlockingQueue 线程池: 平均 %.2f us%n", measure(linked, 20000));
+        System.out.printf("MPMC 自旋线程池:            平均 %.2f us%n", measure(spinning, 20000));
+        linked.shutdown();
+        spinning.shutdown();
+    }
+
+    /**
+     * 提交一个任务，忙等到它开始执行，重复 rounds 次，返回平均延迟
+     */
+    private static double measure(ExecutorService executor, int rounds) {
+        AtomicLong startedAt = new AtomicLong();
+        long total = 0;
+        for (int i = 0; i < rounds; i++) {
+            startedAt.set(0);
+            long submitAt = System.nanoTime();
+            executor.execute(() -> startedAt.set(System.nanoTime()));
+            long started;
+            while ((started = startedAt.get()) == 0) {
+                // 让出 CPU，核数少于线程数时工作线程才能被调度
+                Thread.yield();
+            }
+            total += started - submitAt;
+            // 给工作线程留出时间进入空闲等待，模拟真实的间歇性提交
+            long pause = System.nanoTime() + 20_000;
+            while (System.nanoTime() < pause) {
+                // 忙等
+            }
+        }
+        return total / 1000.0 / rounds;
+    }
+}
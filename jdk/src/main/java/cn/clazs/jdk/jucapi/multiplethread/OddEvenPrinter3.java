@@ -0,0 +1,59 @@
+package cn.clazs.jdk.jucapi.multiplethread;
+
+import cn.clazs.jdk.jucapi.handoff.AdaptiveHandoff;
+
+import java.util.ArrayList;
+
+/**
+ * 多线程有序依次打印奇偶数3-用AdaptiveHandoff实现
+ *
+ * 前两个版本里，没轮到的线程也会反复抢锁、检查 num 的奇偶（空转）；
+ * 这里两个线程之间传递"令牌"，只有拿到令牌的线程才会打印，另一个线程在 take() 中等待
+ */
+public class OddEvenPrinter3 {
+    static final int MAX = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        AdaptiveHandoff<Integer> toOdd = new AdaptiveHandoff<>();
+        AdaptiveHandoff<Integer> toEven = new AdaptiveHandoff<>();
+
+        ArrayList<Integer> oddPrintList = new ArrayList<>();
+        ArrayList<Integer> evenPrintList = new ArrayList<>();
+        Thread odd = new Thread(() -> printLoop(toOdd, toEven, oddPrintList), "奇数Thread");
+        Thread even = new Thread(() -> printLoop(toEven, toOdd, evenPrintList), "偶数Thread");
+
+        odd.start();
+        even.start();
+        // 令牌从 1 开始交给奇数线程
+        toOdd.put(1);
+
+        // join 保证结果集收集完毕，不需要像前两个版本那样 sleep
+        odd.join();
+        even.join();
+
+        System.out.println("\n奇数线程打印结果：size = " + oddPrintList.size());
+        oddPrintList.forEach(i -> System.out.print(i + " "));
+        System.out.println("\n偶数线程打印结果：size = " + evenPrintList.size());
+        evenPrintList.forEach(i -> System.out.print(i + " "));
+    }
+
+    private static void printLoop(AdaptiveHandoff<Integer> mine, AdaptiveHandoff<Integer> other,
+                                  ArrayList<Integer> printList) {
+        try {
+            while (true) {
+                int num = mine.take();
+                if (num > MAX) {
+                    // 把结束信号传给对方，让它也退出
+                    other.put(num);
+                    break;
+                }
+                printList.add(num);
+                System.out.println("[" + Thread.currentThread().getName() + "] - " + "print: [" + num + "]");
+                other.put(num + 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("[" + Thread.currentThread().getName() + "] 打印完毕！");
+    }
+}
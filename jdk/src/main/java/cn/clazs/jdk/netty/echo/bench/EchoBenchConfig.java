@@ -0,0 +1,130 @@
+package cn.clazs.jdk.netty.echo.bench;
+
+import cn.clazs.jdk.netty.transport.Transport;
+import cn.clazs.jdk.netty.transport.TransportOptions;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import lombok.Data;
+
+/**
+ * 回显压测配置
+ *
+ * 命令行用 key=value 覆盖，例如：
+ * <pre>
+ * connections=64 outstanding=16 size=128 transport=epoll allocator=unpooled host=localhost port=9001
+ * transport=epoll quickack=true edge=false
+ * </pre>
+ *
+ * @author clazs
+ */
+@Data
+public class EchoBenchConfig {
+
+    /**
+     * 为 null 时在进程内启动 EchoBenchServer，服务端使用相同的传输层和分配器
+     */
+    private String host;
+    private int port = 7070;
+
+    private int connections = 16;
+    private int outstanding = 8;            // 每个连接的在途消息数
+    private int messageSize = 64;
+    private int ioThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private long warmupMillis = 2000;
+    private long durationMillis = 5000;
+
+    private Transport transport = Transport.NIO;
+    private TransportOptions transportOptions = TransportOptions.defaults();
+    private boolean pooled = true;
+    private boolean preferDirect = true;
+
+    public ByteBufAllocator allocator() {
+        return pooled ? new PooledByteBufAllocator(preferDirect) : new UnpooledByteBufAllocator(preferDirect);
+    }
+
+    public EchoBenchConfig copy() {
+        EchoBenchConfig copy = new EchoBenchConfig();
+        copy.host = host;
+        copy.port = port;
+        copy.connections = connections;
+        copy.outstanding = outstanding;
+        copy.messageSize = messageSize;
+        copy.ioThreads = ioThreads;
+        copy.warmupMillis = warmupMillis;
+        copy.durationMillis = durationMillis;
+        copy.transport = transport;
+        copy.transportOptions = new TransportOptions();
+        copy.transportOptions.setReusePort(transportOptions.isReusePort());
+        copy.transportOptions.setTcpQuickAck(transportOptions.isTcpQuickAck());
+        copy.transportOptions.setEdgeTriggered(transportOptions.isEdgeTriggered());
+        copy.pooled = pooled;
+        copy.preferDirect = preferDirect;
+        return copy;
+    }
+
+    public static EchoBenchConfig parse(String[] args) {
+        EchoBenchConfig config = new EchoBenchConfig();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "host":
+                    config.host = value;
+                    break;
+                case "port":
+                    config.port = Integer.parseInt(value);
+                    break;
+                case "connections":
+                    config.connections = Integer.parseInt(value);
+                    break;
+                case "outstanding":
+                    config.outstanding = Integer.parseInt(value);
+                    break;
+                case "size":
+                    config.messageSize = Integer.parseInt(value);
+                    break;
+                case "threads":
+                    config.ioThreads = Integer.parseInt(value);
+                    break;
+                case "warmup":
+                    config.warmupMillis = Long.parseLong(value) * 1000;
+                    break;
+                case "duration":
+                    config.durationMillis = Long.parseLong(value) * 1000;
+                    break;
+                case "transport":
+                    config.transport = Transport.valueOf(value.toUpperCase());
+                    break;
+                case "quickack":
+                    config.transportOptions.setTcpQuickAck(Boolean.parseBoolean(value));
+                    break;
+                case "edge":
+                    config.transportOptions.setEdgeTriggered(Boolean.parseBoolean(value));
+                    break;
+                case "allocator":
+                    config.pooled = !"unpooled".equalsIgnoreCase(value);
+                    break;
+                case "direct":
+                    config.preferDirect = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + key);
+            }
+        }
+        return config;
+    }
+
+    public String describe() {
+        String nativeOptions = transport == Transport.NIO ? ""
+                : (transportOptions.isEdgeTriggered() ? "" : " level") + (transportOptions.isTcpQuickAck() ? " quickack" : "");
+        return String.format("%-20s %-8s %-6s conn=%d outstanding=%d size=%dB",
+                transport.name().toLowerCase() + nativeOptions, pooled ? "pooled" : "unpooled", preferDirect ? "direct" : "heap",
+                connections, outstanding, messageSize);
+    }
+}
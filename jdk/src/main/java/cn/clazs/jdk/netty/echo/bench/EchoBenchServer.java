@@ -0,0 +1,79 @@
+package cn.clazs.jdk.netty.echo.bench;
+
+import cn.clazs.jdk.netty.transport.Transport;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 压测用的回显服务器：与 EchoServer 相同的回显语义，但不做字符串编解码、不打日志，
+ * 收到的 ByteBuf 原样写回，一次读事件结束后统一 flush（与 TcpServerHandler 相同）
+ *
+ * @author clazs
+ */
+public class EchoBenchServer implements AutoCloseable {
+
+    @ChannelHandler.Sharable
+    static final class EchoHandler extends ChannelInboundHandlerAdapter {
+
+        static final EchoHandler INSTANCE = new EchoHandler();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.write(msg, ctx.voidPromise());
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+
+    private final EventLoopGroup boss;
+    private final EventLoopGroup workers;
+    private final Channel channel;
+
+    public EchoBenchServer(EchoBenchConfig config, int port) throws InterruptedException {
+        Transport transport = config.getTransport();
+        boss = transport.newGroup(1);
+        workers = transport.newGroup(config.getIoThreads());
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(boss, workers)
+                .channel(transport.serverSocketChannel())
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.ALLOCATOR, config.allocator())
+                .childHandler(EchoHandler.INSTANCE);
+        transport.applyServerOptions(bootstrap, config.getTransportOptions());
+        channel = bootstrap.bind(port).sync().channel();
+    }
+
+    public int getPort() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        boss.shutdownGracefully();
+        workers.shutdownGracefully().syncUninterruptibly();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        EchoBenchConfig config = EchoBenchConfig.parse(args);
+        EchoBenchServer server = new EchoBenchServer(config, config.getPort());
+        System.out.println("回显服务器已启动: " + config.getTransport() + " 端口 " + server.getPort());
+        server.channel.closeFuture().sync();
+    }
+}
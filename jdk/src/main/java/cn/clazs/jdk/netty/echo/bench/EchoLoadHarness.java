@@ -0,0 +1,245 @@
+package cn.clazs.jdk.netty.echo.bench;
+
+import cn.clazs.jdk.dynamicproxy.metrics.HistogramSnapshot;
+import cn.clazs.jdk.dynamicproxy.metrics.StripedHistogram;
+import cn.clazs.jdk.netty.transport.Transport;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 回显往返时延（RTT）压测
+ *
+ * - 打开 connections 个连接，每个连接始终保持 outstanding 条在途消息，收到一条回显就补发一条
+ * - 每条消息发送时记录时间戳；回显服务器按字节流原样返回，
+ *   所以每收满 messageSize 字节就对应队头的那条消息
+ * - 消息内容是可见 ASCII，也能压 EchoServer（StringDecoder/StringEncoder）这种按字符串回显的服务器
+ * - 预热阶段不计入结果
+ *
+ * 运行：
+ * <pre>
+ * EchoLoadHarness                                   # 进程内启动 EchoBenchServer，NIO + 池化分配器
+ * EchoLoadHarness transport=epoll allocator=unpooled
+ * EchoLoadHarness host=localhost port=7070          # 压 EchoServer
+ * EchoLoadHarness host=localhost port=9001          # 压 springboot-netty 的 TcpServer
+ * EchoLoadHarness compare                           # 所有可用传输层 x {pooled, unpooled} 全部跑一遍并汇总
+ * </pre>
+ *
+ * @author clazs
+ */
+public class EchoLoadHarness {
+
+    /**
+     * 一次压测的结果
+     */
+    public static final class Result {
+        private final EchoBenchConfig config;
+        private final long messages;
+        private final long elapsedNanos;
+        private final HistogramSnapshot rtt;
+
+        Result(EchoBenchConfig config, long messages, long elapsedNanos, HistogramSnapshot rtt) {
+            this.config = config;
+            this.messages = messages;
+            this.elapsedNanos = elapsedNanos;
+            this.rtt = rtt;
+        }
+
+        public double getMessagesPerSecond() {
+            return messages * 1e9 / elapsedNanos;
+        }
+
+        public double getMegabytesPerSecond() {
+            return getMessagesPerSecond() * config.getMessageSize() / (1024 * 1024);
+        }
+
+        public HistogramSnapshot getRtt() {
+            return rtt;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s  %,10.0f msg/s %7.1f MB/s  p50=%7.1fus  p99=%8.1fus  p99.9=%8.1fus  max=%8.1fus",
+                    config.describe(), getMessagesPerSecond(), getMegabytesPerSecond(),
+                    rtt.percentile(50) / 1000.0, rtt.percentile(99) / 1000.0,
+                    rtt.percentile(99.9) / 1000.0, rtt.getMax() / 1000.0);
+        }
+    }
+
+    public static Result run(EchoBenchConfig config) throws InterruptedException {
+        Transport transport = config.getTransport();
+        if (!transport.isAvailable()) {
+            throw new IllegalStateException(transport + " 在当前平台不可用");
+        }
+        EchoBenchServer server = null;
+        String host = config.getHost();
+        int port = config.getPort();
+        if (host == null) {
+            server = new EchoBenchServer(config, 0);
+            host = "127.0.0.1";
+            port = server.getPort();
+        }
+
+        byte[] payload = new byte[config.getMessageSize()];
+        Arrays.fill(payload, (byte) 'x');
+        payload[payload.length - 1] = '\n';
+
+        EventLoopGroup group = transport.newGroup(config.getIoThreads());
+        StripedHistogram histogram = new StripedHistogram();
+        LongAdder completed = new LongAdder();
+        List<LoadHandler> handlers = new ArrayList<>();
+        List<Channel> channels = new ArrayList<>();
+        try {
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(group)
+                    .channel(transport.socketChannel())
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .option(ChannelOption.ALLOCATOR, config.allocator());
+            transport.applyClientOptions(bootstrap, config.getTransportOptions());
+            for (int i = 0; i < config.getConnections(); i++) {
+                LoadHandler handler = new LoadHandler(payload, config.getOutstanding(), histogram, completed);
+                handlers.add(handler);
+                channels.add(bootstrap.handler(handler).connect(host, port).sync().channel());
+            }
+            for (LoadHandler handler : handlers) {
+                handler.ctx.executor().execute(handler::start);
+            }
+
+            Thread.sleep(config.getWarmupMillis());
+            for (LoadHandler handler : handlers) {
+                handler.recording = true;
+            }
+            HistogramSnapshot before = histogram.snapshot();
+            long completedBefore = completed.sum();
+            long start = System.nanoTime();
+            Thread.sleep(config.getDurationMillis());
+            long elapsed = System.nanoTime() - start;
+            HistogramSnapshot after = histogram.snapshot();
+            long messages = completed.sum() - completedBefore;
+
+            for (LoadHandler handler : handlers) {
+                handler.stopped = true;
+            }
+            return new Result(config, messages, elapsed, after.minus(before));
+        } finally {
+            for (Channel channel : channels) {
+                channel.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * 单个连接：收满一条消息的字节数就记录一次 RTT 并补发一条
+     */
+    private static final class LoadHandler extends ChannelInboundHandlerAdapter {
+
+        private final byte[] payload;
+        private final int outstanding;
+        private final StripedHistogram histogram;
+        private final LongAdder completed;
+
+        // 只在连接所在的 EventLoop 中访问
+        private final ArrayDeque<Long> sendTimes = new ArrayDeque<>();
+        private int partialBytes;
+        private ChannelHandlerContext ctx;
+
+        volatile boolean recording;
+        volatile boolean stopped;
+
+        LoadHandler(byte[] payload, int outstanding, StripedHistogram histogram, LongAdder completed) {
+            this.payload = payload;
+            this.outstanding = outstanding;
+            this.histogram = histogram;
+            this.completed = completed;
+        }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        void start() {
+            for (int i = 0; i < outstanding; i++) {
+                send();
+            }
+            ctx.flush();
+        }
+
+        private void send() {
+            // 每条消息都向分配器申请缓冲区，分配器的差异才会体现在结果里
+            ByteBuf buf = ctx.alloc().ioBuffer(payload.length).writeBytes(payload);
+            sendTimes.addLast(System.nanoTime());
+            ctx.write(buf, ctx.voidPromise());
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            partialBytes += buf.readableBytes();
+            buf.release();
+            while (partialBytes >= payload.length) {
+                partialBytes -= payload.length;
+                long rtt = System.nanoTime() - sendTimes.pollFirst();
+                if (recording) {
+                    histogram.record(rtt, false);
+                    completed.increment();
+                }
+                if (!stopped) {
+                    send();
+                }
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        boolean compare = args.length > 0 && "compare".equals(args[0]);
+        EchoBenchConfig base = EchoBenchConfig.parse(compare ? Arrays.copyOfRange(args, 1, args.length) : args);
+        if (!compare) {
+            System.out.println(run(base));
+            return;
+        }
+
+        StringBuilder summary = new StringBuilder();
+        for (Transport transport : Transport.values()) {
+            if (!transport.isAvailable()) {
+                summary.append(transport).append(" 不可用，跳过\n");
+                continue;
+            }
+            for (boolean pooled : new boolean[]{true, false}) {
+                EchoBenchConfig config = base.copy();
+                config.setTransport(transport);
+                config.setPooled(pooled);
+                Result result = run(config);
+                System.out.println(result);
+                summary.append(result).append('\n');
+            }
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+}
@@ -1,13 +1,12 @@
 package cn.clazs.jdk.netty.hello;
 
+import cn.clazs.jdk.netty.transport.Transports;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.string.StringDecoder;
 import lombok.extern.slf4j.Slf4j;
 
@@ -28,12 +27,14 @@ public class HelloServer {
                 //   由 Worker 线程负责后续的 IO 读写操作
                 // 注意：这里为了demo，只传了一个 Group，这意味着该 Group 既充当 Boss 又充当 Worker
                 // 即对应的selector既响应连接事件，也响应读写事件
-                .group(new NioEventLoopGroup())
+                // Transports 在 Linux 上优先创建原生 epoll 的 EpollEventLoopGroup，否则是 NioEventLoopGroup
+                .group(Transports.newGroup(0))
 
                 // 3. 指定 Channel 的类型 -> 对应 NIO 概念：ServerSocketChannel
                 // NioServerSocketChannel 对应 Java NIO 中的 java.nio.channels.ServerSocketChannel
                 // 它是基于 Java NIO Selector 实现的，能够支持非阻塞模式
-                .channel(NioServerSocketChannel.class)
+                // Channel 类型必须与 EventLoopGroup 配套（Epoll 组只能注册 EpollServerSocketChannel），由同一个 Transport 给出
+                .channel(Transports.select().serverSocketChannel())
 
                 // 4. 配置子处理器 (childHandler) -> 对应 NIO 概念：处理 Buffer 中的数据
                 // 这里的 "child" 指的是被 Boss 接受之后，创建出来的连接
@@ -41,9 +42,9 @@ public class HelloServer {
                 // ChannelInitializer 是一个特殊的处理器，它的作用是在连接建立后，
                 // 向 Pipeline（责任链、流水线）中添加其他的业务处理器
                 .childHandler(
-                        new ChannelInitializer<NioSocketChannel>() {
+                        new ChannelInitializer<SocketChannel>() {
                             @Override
-                            protected void initChannel(NioSocketChannel ch) throws Exception {
+                            protected void initChannel(SocketChannel ch) throws Exception {
                                 // ch 代表的是与客户端建立的具体连接通道，对应 NIO 的 SocketChannel
                                 // 5. 添加解码器
                                 // Netty 是基于 ByteBuf（字节流）传输数据的，而网络传输的都是字节
@@ -0,0 +1,17 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 单个类的手写紧凑编码，配合 CompactSerializer 使用
+ *
+ * 按固定顺序读写字段，不写字段名和类型信息，双方必须使用同一版本的编码
+ *
+ * @author clazs
+ */
+public interface CompactCodec<T> {
+
+    void write(T value, ByteBuf out);
+
+    T read(ByteBuf in);
+}
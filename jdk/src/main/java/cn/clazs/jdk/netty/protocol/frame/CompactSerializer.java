@@ -0,0 +1,139 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.CharsetUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 手写紧凑编码：每个类注册一个 CompactCodec
+ *
+ * 同时提供编码器常用的基础读写方法：
+ * - 变长整数（varint，7 位一组，小数字只占 1 字节）
+ * - zigzag 编码的有符号整数（负数也能用短的 varint 表示）
+ * - 以 varint 长度为前缀的 UTF-8 字符串
+ *
+ * 注册在启动时完成，之后只读
+ *
+ * @author clazs
+ */
+public class CompactSerializer implements Serializer {
+
+    public static final byte ID = 3;
+
+    private final Map<Class<?>, CompactCodec<?>> codecs = new HashMap<>();
+
+    public <T> CompactSerializer register(Class<T> type, CompactCodec<T> codec) {
+        codecs.put(type, codec);
+        return this;
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "compact";
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void serialize(Object body, ByteBuf out) {
+        ((CompactCodec<Object>) codecFor(body.getClass())).write(body, out);
+    }
+
+    @Override
+    public <T> T deserialize(Class<T> type, ByteBuf in) {
+        return codecFor(type).read(in);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompactCodec<T> codecFor(Class<T> type) {
+        CompactCodec<T> codec = (CompactCodec<T>) codecs.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("没有为 " + type.getName() + " 注册紧凑编码");
+        }
+        return codec;
+    }
+
+    // ==================== 基础读写 ====================
+
+    public static void writeVarInt(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("varint 超过 5 字节");
+    }
+
+    public static void writeVarLong(ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(ByteBuf in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new CorruptedFrameException("varlong 超过 10 字节");
+    }
+
+    public static void writeSignedVarInt(ByteBuf out, int value) {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSignedVarInt(ByteBuf in) {
+        int raw = readVarInt(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * null 写成长度 0，空串写成长度 1（长度 = 字节数 + 1）
+     */
+    public static void writeString(ByteBuf out, String value) {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, ByteBufUtil.utf8Bytes(value) + 1);
+        ByteBufUtil.writeUtf8(out, value);
+    }
+
+    public static String readString(ByteBuf in) {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.readableBytes()) {
+            throw new CorruptedFrameException("字符串长度 " + length + " 超出剩余字节 " + in.readableBytes());
+        }
+        String value = in.toString(in.readerIndex(), length, CharsetUtil.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+}
@@ -0,0 +1,42 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一帧消息
+ *
+ * 线上格式（大端）：
+ * <pre>
+ * +-------+---------+------------+------+----------+--------+---------+
+ * | magic | version | serializer | type | sequence | length | payload |
+ * |  4B   |   1B    |     1B     |  1B  |    4B    |   4B   | length  |
+ * +-------+---------+------------+------+----------+--------+---------+
+ * </pre>
+ *
+ * - serializer: 负载使用的序列化方式，见 Serializer#id
+ * - type:       消息类型，由 FrameCodec 注册，决定负载反序列化成哪个类
+ * - sequence:   请求序号，响应原样带回，用来匹配请求和响应
+ *
+ * @author clazs
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Frame {
+
+    private byte serializerId;
+    private byte messageType;
+    private int sequenceId;
+    private Object body;
+
+    /**
+     * 编码时消息类型由 FrameCodec 根据 body 的类查出，不需要调用方填写
+     */
+    public Frame(byte serializerId, int sequenceId, Object body) {
+        this.serializerId = serializerId;
+        this.sequenceId = sequenceId;
+        this.body = body;
+    }
+}
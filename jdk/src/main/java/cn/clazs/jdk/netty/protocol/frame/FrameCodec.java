@@ -0,0 +1,134 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 帧格式的编解码核心，FrameEncoder / FrameDecoder 只是把它接进流水线
+ *
+ * 保存两张注册表：
+ * - 序列化方式编号 -> Serializer（默认只注册 JSON；紧凑编码需要先注册各个类的 CompactCodec；
+ *   JDK 序列化会按对端帧头里的编号反序列化任意字节，必须显式注册并给出类白名单，见 JdkSerializer）
+ * - 消息类型编号 <-> 消息类
+ *
+ * 注册在启动时完成，之后只读，多个连接共享同一个实例
+ *
+ * @author clazs
+ */
+public class FrameCodec {
+
+    public static final int MAGIC = 0x434C5A53;        // "CLZS"
+    public static final byte VERSION = 1;
+    public static final int HEADER_LENGTH = 15;
+    public static final int LENGTH_FIELD_OFFSET = 11;
+    public static final int LENGTH_FIELD_LENGTH = 4;
+
+    private final Serializer[] serializers = new Serializer[256];
+    private final Class<?>[] types = new Class<?>[256];
+    private final Map<Class<?>, Byte> typeIds = new HashMap<>();
+
+    public FrameCodec() {
+        registerSerializer(new JsonSerializer());
+    }
+
+    public FrameCodec registerSerializer(Serializer serializer) {
+        Serializer existing = serializers[serializer.id() & 0xFF];
+        if (existing != null) {
+            throw new IllegalArgumentException("序列化方式 " + serializer.id() + " 已注册为 " + existing.name());
+        }
+        serializers[serializer.id() & 0xFF] = serializer;
+        return this;
+    }
+
+    public FrameCodec registerType(int messageType, Class<?> type) {
+        if (types[messageType & 0xFF] != null) {
+            throw new IllegalArgumentException("消息类型 " + messageType + " 已注册为 " + types[messageType & 0xFF].getName());
+        }
+        types[messageType & 0xFF] = type;
+        typeIds.put(type, (byte) messageType);
+        return this;
+    }
+
+    public Serializer serializer(byte serializerId) {
+        Serializer serializer = serializers[serializerId & 0xFF];
+        if (serializer == null) {
+            throw new IllegalArgumentException("未知的序列化方式: " + serializerId);
+        }
+        return serializer;
+    }
+
+    /**
+     * 写出一帧：先写帧头并占住长度字段，序列化完负载后回填长度
+     */
+    public void encode(Frame frame, ByteBuf out) {
+        Object body = frame.getBody();
+        Byte messageType = typeIds.get(body.getClass());
+        if (messageType == null) {
+            throw new EncoderException("未注册的消息类型: " + body.getClass().getName());
+        }
+        Serializer serializer = serializer(frame.getSerializerId());
+
+        int start = out.writerIndex();
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(serializer.id());
+        out.writeByte(messageType);
+        out.writeInt(frame.getSequenceId());
+        out.writeInt(0);
+        try {
+            serializer.serialize(body, out);
+        } catch (Exception e) {
+            out.writerIndex(start);
+            throw new EncoderException(serializer.name() + " 序列化失败: " + body.getClass().getName(), e);
+        }
+        out.setInt(start + LENGTH_FIELD_OFFSET, out.writerIndex() - start - HEADER_LENGTH);
+    }
+
+    /**
+     * 解析一个完整的帧（包含帧头），不释放 frame
+     */
+    public Frame decode(ByteBuf frame) {
+        checkMagic(frame);
+        int start = frame.readerIndex();
+        byte version = frame.getByte(start + 4);
+        if (version != VERSION) {
+            throw new CorruptedFrameException("不支持的协议版本: " + version);
+        }
+        byte serializerId = frame.getByte(start + 5);
+        byte messageType = frame.getByte(start + 6);
+        int sequenceId = frame.getInt(start + 7);
+        int length = frame.getInt(start + LENGTH_FIELD_OFFSET);
+
+        Class<?> type = types[messageType & 0xFF];
+        if (type == null) {
+            throw new CorruptedFrameException("未知的消息类型: " + messageType);
+        }
+        Serializer serializer = serializers[serializerId & 0xFF];
+        if (serializer == null) {
+            throw new CorruptedFrameException("未知的序列化方式: " + serializerId);
+        }
+        ByteBuf payload = frame.slice(start + HEADER_LENGTH, length);
+        Object body;
+        try {
+            body = serializer.deserialize(type, payload);
+        } catch (Exception e) {
+            throw new DecoderException(serializer.name() + " 反序列化失败: " + type.getName(), e);
+        }
+        frame.skipBytes(HEADER_LENGTH + length);
+        return new Frame(serializerId, messageType, sequenceId, body);
+    }
+
+    /**
+     * 只要读到 4 个字节就能检查魔数，不必等整个帧到齐，错误的连接可以尽早断开
+     */
+    static void checkMagic(ByteBuf in) {
+        if (in.readableBytes() >= 4 && in.getInt(in.readerIndex()) != MAGIC) {
+            throw new CorruptedFrameException("魔数错误: 0x" + Integer.toHexString(in.getInt(in.readerIndex())));
+        }
+    }
+}
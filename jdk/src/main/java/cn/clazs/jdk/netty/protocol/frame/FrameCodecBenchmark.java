@@ -0,0 +1,103 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三种序列化方式的帧编解码吞吐量（JMH）+ 线上字节数
+ *
+ * - encode: Frame -> 池化直接内存 ByteBuf（与 FrameEncoder 的路径相同）
+ * - decode: 完整帧 -> Frame（与 FrameDecoder 切出帧之后的路径相同）
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrameCodecBenchmark {
+
+    @Param({"jdk", "json", "compact"})
+    public String serializer;
+
+    private FrameCodec codec;
+    private Frame frame;
+    private ByteBuf encoded;
+
+    @Setup
+    public void setup() {
+        codec = FrameProtocolDemo.newCodec();
+        frame = new Frame(serializerId(serializer), 1, FrameProtocolDemo.sampleStudent());
+        encoded = PooledByteBufAllocator.DEFAULT.directBuffer(512);
+        codec.encode(frame, encoded);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoded.release();
+    }
+
+    @Benchmark
+    public void encode() {
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.ioBuffer(256);
+        codec.encode(frame, out);
+        out.release();
+    }
+
+    @Benchmark
+    public Frame decode() {
+        return codec.decode(encoded.duplicate());
+    }
+
+    static byte serializerId(String name) {
+        switch (name) {
+            case "jdk":
+                return JdkSerializer.ID;
+            case "json":
+                return JsonSerializer.ID;
+            default:
+                return CompactSerializer.ID;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Map<String, Integer> wireBytes = new LinkedHashMap<>();
+        FrameCodec codec = FrameProtocolDemo.newCodec();
+        for (String name : new String[]{"jdk", "json", "compact"}) {
+            ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer();
+            codec.encode(new Frame(serializerId(name), 1, FrameProtocolDemo.sampleStudent()), buf);
+            wireBytes.put(name, buf.readableBytes());
+            buf.release();
+        }
+
+        Options options = new OptionsBuilder()
+                .include(FrameCodecBenchmark.class.getSimpleName())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        StringBuilder summary = new StringBuilder();
+        for (RunResult result : results) {
+            String name = result.getParams().getParam("serializer");
+            summary.append(String.format("%-8s %-7s %10.3f ops/us   %4d 字节/帧%n", name,
+                    result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                    result.getPrimaryResult().getScore(), wireBytes.get(name)));
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+}
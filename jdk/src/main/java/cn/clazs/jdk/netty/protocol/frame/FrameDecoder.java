@@ -0,0 +1,53 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+/**
+ * ByteBuf -> Frame
+ *
+ * 由 LengthFieldBasedFrameDecoder 按帧头里的长度字段处理半包、粘包，
+ * 切出完整的一帧后交给 FrameCodec 解析
+ *
+ * 有状态（累积缓冲区），每个连接一个实例
+ *
+ * @author clazs
+ */
+public class FrameDecoder extends LengthFieldBasedFrameDecoder {
+
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 1024 * 1024;
+
+    private final FrameCodec codec;
+
+    public FrameDecoder(FrameCodec codec) {
+        this(codec, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    public FrameDecoder(FrameCodec codec, int maxFrameLength) {
+        // 长度字段只包含负载长度，帧头一起保留给 FrameCodec 解析
+        super(maxFrameLength, FrameCodec.LENGTH_FIELD_OFFSET, FrameCodec.LENGTH_FIELD_LENGTH, 0, 0);
+        this.codec = codec;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+        try {
+            FrameCodec.checkMagic(in);
+        } catch (CorruptedFrameException e) {
+            // 魔数不对时后面的数据都无法对齐，全部丢弃，由上层决定是否关闭连接
+            in.skipBytes(in.readableBytes());
+            throw e;
+        }
+        ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+        if (frame == null) {
+            return null;
+        }
+        try {
+            return codec.decode(frame);
+        } finally {
+            frame.release();
+        }
+    }
+}
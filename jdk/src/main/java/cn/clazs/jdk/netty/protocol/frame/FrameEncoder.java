@@ -0,0 +1,29 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+/**
+ * Frame -> ByteBuf
+ *
+ * 没有状态，所有连接共享一个实例。
+ * 负载直接序列化进 MessageToByteEncoder 分配的（池化、直接内存）ByteBuf
+ *
+ * @author clazs
+ */
+@ChannelHandler.Sharable
+public class FrameEncoder extends MessageToByteEncoder<Frame> {
+
+    private final FrameCodec codec;
+
+    public FrameEncoder(FrameCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Frame frame, ByteBuf out) {
+        codec.encode(frame, out);
+    }
+}
@@ -0,0 +1,158 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.DecoderException;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二进制帧协议演示
+ *
+ * 对比 TestInOutBound：那里出站要经过 Student -> String -> ByteBuf 三个处理器，
+ * 入站用 Charset.defaultCharset() 解码，也没有处理半包、粘包；
+ * 这里只需要 FrameDecoder + FrameEncoder 两个处理器，业务处理器直接收发 Frame
+ *
+ * @author clazs
+ */
+public class FrameProtocolDemo {
+
+    static final int TYPE_STUDENT = 1;
+
+    static FrameCodec newCodec() {
+        return new FrameCodec()
+                .registerSerializer(new JdkSerializer(Student.class))
+                .registerSerializer(new CompactSerializer().register(Student.class, StudentCodec.INSTANCE))
+                .registerType(TYPE_STUDENT, Student.class);
+    }
+
+    static Student sampleStudent() {
+        return new Student(10001L, "张三", 20, "zhangsan@example.com", new int[]{95, 87, 100, 62});
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== 二进制帧协议演示 ==========\n");
+        FrameCodec codec = newCodec();
+        FrameEncoder encoder = new FrameEncoder(codec);
+        byte[] serializerIds = {JdkSerializer.ID, JsonSerializer.ID, CompactSerializer.ID};
+
+        System.out.println("【演示 1】同一个 Student 用三种序列化方式编码，再解码回来");
+        for (byte serializerId : serializerIds) {
+            EmbeddedChannel channel = new EmbeddedChannel(new FrameDecoder(codec), encoder);
+            channel.writeOutbound(new Frame(serializerId, 1, sampleStudent()));
+            ByteBuf wire = channel.readOutbound();
+            int bytes = wire.readableBytes();
+            channel.writeInbound(wire);
+            Frame decoded = channel.readInbound();
+            System.out.printf("%-8s 线上 %3d 字节，解码: %s%n",
+                    codec.serializer(serializerId).name(), bytes, decoded.getBody());
+            channel.finish();
+        }
+
+        System.out.println("\n紧凑编码的完整帧（前 15 字节是帧头）:");
+        ByteBuf compact = Unpooled.buffer();
+        codec.encode(new Frame(CompactSerializer.ID, 1, sampleStudent()), compact);
+        System.out.println(ByteBufUtil.prettyHexDump(compact));
+        compact.release();
+
+        System.out.println("\n【演示 2】半包、粘包：3 帧拼在一起，每次只喂 7 个字节");
+        ByteBuf joined = Unpooled.buffer();
+        for (int i = 1; i <= 3; i++) {
+            Student student = sampleStudent();
+            student.setName("学生-" + i);
+            codec.encode(new Frame(CompactSerializer.ID, i, student), joined);
+        }
+        EmbeddedChannel channel = new EmbeddedChannel(new FrameDecoder(codec));
+        while (joined.isReadable()) {
+            channel.writeInbound(joined.readRetainedSlice(Math.min(7, joined.readableBytes())));
+        }
+        joined.release();
+        Frame frame;
+        while ((frame = channel.readInbound()) != null) {
+            System.out.println("收到 seq=" + frame.getSequenceId() + " name=" + ((Student) frame.getBody()).getName());
+        }
+        channel.finish();
+
+        System.out.println("\n【演示 3】魔数错误：读到 4 个字节就报错，不必等整个帧");
+        channel = new EmbeddedChannel(new FrameDecoder(codec));
+        try {
+            channel.writeInbound(Unpooled.wrappedBuffer("GET / HTTP/1.1\r\n".getBytes()));
+        } catch (DecoderException e) {
+            System.out.println("解码失败: " + e.getMessage());
+        }
+        channel.finishAndReleaseAll();
+
+        System.out.println("\n【演示 4】TCP 往返：服务器把 age + 1 后用相同的序号和序列化方式返回");
+        EventLoopGroup group = new NioEventLoopGroup(2);
+        try {
+            Channel server = new ServerBootstrap()
+                    .group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new FrameDecoder(codec), encoder);
+                            ch.pipeline().addLast(new SimpleChannelInboundHandler<Frame>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, Frame request) {
+                                    Student student = (Student) request.getBody();
+                                    student.setAge(student.getAge() + 1);
+                                    ctx.writeAndFlush(new Frame(request.getSerializerId(), request.getSequenceId(), student));
+                                }
+                            });
+                        }
+                    })
+                    .bind(0).sync().channel();
+
+            BlockingQueue<Frame> responses = new LinkedBlockingQueue<>();
+            Channel client = new Bootstrap()
+                    .group(group)
+                    .channel(NioSocketChannel.class)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new FrameDecoder(codec), encoder);
+                            ch.pipeline().addLast(new SimpleChannelInboundHandler<Frame>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx, Frame response) {
+                                    responses.add(response);
+                                }
+                            });
+                        }
+                    })
+                    .connect(((InetSocketAddress) server.localAddress())).sync().channel();
+
+            for (int i = 0; i < serializerIds.length; i++) {
+                client.writeAndFlush(new Frame(serializerIds[i], 100 + i, sampleStudent()));
+            }
+            for (int i = 0; i < serializerIds.length; i++) {
+                Frame response = responses.poll(5, TimeUnit.SECONDS);
+                Student student = (Student) response.getBody();
+                System.out.printf("seq=%d %-8s age=%d scores=%s%n", response.getSequenceId(),
+                        codec.serializer(response.getSerializerId()).name(), student.getAge(),
+                        Arrays.toString(student.getScores()));
+            }
+            client.close().sync();
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully().sync();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * JDK 自带的 Serializable 序列化
+ *
+ * 不需要额外代码，但每个流都会写出类描述信息，体积大、速度慢。
+ * 反序列化时流里的类名来自对端，不加限制就能让对端实例化类路径上任意的 Serializable 类（gadget 链），
+ * 所以 FrameCodec 默认不注册它，需要显式 registerSerializer，并且只能解析白名单里的类：
+ * - 构造时传入的消息类，以及它们字段里用到的自定义类型
+ * - String、基本类型的包装类和上述类型的数组（resolveClass 对数组类名逐层取元素类型再检查）
+ *
+ * @author clazs
+ */
+public class JdkSerializer implements Serializer {
+
+    public static final byte ID = 1;
+
+    private static final Set<String> ALWAYS_ALLOWED = new HashSet<>(Arrays.asList(
+            String.class.getName(), Boolean.class.getName(), Character.class.getName(),
+            Byte.class.getName(), Short.class.getName(), Integer.class.getName(),
+            Long.class.getName(), Float.class.getName(), Double.class.getName(),
+            Number.class.getName()));
+
+    private final Set<String> allowed = new HashSet<>(ALWAYS_ALLOWED);
+
+    /**
+     * @param allowedTypes 允许反序列化的类，至少包含注册到 FrameCodec 的消息类
+     */
+    public JdkSerializer(Class<?>... allowedTypes) {
+        for (Class<?> type : allowedTypes) {
+            allowed.add(type.getName());
+        }
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "jdk";
+    }
+
+    @Override
+    public void serialize(Object body, ByteBuf out) throws Exception {
+        try (ObjectOutputStream stream = new ObjectOutputStream(new ByteBufOutputStream(out))) {
+            stream.writeObject(body);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(Class<T> type, ByteBuf in) throws Exception {
+        if (!allowed.contains(type.getName())) {
+            throw new InvalidClassException(type.getName(), "不在 JDK 反序列化白名单中");
+        }
+        try (ObjectInputStream stream = new AllowListObjectInputStream(new ByteBufInputStream(in))) {
+            return type.cast(stream.readObject());
+        }
+    }
+
+    /**
+     * 在加载类之前检查流里的类名，白名单之外的类连 static 初始化都不会触发
+     */
+    private final class AllowListObjectInputStream extends ObjectInputStream {
+
+        AllowListObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            int dimensions = 0;
+            while (dimensions < name.length() && name.charAt(dimensions) == '[') {
+                dimensions++;
+            }
+            if (dimensions > 0) {
+                // "[I"、"[[J" 是基本类型数组；"[Lcom.foo.Bar;" 取出元素类名
+                String element = name.substring(dimensions);
+                name = element.length() == 1 ? null : element.substring(1, element.length() - 1);
+            }
+            if (name != null && !allowed.contains(name)) {
+                throw new InvalidClassException(desc.getName(), "不在 JDK 反序列化白名单中");
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Jackson JSON 序列化
+ *
+ * 可读、跨语言，字段名每次都会写出，体积介于 JDK 序列化和紧凑编码之间
+ *
+ * ObjectMapper 线程安全，所有连接共享一个实例
+ *
+ * @author clazs
+ */
+public class JsonSerializer implements Serializer {
+
+    public static final byte ID = 2;
+
+    private final ObjectMapper mapper;
+
+    public JsonSerializer() {
+        this(new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+    }
+
+    public JsonSerializer(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public void serialize(Object body, ByteBuf out) throws Exception {
+        try (OutputStream stream = new ByteBufOutputStream(out)) {
+            mapper.writeValue(stream, body);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(Class<T> type, ByteBuf in) throws Exception {
+        try (InputStream stream = new ByteBufInputStream(in)) {
+            return mapper.readValue(stream, type);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 负载序列化方式
+ *
+ * 直接读写 ByteBuf，不经过中间的 byte[]
+ *
+ * @author clazs
+ */
+public interface Serializer {
+
+    /**
+     * 写在帧头里的序列化方式编号，同一个 FrameCodec 中不能重复
+     */
+    byte id();
+
+    String name();
+
+    void serialize(Object body, ByteBuf out) throws Exception;
+
+    /**
+     * @param in 只包含负载的切片，读完即可，不需要释放
+     */
+    <T> T deserialize(Class<T> type, ByteBuf in) throws Exception;
+}
@@ -0,0 +1,30 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 示例消息（TestInOutBound 中 Student 的扩充版）
+ *
+ * - Serializable：JDK 序列化需要
+ * - 无参构造 + getter/setter：Jackson 需要
+ * - 紧凑编码见 StudentCodec
+ *
+ * @author clazs
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Student implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long id;
+    private String name;
+    private int age;
+    private String email;
+    private int[] scores;
+}
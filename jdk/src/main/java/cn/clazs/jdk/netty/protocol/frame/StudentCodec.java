@@ -0,0 +1,57 @@
+package cn.clazs.jdk.netty.protocol.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import static cn.clazs.jdk.netty.protocol.frame.CompactSerializer.*;
+
+/**
+ * Student 的紧凑编码：id(varlong) name(string) age(varint) email(string) scores(count + zigzag varint...)
+ *
+ * scores 为 null 时 count 写 0，空数组写 1（与字符串相同的 +1 规则）
+ *
+ * @author clazs
+ */
+public class StudentCodec implements CompactCodec<Student> {
+
+    public static final StudentCodec INSTANCE = new StudentCodec();
+
+    @Override
+    public void write(Student student, ByteBuf out) {
+        writeVarLong(out, student.getId());
+        writeString(out, student.getName());
+        writeVarInt(out, student.getAge());
+        writeString(out, student.getEmail());
+        int[] scores = student.getScores();
+        if (scores == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, scores.length + 1);
+        for (int score : scores) {
+            writeSignedVarInt(out, score);
+        }
+    }
+
+    @Override
+    public Student read(ByteBuf in) {
+        Student student = new Student();
+        student.setId(readVarLong(in));
+        student.setName(readString(in));
+        student.setAge(readVarInt(in));
+        student.setEmail(readString(in));
+        int count = readVarInt(in) - 1;
+        if (count > in.readableBytes()) {
+            // 每个分数至少 1 字节，数量比剩余字节还多说明数据损坏
+            throw new CorruptedFrameException("scores 数量错误: " + count);
+        }
+        if (count >= 0) {
+            int[] scores = new int[count];
+            for (int i = 0; i < count; i++) {
+                scores[i] = readSignedVarInt(in);
+            }
+            student.setScores(scores);
+        }
+        return student;
+    }
+}
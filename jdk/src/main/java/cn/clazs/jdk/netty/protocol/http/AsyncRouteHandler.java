@@ -0,0 +1,16 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.handler.codec.http.FullHttpResponse;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步路由处理器：future 可以在任意线程完成，响应仍按请求顺序写出（HTTP/1.1 流水线要求）
+ *
+ * @author clazs
+ */
+@FunctionalInterface
+public interface AsyncRouteHandler {
+
+    CompletionStage<FullHttpResponse> handle(RouteRequest request) throws Exception;
+}
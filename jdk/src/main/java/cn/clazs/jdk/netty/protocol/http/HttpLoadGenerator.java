@@ -0,0 +1,219 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import cn.clazs.jdk.dynamicproxy.metrics.HistogramSnapshot;
+import cn.clazs.jdk.dynamicproxy.metrics.StripedHistogram;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP/1.1 压测客户端：connections 个长连接，每个连接保持 pipelineDepth 个在途请求
+ *
+ * - 请求预先编码成一个 ByteBuf，发送时 retainedDuplicate()，客户端自身几乎不分配内存
+ * - 每个连接记录发送时间的队列，响应按顺序返回，队头就是对应请求的发送时间
+ * - 预热阶段的请求不计入结果
+ *
+ * @author clazs
+ */
+public class HttpLoadGenerator implements AutoCloseable {
+
+    private final EventLoopGroup group;
+
+    public HttpLoadGenerator(int ioThreads) {
+        this.group = new NioEventLoopGroup(ioThreads);
+    }
+
+    /**
+     * 压测结果
+     */
+    public static final class Result {
+        private final long requests;
+        private final long errors;
+        private final long elapsedNanos;
+        private final HistogramSnapshot latency;
+
+        Result(long requests, long errors, long elapsedNanos, HistogramSnapshot latency) {
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getRequestsPerSecond() {
+            return requests * 1e9 / elapsedNanos;
+        }
+
+        public HistogramSnapshot getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,10.0f req/s  p50=%7.1fus  p99=%8.1fus  p99.9=%8.1fus  max=%8.1fus  errors=%d",
+                    getRequestsPerSecond(),
+                    latency.percentile(50) / 1000.0, latency.percentile(99) / 1000.0,
+                    latency.percentile(99.9) / 1000.0, latency.getMax() / 1000.0, errors);
+        }
+    }
+
+    /**
+     * 压测一个 GET 路径
+     */
+    public Result run(String host, int port, String path, int connections, int pipelineDepth,
+                      long warmupMillis, long durationMillis) throws InterruptedException {
+        ByteBuf request = Unpooled.unreleasableBuffer(Unpooled.directBuffer().writeBytes((
+                "GET " + path + " HTTP/1.1\r\n" +
+                "Host: " + host + ":" + port + "\r\n" +
+                "\r\n").getBytes(StandardCharsets.US_ASCII)).asReadOnly());
+
+        StripedHistogram histogram = new StripedHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        List<LoadHandler> handlers = new ArrayList<>(connections);
+        List<Channel> channels = new ArrayList<>(connections);
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true);
+        for (int i = 0; i < connections; i++) {
+            LoadHandler handler = new LoadHandler(request, pipelineDepth, histogram, completed, errors);
+            handlers.add(handler);
+            channels.add(bootstrap.handler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) {
+                    ch.pipeline().addLast(new HttpResponseDecoder());
+                    ch.pipeline().addLast(new HttpObjectAggregator(1024 * 1024));
+                    ch.pipeline().addLast(handler);
+                }
+            }).connect(host, port).sync().channel());
+        }
+        for (Channel channel : channels) {
+            channel.eventLoop().execute(() -> handlers.get(channels.indexOf(channel)).start(channel));
+        }
+
+        Thread.sleep(warmupMillis);
+        for (LoadHandler handler : handlers) {
+            handler.recording = true;
+        }
+        HistogramSnapshot before = histogram.snapshot();
+        long completedBefore = completed.sum();
+        long errorsBefore = errors.sum();
+        long start = System.nanoTime();
+        Thread.sleep(durationMillis);
+        long elapsed = System.nanoTime() - start;
+        HistogramSnapshot after = histogram.snapshot();
+        long requests = completed.sum() - completedBefore;
+        long failed = errors.sum() - errorsBefore;
+
+        for (LoadHandler handler : handlers) {
+            handler.stopped = true;
+        }
+        for (Channel channel : channels) {
+            channel.close().sync();
+        }
+        return new Result(requests, failed, elapsed, after.minus(before));
+    }
+
+    @Override
+    public void close() {
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    /**
+     * 单个连接：收到一个响应就补发一个请求，使在途请求数保持为 pipelineDepth
+     */
+    private static final class LoadHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        private final ByteBuf request;
+        private final int pipelineDepth;
+        private final StripedHistogram histogram;
+        private final LongAdder completed;
+        private final LongAdder errors;
+
+        // 只在连接所在的 EventLoop 中访问
+        private final ArrayDeque<Long> sendTimes = new ArrayDeque<>();
+        private Channel channel;
+
+        volatile boolean recording;
+        volatile boolean stopped;
+
+        LoadHandler(ByteBuf request, int pipelineDepth, StripedHistogram histogram,
+                    LongAdder completed, LongAdder errors) {
+            this.request = request;
+            this.pipelineDepth = pipelineDepth;
+            this.histogram = histogram;
+            this.completed = completed;
+            this.errors = errors;
+        }
+
+        void start(Channel channel) {
+            this.channel = channel;
+            for (int i = 0; i < pipelineDepth; i++) {
+                send();
+            }
+            channel.flush();
+        }
+
+        private void send() {
+            sendTimes.addLast(System.nanoTime());
+            channel.write(request.retainedDuplicate(), channel.voidPromise());
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            long latency = System.nanoTime() - sendTimes.pollFirst();
+            boolean failure = !HttpResponseStatus.OK.equals(response.status());
+            if (recording) {
+                histogram.record(latency, failure);
+                completed.increment();
+                if (failure) {
+                    errors.increment();
+                }
+            }
+            if (!stopped) {
+                send();
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            // 一次读事件里收到的多个响应，补发的请求合并成一次 flush
+            ctx.flush();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            errors.increment();
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 路由分发 + HTTP/1.1 流水线 + keep-alive（每个连接一个实例）
+ *
+ * 流水线：客户端可以不等响应连续发送多个请求，服务端必须按请求顺序响应。
+ * 同步路由立即得到响应；异步路由的响应可能晚于后面的请求完成，
+ * 因此只要队列里还有未完成的响应，后续响应都排队，队首完成后按顺序写出
+ *
+ * 预编码的静态响应（ByteBuf）从 HttpResponseEncoder 的 context 写出，直接跳过响应编码器。
+ * 因此 pipeline 必须用独立的 HttpRequestDecoder + HttpResponseEncoder 而不是 HttpServerCodec：
+ * HttpServerCodec 的解码器每个请求往共享队列里放一个 HttpMethod，只有编码器才取出，
+ * 跳过编码器的响应会在队列里留下一个过期的方法，之后的响应都按错误的请求方法编码。
+ * 独立的编码器不知道请求方法，HEAD 请求的响应体在这里去掉（保留 Content-Length）
+ *
+ * 排队的响应（包括已完成但被队首挡住的）达到 maxPipelined 时关闭 autoRead，不再读取新请求，直到积压降到一半
+ *
+ * 连接关闭或处理器被移除时释放队列中所有已完成的响应（静态响应的 retainedDuplicate、FullHttpResponse），
+ * 之后才完成的异步响应直接释放
+ *
+ * @author clazs
+ */
+@Slf4j
+final class HttpPipeliningHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private final HttpRouter router;
+    private final int maxPipelined;
+
+    private final ArrayDeque<Slot> pending = new ArrayDeque<>();
+    private ChannelHandlerContext encoderCtx;
+    private boolean reading;
+    private boolean closing;
+    private boolean released;
+
+    private static final class Slot {
+        Object response;
+        final boolean keepAlive;
+        final HttpVersion version;
+        final boolean head;
+
+        Slot(boolean keepAlive, HttpVersion version, boolean head) {
+            this.keepAlive = keepAlive;
+            this.version = version;
+            this.head = head;
+        }
+    }
+
+    HttpPipeliningHandler(HttpRouter router, int maxPipelined) {
+        this.router = router;
+        this.maxPipelined = maxPipelined;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        encoderCtx = ctx.pipeline().context(HttpResponseEncoder.class);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        reading = true;
+        if (closing) {
+            // Connection: close 之后到达的流水线请求直接丢弃
+            return;
+        }
+        HttpVersion version = request.protocolVersion();
+        boolean head = HttpMethod.HEAD.equals(request.method());
+        if (!request.decoderResult().isSuccess()) {
+            closing = true;
+            respond(ctx, new Slot(false, version, head), HttpResponses.text(HttpResponseStatus.BAD_REQUEST, "bad request"));
+            return;
+        }
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        if (!keepAlive) {
+            closing = true;
+        }
+        Slot slot = new Slot(keepAlive, version, head);
+
+        String uri = request.uri();
+        int question = uri.indexOf('?');
+        String path = question < 0 ? uri : uri.substring(0, question);
+        HttpRouter.RouteMatch match = router.match(request.method(), path);
+        if (match == null) {
+            HttpResponseStatus status = router.hasPath(path) ? HttpResponseStatus.METHOD_NOT_ALLOWED : HttpResponseStatus.NOT_FOUND;
+            respond(ctx, slot, HttpResponses.text(status, status.reasonPhrase()));
+            return;
+        }
+
+        HttpRouter.Route route = match.route;
+        if (route.staticResponse != null) {
+            Object response = version == HttpVersion.HTTP_1_1 && !head
+                    ? route.staticResponse.retainedDuplicate(!keepAlive)
+                    : route.staticResponse.toFullResponse(version);
+            respond(ctx, slot, response);
+            return;
+        }
+
+        CompletableFuture<FullHttpResponse> future;
+        try {
+            future = route.handler.handle(new RouteRequest(request, path, match.params)).toCompletableFuture();
+        } catch (Exception e) {
+            log.warn("路由处理失败: {} {}", request.method(), uri, e);
+            respond(ctx, slot, HttpResponses.text(HttpResponseStatus.INTERNAL_SERVER_ERROR, "internal error"));
+            return;
+        }
+        if (future.isDone()) {
+            respond(ctx, slot, toResponse(future.getNow(null), null, uri));
+            return;
+        }
+
+        // 异步：请求在 future 完成前还可能被处理器使用，保留一次引用
+        request.retain();
+        enqueue(ctx, slot);
+        future.whenComplete((response, error) -> ctx.executor().execute(() -> {
+            request.release();
+            complete(ctx, slot, toResponse(response, error, uri));
+        }));
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        reading = false;
+        flush(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releasePending();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releasePending();
+    }
+
+    private void releasePending() {
+        released = true;
+        Slot slot;
+        while ((slot = pending.poll()) != null) {
+            ReferenceCountUtil.release(slot.response);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.debug("HTTP 连接异常，关闭 {}", ctx.channel(), cause);
+        ctx.close();
+    }
+
+    private static FullHttpResponse toResponse(FullHttpResponse response, Throwable error, String uri) {
+        if (error != null || response == null) {
+            if (error != null) {
+                log.warn("异步路由处理失败: {}", uri, error);
+            }
+            return HttpResponses.text(HttpResponseStatus.INTERNAL_SERVER_ERROR, "internal error");
+        }
+        return response;
+    }
+
+    // ==================== 有序写出 ====================
+
+    private void respond(ChannelHandlerContext ctx, Slot slot, Object response) {
+        if (pending.isEmpty()) {
+            write(ctx, slot, response);
+        } else {
+            slot.response = response;
+            enqueue(ctx, slot);
+        }
+    }
+
+    /**
+     * 同步响应被未完成的异步响应挡住时同样占用队列，一起计入 maxPipelined
+     */
+    private void enqueue(ChannelHandlerContext ctx, Slot slot) {
+        pending.add(slot);
+        if (pending.size() >= maxPipelined) {
+            ctx.channel().config().setAutoRead(false);
+        }
+    }
+
+    private void complete(ChannelHandlerContext ctx, Slot slot, Object response) {
+        if (released) {
+            ReferenceCountUtil.release(response);
+            return;
+        }
+        slot.response = response;
+        boolean written = false;
+        Slot head;
+        while ((head = pending.peek()) != null && head.response != null) {
+            pending.poll();
+            write(ctx, head, head.response);
+            written = true;
+        }
+        if (!ctx.channel().config().isAutoRead() && pending.size() <= maxPipelined / 2) {
+            ctx.channel().config().setAutoRead(true);
+        }
+        if (written && !reading) {
+            flush(ctx);
+        }
+    }
+
+    private void write(ChannelHandlerContext ctx, Slot slot, Object response) {
+        if (response instanceof ByteBuf) {
+            encoderCtx.write(response, encoderCtx.voidPromise());
+            return;
+        }
+        FullHttpResponse full = (FullHttpResponse) response;
+        full.setProtocolVersion(slot.version);
+        if (!full.headers().contains(HttpHeaderNames.CONTENT_LENGTH)) {
+            HttpUtil.setContentLength(full, full.content().readableBytes());
+        }
+        HttpUtil.setKeepAlive(full, slot.keepAlive);
+        if (slot.head) {
+            FullHttpResponse empty = full.replace(Unpooled.EMPTY_BUFFER);
+            full.release();
+            full = empty;
+        }
+        ctx.write(full, ctx.voidPromise());
+    }
+
+    /**
+     * 收到 Connection: close 的请求后，等它之前的响应全部写出再关闭
+     */
+    private void flush(ChannelHandlerContext ctx) {
+        ctx.flush();
+        if (closing && pending.isEmpty()) {
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 动态响应的构造工具
+ *
+ * @author clazs
+ */
+public final class HttpResponses {
+
+    private HttpResponses() {
+    }
+
+    public static FullHttpResponse text(HttpResponseStatus status, String text) {
+        return of(status, "text/plain; charset=UTF-8", text);
+    }
+
+    public static FullHttpResponse json(String json) {
+        return of(HttpResponseStatus.OK, "application/json; charset=UTF-8", json);
+    }
+
+    public static FullHttpResponse of(HttpResponseStatus status, String contentType, String body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
+                Unpooled.copiedBuffer(body, CharsetUtil.UTF_8));
+        response.headers()
+                .set(HttpHeaderNames.CONTENT_TYPE, contentType)
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+        return response;
+    }
+}
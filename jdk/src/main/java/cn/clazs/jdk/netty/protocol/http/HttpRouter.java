@@ -0,0 +1,153 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.CharsetUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 路由表：HTTP 方法 + 路径 -> 路由
+ *
+ * 不含参数和通配符的路径放在 HashMap 里精确匹配（一次哈希查找），其余放在 PathTrie 中
+ *
+ * 路由在服务器启动前注册完，之后只读
+ *
+ * @author clazs
+ */
+public class HttpRouter {
+
+    /**
+     * 一条路由：预编码的静态响应，或者异步处理器（同步处理器被包装成已完成的 future）
+     */
+    static final class Route {
+        final StaticResponse staticResponse;
+        final AsyncRouteHandler handler;
+
+        Route(StaticResponse staticResponse, AsyncRouteHandler handler) {
+            this.staticResponse = staticResponse;
+            this.handler = handler;
+        }
+    }
+
+    static final class RouteMatch {
+        final Route route;
+        final Map<String, String> params;
+
+        RouteMatch(Route route, Map<String, String> params) {
+            this.route = route;
+            this.params = params;
+        }
+    }
+
+    private final Map<HttpMethod, Map<String, Route>> exact = new HashMap<>();
+    private final Map<HttpMethod, PathTrie<Route>> tries = new HashMap<>();
+    private final List<StaticResponse> staticResponses = new ArrayList<>();
+
+    public HttpRouter get(String path, RouteHandler handler) {
+        return route(HttpMethod.GET, path, sync(handler));
+    }
+
+    public HttpRouter post(String path, RouteHandler handler) {
+        return route(HttpMethod.POST, path, sync(handler));
+    }
+
+    public HttpRouter getAsync(String path, AsyncRouteHandler handler) {
+        return route(HttpMethod.GET, path, handler);
+    }
+
+    public HttpRouter postAsync(String path, AsyncRouteHandler handler) {
+        return route(HttpMethod.POST, path, handler);
+    }
+
+    /**
+     * 静态 GET 路由：响应在注册时就编码好，之后每次请求零编码、零拷贝
+     */
+    public HttpRouter getStatic(String path, String mime, String body) {
+        return getStatic(path, HttpResponseStatus.OK, mime, body.getBytes(CharsetUtil.UTF_8));
+    }
+
+    public HttpRouter getStatic(String path, HttpResponseStatus status, String mime, byte[] body) {
+        StaticResponse response = new StaticResponse(status, StaticResponse.contentType(mime), body);
+        staticResponses.add(response);
+        return add(HttpMethod.GET, path, new Route(response, null));
+    }
+
+    public HttpRouter route(HttpMethod method, String path, AsyncRouteHandler handler) {
+        return add(method, path, new Route(null, handler));
+    }
+
+    private HttpRouter add(HttpMethod method, String path, Route route) {
+        if (path.indexOf('{') < 0 && path.indexOf('*') < 0) {
+            String normalized = PathTrie.normalize(path);
+            if (exact.computeIfAbsent(method, k -> new HashMap<>()).putIfAbsent(normalized, route) != null) {
+                throw new IllegalArgumentException("路由重复: " + method + " " + path);
+            }
+        } else {
+            tries.computeIfAbsent(method, k -> new PathTrie<>()).insert(path, route);
+        }
+        return this;
+    }
+
+    private static AsyncRouteHandler sync(RouteHandler handler) {
+        return request -> {
+            FullHttpResponse response = handler.handle(request);
+            return CompletableFuture.completedFuture(response);
+        };
+    }
+
+    /**
+     * @return 没有匹配的路由时返回 null
+     */
+    RouteMatch match(HttpMethod method, String path) {
+        Map<String, Route> routes = exact.get(method);
+        if (routes != null) {
+            Route route = routes.get(path);
+            if (route == null) {
+                // 注册时的路径已经规范化，请求路径（"//plaintext"、"/plaintext/"）查不到时规范化后再查一次
+                String normalized = PathTrie.normalize(path);
+                if (!normalized.equals(path)) {
+                    route = routes.get(normalized);
+                }
+            }
+            if (route != null) {
+                return new RouteMatch(route, Collections.emptyMap());
+            }
+        }
+        PathTrie<Route> trie = tries.get(method);
+        if (trie != null) {
+            PathTrie.Match<Route> match = trie.match(path);
+            if (match != null) {
+                return new RouteMatch(match.getValue(), match.getParams());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 只判断路径是否存在（用于区分 404 和 405）
+     */
+    boolean hasPath(String path) {
+        for (HttpMethod method : exact.keySet()) {
+            if (match(method, path) != null) {
+                return true;
+            }
+        }
+        for (HttpMethod method : tries.keySet()) {
+            if (match(method, path) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<StaticResponse> staticResponses() {
+        return staticResponses;
+    }
+}
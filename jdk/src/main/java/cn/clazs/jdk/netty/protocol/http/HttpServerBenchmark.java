@@ -0,0 +1,56 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * 路由 HTTP 服务器压测：预编码静态响应 vs 每次构造响应，流水线深度 1 vs 16
+ *
+ * - /static:   getStatic 注册，响应是预编码好的只读 ByteBuf，写出时只做 retainedDuplicate()
+ * - /dynamic:  get 注册，每个请求 getBytes + 新建 FullHttpResponse + HttpServerCodec 编码
+ * - /user/{id}: 参数路由（前缀树匹配）+ 动态响应
+ *
+ * 请求由 HttpLoadGenerator 发出（同一个 JVM，压测机和服务器共享 CPU，数字偏保守）
+ *
+ * 运行：直接执行 main 方法，可选参数 [连接数] [每项测量秒数]
+ *
+ * @author clazs
+ */
+public class HttpServerBenchmark {
+
+    private static final String BODY = "Hello, World!";
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        long durationMillis = (args.length > 1 ? Long.parseLong(args[1]) : 5) * 1000;
+        long warmupMillis = Math.min(2000, durationMillis);
+        int ioThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        HttpRouter router = new HttpRouter()
+                .getStatic("/static", "text/plain", BODY)
+                .get("/dynamic", request -> HttpResponses.text(HttpResponseStatus.OK, BODY))
+                .get("/user/{id}", request -> HttpResponses.text(HttpResponseStatus.OK, request.pathParam("id")));
+
+        String[] paths = {"/static", "/dynamic", "/user/42"};
+        int[] depths = {1, 16};
+        StringBuilder summary = new StringBuilder();
+        try (RoutingHttpServer server = new RoutingHttpServer(router, ioThreads);
+             HttpLoadGenerator generator = new HttpLoadGenerator(ioThreads)) {
+            int port = server.start(0);
+            // 先把每条路径都跑一轮，让服务端和压测端的代码都完成 JIT 编译，避免先测的一项吃亏
+            for (String path : paths) {
+                generator.run("127.0.0.1", port, path, connections, depths[depths.length - 1], 0, warmupMillis);
+            }
+            for (int depth : depths) {
+                for (String path : paths) {
+                    HttpLoadGenerator.Result result = generator.run("127.0.0.1", port, path,
+                            connections, depth, warmupMillis, durationMillis);
+                    String line = String.format("conn=%-3d depth=%-3d %-10s %s", connections, depth, path, result);
+                    System.out.println(line);
+                    summary.append(line).append('\n');
+                }
+            }
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+}
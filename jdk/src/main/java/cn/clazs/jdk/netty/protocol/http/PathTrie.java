@@ -0,0 +1,158 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按路径段组织的前缀树
+ *
+ * 模式语法：
+ * - /users/list       静态段
+ * - /users/{id}       参数段，匹配任意一个段，值放入 params
+ * - /files/*          通配段，只能在最后，匹配剩余的所有段（可以为空），值放入 params 的 "*"
+ *
+ * 匹配优先级：静态段 > 参数段 > 通配段，前一种走不通时回溯尝试后一种
+ *
+ * 构建完成后只读，可以被多个 EventLoop 线程并发匹配
+ *
+ * @author clazs
+ */
+public class PathTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+    private static final class Node<T> {
+        final Map<String, Node<T>> children = new HashMap<>();
+        Node<T> paramChild;
+        String paramName;
+        T value;
+        T wildcardValue;
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static final class Match<T> {
+        private final T value;
+        private final Map<String, String> params;
+
+        Match(T value, Map<String, String> params) {
+            this.value = value;
+            this.params = params;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public Map<String, String> getParams() {
+            return params;
+        }
+    }
+
+    public void insert(String pattern, T value) {
+        List<String> segments = split(pattern);
+        Node<T> node = root;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.equals("*")) {
+                if (i != segments.size() - 1) {
+                    throw new IllegalArgumentException("通配符 * 必须是最后一段: " + pattern);
+                }
+                if (node.wildcardValue != null) {
+                    throw new IllegalArgumentException("路由重复: " + pattern);
+                }
+                node.wildcardValue = value;
+                return;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (node.paramChild == null) {
+                    node.paramChild = new Node<>();
+                    node.paramName = name;
+                } else if (!node.paramName.equals(name)) {
+                    throw new IllegalArgumentException("路径变量名冲突: {" + node.paramName
+                            + "} 和 {" + name + "}，位于 " + pattern);
+                }
+                node = node.paramChild;
+            } else {
+                node = node.children.computeIfAbsent(segment, k -> new Node<>());
+            }
+        }
+        if (node.value != null) {
+            throw new IllegalArgumentException("路由重复: " + pattern);
+        }
+        node.value = value;
+    }
+
+    /**
+     * @param path 不含查询字符串的路径
+     * @return 没有匹配的路由时返回 null
+     */
+    public Match<T> match(String path) {
+        List<String> segments = split(path);
+        Map<String, String> params = new HashMap<>(4);
+        T value = match(root, segments, 0, params);
+        return value == null ? null : new Match<>(value, params);
+    }
+
+    private T match(Node<T> node, List<String> segments, int index, Map<String, String> params) {
+        if (index == segments.size()) {
+            if (node.value != null) {
+                return node.value;
+            }
+            if (node.wildcardValue != null) {
+                params.put("*", "");
+                return node.wildcardValue;
+            }
+            return null;
+        }
+        String segment = segments.get(index);
+        Node<T> child = node.children.get(segment);
+        if (child != null) {
+            T value = match(child, segments, index + 1, params);
+            if (value != null) {
+                return value;
+            }
+        }
+        if (node.paramChild != null) {
+            T value = match(node.paramChild, segments, index + 1, params);
+            if (value != null) {
+                params.put(node.paramName, segment);
+                return value;
+            }
+        }
+        if (node.wildcardValue != null) {
+            params.put("*", String.join("/", segments.subList(index, segments.size())));
+            return node.wildcardValue;
+        }
+        return null;
+    }
+
+    /**
+     * 规范化路径："//a/b/" -> "/a/b"，"" -> "/"
+     */
+    static String normalize(String path) {
+        return "/" + String.join("/", split(path));
+    }
+
+    /**
+     * 按 '/' 切分，忽略空段（"//a/" 与 "/a" 等价）
+     */
+    static List<String> split(String path) {
+        List<String> segments = new ArrayList<>(8);
+        int start = 0;
+        int length = path.length();
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,14 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.handler.codec.http.FullHttpResponse;
+
+/**
+ * 同步路由处理器：在 EventLoop 线程中执行，不能阻塞
+ *
+ * @author clazs
+ */
+@FunctionalInterface
+public interface RouteHandler {
+
+    FullHttpResponse handle(RouteRequest request) throws Exception;
+}
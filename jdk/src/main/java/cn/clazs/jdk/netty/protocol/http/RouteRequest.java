@@ -0,0 +1,59 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 交给路由处理器的请求：原始请求 + 路径参数 + 懒解析的查询参数
+ *
+ * 同步处理器返回后请求体即被释放；异步处理器在返回的 future 完成前可以一直使用
+ *
+ * @author clazs
+ */
+public class RouteRequest {
+
+    private final FullHttpRequest request;
+    private final String path;
+    private final Map<String, String> pathParams;
+    private Map<String, List<String>> queryParams;
+
+    RouteRequest(FullHttpRequest request, String path, Map<String, String> pathParams) {
+        this.request = request;
+        this.path = path;
+        this.pathParams = pathParams;
+    }
+
+    public FullHttpRequest getRequest() {
+        return request;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String pathParam(String name) {
+        return pathParams.get(name);
+    }
+
+    public Map<String, String> getPathParams() {
+        return pathParams;
+    }
+
+    public String queryParam(String name) {
+        List<String> values = getQueryParams().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    public Map<String, List<String>> getQueryParams() {
+        if (queryParams == null) {
+            int question = request.uri().indexOf('?');
+            queryParams = question < 0 ? Collections.emptyMap()
+                    : new QueryStringDecoder(request.uri()).parameters();
+        }
+        return queryParams;
+    }
+}
@@ -0,0 +1,122 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带路由的 HTTP/1.1 服务器（TestHttpServer 的完整版）
+ *
+ * - 路由：精确路径 HashMap + 参数/通配路径前缀树
+ * - 静态路由：响应预编码成只读 ByteBuf，每次请求 retainedDuplicate() 写出（跳过响应编码器）
+ * - keep-alive：HTTP/1.1 默认保持连接，Connection: close 时写完响应再关闭
+ * - 流水线：同一连接上连续到达的请求按顺序响应，异步路由不会打乱顺序
+ *
+ * 运行：main 方法，浏览器访问 http://localhost:7070/
+ *
+ * @author clazs
+ */
+@Slf4j
+public class RoutingHttpServer implements AutoCloseable {
+
+    private static final int MAX_CONTENT_LENGTH = 64 * 1024;
+    private static final int MAX_PIPELINED = 64;
+
+    private final HttpRouter router;
+    private final EventLoopGroup boss = new NioEventLoopGroup(1);
+    private final EventLoopGroup workers;
+    private Channel serverChannel;
+
+    public RoutingHttpServer(HttpRouter router, int workerThreads) {
+        this.router = router;
+        this.workers = new NioEventLoopGroup(workerThreads);
+    }
+
+    /**
+     * @param port 0 表示随机端口
+     * @return 实际监听的端口
+     */
+    public int start(int port) throws InterruptedException {
+        serverChannel = new ServerBootstrap()
+                .group(boss, workers)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        // 不用 HttpServerCodec：静态响应跳过编码器，见 HttpPipeliningHandler
+                        ch.pipeline().addLast(new HttpRequestDecoder());
+                        ch.pipeline().addLast(new HttpResponseEncoder());
+                        ch.pipeline().addLast(new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+                        ch.pipeline().addLast(new HttpPipeliningHandler(router, MAX_PIPELINED));
+                    }
+                })
+                .bind(port).sync().channel();
+        // 预编码响应里的 Date 头每秒刷新
+        boss.scheduleAtFixedRate(() -> router.staticResponses().forEach(StaticResponse::refresh),
+                1, 1, TimeUnit.SECONDS);
+        int boundPort = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+        log.info("HTTP 服务器启动，端口 {}", boundPort);
+        return boundPort;
+    }
+
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        boss.shutdownGracefully();
+        workers.shutdownGracefully().syncUninterruptibly();
+        router.staticResponses().forEach(StaticResponse::release);
+    }
+
+    /**
+     * 演示用路由表
+     * - GET /               静态 HTML（与 TestHttpServer 的响应相同）
+     * - GET /plaintext      静态文本
+     * - GET /json           静态 JSON
+     * - GET /users/{id}     动态，每次构造响应
+     * - GET /slow/{millis}  异步，延迟指定毫秒后响应
+     * - GET /files/*        通配
+     */
+    public static HttpRouter demoRouter() {
+        return new HttpRouter()
+                .getStatic("/", "text/html", "<h2 style=\"color:red\">服务器响应.</h2>")
+                .getStatic("/plaintext", "text/plain", "Hello, World!")
+                .getStatic("/json", "application/json", "{\"message\":\"Hello, World!\"}")
+                .get("/users/{id}", request -> HttpResponses.json(
+                        "{\"id\":\"" + request.pathParam("id") + "\",\"name\":\"user-" + request.pathParam("id") + "\"}"))
+                .getAsync("/slow/{millis}", request -> {
+                    long millis = Long.parseLong(request.pathParam("millis"));
+                    CompletableFuture<FullHttpResponse> future = new CompletableFuture<>();
+                    GlobalEventExecutor.INSTANCE.schedule(() -> future.complete(
+                            HttpResponses.text(HttpResponseStatus.OK, "slept " + millis + "ms")), millis, TimeUnit.MILLISECONDS);
+                    return future;
+                })
+                .get("/files/*", request -> HttpResponses.text(HttpResponseStatus.OK, "file: " + request.pathParam("*")));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        RoutingHttpServer server = new RoutingHttpServer(demoRouter(), 0);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start(args.length > 0 ? Integer.parseInt(args[0]) : 7070);
+        server.serverChannel.closeFuture().sync();
+    }
+}
@@ -0,0 +1,75 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 路由 HTTP 服务器演示，用原始 Socket 发请求，直接打印服务器返回的字节
+ *
+ * @author clazs
+ */
+public class RoutingHttpServerDemo {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== 路由 HTTP 服务器演示 ==========\n");
+
+        try (RoutingHttpServer server = new RoutingHttpServer(RoutingHttpServer.demoRouter(), 1)) {
+            int port = server.start(0);
+
+            System.out.println("【演示 1】路由匹配：静态、参数、通配");
+            System.out.println(statusAndBody(exchange(port, get("/json", true))));
+            System.out.println(statusAndBody(exchange(port, get("/users/1001", true))));
+            System.out.println(statusAndBody(exchange(port, get("/files/css/site.css", true))));
+
+            System.out.println("\n【演示 2】流水线：先发慢请求（异步 300ms）再发快请求，响应仍按请求顺序返回");
+            long start = System.currentTimeMillis();
+            String responses = exchange(port,
+                    get("/slow/300", false) + get("/plaintext", false) + get("/users/7", true));
+            for (String response : responses.split("(?=HTTP/1\\.1 )")) {
+                System.out.println("  " + statusAndBody(response));
+            }
+            System.out.println("  3 个响应共耗时 " + (System.currentTimeMillis() - start) + "ms");
+
+            System.out.println("\n【演示 3】404 与 405");
+            System.out.println(statusAndBody(exchange(port, get("/not-found", true))));
+            System.out.println(statusAndBody(exchange(port,
+                    "POST /json HTTP/1.1\r\nHost: localhost\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")));
+
+            System.out.println("\n【演示 4】静态路由的完整响应（预编码，Connection: close 版本）");
+            System.out.println(exchange(port, get("/plaintext", true)));
+        }
+    }
+
+    private static String get(String path, boolean close) {
+        return "GET " + path + " HTTP/1.1\r\nHost: localhost\r\n" + (close ? "Connection: close\r\n" : "") + "\r\n";
+    }
+
+    /**
+     * 一次性写出所有请求，读到服务器关闭连接为止
+     */
+    private static String exchange(int port, String requests) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                received.write(buffer, 0, n);
+            }
+            return new String(received.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String statusAndBody(String response) {
+        String statusLine = response.substring(0, response.indexOf("\r\n"));
+        String body = response.substring(response.indexOf("\r\n\r\n") + 4);
+        return statusLine + " -> " + body.trim();
+    }
+}
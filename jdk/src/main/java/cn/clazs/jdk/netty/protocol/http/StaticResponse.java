@@ -0,0 +1,117 @@
+package cn.clazs.jdk.netty.protocol.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import io.netty.util.IllegalReferenceCountException;
+
+import java.util.Date;
+
+/**
+ * 预编码的静态响应：状态行 + 响应头 + 响应体一次性编码成只读的直接内存 ByteBuf
+ *
+ * 每次请求只写出 retainedDuplicate()：共享同一块内存、独立的读写索引、引用计数 +1，
+ * 没有任何编码和拷贝，写完由 Netty 释放这一次的引用
+ *
+ * 保留两个版本：keep-alive（HTTP/1.1 默认，不带 Connection 头）和 Connection: close。
+ * Date 头每秒刷新一次（重新编码），被替换下来的缓冲区立即释放 StaticResponse 自己持有的那一次引用，
+ * 还在写出的 retainedDuplicate 各自持有引用，全部写完后内存才真正回收。
+ * 刚读到旧引用、还没来得及 retain 的线程会得到 IllegalReferenceCountException（retain 不访问内存），
+ * 重新读取新的缓冲区即可
+ *
+ * @author clazs
+ */
+public final class StaticResponse {
+
+    private final HttpResponseStatus status;
+    private final String contentType;
+    private final byte[] body;
+
+    private volatile ByteBuf keepAlive;
+    private volatile ByteBuf close;
+
+    public StaticResponse(HttpResponseStatus status, String contentType, byte[] body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        refresh();
+    }
+
+    /**
+     * @param closeConnection 是否使用带 Connection: close 的版本
+     */
+    public ByteBuf retainedDuplicate(boolean closeConnection) {
+        for (;;) {
+            ByteBuf current = closeConnection ? close : keepAlive;
+            try {
+                return current.retainedDuplicate();
+            } catch (IllegalReferenceCountException e) {
+                // 读到引用之后被 refresh 替换并释放，重新读取
+            }
+        }
+    }
+
+    /**
+     * 重新编码（刷新 Date 头），只由一个定时线程调用
+     */
+    synchronized void refresh() {
+        String date = DateFormatter.format(new Date());
+        ByteBuf oldKeepAlive = keepAlive;
+        ByteBuf oldClose = close;
+        keepAlive = encode(date, false);
+        close = encode(date, true);
+        if (oldKeepAlive != null) {
+            oldKeepAlive.release();
+            oldClose.release();
+        }
+    }
+
+    synchronized void release() {
+        for (ByteBuf buf : new ByteBuf[]{keepAlive, close}) {
+            if (buf != null && buf.refCnt() > 0) {
+                buf.release();
+            }
+        }
+    }
+
+    private ByteBuf encode(String date, boolean closeConnection) {
+        StringBuilder head = new StringBuilder(160)
+                .append("HTTP/1.1 ").append(status.code()).append(' ').append(status.reasonPhrase()).append("\r\n")
+                .append("server: clazs-netty\r\n")
+                .append("date: ").append(date).append("\r\n")
+                .append("content-type: ").append(contentType).append("\r\n")
+                .append("content-length: ").append(body.length).append("\r\n");
+        if (closeConnection) {
+            head.append("connection: close\r\n");
+        }
+        head.append("\r\n");
+        byte[] headBytes = head.toString().getBytes(CharsetUtil.US_ASCII);
+        ByteBuf buf = Unpooled.directBuffer(headBytes.length + body.length);
+        buf.writeBytes(headBytes).writeBytes(body);
+        return buf.asReadOnly();
+    }
+
+    /**
+     * HTTP/1.0 等不能直接使用预编码字节的请求，退回普通响应对象
+     */
+    public FullHttpResponse toFullResponse(HttpVersion version) {
+        FullHttpResponse response = new DefaultFullHttpResponse(version, status, Unpooled.wrappedBuffer(body));
+        response.headers()
+                .set(HttpHeaderNames.SERVER, "clazs-netty")
+                .set(HttpHeaderNames.CONTENT_TYPE, contentType)
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, body.length);
+        return response;
+    }
+
+    static String contentType(String mime) {
+        return mime.startsWith("text/") || mime.equals(HttpHeaderValues.APPLICATION_JSON.toString())
+                ? mime + "; charset=UTF-8" : mime;
+    }
+}
@@ -0,0 +1,86 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Redis 客户端入口：持有 EventLoopGroup 和 Bootstrap，负责建立连接和连接池
+ *
+ * 用法：
+ * <pre>
+ * try (RespClient client = new RespClient("localhost", 6379);
+ *      RespConnectionPool pool = client.pool(4)) {
+ *     pool.next().set("name", "jack").join();
+ * }
+ * </pre>
+ *
+ * @author clazs
+ */
+public class RespClient implements AutoCloseable {
+
+    private final EventLoopGroup group;
+    private final Bootstrap bootstrap;
+
+    public RespClient(String host, int port) {
+        this(host, port, 0);
+    }
+
+    /**
+     * @param ioThreads EventLoop 线程数，0 表示使用 Netty 默认值（CPU 核数 * 2）
+     */
+    public RespClient(String host, int port, int ioThreads) {
+        this.group = new NioEventLoopGroup(ioThreads);
+        this.bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
+                .remoteAddress(host, port)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new RespDecoder());
+                        ch.pipeline().addLast(RespCommandEncoder.INSTANCE);
+                        ch.pipeline().addLast(new RespClientHandler());
+                    }
+                });
+    }
+
+    public RespConnection connect() throws InterruptedException {
+        Channel channel = bootstrap.connect().sync().channel();
+        return new RespConnection(channel);
+    }
+
+    /**
+     * 不阻塞的 connect，可以在 EventLoop 线程中调用（sync() 在 EventLoop 线程里会死锁）
+     */
+    public CompletableFuture<RespConnection> connectAsync() {
+        CompletableFuture<RespConnection> result = new CompletableFuture<>();
+        bootstrap.connect().addListener((ChannelFutureListener) f -> {
+            if (f.isSuccess()) {
+                result.complete(new RespConnection(f.channel()));
+            } else {
+                result.completeExceptionally(new RespException("连接失败: " + bootstrap.config().remoteAddress(), f.cause()));
+            }
+        });
+        return result;
+    }
+
+    public RespConnectionPool pool(int size) throws InterruptedException {
+        return new RespConnectionPool(this, size);
+    }
+
+    @Override
+    public void close() {
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+}
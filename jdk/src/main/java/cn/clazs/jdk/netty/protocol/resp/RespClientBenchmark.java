@@ -0,0 +1,137 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RESP 客户端吞吐量（JMH），对端是本地替身服务器 RespStubServer
+ *
+ * - encodePooled / encodeStringBuilder: 只测编码，池化直接内存 vs TestRedisClient 的 StringBuilder 拼接
+ * - syncRoundTrip:   每条命令等回复再发下一条（一个线程同时只有一条在途）
+ * - pipelined:       单连接，每次发 BATCH 条再统一等待，多线程共享同一个连接
+ * - pooledPipelined: 同上，4 个连接轮询
+ *
+ * 运行：直接执行 main 方法
+ *
+ * @author clazs
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RespClientBenchmark {
+
+    private static final int BATCH = 64;
+    private static final int KEYS = 1024;
+    private static final String VALUE = "value-0123456789-0123456789-0123456789";
+
+    private RespStubServer server;
+    private RespClient client;
+    private RespConnection connection;
+    private RespConnectionPool pool;
+    private String[] keys;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        server = new RespStubServer(2);
+        int port = server.start(0);
+        client = new RespClient("localhost", port, 2);
+        connection = client.connect();
+        pool = client.pool(4);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "key:" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+        connection.close();
+        client.close();
+        server.close();
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+
+    @Benchmark
+    public void encodePooled() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.ioBuffer(128);
+        RespCommandEncoder.writeCommand(buf, new Object[]{"SET", randomKey(), VALUE});
+        buf.release();
+    }
+
+    @Benchmark
+    public void encodeStringBuilder() {
+        String key = randomKey();
+        StringBuilder sb = new StringBuilder()
+                .append("*3\r\n")
+                .append("$3\r\n").append("SET\r\n")
+                .append('$').append(key.length()).append("\r\n").append(key).append("\r\n")
+                .append('$').append(VALUE.length()).append("\r\n").append(VALUE).append("\r\n");
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.ioBuffer(128);
+        buf.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8));
+        buf.release();
+    }
+
+    @Benchmark
+    public RespReply syncRoundTrip() {
+        return connection.execute("SET", randomKey(), VALUE).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void pipelined(Blackhole blackhole) {
+        CompletableFuture<?>[] futures = new CompletableFuture[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            futures[i] = connection.execute("SET", randomKey(), VALUE);
+        }
+        blackhole.consume(CompletableFuture.allOf(futures).join());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void pooledPipelined(Blackhole blackhole) {
+        CompletableFuture<?>[] futures = new CompletableFuture[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            futures[i] = pool.execute("SET", randomKey(), VALUE);
+        }
+        blackhole.consume(CompletableFuture.allOf(futures).join());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int[] threadCounts = {1, 4};
+        StringBuilder summary = new StringBuilder();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(RespClientBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                summary.append(String.format("threads=%-3d %-20s %12.0f ops/s%n", threads,
+                        result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                        result.getPrimaryResult().getScore()));
+            }
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+}
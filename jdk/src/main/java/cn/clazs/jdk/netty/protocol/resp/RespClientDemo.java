@@ -0,0 +1,123 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * RESP 客户端演示
+ *
+ * 默认连接本地替身服务器；传入 "host port" 参数可以连接真实的 Redis
+ *
+ * @author clazs
+ */
+public class RespClientDemo {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== RESP 客户端演示 ==========\n");
+
+        System.out.println("【演示 1】编码：与 TestRedisClient 手工拼接的 set name jack 完全一致");
+        ByteBuf buf = Unpooled.buffer();
+        RespCommandEncoder.writeCommand(buf, new Object[]{"set", "name", "jack"});
+        System.out.println(buf.toString(CharsetUtil.UTF_8).replace("\r\n", "\\r\\n"));
+        buf.release();
+
+        System.out.println("\n【演示 2】增量解码：嵌套的 RESP3 回复逐字节到达");
+        String nested = "*3\r\n:1\r\n%2\r\n+name\r\n$4\r\njack\r\n+tags\r\n~2\r\n#t\r\n,3.14\r\n"
+                + "|1\r\n+ttl\r\n:3600\r\n*2\r\n_\r\n$-1\r\n"
+                + ">2\r\n$7\r\nmessage\r\n$5\r\nhello\r\n";
+        EmbeddedChannel channel = new EmbeddedChannel(new RespDecoder());
+        byte[] bytes = nested.getBytes(CharsetUtil.UTF_8);
+        for (byte b : bytes) {
+            channel.writeInbound(Unpooled.wrappedBuffer(new byte[]{b}));
+        }
+        Object reply;
+        while ((reply = channel.readInbound()) != null) {
+            System.out.println("解码得到: " + reply);
+        }
+        channel.finish();
+
+        RespStubServer stub = null;
+        String host = "localhost";
+        int port;
+        if (args.length >= 2) {
+            host = args[0];
+            port = Integer.parseInt(args[1]);
+        } else {
+            stub = new RespStubServer(2);
+            port = stub.start(0);
+        }
+
+        try (RespClient client = new RespClient(host, port, 2)) {
+            System.out.println("\n【演示 3】常用命令");
+            try (RespConnection connection = client.connect()) {
+                System.out.println("PING     -> " + connection.ping().join());
+                System.out.println("SET      -> " + connection.set("name", "jack").join());
+                System.out.println("GET      -> " + connection.get("name").join());
+                System.out.println("GET miss -> " + connection.get("nobody").join());
+                connection.del("counter").join();
+                System.out.println("INCR x3  -> " + connection.incr("counter").join() + ", "
+                        + connection.incr("counter").join() + ", " + connection.incr("counter").join());
+                System.out.println("未知命令 -> " + connection.execute("FOO").handle((v, e) -> e.getMessage()).join());
+                System.out.println("HELLO 3  -> " + connection.hello(3).join().asMap());
+                System.out.println("RESP3 GET miss -> " + connection.execute("GET", "nobody").join());
+            }
+
+            System.out.println("\n【演示 4】自动流水线：8 个线程共用 1 个连接，各发 20000 条 INCR");
+            try (RespConnection connection = client.connect()) {
+                connection.del("pipelined").join();
+                long elapsed = runConcurrently(8, 20000, () -> connection);
+                System.out.printf("耗时 %d ms，%.0f ops/s，结果 %s%n", elapsed, 160000 * 1000.0 / elapsed,
+                        connection.get("pipelined").join());
+                System.out.println(connection);
+            }
+
+            System.out.println("\n【演示 5】连接池：4 个连接轮询");
+            try (RespConnectionPool pool = client.pool(4)) {
+                pool.next().del("pipelined").join();
+                long elapsed = runConcurrently(8, 20000, pool::next);
+                System.out.printf("耗时 %d ms，%.0f ops/s，结果 %s%n", elapsed, 160000 * 1000.0 / elapsed,
+                        pool.next().get("pipelined").join());
+                System.out.println(pool);
+            }
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    private interface ConnectionSupplier {
+        RespConnection get();
+    }
+
+    /**
+     * 每个线程每次最多保留 100 个未完成的命令，模拟真实业务的并发度
+     */
+    private static long runConcurrently(int threads, int perThread, ConnectionSupplier supplier) throws Exception {
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.currentTimeMillis();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                List<CompletableFuture<Long>> window = new ArrayList<>();
+                for (int i = 0; i < perThread; i++) {
+                    window.add(supplier.get().incr("pipelined"));
+                    if (window.size() == 100) {
+                        CompletableFuture.allOf(window.toArray(new CompletableFuture[0])).join();
+                        window.clear();
+                    }
+                }
+                CompletableFuture.allOf(window.toArray(new CompletableFuture[0])).join();
+                done.countDown();
+            }, "Caller-" + t).start();
+        }
+        done.await();
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -0,0 +1,141 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * 按发送顺序匹配回复（Redis 对同一连接上的命令严格按顺序回复），支持流水线
+ *
+ * 写出的命令进入 inflight 队列，读到一个回复就完成队首命令的 future；
+ * RESP3 的推送消息（>）不对应任何命令，交给 pushListener
+ *
+ * 发布订阅的特殊情况：
+ * - (UN)SUBSCRIBE 的确认在 RESP3 下是推送类型，队首正好是同类命令时把它当作该命令的回复
+ * - RESP2 没有推送类型，进入订阅状态后收到的 message / subscribe 数组同样交给 pushListener；
+ *   确认里的订阅数降到 0 时退出订阅状态
+ *
+ * inflight 只在 EventLoop 线程访问，不需要同步
+ *
+ * @author clazs
+ */
+@Slf4j
+public class RespClientHandler extends ChannelDuplexHandler {
+
+    private final ArrayDeque<RespCommand> inflight = new ArrayDeque<>();
+    private boolean subscribed;
+    private volatile Consumer<RespReply> pushListener = push -> log.debug("未处理的推送消息: {}", push);
+
+    public void setPushListener(Consumer<RespReply> pushListener) {
+        this.pushListener = pushListener;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof RespCommand) {
+            RespCommand command = (RespCommand) msg;
+            if (command.future().isDone()) {
+                // 发送前已被取消：不再发送，否则后续回复会错位
+                promise.trySuccess();
+                return;
+            }
+            inflight.add(command);
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof RespReply)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        RespReply reply = (RespReply) msg;
+        String pubSubKind = pubSubKind(reply);
+        if (pubSubKind != null) {
+            RespCommand head = inflight.peek();
+            if (head != null && head.name().equalsIgnoreCase(pubSubKind)) {
+                updateSubscribed(pubSubKind, reply);
+                inflight.poll();
+                head.future().complete(reply);
+                return;
+            }
+            if (reply.getType() == RespReply.Type.PUSH || subscribed) {
+                // 先按当前状态判断这条是推送，再更新状态：最后一个 unsubscribe 确认（剩余 0）也交给 pushListener
+                updateSubscribed(pubSubKind, reply);
+                pushListener.accept(reply);
+                return;
+            }
+        } else if (reply.getType() == RespReply.Type.PUSH) {
+            pushListener.accept(reply);
+            return;
+        }
+        RespCommand command = inflight.poll();
+        if (command == null) {
+            log.warn("收到没有对应命令的回复: {}", reply);
+            return;
+        }
+        if (reply.isError()) {
+            command.future().completeExceptionally(new RespException(reply.asString()));
+        } else {
+            command.future().complete(reply);
+        }
+    }
+
+    /**
+     * (UN)SUBSCRIBE 确认的第三个元素是剩余订阅数，降到 0 时连接回到普通模式，之后的数组回复不再当作推送
+     */
+    private void updateSubscribed(String kind, RespReply reply) {
+        if (kind.endsWith("subscribe")) {
+            subscribed = reply.getElements().get(2).asLong() > 0;
+        }
+    }
+
+    /**
+     * 发布订阅相关回复的类型（message / subscribe / unsubscribe ...），其他回复返回 null
+     */
+    private static String pubSubKind(RespReply reply) {
+        if (reply.getType() != RespReply.Type.PUSH && reply.getType() != RespReply.Type.ARRAY) {
+            return null;
+        }
+        if (reply.getElements().size() < 3 || reply.getElements().get(0).isNull()) {
+            return null;
+        }
+        String kind = reply.getElements().get(0).asString();
+        switch (kind) {
+            case "message":
+            case "pmessage":
+            case "subscribe":
+            case "unsubscribe":
+            case "psubscribe":
+            case "punsubscribe":
+                return kind;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failAll(new RespException("连接已关闭: " + ctx.channel()));
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("RESP 连接异常，关闭 {}", ctx.channel(), cause);
+        failAll(new RespException("连接异常: " + ctx.channel(), cause));
+        ctx.close();
+    }
+
+    private void failAll(RespException cause) {
+        RespCommand command;
+        while ((command = inflight.poll()) != null) {
+            command.future().completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 一条待发送的命令及其结果
+ *
+ * 参数支持 byte[]、CharSequence（按 UTF-8 编码）、Long / Integer（按十进制文本），
+ * 编码时直接写入 ByteBuf，不会先拼接成 String
+ *
+ * @author clazs
+ */
+public class RespCommand {
+
+    private final Object[] args;
+    private final CompletableFuture<RespReply> future = new CompletableFuture<>();
+
+    public RespCommand(Object... args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("命令不能为空");
+        }
+        for (Object arg : args) {
+            if (!(arg instanceof byte[] || arg instanceof CharSequence || arg instanceof Long || arg instanceof Integer)) {
+                throw new IllegalArgumentException("不支持的参数类型: "
+                        + (arg == null ? "null" : arg.getClass().getName()));
+            }
+        }
+        this.args = args;
+    }
+
+    public Object[] getArgs() {
+        return args;
+    }
+
+    /**
+     * 命令名（第一个参数）
+     */
+    public String name() {
+        Object first = args[0];
+        return first instanceof byte[] ? new String((byte[]) first, StandardCharsets.UTF_8) : first.toString();
+    }
+
+    public CompletableFuture<RespReply> future() {
+        return future;
+    }
+
+    /**
+     * 预估编码后的字节数，用于一次分配足够的缓冲区（字符串按 ASCII 估算）
+     */
+    int estimateSize() {
+        int size = 16;
+        for (Object arg : args) {
+            if (arg instanceof byte[]) {
+                size += ((byte[]) arg).length + 16;
+            } else if (arg instanceof CharSequence) {
+                size += ((CharSequence) arg).length() + 16;
+            } else {
+                size += 36;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "RespCommand{" + name() + ", args=" + args.length + "}";
+    }
+}
@@ -0,0 +1,104 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 命令编码器：RespCommand -> 批量字符串数组（*N\r\n$len\r\narg\r\n...）
+ *
+ * 直接写入 ctx.alloc() 分配的池化缓冲区（默认是直接内存），整数长度、数字参数逐位写入，
+ * 字符串参数先用 ByteBufUtil.utf8Bytes 算出编码长度，再用 reserveAndWriteUtf8 就地编码，全程没有中间 String / byte[]
+ *
+ * 无状态，所有连接共享一个实例
+ *
+ * @author clazs
+ */
+@ChannelHandler.Sharable
+public class RespCommandEncoder extends MessageToByteEncoder<RespCommand> {
+
+    public static final RespCommandEncoder INSTANCE = new RespCommandEncoder();
+
+    private static final short CRLF = ('\r' << 8) | '\n';
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, RespCommand msg, boolean preferDirect) {
+        return preferDirect ? ctx.alloc().ioBuffer(msg.estimateSize()) : ctx.alloc().heapBuffer(msg.estimateSize());
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, RespCommand msg, ByteBuf out) {
+        writeCommand(out, msg.getArgs());
+    }
+
+    public static void writeCommand(ByteBuf out, Object[] args) {
+        out.writeByte('*');
+        writeDecimal(out, args.length);
+        out.writeShort(CRLF);
+        for (Object arg : args) {
+            if (arg instanceof byte[]) {
+                byte[] bytes = (byte[]) arg;
+                writeLength(out, bytes.length);
+                out.writeBytes(bytes);
+            } else if (arg instanceof CharSequence) {
+                CharSequence text = (CharSequence) arg;
+                int length = ByteBufUtil.utf8Bytes(text);
+                writeLength(out, length);
+                ByteBufUtil.reserveAndWriteUtf8(out, text, length);
+            } else {
+                long value = ((Number) arg).longValue();
+                writeLength(out, decimalLength(value));
+                writeDecimal(out, value);
+            }
+            out.writeShort(CRLF);
+        }
+    }
+
+    private static void writeLength(ByteBuf out, int length) {
+        out.writeByte('$');
+        writeDecimal(out, length);
+        out.writeShort(CRLF);
+    }
+
+    /**
+     * 十进制写入，不经过 Long.toString
+     */
+    static void writeDecimal(ByteBuf out, long value) {
+        if (value >= 0 && value < 10) {
+            out.writeByte('0' + (int) value);
+            return;
+        }
+        if (value == Long.MIN_VALUE) {
+            out.writeCharSequence("-9223372036854775808", CharsetUtil.US_ASCII);
+            return;
+        }
+        int length = decimalLength(value);
+        out.ensureWritable(length);
+        int index = out.writerIndex() + length;
+        long remaining = Math.abs(value);
+        do {
+            out.setByte(--index, (int) ('0' + remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            out.setByte(--index, '-');
+        }
+        out.writerIndex(out.writerIndex() + length);
+    }
+
+    static int decimalLength(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int length = value < 0 ? 2 : 1;
+        long remaining = Math.abs(value);
+        while (remaining >= 10) {
+            remaining /= 10;
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,144 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 一个 Redis 连接，线程安全，可被多个线程同时使用
+ *
+ * 自动流水线：execute 只 write 不 flush，并保证 EventLoop 任务队列里最多一个待执行的 flush 任务。
+ * write 和"是否需要安排 flush"的判断都在 EventLoop 线程内完成，flush 任务总是排在已投递的 write 之后，
+ * 排在它前面的命令会被这一次 flush 一起写出，之后到达的命令会再安排一次。
+ * 并发越高，一次系统调用带出的命令越多；单线程串行调用时退化为每条命令一次 flush
+ *
+ * @author clazs
+ */
+public class RespConnection implements AutoCloseable {
+
+    private final Channel channel;
+    private boolean flushScheduled;              // 只在 EventLoop 线程访问
+    private final Runnable flushTask;
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    RespConnection(Channel channel) {
+        this.channel = channel;
+        this.flushTask = () -> {
+            flushScheduled = false;
+            flushes.increment();
+            channel.flush();
+        };
+    }
+
+    public CompletableFuture<RespReply> execute(Object... args) {
+        RespCommand command = new RespCommand(args);
+        if (!channel.isActive()) {
+            command.future().completeExceptionally(new RespException("连接不可用: " + channel));
+            return command.future();
+        }
+        commands.increment();
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            write(command);
+        } else {
+            try {
+                eventLoop.execute(() -> write(command));
+            } catch (RejectedExecutionException e) {
+                command.future().completeExceptionally(new RespException("EventLoop 已关闭", e));
+            }
+        }
+        return command.future();
+    }
+
+    private void write(RespCommand command) {
+        channel.write(command, channel.voidPromise());
+        if (!flushScheduled) {
+            flushScheduled = true;
+            channel.eventLoop().execute(flushTask);
+        }
+    }
+
+    // ==================== 常用命令 ====================
+
+    public CompletableFuture<String> ping() {
+        return execute("PING").thenApply(RespReply::asString);
+    }
+
+    public CompletableFuture<String> get(String key) {
+        return execute("GET", key).thenApply(RespReply::asString);
+    }
+
+    public CompletableFuture<String> set(String key, String value) {
+        return execute("SET", key, value).thenApply(RespReply::asString);
+    }
+
+    public CompletableFuture<Long> del(String... keys) {
+        Object[] args = new Object[keys.length + 1];
+        args[0] = "DEL";
+        System.arraycopy(keys, 0, args, 1, keys.length);
+        return execute(args).thenApply(RespReply::asLong);
+    }
+
+    public CompletableFuture<Long> incr(String key) {
+        return execute("INCR", key).thenApply(RespReply::asLong);
+    }
+
+    public CompletableFuture<Long> publish(String channel, String message) {
+        return execute("PUBLISH", channel, message).thenApply(RespReply::asLong);
+    }
+
+    /**
+     * 订阅频道，消息通过 onPush 注册的回调接收；订阅后该连接只能执行 (UN)SUBSCRIBE / PING
+     */
+    public CompletableFuture<RespReply> subscribe(String channel) {
+        return execute("SUBSCRIBE", channel);
+    }
+
+    /**
+     * 切换协议版本，version = 3 时之后的回复使用 RESP3 类型（MAP、NULL、DOUBLE 等）
+     */
+    public CompletableFuture<RespReply> hello(int version) {
+        return execute("HELLO", version);
+    }
+
+    /**
+     * 推送消息（订阅消息、客户端缓存失效通知等）的回调，在 EventLoop 线程中执行
+     */
+    public void onPush(Consumer<RespReply> listener) {
+        channel.pipeline().get(RespClientHandler.class).setPushListener(listener);
+    }
+
+    // ==================== 状态 ====================
+
+    public boolean isActive() {
+        return channel.isActive();
+    }
+
+    public Channel channel() {
+        return channel;
+    }
+
+    /**
+     * 平均每次 flush 带出的命令数，反映自动流水线的合并效果
+     */
+    public double getCommandsPerFlush() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : (double) commands.sum() / count;
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RespConnection{%s, commands=%d, flushes=%d, commandsPerFlush=%.1f}",
+                channel.remoteAddress(), commands.sum(), flushes.sum(), getCommandsPerFlush());
+    }
+}
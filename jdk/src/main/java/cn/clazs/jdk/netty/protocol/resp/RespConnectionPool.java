@@ -0,0 +1,121 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 小型连接池：固定数量的多路复用连接，轮询选择
+ *
+ * 每个连接本身就支持多个线程并发流水线，因此不需要"借出-归还"的独占语义，
+ * 多个连接的意义在于把编解码分摊到多个 EventLoop，以及单个连接的 TCP 窗口不成为瓶颈。
+ * 需要独占连接的场景（MULTI/EXEC、阻塞命令）应该单独 client.connect()
+ *
+ * 断开的连接在被选中时异步重连（不阻塞调用线程，EventLoop 线程里调用也不会死锁），
+ * 重连期间 next() 跳过它选择其他连接
+ *
+ * @author clazs
+ */
+@Slf4j
+public class RespConnectionPool implements AutoCloseable {
+
+    private final RespClient client;
+    private final AtomicReferenceArray<RespConnection> connections;
+    // 正在进行的重连，由 this 保护
+    private final CompletableFuture<RespConnection>[] reconnecting;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    RespConnectionPool(RespClient client, int size) throws InterruptedException {
+        if (size < 1) {
+            throw new IllegalArgumentException("连接池大小必须大于 0");
+        }
+        this.client = client;
+        this.connections = new AtomicReferenceArray<>(size);
+        this.reconnecting = new CompletableFuture[size];
+        for (int i = 0; i < size; i++) {
+            connections.set(i, client.connect());
+        }
+    }
+
+    /**
+     * 跳过已断开的连接（同时在后台发起重连）；全部断开时返回一个断开的连接，命令立即失败
+     */
+    public RespConnection next() {
+        return connections.get(pick());
+    }
+
+    /**
+     * 选中的连接全部断开时等重连完成再发送
+     */
+    public CompletableFuture<RespReply> execute(Object... args) {
+        int index = pick();
+        RespConnection connection = connections.get(index);
+        if (connection.isActive()) {
+            return connection.execute(args);
+        }
+        return reconnect(index).thenCompose(reconnected -> reconnected.execute(args));
+    }
+
+    private int pick() {
+        int index = 0;
+        for (int i = 0; i < connections.length(); i++) {
+            index = (next.getAndIncrement() & Integer.MAX_VALUE) % connections.length();
+            if (connections.get(index).isActive()) {
+                return index;
+            }
+            reconnect(index);
+        }
+        return index;
+    }
+
+    /**
+     * 异步重连，同一个位置同时只有一次重连；不阻塞，调用方可能就是 EventLoop 线程
+     */
+    private synchronized CompletableFuture<RespConnection> reconnect(int index) {
+        RespConnection connection = connections.get(index);
+        if (connection.isActive()) {
+            return CompletableFuture.completedFuture(connection);
+        }
+        if (reconnecting[index] != null) {
+            return reconnecting[index];
+        }
+        log.info("重连 {}", connection.channel().remoteAddress());
+        CompletableFuture<RespConnection> future = client.connectAsync();
+        reconnecting[index] = future;
+        future.whenComplete((reconnected, error) -> {
+            synchronized (this) {
+                reconnecting[index] = null;
+                if (reconnected != null) {
+                    connections.set(index, reconnected);
+                }
+            }
+            if (error != null) {
+                log.warn("重连失败: {}", error.toString());
+            }
+        });
+        return future;
+    }
+
+    public int size() {
+        return connections.length();
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < connections.length(); i++) {
+            connections.get(i).close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("RespConnectionPool{\n");
+        for (int i = 0; i < connections.length(); i++) {
+            sb.append("  ").append(connections.get(i)).append('\n');
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,279 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.ByteProcessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RESP2 / RESP3 增量解码器，输出 RespReply
+ *
+ * 增量：每次只消费"完整的一个元素"（一行，或者一个批量字符串），不完整就等下一次 channelRead，
+ * 已经解析出的元素保存在聚合栈里，嵌套数组不会因为半包从头重新解析
+ *
+ * - 聚合类型（* % ~ >）读到头部后入栈，元素读满后出栈并作为父聚合的一个元素
+ * - RESP3 属性（|）是附加在下一个回复上的元数据，读完后直接丢弃
+ * - 不支持 RESP3 的流式字符串（$?），Redis 目前也不会发送
+ *
+ * 防御不可信输入（服务端解析客户端命令）：
+ * - 聚合的元素数超过 maxAggregateLength（默认 1M，与 Redis 的 multibulk 上限相同）直接拒绝
+ * - 嵌套层数超过 maxDepth 拒绝
+ * - 元素列表不按头部声明的数量预分配，元素真正到达后才增长，伪造的大数量不会一次性分配内存
+ *
+ * 客户端解析回复、服务端解析命令（命令就是批量字符串数组）都可以用这个解码器
+ *
+ * @author clazs
+ */
+public class RespDecoder extends ByteToMessageDecoder {
+
+    private static final int DEFAULT_MAX_LINE_LENGTH = 64 * 1024;
+    private static final int DEFAULT_MAX_BULK_LENGTH = 512 * 1024 * 1024;
+    private static final int DEFAULT_MAX_AGGREGATE_LENGTH = 1024 * 1024;
+    private static final int DEFAULT_MAX_DEPTH = 64;
+    private static final int INITIAL_ELEMENTS = 16;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int maxLineLength;
+    private final int maxBulkLength;
+    private final int maxAggregateLength;
+    private final int maxDepth;
+
+    private final ArrayDeque<Aggregate> stack = new ArrayDeque<>();
+
+    /**
+     * 正在读取的聚合类型
+     */
+    private static final class Aggregate {
+        final RespReply.Type type;      // null 表示属性
+        final int expected;
+        final List<RespReply> elements;
+
+        Aggregate(RespReply.Type type, int expected) {
+            this.type = type;
+            this.expected = expected;
+            this.elements = new ArrayList<>(Math.min(expected, INITIAL_ELEMENTS));
+        }
+    }
+
+    public RespDecoder() {
+        this(DEFAULT_MAX_LINE_LENGTH, DEFAULT_MAX_BULK_LENGTH);
+    }
+
+    public RespDecoder(int maxLineLength, int maxBulkLength) {
+        this(maxLineLength, maxBulkLength, DEFAULT_MAX_AGGREGATE_LENGTH, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param maxAggregateLength 单个聚合最多的元素数（map / 属性按键值对计数）
+     * @param maxDepth           聚合最多嵌套的层数
+     */
+    public RespDecoder(int maxLineLength, int maxBulkLength, int maxAggregateLength, int maxDepth) {
+        this.maxLineLength = maxLineLength;
+        this.maxBulkLength = maxBulkLength;
+        this.maxAggregateLength = maxAggregateLength;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (in.isReadable()) {
+            int start = in.readerIndex();
+            int cr = in.forEachByte(start, Math.min(in.readableBytes(), maxLineLength + 1), ByteProcessor.FIND_CR);
+            if (cr < 0 || cr + 1 >= in.writerIndex()) {
+                if (in.readableBytes() > maxLineLength) {
+                    throw new TooLongFrameException("RESP 行超过 " + maxLineLength + " 字节");
+                }
+                return;
+            }
+            if (in.getByte(cr + 1) != '\n') {
+                throw new CorruptedFrameException("位置 " + cr + " 处应为 CRLF");
+            }
+            byte marker = in.getByte(start);
+            int contentStart = start + 1;
+            int lineEnd = cr + 2;
+
+            RespReply value;
+            switch (marker) {
+                case '+':
+                    value = RespReply.ofBytes(RespReply.Type.SIMPLE_STRING, bytes(in, contentStart, cr));
+                    break;
+                case '-':
+                    value = RespReply.ofBytes(RespReply.Type.ERROR, bytes(in, contentStart, cr));
+                    break;
+                case ':':
+                    value = RespReply.integer(parseLong(in, contentStart, cr));
+                    break;
+                case '(':
+                    value = RespReply.ofBytes(RespReply.Type.BIG_NUMBER, bytes(in, contentStart, cr));
+                    break;
+                case ',':
+                    value = RespReply.decimal(parseDouble(in.toString(contentStart, cr - contentStart,
+                            StandardCharsets.US_ASCII)));
+                    break;
+                case '#':
+                    value = RespReply.bool(in.getByte(contentStart) == 't');
+                    break;
+                case '_':
+                    value = RespReply.NULL;
+                    break;
+                case '$':
+                case '!':
+                case '=': {
+                    long length = parseLong(in, contentStart, cr);
+                    if (length < 0) {
+                        value = RespReply.NULL;
+                        break;
+                    }
+                    if (length > maxBulkLength) {
+                        throw new TooLongFrameException("RESP 批量字符串长度 " + length + " 超过上限 " + maxBulkLength);
+                    }
+                    int end = lineEnd + (int) length;
+                    if (in.writerIndex() < end + 2) {
+                        // 批量字符串还没收全，等下一次，头部行也不消费
+                        return;
+                    }
+                    if (in.getByte(end) != '\r' || in.getByte(end + 1) != '\n') {
+                        // 长度与内容不符，不检查的话后面的数据会全部错位
+                        throw new CorruptedFrameException("位置 " + end + " 处应为 CRLF");
+                    }
+                    if (marker == '$') {
+                        value = RespReply.bulkString(bytes(in, lineEnd, end));
+                    } else if (marker == '!') {
+                        value = RespReply.ofBytes(RespReply.Type.BLOB_ERROR, bytes(in, lineEnd, end));
+                    } else {
+                        // 原样字符串以 "txt:" 之类的 3 字节格式前缀开头
+                        value = RespReply.ofBytes(RespReply.Type.VERBATIM_STRING,
+                                bytes(in, Math.min(lineEnd + 4, end), end));
+                    }
+                    lineEnd = end + 2;
+                    break;
+                }
+                case '*':
+                case '%':
+                case '~':
+                case '>':
+                case '|': {
+                    long count = parseLong(in, contentStart, cr);
+                    in.readerIndex(lineEnd);
+                    if (count < 0) {
+                        // RESP2 的空数组 *-1
+                        value = RespReply.NULL;
+                        emit(value, out);
+                        continue;
+                    }
+                    if (count > maxAggregateLength) {
+                        throw new TooLongFrameException("RESP 聚合元素数 " + count + " 超过上限 " + maxAggregateLength);
+                    }
+                    RespReply.Type type = aggregateType(marker);
+                    // map / 属性按键值对计数，元素数是 count 的 2 倍，在 long 中计算后再检查一次
+                    long elements = marker == '%' || marker == '|' ? count * 2 : count;
+                    if (elements > Integer.MAX_VALUE) {
+                        throw new TooLongFrameException("RESP 聚合元素数 " + count + " 超过上限");
+                    }
+                    int expected = (int) elements;
+                    if (expected == 0) {
+                        if (type != null) {
+                            emit(RespReply.aggregate(type, new ArrayList<>()), out);
+                        }
+                        continue;
+                    }
+                    if (stack.size() >= maxDepth) {
+                        throw new TooLongFrameException("RESP 聚合嵌套超过 " + maxDepth + " 层");
+                    }
+                    stack.push(new Aggregate(type, expected));
+                    continue;
+                }
+                default:
+                    throw new CorruptedFrameException("未知的 RESP 类型字节: " + (char) marker);
+            }
+            in.readerIndex(lineEnd);
+            emit(value, out);
+        }
+    }
+
+    /**
+     * 把一个完整的元素交给栈顶聚合；聚合读满后向上传递，直到栈空时输出
+     */
+    private void emit(RespReply value, List<Object> out) {
+        for (;;) {
+            Aggregate top = stack.peek();
+            if (top == null) {
+                out.add(value);
+                return;
+            }
+            top.elements.add(value);
+            if (top.elements.size() < top.expected) {
+                return;
+            }
+            stack.pop();
+            if (top.type == null) {
+                // 属性读完即丢弃，不占父聚合的元素数
+                return;
+            }
+            value = RespReply.aggregate(top.type, top.elements);
+        }
+    }
+
+    private static RespReply.Type aggregateType(byte marker) {
+        switch (marker) {
+            case '*':
+                return RespReply.Type.ARRAY;
+            case '%':
+                return RespReply.Type.MAP;
+            case '~':
+                return RespReply.Type.SET;
+            case '>':
+                return RespReply.Type.PUSH;
+            default:
+                return null;
+        }
+    }
+
+    private static byte[] bytes(ByteBuf in, int from, int to) {
+        return from == to ? EMPTY : ByteBufUtil.getBytes(in, from, to - from);
+    }
+
+    /**
+     * 直接在 ByteBuf 上解析十进制整数，不经过 String
+     */
+    private static long parseLong(ByteBuf in, int from, int to) {
+        if (from == to) {
+            throw new CorruptedFrameException("RESP 整数为空");
+        }
+        boolean negative = in.getByte(from) == '-';
+        int i = negative || in.getByte(from) == '+' ? from + 1 : from;
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = in.getByte(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new CorruptedFrameException("RESP 整数格式错误");
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw new CorruptedFrameException("RESP 整数溢出");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static double parseDouble(String text) {
+        switch (text) {
+            case "inf":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            case "nan":
+                return Double.NaN;
+            default:
+                return Double.parseDouble(text);
+        }
+    }
+}
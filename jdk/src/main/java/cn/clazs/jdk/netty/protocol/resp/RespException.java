@@ -0,0 +1,19 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+/**
+ * 服务端返回的错误回复，或连接异常导致命令失败
+ *
+ * @author clazs
+ */
+public class RespException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RespException(String message) {
+        super(message);
+    }
+
+    public RespException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
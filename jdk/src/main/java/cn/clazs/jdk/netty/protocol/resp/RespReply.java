@@ -0,0 +1,222 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RESP2 / RESP3 的一个回复（不可变）
+ *
+ * - 字符串类（简单字符串、错误、批量字符串、大数、原样字符串）统一保存为 byte[]
+ * - 聚合类（数组、集合、Map、推送）保存为元素列表，Map 按 k1, v1, k2, v2 ... 展开保存
+ *
+ * @author clazs
+ */
+public final class RespReply {
+
+    public enum Type {
+        SIMPLE_STRING('+'),
+        ERROR('-'),
+        INTEGER(':'),
+        BULK_STRING('$'),
+        ARRAY('*'),
+        // 以下为 RESP3 新增
+        NULL('_'),
+        DOUBLE(','),
+        BOOLEAN('#'),
+        BLOB_ERROR('!'),
+        VERBATIM_STRING('='),
+        BIG_NUMBER('('),
+        MAP('%'),
+        SET('~'),
+        PUSH('>');
+
+        private final byte marker;
+
+        Type(char marker) {
+            this.marker = (byte) marker;
+        }
+
+        public byte marker() {
+            return marker;
+        }
+
+        public boolean isAggregate() {
+            return this == ARRAY || this == MAP || this == SET || this == PUSH;
+        }
+    }
+
+    public static final RespReply OK = simpleString("OK");
+    public static final RespReply PONG = simpleString("PONG");
+    public static final RespReply NULL = new RespReply(Type.NULL, null, 0, 0, null);
+    public static final RespReply TRUE = new RespReply(Type.BOOLEAN, null, 1, 0, null);
+    public static final RespReply FALSE = new RespReply(Type.BOOLEAN, null, 0, 0, null);
+
+    private final Type type;
+    private final byte[] bytes;
+    private final long integer;
+    private final double decimal;
+    private final List<RespReply> elements;
+
+    private RespReply(Type type, byte[] bytes, long integer, double decimal, List<RespReply> elements) {
+        this.type = type;
+        this.bytes = bytes;
+        this.integer = integer;
+        this.decimal = decimal;
+        this.elements = elements;
+    }
+
+    // ==================== 构造 ====================
+
+    public static RespReply simpleString(String value) {
+        return new RespReply(Type.SIMPLE_STRING, value.getBytes(StandardCharsets.UTF_8), 0, 0, null);
+    }
+
+    public static RespReply error(String message) {
+        return new RespReply(Type.ERROR, message.getBytes(StandardCharsets.UTF_8), 0, 0, null);
+    }
+
+    public static RespReply integer(long value) {
+        return new RespReply(Type.INTEGER, null, value, 0, null);
+    }
+
+    public static RespReply bulkString(byte[] value) {
+        return value == null ? NULL : new RespReply(Type.BULK_STRING, value, 0, 0, null);
+    }
+
+    public static RespReply bulkString(String value) {
+        return value == null ? NULL : bulkString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RespReply decimal(double value) {
+        return new RespReply(Type.DOUBLE, null, 0, value, null);
+    }
+
+    public static RespReply bool(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    public static RespReply array(List<RespReply> elements) {
+        return aggregate(Type.ARRAY, elements);
+    }
+
+    /**
+     * 字符串类回复（含 RESP3 的 BLOB_ERROR / VERBATIM_STRING / BIG_NUMBER），由解码器使用
+     */
+    static RespReply ofBytes(Type type, byte[] bytes) {
+        return new RespReply(type, bytes, 0, 0, null);
+    }
+
+    /**
+     * 聚合类回复，MAP 的 elements 按 key, value 交替排列
+     */
+    public static RespReply aggregate(Type type, List<RespReply> elements) {
+        if (!type.isAggregate()) {
+            throw new IllegalArgumentException(type + " is not an aggregate type");
+        }
+        return new RespReply(type, null, 0, 0, Collections.unmodifiableList(elements));
+    }
+
+    // ==================== 访问 ====================
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isNull() {
+        return type == Type.NULL;
+    }
+
+    public boolean isError() {
+        return type == Type.ERROR || type == Type.BLOB_ERROR;
+    }
+
+    public byte[] asBytes() {
+        return bytes;
+    }
+
+    /**
+     * 字符串类返回 UTF-8 文本，数值类返回其十进制表示，NULL 返回 null
+     */
+    public String asString() {
+        switch (type) {
+            case NULL:
+                return null;
+            case INTEGER:
+                return Long.toString(integer);
+            case DOUBLE:
+                return Double.toString(decimal);
+            case BOOLEAN:
+                return integer != 0 ? "true" : "false";
+            default:
+                return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    public long asLong() {
+        switch (type) {
+            case INTEGER:
+            case BOOLEAN:
+                return integer;
+            case DOUBLE:
+                return (long) decimal;
+            default:
+                return Long.parseLong(asString());
+        }
+    }
+
+    public double asDouble() {
+        return type == Type.DOUBLE ? decimal : Double.parseDouble(asString());
+    }
+
+    public boolean asBoolean() {
+        return type == Type.BOOLEAN || type == Type.INTEGER ? integer != 0 : Boolean.parseBoolean(asString());
+    }
+
+    public List<RespReply> getElements() {
+        return elements == null ? Collections.emptyList() : elements;
+    }
+
+    /**
+     * MAP 按键值对转换；RESP2 下 HELLO / HGETALL 等返回的扁平数组同样适用
+     */
+    public Map<String, RespReply> asMap() {
+        Map<String, RespReply> map = new LinkedHashMap<>();
+        List<RespReply> list = getElements();
+        for (int i = 0; i + 1 < list.size(); i += 2) {
+            map.put(list.get(i).asString(), list.get(i + 1));
+        }
+        return map;
+    }
+
+    /**
+     * 类似 redis-cli 的展示格式，调试用
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case NULL:
+                return "(nil)";
+            case INTEGER:
+                return "(integer) " + integer;
+            case DOUBLE:
+                return "(double) " + decimal;
+            case BOOLEAN:
+                return integer != 0 ? "(true)" : "(false)";
+            case ERROR:
+            case BLOB_ERROR:
+                return "(error) " + asString();
+            case SIMPLE_STRING:
+                return asString();
+            case ARRAY:
+            case SET:
+            case PUSH:
+            case MAP:
+                return type.name().toLowerCase() + elements;
+            default:
+                return "\"" + asString() + "\"";
+        }
+    }
+}
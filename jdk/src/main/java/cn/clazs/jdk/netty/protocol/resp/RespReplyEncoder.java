@@ -0,0 +1,145 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 回复编码器（服务端使用）：RespReply -> RESP2 或 RESP3
+ *
+ * 连接默认是 RESP2，客户端发送 HELLO 3 之后切换到 RESP3；RESP2 下 RESP3 专有类型按 Redis 的规则降级：
+ * NULL -> $-1，MAP / SET / PUSH -> 数组，DOUBLE / BIG_NUMBER / VERBATIM_STRING -> 批量字符串，BOOLEAN -> 整数
+ *
+ * 协议版本是连接级状态，每个连接一个实例
+ *
+ * @author clazs
+ */
+public class RespReplyEncoder extends MessageToByteEncoder<RespReply> {
+
+    private static final short CRLF = ('\r' << 8) | '\n';
+
+    private boolean resp3;
+
+    /**
+     * 只在 EventLoop 线程中调用（由处理 HELLO 的 handler 切换）
+     */
+    public void setProtocolVersion(int version) {
+        this.resp3 = version >= 3;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, RespReply msg, ByteBuf out) {
+        write(out, msg, resp3);
+    }
+
+    public static void write(ByteBuf out, RespReply reply, boolean resp3) {
+        switch (reply.getType()) {
+            case SIMPLE_STRING:
+            case ERROR:
+                out.writeByte(reply.getType().marker());
+                out.writeBytes(reply.asBytes());
+                out.writeShort(CRLF);
+                break;
+            case INTEGER:
+                writeHeader(out, ':', reply.asLong());
+                break;
+            case BULK_STRING:
+                writeBulk(out, '$', reply.asBytes());
+                break;
+            case NULL:
+                if (resp3) {
+                    out.writeByte('_');
+                    out.writeShort(CRLF);
+                } else {
+                    writeHeader(out, '$', -1);
+                }
+                break;
+            case BOOLEAN:
+                if (resp3) {
+                    out.writeByte('#');
+                    out.writeByte(reply.asBoolean() ? 't' : 'f');
+                    out.writeShort(CRLF);
+                } else {
+                    writeHeader(out, ':', reply.asBoolean() ? 1 : 0);
+                }
+                break;
+            case DOUBLE:
+                if (resp3) {
+                    out.writeByte(',');
+                    out.writeCharSequence(formatDouble(reply.asDouble()), CharsetUtil.US_ASCII);
+                    out.writeShort(CRLF);
+                } else {
+                    writeBulk(out, '$', formatDouble(reply.asDouble()).getBytes(CharsetUtil.US_ASCII));
+                }
+                break;
+            case BIG_NUMBER:
+                if (resp3) {
+                    out.writeByte('(');
+                    out.writeBytes(reply.asBytes());
+                    out.writeShort(CRLF);
+                } else {
+                    writeBulk(out, '$', reply.asBytes());
+                }
+                break;
+            case BLOB_ERROR:
+                if (resp3) {
+                    writeBulk(out, '!', reply.asBytes());
+                } else {
+                    out.writeByte('-');
+                    out.writeBytes(reply.asBytes());
+                    out.writeShort(CRLF);
+                }
+                break;
+            case VERBATIM_STRING:
+                if (resp3) {
+                    byte[] text = reply.asBytes();
+                    writeHeader(out, '=', text.length + 4);
+                    out.writeCharSequence("txt:", CharsetUtil.US_ASCII);
+                    out.writeBytes(text);
+                    out.writeShort(CRLF);
+                } else {
+                    writeBulk(out, '$', reply.asBytes());
+                }
+                break;
+            default:
+                writeAggregate(out, reply, resp3);
+        }
+    }
+
+    private static void writeAggregate(ByteBuf out, RespReply reply, boolean resp3) {
+        int size = reply.getElements().size();
+        if (!resp3) {
+            writeHeader(out, '*', size);
+        } else if (reply.getType() == RespReply.Type.MAP) {
+            writeHeader(out, '%', size / 2);
+        } else {
+            writeHeader(out, reply.getType().marker(), size);
+        }
+        for (RespReply element : reply.getElements()) {
+            write(out, element, resp3);
+        }
+    }
+
+    private static void writeHeader(ByteBuf out, int marker, long value) {
+        out.writeByte(marker);
+        RespCommandEncoder.writeDecimal(out, value);
+        out.writeShort(CRLF);
+    }
+
+    private static void writeBulk(ByteBuf out, int marker, byte[] bytes) {
+        writeHeader(out, marker, bytes.length);
+        out.writeBytes(bytes);
+        out.writeShort(CRLF);
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "nan";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "inf" : "-inf";
+        }
+        return Double.toString(value);
+    }
+}
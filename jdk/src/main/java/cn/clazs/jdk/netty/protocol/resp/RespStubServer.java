@@ -0,0 +1,146 @@
+package cn.clazs.jdk.netty.protocol.resp;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地替身服务器：只实现 PING / ECHO / SET / GET / DEL / INCR / HELLO，用于演示和压测客户端
+ *
+ * 与客户端共用 RespDecoder（命令就是批量字符串数组）；
+ * 流水线：一次 channelRead 批量解析出的命令只在 channelReadComplete 时 flush 一次
+ *
+ * @author clazs
+ */
+@Slf4j
+public class RespStubServer implements AutoCloseable {
+
+    private final EventLoopGroup boss = new NioEventLoopGroup(1);
+    private final EventLoopGroup workers;
+    private final Map<String, byte[]> data = new ConcurrentHashMap<>();
+    private Channel serverChannel;
+
+    public RespStubServer(int workerThreads) {
+        this.workers = new NioEventLoopGroup(workerThreads);
+    }
+
+    /**
+     * @param port 0 表示随机端口
+     * @return 实际监听的端口
+     */
+    public int start(int port) throws InterruptedException {
+        serverChannel = new ServerBootstrap()
+                .group(boss, workers)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        RespReplyEncoder encoder = new RespReplyEncoder();
+                        ch.pipeline().addLast(new RespDecoder());
+                        ch.pipeline().addLast(encoder);
+                        ch.pipeline().addLast(new CommandHandler(encoder));
+                    }
+                })
+                .bind(port).sync().channel();
+        int boundPort = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+        log.debug("RESP 替身服务器启动，端口 {}", boundPort);
+        return boundPort;
+    }
+
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        boss.shutdownGracefully();
+        workers.shutdownGracefully().syncUninterruptibly();
+    }
+
+    private final class CommandHandler extends SimpleChannelInboundHandler<RespReply> {
+
+        private final RespReplyEncoder encoder;
+
+        CommandHandler(RespReplyEncoder encoder) {
+            this.encoder = encoder;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, RespReply command) {
+            RespReply reply;
+            try {
+                reply = execute(command.getElements());
+            } catch (IndexOutOfBoundsException e) {
+                reply = RespReply.error("ERR wrong number of arguments");
+            } catch (NumberFormatException e) {
+                reply = RespReply.error("ERR value is not an integer or out of range");
+            }
+            ctx.write(reply);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+
+        private RespReply execute(List<RespReply> args) {
+            if (args.isEmpty()) {
+                return RespReply.error("ERR empty command");
+            }
+            String name = args.get(0).asString().toUpperCase(Locale.ROOT);
+            switch (name) {
+                case "PING":
+                    return args.size() > 1 ? RespReply.bulkString(args.get(1).asBytes()) : RespReply.PONG;
+                case "ECHO":
+                    return RespReply.bulkString(args.get(1).asBytes());
+                case "SET":
+                    data.put(args.get(1).asString(), args.get(2).asBytes());
+                    return RespReply.OK;
+                case "GET":
+                    return RespReply.bulkString(data.get(args.get(1).asString()));
+                case "DEL": {
+                    long removed = 0;
+                    for (int i = 1; i < args.size(); i++) {
+                        removed += data.remove(args.get(i).asString()) != null ? 1 : 0;
+                    }
+                    return RespReply.integer(removed);
+                }
+                case "INCR": {
+                    byte[] updated = data.compute(args.get(1).asString(), (k, old) -> {
+                        long value = old == null ? 0 : Long.parseLong(new String(old, StandardCharsets.US_ASCII));
+                        return Long.toString(value + 1).getBytes(StandardCharsets.US_ASCII);
+                    });
+                    return RespReply.integer(Long.parseLong(new String(updated, StandardCharsets.US_ASCII)));
+                }
+                case "HELLO": {
+                    int version = args.size() > 1 ? (int) args.get(1).asLong() : 2;
+                    encoder.setProtocolVersion(version);
+                    List<RespReply> info = new ArrayList<>();
+                    info.add(RespReply.bulkString("server"));
+                    info.add(RespReply.bulkString("resp-stub"));
+                    info.add(RespReply.bulkString("proto"));
+                    info.add(RespReply.integer(version));
+                    return RespReply.aggregate(RespReply.Type.MAP, info);
+                }
+                default:
+                    return RespReply.error("ERR unknown command '" + name + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package cn.clazs.jdk.netty.protocol.resp.server;
+
+import cn.clazs.jdk.netty.protocol.resp.RespReply;
+import cn.clazs.jdk.netty.protocol.resp.RespReplyEncoder;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 单个连接的命令分发（运行在连接所属的 EventLoop）
+ *
+ * - key 所在分片就在当前 EventLoop：直接执行，没有任何线程切换
+ * - 分片在其他 EventLoop：按分片攒批，在 channelReadComplete 时每个分片投递一次，结果再成批投递回本连接的 EventLoop
+ *
+ * 跨线程执行会打乱完成顺序，而 RESP 要求按命令顺序回复：
+ * 有未完成的命令时，后续命令不再就地执行，回复（包括同步完成的和发布订阅推送）都进入 pending 队列，
+ * 队首完成后按顺序写出
+ *
+ * @author clazs
+ */
+@Slf4j
+final class ConnectionHandler extends ChannelInboundHandlerAdapter {
+
+    private final RespServer server;
+    private final RespReplyEncoder encoder;
+
+    private final ArrayDeque<Slot> pending = new ArrayDeque<>();
+    private final List<ShardOp>[] batches;
+    private final Set<String> subscriptions = new LinkedHashSet<>();
+    private ChannelHandlerContext ctx;
+    private boolean reading;
+    private boolean resp3;
+    private boolean closing;
+
+    /**
+     * 一个尚未写出的回复；多分片命令（DEL k1 k2、DBSIZE）由多个分片的部分结果累加而成
+     */
+    private static final class Slot {
+        RespReply reply;
+        int remaining;
+        long sum;
+        RespReply whenDone;     // 非空时，所有部分完成后回复它而不是 sum
+    }
+
+    ConnectionHandler(RespServer server, RespReplyEncoder encoder) {
+        this.server = server;
+        this.encoder = encoder;
+        this.batches = newBatches(server.shards().length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ShardOp>[] newBatches(int shards) {
+        List<ShardOp>[] batches = new List[shards];
+        for (int i = 0; i < shards; i++) {
+            batches[i] = new ArrayList<>();
+        }
+        return batches;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        reading = true;
+        dispatch(ctx, (RespReply) msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        reading = false;
+        submitBatches(ctx);
+        flush(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        for (String channel : subscriptions) {
+            server.pubSub().unsubscribe(channel, this);
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("RESP 连接异常，关闭 {}", ctx.channel(), cause);
+        ctx.close();
+    }
+
+    private void dispatch(ChannelHandlerContext ctx, RespReply command) {
+        server.commandProcessed();
+        List<RespReply> args = command.getElements();
+        if (command.getType() != RespReply.Type.ARRAY || args.isEmpty()) {
+            reply(ctx, RespReply.error("ERR protocol error: expected array of bulk strings"));
+            return;
+        }
+        String name = args.get(0).asString().toUpperCase(Locale.ROOT);
+        try {
+            if (!subscriptions.isEmpty() && !isAllowedWhileSubscribed(name)) {
+                reply(ctx, RespReply.error("ERR Can't execute '" + name.toLowerCase(Locale.ROOT)
+                        + "': only (P|S)SUBSCRIBE / (P|S)UNSUBSCRIBE / PING / QUIT / RESET are allowed in this context"));
+                return;
+            }
+            switch (name) {
+                case "GET":
+                case "SET":
+                case "EXPIRE":
+                case "PEXPIRE":
+                case "PERSIST":
+                case "TTL":
+                case "PTTL":
+                case "INCR":
+                case "DECR":
+                case "INCRBY":
+                case "DECRBY":
+                    executeOnShard(ctx, name, args);
+                    break;
+                case "DEL":
+                case "EXISTS":
+                    if (args.size() == 2) {
+                        executeOnShard(ctx, name, args);
+                    } else {
+                        executeMultiKey(name, args);
+                    }
+                    break;
+                case "DBSIZE":
+                    executeOnAllShards(false);
+                    break;
+                case "FLUSHALL":
+                case "FLUSHDB":
+                    executeOnAllShards(true);
+                    break;
+                case "PING":
+                    reply(ctx, args.size() > 1 ? RespReply.bulkString(args.get(1).asBytes()) : RespReply.PONG);
+                    break;
+                case "ECHO":
+                    reply(ctx, RespReply.bulkString(args.get(1).asBytes()));
+                    break;
+                case "HELLO":
+                    hello(ctx, args);
+                    break;
+                case "PUBLISH":
+                    reply(ctx, RespReply.integer(server.pubSub().publish(args.get(1), args.get(2))));
+                    break;
+                case "SUBSCRIBE":
+                    for (int i = 1; i < args.size(); i++) {
+                        String channel = Shard.key(args.get(i));
+                        if (subscriptions.add(channel)) {
+                            server.pubSub().subscribe(channel, this);
+                        }
+                        reply(ctx, subscription("subscribe", args.get(i)));
+                    }
+                    break;
+                case "UNSUBSCRIBE":
+                    unsubscribe(ctx, args);
+                    break;
+                case "SELECT":
+                    reply(ctx, args.get(1).asLong() == 0 ? RespReply.OK : RespReply.error("ERR DB index is out of range"));
+                    break;
+                case "CLIENT":
+                    reply(ctx, RespReply.OK);
+                    break;
+                case "COMMAND":
+                    // redis-cli / redis-benchmark 启动时会发送，返回空数组即可
+                    reply(ctx, RespReply.array(new ArrayList<>()));
+                    break;
+                case "QUIT":
+                    reply(ctx, RespReply.OK);
+                    closing = true;
+                    break;
+                default:
+                    reply(ctx, RespReply.error("ERR unknown command '" + name.toLowerCase(Locale.ROOT) + "'"));
+            }
+        } catch (IndexOutOfBoundsException e) {
+            reply(ctx, RespReply.error("ERR wrong number of arguments for '" + name.toLowerCase(Locale.ROOT) + "' command"));
+        } catch (NumberFormatException e) {
+            reply(ctx, RespReply.error("ERR value is not an integer or out of range"));
+        }
+    }
+
+    // ==================== 分片执行 ====================
+
+    private void executeOnShard(ChannelHandlerContext ctx, String name, List<RespReply> args) {
+        Shard shard = server.shardFor(args.get(1));
+        // 只看本分片的 batch 不够：之前的批次可能已经投递到本线程的任务队列还没执行，
+        // 本连接有任何未完成的命令时都要排在它们后面，否则同一个 key 上的命令会乱序执行
+        if (shard.loop.inEventLoop() && pending.isEmpty()) {
+            reply(ctx, safeExecute(shard, name, args));
+            return;
+        }
+        batches[shard.index].add(new ShardOp(enqueue(), ShardOp.EXECUTE, name, args));
+    }
+
+    /**
+     * 多 key 的 DEL / EXISTS：每个 key 在自己的分片上执行，结果累加
+     */
+    private void executeMultiKey(String name, List<RespReply> args) {
+        Slot slot = enqueue();
+        slot.remaining = args.size() - 1;
+        for (int i = 1; i < args.size(); i++) {
+            List<RespReply> single = new ArrayList<>(2);
+            single.add(args.get(0));
+            single.add(args.get(i));
+            batches[server.shardFor(args.get(i)).index].add(new ShardOp(slot, ShardOp.ACCUMULATE, name, single));
+        }
+    }
+
+    private void executeOnAllShards(boolean flush) {
+        Slot slot = enqueue();
+        slot.remaining = server.shards().length;
+        slot.whenDone = flush ? RespReply.OK : null;
+        for (Shard shard : server.shards()) {
+            batches[shard.index].add(new ShardOp(slot, flush ? ShardOp.FLUSH : ShardOp.SIZE, null, null));
+        }
+    }
+
+    /**
+     * 一次 channelRead 批量解析出的命令按分片分组，每个分片只投递一个任务、结果也只投递回来一个任务，
+     * 流水线深度越大，跨线程的开销被摊得越薄。同一分片内按命令顺序执行
+     */
+    private void submitBatches(ChannelHandlerContext ctx) {
+        EventLoop home = ctx.channel().eventLoop();
+        for (Shard shard : server.shards()) {
+            List<ShardOp> batch = batches[shard.index];
+            if (batch.isEmpty()) {
+                continue;
+            }
+            batches[shard.index] = new ArrayList<>();
+            shard.loop.execute(() -> {
+                for (ShardOp op : batch) {
+                    op.run(shard);
+                }
+                home.execute(() -> {
+                    for (ShardOp op : batch) {
+                        deliver(ctx, op);
+                    }
+                });
+            });
+        }
+    }
+
+    private void deliver(ChannelHandlerContext ctx, ShardOp op) {
+        if (op.mode == ShardOp.EXECUTE) {
+            complete(ctx, op.slot, op.result);
+        } else {
+            accumulate(ctx, op.slot, op.value);
+        }
+    }
+
+    /**
+     * 投递到分片执行的一个操作，run 在分片线程，deliver 在连接线程
+     */
+    private static final class ShardOp {
+        static final int EXECUTE = 0;
+        static final int ACCUMULATE = 1;
+        static final int SIZE = 2;
+        static final int FLUSH = 3;
+
+        final Slot slot;
+        final int mode;
+        final String name;
+        final List<RespReply> args;
+        RespReply result;
+        long value;
+
+        ShardOp(Slot slot, int mode, String name, List<RespReply> args) {
+            this.slot = slot;
+            this.mode = mode;
+            this.name = name;
+            this.args = args;
+        }
+
+        void run(Shard shard) {
+            switch (mode) {
+                case EXECUTE:
+                    result = safeExecute(shard, name, args);
+                    break;
+                case ACCUMULATE:
+                    RespReply partial = safeExecute(shard, name, args);
+                    value = partial.getType() == RespReply.Type.INTEGER ? partial.asLong() : 0;
+                    break;
+                case SIZE:
+                    value = shard.keyspace.size();
+                    break;
+                default:
+                    value = shard.keyspace.size();
+                    shard.keyspace.clear();
+            }
+        }
+    }
+
+    private static RespReply safeExecute(Shard shard, String name, List<RespReply> args) {
+        try {
+            return shard.execute(name, args);
+        } catch (IndexOutOfBoundsException e) {
+            return RespReply.error("ERR wrong number of arguments for '" + name.toLowerCase(Locale.ROOT) + "' command");
+        } catch (NumberFormatException | ArithmeticException e) {
+            return RespReply.error("ERR value is not an integer or out of range");
+        }
+    }
+
+    // ==================== 有序回复 ====================
+
+    private void reply(ChannelHandlerContext ctx, RespReply reply) {
+        if (pending.isEmpty()) {
+            ctx.write(reply, ctx.voidPromise());
+        } else {
+            Slot slot = enqueue();
+            slot.reply = reply;
+        }
+    }
+
+    /**
+     * 发布订阅的消息（可能在其他连接的 EventLoop 上调用）：切回本连接的 EventLoop，
+     * 排在之前尚未写出的回复后面
+     *
+     * @return 连接已关闭时返回 false
+     */
+    boolean push(RespReply message) {
+        if (!ctx.channel().isActive()) {
+            return false;
+        }
+        EventLoop loop = ctx.channel().eventLoop();
+        if (loop.inEventLoop()) {
+            deliverPush(message);
+        } else {
+            loop.execute(() -> deliverPush(message));
+        }
+        return true;
+    }
+
+    private void deliverPush(RespReply message) {
+        if (pending.isEmpty()) {
+            ctx.write(message, ctx.voidPromise());
+            if (!reading) {
+                ctx.flush();
+            }
+        } else {
+            enqueue().reply = message;
+        }
+    }
+
+    private Slot enqueue() {
+        Slot slot = new Slot();
+        pending.add(slot);
+        return slot;
+    }
+
+    private void accumulate(ChannelHandlerContext ctx, Slot slot, long value) {
+        slot.sum += value;
+        if (--slot.remaining == 0) {
+            complete(ctx, slot, slot.whenDone != null ? slot.whenDone : RespReply.integer(slot.sum));
+        }
+    }
+
+    /**
+     * 写出队首所有已完成的回复；不在读循环中时（跨线程结果回来）需要自己 flush
+     */
+    private void complete(ChannelHandlerContext ctx, Slot slot, RespReply reply) {
+        slot.reply = reply;
+        boolean written = false;
+        Slot head;
+        while ((head = pending.peek()) != null && head.reply != null) {
+            pending.poll();
+            ctx.write(head.reply, ctx.voidPromise());
+            written = true;
+        }
+        if (written && !reading) {
+            flush(ctx);
+        }
+    }
+
+    /**
+     * QUIT 之后等之前的回复全部写出再关闭连接
+     */
+    private void flush(ChannelHandlerContext ctx) {
+        ctx.flush();
+        if (closing && pending.isEmpty()) {
+            ctx.close();
+        }
+    }
+
+    // ==================== 连接级命令 ====================
+
+    private void hello(ChannelHandlerContext ctx, List<RespReply> args) {
+        int version = args.size() > 1 ? (int) args.get(1).asLong() : (resp3 ? 3 : 2);
+        if (version != 2 && version != 3) {
+            reply(ctx, RespReply.error("NOPROTO unsupported protocol version"));
+            return;
+        }
+        List<RespReply> info = new ArrayList<>();
+        info.add(RespReply.bulkString("server"));
+        info.add(RespReply.bulkString("clazs-resp"));
+        info.add(RespReply.bulkString("version"));
+        info.add(RespReply.bulkString("7.0.0"));
+        info.add(RespReply.bulkString("proto"));
+        info.add(RespReply.integer(version));
+        info.add(RespReply.bulkString("mode"));
+        info.add(RespReply.bulkString("standalone"));
+        RespReply reply = RespReply.aggregate(RespReply.Type.MAP, info);
+        // HELLO 的回复本身就按新协议编码：先写出之前排队的回复再切换
+        if (pending.isEmpty()) {
+            resp3 = version == 3;
+            encoder.setProtocolVersion(version);
+            ctx.write(reply, ctx.voidPromise());
+        } else {
+            reply(ctx, RespReply.error("ERR HELLO is not supported while commands are in flight"));
+        }
+    }
+
+    private void unsubscribe(ChannelHandlerContext ctx, List<RespReply> args) {
+        List<String> channels = new ArrayList<>();
+        if (args.size() == 1) {
+            channels.addAll(subscriptions);
+        } else {
+            for (int i = 1; i < args.size(); i++) {
+                channels.add(Shard.key(args.get(i)));
+            }
+        }
+        if (channels.isEmpty()) {
+            reply(ctx, subscription("unsubscribe", RespReply.NULL));
+            return;
+        }
+        for (String channel : channels) {
+            subscriptions.remove(channel);
+            server.pubSub().unsubscribe(channel, this);
+            reply(ctx, subscription("unsubscribe", RespReply.bulkString(channel.getBytes(StandardCharsets.ISO_8859_1))));
+        }
+    }
+
+    /**
+     * 订阅确认：RESP3 下是推送类型，RESP2 下由编码器降级为数组
+     */
+    private RespReply subscription(String kind, RespReply channel) {
+        List<RespReply> elements = new ArrayList<>(3);
+        elements.add(RespReply.bulkString(kind));
+        elements.add(channel);
+        elements.add(RespReply.integer(subscriptions.size()));
+        return RespReply.aggregate(RespReply.Type.PUSH, elements);
+    }
+
+    private static boolean isAllowedWhileSubscribed(String name) {
+        switch (name) {
+            case "SUBSCRIBE":
+            case "UNSUBSCRIBE":
+            case "PING":
+            case "QUIT":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package cn.clazs.jdk.netty.protocol.resp.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 一个分片的键空间，只被所属 EventLoop 线程访问，因此全部使用非线程安全的集合，没有任何锁
+ *
+ * 过期策略与 Redis 相同：
+ * - 惰性过期：访问时发现已过期就删除
+ * - 定期抽样：从"设置了过期时间的 key"中随机抽样，删除其中已过期的；
+ *   如果抽样中过期比例超过 25%，说明过期 key 很多，继续下一轮，直到比例降下来或用完时间预算
+ *
+ * 设置了过期时间的 key 额外放在 ttlKeys 数组里（Entry 记录自己的下标），随机抽样和删除都是 O(1)
+ *
+ * @author clazs
+ */
+final class Keyspace {
+
+    private static final int SAMPLE_SIZE = 20;
+
+    static final class Entry {
+        byte[] value;
+        long expireAt;          // 毫秒时间戳，0 表示不过期
+        int ttlSlot = -1;       // 在 ttlKeys 中的下标
+
+        Entry(byte[] value) {
+            this.value = value;
+        }
+    }
+
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    private final ArrayList<String> ttlKeys = new ArrayList<>();
+
+    private long expiredKeys;
+
+    // ==================== 读写 ====================
+
+    /**
+     * 返回未过期的 Entry，已过期的顺便删除（惰性过期）
+     */
+    Entry lookup(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expireAt != 0 && entry.expireAt <= now) {
+            remove(key, entry);
+            expiredKeys++;
+            return null;
+        }
+        return entry;
+    }
+
+    byte[] get(String key, long now) {
+        Entry entry = lookup(key, now);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * @param expireAt 0 表示不过期
+     * @param keepTtl  true 时保留原有的过期时间（SET ... KEEPTTL）
+     * @return 是否写入（NX / XX 条件不满足时返回 false）
+     */
+    boolean set(String key, byte[] value, long expireAt, boolean nx, boolean xx, boolean keepTtl, long now) {
+        Entry entry = lookup(key, now);
+        if ((nx && entry != null) || (xx && entry == null)) {
+            return false;
+        }
+        if (entry == null) {
+            entry = new Entry(value);
+            entries.put(key, entry);
+        } else {
+            entry.value = value;
+        }
+        if (!keepTtl) {
+            setExpireAt(key, entry, expireAt);
+        }
+        return true;
+    }
+
+    boolean delete(String key, long now) {
+        Entry entry = lookup(key, now);
+        if (entry == null) {
+            return false;
+        }
+        remove(key, entry);
+        return true;
+    }
+
+    boolean expire(String key, long expireAt, long now) {
+        Entry entry = lookup(key, now);
+        if (entry == null) {
+            return false;
+        }
+        if (expireAt <= now) {
+            remove(key, entry);
+        } else {
+            setExpireAt(key, entry, expireAt);
+        }
+        return true;
+    }
+
+    boolean persist(String key, long now) {
+        Entry entry = lookup(key, now);
+        if (entry == null || entry.expireAt == 0) {
+            return false;
+        }
+        setExpireAt(key, entry, 0);
+        return true;
+    }
+
+    /**
+     * @return 剩余毫秒数；-1 表示没有过期时间，-2 表示 key 不存在（与 PTTL 一致）
+     */
+    long ttlMillis(String key, long now) {
+        Entry entry = lookup(key, now);
+        if (entry == null) {
+            return -2;
+        }
+        return entry.expireAt == 0 ? -1 : entry.expireAt - now;
+    }
+
+    /**
+     * @throws NumberFormatException 原值不是整数
+     */
+    long incrBy(String key, long delta, long now) {
+        Entry entry = lookup(key, now);
+        long value = entry == null ? 0 : Long.parseLong(new String(entry.value, StandardCharsets.US_ASCII));
+        long updated = Math.addExact(value, delta);
+        byte[] bytes = Long.toString(updated).getBytes(StandardCharsets.US_ASCII);
+        if (entry == null) {
+            entries.put(key, new Entry(bytes));
+        } else {
+            entry.value = bytes;
+        }
+        return updated;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void clear() {
+        entries.clear();
+        ttlKeys.clear();
+    }
+
+    long getExpiredKeys() {
+        return expiredKeys;
+    }
+
+    int getVolatileKeys() {
+        return ttlKeys.size();
+    }
+
+    // ==================== 过期 ====================
+
+    /**
+     * 定期抽样过期，由分片的定时任务调用
+     *
+     * @param budgetNanos 本轮最多占用的时间，避免大量 key 同时过期时长时间阻塞 EventLoop
+     */
+    int activeExpireCycle(long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        long now = System.currentTimeMillis();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int removed = 0;
+        int expiredInSample;
+        do {
+            if (ttlKeys.isEmpty()) {
+                break;
+            }
+            expiredInSample = 0;
+            int samples = Math.min(SAMPLE_SIZE, ttlKeys.size());
+            for (int i = 0; i < samples && !ttlKeys.isEmpty(); i++) {
+                String key = ttlKeys.get(random.nextInt(ttlKeys.size()));
+                Entry entry = entries.get(key);
+                if (entry.expireAt <= now) {
+                    remove(key, entry);
+                    expiredInSample++;
+                }
+            }
+            removed += expiredInSample;
+        } while (expiredInSample * 4 > SAMPLE_SIZE && System.nanoTime() < deadline);
+        expiredKeys += removed;
+        return removed;
+    }
+
+    private void setExpireAt(String key, Entry entry, long expireAt) {
+        if (expireAt != 0 && entry.ttlSlot < 0) {
+            entry.ttlSlot = ttlKeys.size();
+            ttlKeys.add(key);
+        } else if (expireAt == 0 && entry.ttlSlot >= 0) {
+            removeTtlSlot(entry);
+        }
+        entry.expireAt = expireAt;
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        if (entry.ttlSlot >= 0) {
+            removeTtlSlot(entry);
+        }
+    }
+
+    /**
+     * 用最后一个元素填补空位，O(1) 删除
+     */
+    private void removeTtlSlot(Entry entry) {
+        int slot = entry.ttlSlot;
+        int last = ttlKeys.size() - 1;
+        String lastKey = ttlKeys.remove(last);
+        if (slot != last) {
+            ttlKeys.set(slot, lastKey);
+            entries.get(lastKey).ttlSlot = slot;
+        }
+        entry.ttlSlot = -1;
+    }
+}
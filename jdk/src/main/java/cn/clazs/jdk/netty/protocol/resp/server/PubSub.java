@@ -0,0 +1,61 @@
+package cn.clazs.jdk.netty.protocol.resp.server;
+
+import cn.clazs.jdk.netty.protocol.resp.RespReply;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 发布订阅：频道 -> 订阅连接
+ *
+ * 订阅关系跨 EventLoop 共享，用并发集合；消息交给订阅连接的 ConnectionHandler.push，
+ * 在订阅连接自己的 EventLoop 上和普通回复走同一个有序队列，不会插到还没写出的回复前面
+ * （RESP2 连接收到数组，RESP3 连接收到推送类型）
+ *
+ * @author clazs
+ */
+final class PubSub {
+
+    private static final RespReply MESSAGE = RespReply.bulkString("message");
+
+    private final ConcurrentHashMap<String, Set<ConnectionHandler>> channels = new ConcurrentHashMap<>();
+
+    void subscribe(String channel, ConnectionHandler subscriber) {
+        channels.computeIfAbsent(channel, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+    }
+
+    void unsubscribe(String channel, ConnectionHandler subscriber) {
+        channels.computeIfPresent(channel, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * @return 收到消息的订阅者数量
+     */
+    int publish(RespReply channel, RespReply message) {
+        Set<ConnectionHandler> subscribers = channels.get(Shard.key(channel));
+        if (subscribers == null) {
+            return 0;
+        }
+        List<RespReply> elements = new ArrayList<>(3);
+        elements.add(MESSAGE);
+        elements.add(channel);
+        elements.add(message);
+        RespReply push = RespReply.aggregate(RespReply.Type.PUSH, elements);
+        int delivered = 0;
+        for (ConnectionHandler subscriber : subscribers) {
+            if (subscriber.push(push)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    int channelCount() {
+        return channels.size();
+    }
+}
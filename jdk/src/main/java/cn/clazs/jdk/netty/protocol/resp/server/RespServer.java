@@ -0,0 +1,118 @@
+package cn.clazs.jdk.netty.protocol.resp.server;
+
+import cn.clazs.jdk.netty.protocol.resp.RespDecoder;
+import cn.clazs.jdk.netty.protocol.resp.RespReply;
+import cn.clazs.jdk.netty.protocol.resp.RespReplyEncoder;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.EventExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分片内存 RESP 服务器：本地的 Redis 替身，可以直接用 redis-cli、Redisson 或本包的 RespClient 连接
+ *
+ * 支持 GET / SET(EX|PX|NX|XX|KEEPTTL) / DEL / EXISTS / EXPIRE / PEXPIRE / PERSIST / TTL / PTTL /
+ * INCR / DECR / INCRBY / DECRBY / DBSIZE / FLUSHALL / PUBLISH / SUBSCRIBE / UNSUBSCRIBE / PING / ECHO / HELLO
+ *
+ * 线程模型：
+ * - 每个 worker EventLoop 拥有一个键空间分片，key 按哈希分配到分片，分片只在自己的 EventLoop 上读写，无锁
+ * - 连接随机落在某个 EventLoop 上，访问本地分片的命令直接执行，其他分片的命令投递过去执行
+ * - 过期：惰性过期 + 每个分片每 100ms 抽样过期一次（由分片自己的 EventLoop 定时执行）
+ *
+ * 运行：main 方法，参数 [端口, 默认 6379] [分片数, 默认 CPU 核数]
+ *
+ * @author clazs
+ */
+@Slf4j
+public class RespServer implements AutoCloseable {
+
+    private final EventLoopGroup boss = new NioEventLoopGroup(1);
+    private final EventLoopGroup workers;
+    private final Shard[] shards;
+    private final PubSub pubSub = new PubSub();
+    private final LongAdder commands = new LongAdder();
+    private Channel serverChannel;
+
+    public RespServer(int shardCount) {
+        this.workers = new NioEventLoopGroup(shardCount);
+        this.shards = new Shard[shardCount];
+        int index = 0;
+        for (EventExecutor executor : workers) {
+            shards[index] = new Shard(index, (EventLoop) executor);
+            index++;
+        }
+    }
+
+    /**
+     * @param port 0 表示随机端口
+     * @return 实际监听的端口
+     */
+    public int start(int port) throws InterruptedException {
+        serverChannel = new ServerBootstrap()
+                .group(boss, workers)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        RespReplyEncoder encoder = new RespReplyEncoder();
+                        ch.pipeline().addLast(new RespDecoder());
+                        ch.pipeline().addLast(encoder);
+                        ch.pipeline().addLast(new ConnectionHandler(RespServer.this, encoder));
+                    }
+                })
+                .bind(port).sync().channel();
+        int boundPort = ((InetSocketAddress) serverChannel.localAddress()).getPort();
+        log.info("RESP 服务器启动，端口 {}，分片数 {}", boundPort, shards.length);
+        return boundPort;
+    }
+
+    Shard shardFor(RespReply key) {
+        return shards[(Shard.key(key).hashCode() & Integer.MAX_VALUE) % shards.length];
+    }
+
+    Shard[] shards() {
+        return shards;
+    }
+
+    PubSub pubSub() {
+        return pubSub;
+    }
+
+    void commandProcessed() {
+        commands.increment();
+    }
+
+    public long getCommandCount() {
+        return commands.sum();
+    }
+
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        boss.shutdownGracefully();
+        workers.shutdownGracefully().syncUninterruptibly();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 6379;
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        RespServer server = new RespServer(shards);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start(port);
+        server.serverChannel.closeFuture().sync();
+    }
+}
@@ -0,0 +1,112 @@
+package cn.clazs.jdk.netty.protocol.resp.server;
+
+import cn.clazs.jdk.netty.protocol.resp.RespClient;
+import cn.clazs.jdk.netty.protocol.resp.RespConnection;
+import cn.clazs.jdk.netty.protocol.resp.RespConnectionPool;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分片 RESP 服务器演示：基本命令、两种过期、发布订阅、压测
+ *
+ * @author clazs
+ */
+public class RespServerDemo {
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== 分片 RESP 服务器演示 ==========\n");
+
+        try (RespServer server = new RespServer(4)) {
+            int port = server.start(0);
+            try (RespClient client = new RespClient("localhost", port, 2);
+                 RespConnection connection = client.connect()) {
+
+                System.out.println("【演示 1】基本命令（key 分布在 4 个分片上）");
+                for (int i = 0; i < 10; i++) {
+                    connection.set("user:" + i, "name-" + i);
+                }
+                System.out.println("GET user:3        -> " + connection.get("user:3").join());
+                System.out.println("INCR counter      -> " + connection.incr("counter").join());
+                System.out.println("DBSIZE            -> " + connection.execute("DBSIZE").join().asLong());
+                System.out.println("DEL 跨分片 3 个key -> " + connection.del("user:1", "user:2", "user:missing").join());
+                System.out.println("SET NX 已存在      -> " + connection.execute("SET", "user:3", "x", "NX").join());
+                System.out.println("INCR 非整数        -> " + connection.incr("user:3").handle((v, e) -> e.getCause().getMessage()).join());
+
+                System.out.println("\n【演示 2】惰性过期：SET PX 100 后 150ms 再访问");
+                connection.execute("SET", "session", "abc", "PX", 100).join();
+                System.out.println("PTTL session -> " + connection.execute("PTTL", "session").join());
+                Thread.sleep(150);
+                System.out.println("GET session  -> " + connection.get("session").join());
+
+                System.out.println("\n【演示 3】抽样过期：20000 个 1s 后过期的 key，之后不再访问");
+                CompletableFuture<?>[] futures = new CompletableFuture[20000];
+                for (int i = 0; i < futures.length; i++) {
+                    futures[i] = connection.execute("SET", "tmp:" + i, "v", "PX", 1000);
+                }
+                CompletableFuture.allOf(futures).join();
+                System.out.println("刚写入       DBSIZE = " + connection.execute("DBSIZE").join().asLong());
+                for (int i = 1; i <= 6; i++) {
+                    Thread.sleep(250);
+                    System.out.println("过了 " + (i * 250) + "ms  DBSIZE = " + connection.execute("DBSIZE").join().asLong());
+                }
+
+                System.out.println("\n【演示 4】发布订阅：一个 RESP2 订阅者、一个 RESP3 订阅者");
+                CountDownLatch received = new CountDownLatch(4);
+                try (RespConnection resp2 = client.connect(); RespConnection resp3 = client.connect()) {
+                    resp2.onPush(push -> {
+                        System.out.println("  [RESP2 订阅者] " + push);
+                        received.countDown();
+                    });
+                    resp3.onPush(push -> {
+                        System.out.println("  [RESP3 订阅者] " + push);
+                        received.countDown();
+                    });
+                    resp3.hello(3).join();
+                    System.out.println("订阅确认: " + resp2.subscribe("chat").join() + " / " + resp3.subscribe("chat").join());
+                    System.out.println("PUBLISH -> " + connection.publish("chat", "hello").join() + " 个订阅者");
+                    System.out.println("PUBLISH -> " + connection.publish("chat", "world").join() + " 个订阅者");
+                    received.await();
+                    System.out.println("订阅状态下执行 GET -> " + resp2.get("user:3").handle((v, e) -> e.getCause().getMessage()).join());
+                }
+            }
+
+            System.out.println("\n【演示 5】压测：8 个连接、16 个线程，每线程最多 128 个在途命令，GET:SET = 4:1");
+            loadTest(port, 3000);
+            System.out.println("服务器累计处理命令: " + server.getCommandCount());
+        }
+    }
+
+    private static void loadTest(int port, long durationMillis) throws Exception {
+        try (RespClient client = new RespClient("localhost", port, 4);
+             RespConnectionPool pool = client.pool(8)) {
+            LongAdder ops = new LongAdder();
+            int threads = 16;
+            CountDownLatch done = new CountDownLatch(threads);
+            long deadline = System.currentTimeMillis() + durationMillis;
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    CompletableFuture<?>[] window = new CompletableFuture[128];
+                    while (System.currentTimeMillis() < deadline) {
+                        for (int i = 0; i < window.length; i++) {
+                            String key = "bench:" + random.nextInt(100_000);
+                            window[i] = random.nextInt(5) == 0
+                                    ? pool.execute("SET", key, "value-0123456789")
+                                    : pool.execute("GET", key);
+                        }
+                        CompletableFuture.allOf(window).join();
+                        ops.add(window.length);
+                    }
+                    done.countDown();
+                }, "Bench-" + t).start();
+            }
+            done.await();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d 次命令，%.0f ops/s%n", ops.sum(), ops.sum() / seconds);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package cn.clazs.jdk.netty.protocol.resp.server;
+
+import cn.clazs.jdk.netty.protocol.resp.RespReply;
+import io.netty.channel.EventLoop;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 键空间分片：固定绑定到一个 EventLoop，所有读写都在这个线程执行
+ *
+ * @author clazs
+ */
+final class Shard {
+
+    private static final long EXPIRE_INTERVAL_MILLIS = 100;
+    private static final long EXPIRE_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long INVALID_EXPIRE = Long.MIN_VALUE;
+
+    final int index;
+    final EventLoop loop;
+    final Keyspace keyspace = new Keyspace();
+
+    Shard(int index, EventLoop loop) {
+        this.index = index;
+        this.loop = loop;
+        loop.scheduleAtFixedRate(() -> keyspace.activeExpireCycle(EXPIRE_BUDGET_NANOS),
+                EXPIRE_INTERVAL_MILLIS, EXPIRE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 执行单 key 命令，调用方保证在 loop 线程中
+     */
+    RespReply execute(String name, List<RespReply> args) {
+        long now = System.currentTimeMillis();
+        String key = key(args.get(1));
+        switch (name) {
+            case "GET":
+                return RespReply.bulkString(keyspace.get(key, now));
+            case "SET":
+                return set(key, args, now);
+            case "DEL":
+                return RespReply.integer(keyspace.delete(key, now) ? 1 : 0);
+            case "EXISTS":
+                return RespReply.integer(keyspace.lookup(key, now) != null ? 1 : 0);
+            case "EXPIRE":
+            case "PEXPIRE": {
+                // 与 Redis 相同，过期时间 <= 0 表示立即删除，只有溢出才报错
+                long expireAt = expireAt(now, args.get(2).asLong(), "EXPIRE".equals(name) ? 1000 : 1);
+                if (expireAt == INVALID_EXPIRE) {
+                    return invalidExpire(name);
+                }
+                return RespReply.integer(keyspace.expire(key, expireAt, now) ? 1 : 0);
+            }
+            case "PERSIST":
+                return RespReply.integer(keyspace.persist(key, now) ? 1 : 0);
+            case "TTL": {
+                long ttl = keyspace.ttlMillis(key, now);
+                return RespReply.integer(ttl < 0 ? ttl : (ttl + 999) / 1000);
+            }
+            case "PTTL":
+                return RespReply.integer(keyspace.ttlMillis(key, now));
+            case "INCR":
+                return RespReply.integer(keyspace.incrBy(key, 1, now));
+            case "DECR":
+                return RespReply.integer(keyspace.incrBy(key, -1, now));
+            case "INCRBY":
+                return RespReply.integer(keyspace.incrBy(key, args.get(2).asLong(), now));
+            case "DECRBY":
+                return RespReply.integer(keyspace.incrBy(key, -args.get(2).asLong(), now));
+            default:
+                return RespReply.error("ERR unknown command '" + name + "'");
+        }
+    }
+
+    /**
+     * SET key value [EX seconds | PX milliseconds | KEEPTTL] [NX | XX]
+     */
+    private RespReply set(String key, List<RespReply> args, long now) {
+        long expireAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        for (int i = 3; i < args.size(); i++) {
+            String option = args.get(i).asString().toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "EX":
+                case "PX": {
+                    long amount = args.get(++i).asLong();
+                    expireAt = amount <= 0 ? INVALID_EXPIRE : expireAt(now, amount, "EX".equals(option) ? 1000 : 1);
+                    if (expireAt == INVALID_EXPIRE) {
+                        return invalidExpire("SET");
+                    }
+                    break;
+                }
+                case "KEEPTTL":
+                    keepTtl = true;
+                    break;
+                case "NX":
+                    nx = true;
+                    break;
+                case "XX":
+                    xx = true;
+                    break;
+                default:
+                    return RespReply.error("ERR syntax error");
+            }
+        }
+        boolean written = keyspace.set(key, args.get(2).asBytes(), expireAt, nx, xx, keepTtl, now);
+        return written ? RespReply.OK : RespReply.NULL;
+    }
+
+    /**
+     * @return now + amount * unitMillis，溢出时返回 INVALID_EXPIRE
+     */
+    private static long expireAt(long now, long amount, long unitMillis) {
+        try {
+            return Math.addExact(now, Math.multiplyExact(amount, unitMillis));
+        } catch (ArithmeticException e) {
+            return INVALID_EXPIRE;
+        }
+    }
+
+    private static RespReply invalidExpire(String command) {
+        return RespReply.error("ERR invalid expire time in '" + command.toLowerCase(Locale.ROOT) + "' command");
+    }
+
+    /**
+     * key 按 ISO-8859-1 解码成 String：字节与字符一一对应，任意二进制 key 都不会丢信息
+     */
+    static String key(RespReply arg) {
+        return new String(arg.asBytes(), StandardCharsets.ISO_8859_1);
+    }
+}
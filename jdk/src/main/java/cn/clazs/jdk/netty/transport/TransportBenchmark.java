@@ -0,0 +1,57 @@
+package cn.clazs.jdk.netty.transport;
+
+import cn.clazs.jdk.netty.echo.bench.EchoBenchConfig;
+import cn.clazs.jdk.netty.echo.bench.EchoLoadHarness;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 传输层对比：用 EchoLoadHarness 在同一负载下依次压测
+ *
+ * - nio
+ * - epoll（边缘触发，Netty 默认）
+ * - epoll 水平触发
+ * - epoll + TCP_QUICKACK
+ * - io_uring（classpath 中有 netty-incubator-transport-native-io_uring 且内核支持时）
+ *
+ * 客户端与服务端使用同一种传输层，不可用的配置跳过
+ *
+ * 运行：直接执行 main 方法，参数同 EchoLoadHarness（例如 connections=64 size=1024 duration=10）
+ *
+ * @author clazs
+ */
+public class TransportBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        EchoBenchConfig base = EchoBenchConfig.parse(args);
+
+        List<EchoBenchConfig> configs = new ArrayList<>();
+        configs.add(with(base, Transport.NIO, true, false));
+        configs.add(with(base, Transport.EPOLL, true, false));
+        configs.add(with(base, Transport.EPOLL, false, false));
+        configs.add(with(base, Transport.EPOLL, true, true));
+        configs.add(with(base, Transport.IO_URING, true, false));
+
+        StringBuilder summary = new StringBuilder();
+        for (EchoBenchConfig config : configs) {
+            if (!config.getTransport().isAvailable()) {
+                summary.append(config.getTransport()).append(" 不可用，跳过\n");
+                continue;
+            }
+            EchoLoadHarness.Result result = EchoLoadHarness.run(config);
+            System.out.println(result);
+            summary.append(result).append('\n');
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+
+    private static EchoBenchConfig with(EchoBenchConfig base, Transport transport, boolean edgeTriggered, boolean quickAck) {
+        EchoBenchConfig config = base.copy();
+        config.setTransport(transport);
+        config.getTransportOptions().setEdgeTriggered(edgeTriggered);
+        config.getTransportOptions().setTcpQuickAck(quickAck);
+        return config;
+    }
+}
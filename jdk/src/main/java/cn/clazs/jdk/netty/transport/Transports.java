@@ -0,0 +1,109 @@
+package cn.clazs.jdk.netty.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.EventLoopGroup;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * 选择传输层并创建配套的 EventLoopGroup / Bootstrap
+ *
+ * 选择规则：
+ * - 系统属性 netty.transport 指定 nio / epoll / io_uring 时优先使用，不可用则退回自动选择
+ * - 自动选择：epoll 可用就用 epoll，否则 NIO。
+ *   io_uring 还在孵化阶段，只在显式指定时使用
+ *
+ * 用法：
+ * <pre>
+ * Transport transport = Transports.select();
+ * new ServerBootstrap()
+ *         .group(transport.newGroup(1), transport.newGroup(0))
+ *         .channel(transport.serverSocketChannel())
+ * </pre>
+ * 或直接 Transports.serverBootstrap(boss, workers, options)
+ *
+ * @author clazs
+ */
+@Slf4j
+public final class Transports {
+
+    public static final String PROPERTY = "netty.transport";
+
+    private static volatile Transport selected;
+
+    private Transports() {
+    }
+
+    /**
+     * 进程内只选择一次，之后返回同一个结果
+     */
+    public static Transport select() {
+        Transport transport = selected;
+        if (transport == null) {
+            transport = select(System.getProperty(PROPERTY, "auto"));
+            selected = transport;
+            log.info("Netty 传输层: {}", transport);
+        }
+        return transport;
+    }
+
+    /**
+     * @param name nio / epoll / io_uring / auto
+     */
+    public static Transport select(String name) {
+        if (!"auto".equalsIgnoreCase(name)) {
+            Transport requested;
+            try {
+                // Locale.ROOT：土耳其语等区域设置下 "io_uring".toUpperCase() 的 i 会变成带点的 İ
+                requested = Transport.valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("未知的传输层: " + name + "，可选值: " + validNames(), e);
+            }
+            if (requested.isAvailable()) {
+                return requested;
+            }
+            log.warn("指定的传输层 {} 不可用，改为自动选择", requested);
+        }
+        return Transport.EPOLL.isAvailable() ? Transport.EPOLL : Transport.NIO;
+    }
+
+    private static String validNames() {
+        StringJoiner names = new StringJoiner(" / ");
+        names.add("auto");
+        for (Transport transport : Transport.values()) {
+            names.add(transport.name().toLowerCase(Locale.ROOT));
+        }
+        return names.toString();
+    }
+
+    /**
+     * @param threads 0 表示使用 Netty 默认线程数（CPU 核数 * 2）
+     */
+    public static EventLoopGroup newGroup(int threads) {
+        return select().newGroup(threads);
+    }
+
+    /**
+     * boss / workers 必须由同一个 Transport 创建
+     */
+    public static ServerBootstrap serverBootstrap(EventLoopGroup boss, EventLoopGroup workers, TransportOptions options) {
+        Transport transport = select();
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(boss, workers)
+                .channel(transport.serverSocketChannel());
+        transport.applyServerOptions(bootstrap, options);
+        return bootstrap;
+    }
+
+    public static Bootstrap bootstrap(EventLoopGroup group, TransportOptions options) {
+        Transport transport = select();
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(transport.socketChannel());
+        transport.applyClientOptions(bootstrap, options);
+        return bootstrap;
+    }
+}
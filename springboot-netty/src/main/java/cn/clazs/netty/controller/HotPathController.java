@@ -0,0 +1,110 @@
+package cn.clazs.netty.controller;
+
+import cn.clazs.netty.http.route.FileBodyHandler;
+import cn.clazs.netty.http.route.HttpBodyHandler;
+import cn.clazs.netty.http.route.NettyHttpController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 由 Netty HTTP 服务器（默认端口 9003）直接处理的接口，不经过 Tomcat 和 Servlet 过滤器链
+ *
+ * 写法与 NettyController 相同，只是类上换成 @NettyHttpController：
+ * - curl http://localhost:9003/
+ * - curl http://localhost:9003/netty/health
+ * - curl "http://localhost:9003/netty/greet/clazs?times=3"
+ * - curl -X POST -d '{"a":1}' http://localhost:9003/netty/echo
+ * - curl -X POST -T big.iso http://localhost:9003/netty/upload
+ *
+ * @author clazs
+ */
+@NettyHttpController
+public class HotPathController {
+
+    /**
+     * 上传文件保存目录（字段默认值供不经过 Spring 直接 new 的场景使用）
+     */
+    @Value("${netty.http.upload-dir:${java.io.tmpdir}/netty-uploads}")
+    private String uploadDir = System.getProperty("java.io.tmpdir") + "/netty-uploads";
+
+    @Value("${netty.http.max-upload:268435456}")
+    private long maxUpload = 256L << 20;
+
+    /**
+     * 与之前 HttpServerHandler 固定返回的内容相同
+     */
+    @GetMapping("/")
+    public String hello() {
+        return "Hello World from Netty HTTP Server!";
+    }
+
+    /**
+     * 健康检查（与 Tomcat 上的 /netty/health 相同）
+     */
+    @GetMapping("/netty/health")
+    public Map<String, Object> health() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", "UP");
+        result.put("application", "springboot-netty");
+        result.put("description", "Spring Boot + Netty 集成示例");
+        return result;
+    }
+
+    @GetMapping("/netty/greet/{name}")
+    public Map<String, Object> greet(@PathVariable String name, @RequestParam(defaultValue = "1") int times) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        StringBuilder greeting = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            greeting.append("Hello, ").append(name).append("! ");
+        }
+        result.put("name", name);
+        result.put("times", times);
+        result.put("greeting", greeting.toString().trim());
+        return result;
+    }
+
+    @PostMapping("/netty/echo")
+    public Map<String, Object> echo(@RequestBody Map<String, Object> body) {
+        return body;
+    }
+
+    /**
+     * 流式上传：请求体逐块写入文件，不受 netty.http.max-aggregated-body 限制，内存占用与文件大小无关
+     *
+     * 默认收完即删除，keep=true 时才保留文件（保存在 netty.http.upload-dir，不会自动清理）
+     */
+    @PostMapping("/netty/upload")
+    public HttpBodyHandler upload(@RequestParam(defaultValue = "false") boolean keep) {
+        return new FileBodyHandler(Paths.get(uploadDir), maxUpload, (file, bytes) -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("bytes", bytes);
+            if (keep) {
+                result.put("file", file.toString());
+            } else {
+                delete(file);
+            }
+            return result;
+        });
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cn.clazs.netty.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压缩结果的 LRU 缓存：键是（编码，原始响应体内容），值是压缩后的字节
+ *
+ * 按内容而不是按 URL 做键：同样的响应体不管来自哪个路由、哪次请求都只压缩一次，
+ * 内容变了自然就是新键，不需要失效机制。查找的代价是一次哈希和一次比较，远小于重新压缩
+ *
+ * 容量按字节计算（原始内容 + 压缩结果），超出时淘汰最久未使用的条目。
+ * 压缩后不比原来小的内容也缓存（值为 INCOMPRESSIBLE），下次直接原样发送
+ *
+ * 所有方法 synchronized：临界区只有一次 HashMap 查找，压缩本身在锁外进行
+ *
+ * @author clazs
+ */
+public class CompressedBodyCache {
+
+    /**
+     * 压缩无效，原样发送
+     */
+    static final byte[] INCOMPRESSIBLE = new byte[0];
+
+    private static final class Key {
+        final ContentEncoding encoding;
+        final ByteBuf body;
+        final int hash;
+
+        Key(ContentEncoding encoding, ByteBuf body, int hash) {
+            this.encoding = encoding;
+            this.body = body;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return encoding == other.encoding && hash == other.hash && ByteBufUtil.equals(body, other.body);
+        }
+    }
+
+    private final long capacityBytes;
+    private final int maxBodyBytes;
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    /**
+     * @param capacityBytes 缓存总字节数上限
+     * @param maxBodyBytes  原始响应体超过这个大小不缓存（避免一个大响应挤掉所有热点）
+     */
+    public CompressedBodyCache(long capacityBytes, int maxBodyBytes) {
+        this.capacityBytes = capacityBytes;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public boolean accepts(ByteBuf body) {
+        return body.readableBytes() <= maxBodyBytes && body.readableBytes() * 2L <= capacityBytes;
+    }
+
+    /**
+     * @param body 只在查找期间使用，不会被保存或修改 readerIndex
+     * @return 压缩后的字节，INCOMPRESSIBLE 表示压缩无效，null 表示没有缓存
+     */
+    public synchronized byte[] get(ContentEncoding encoding, ByteBuf body) {
+        return entries.get(new Key(encoding, body, ByteBufUtil.hashCode(body)));
+    }
+
+    /**
+     * 保存原始内容的副本和压缩结果
+     */
+    public void put(ContentEncoding encoding, ByteBuf body, byte[] encoded) {
+        if (!accepts(body)) {
+            return;
+        }
+        Key key = new Key(encoding, Unpooled.wrappedBuffer(ByteBufUtil.getBytes(body)), ByteBufUtil.hashCode(body));
+        long weight = key.body.readableBytes() + (long) encoded.length;
+        synchronized (this) {
+            byte[] previous = entries.put(key, encoded);
+            if (previous != null) {
+                usedBytes -= key.body.readableBytes() + (long) previous.length;
+            }
+            usedBytes += weight;
+            Iterator<Map.Entry<Key, byte[]>> eldest = entries.entrySet().iterator();
+            while (usedBytes > capacityBytes && eldest.hasNext()) {
+                Map.Entry<Key, byte[]> entry = eldest.next();
+                usedBytes -= entry.getKey().body.readableBytes() + (long) entry.getValue().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+}
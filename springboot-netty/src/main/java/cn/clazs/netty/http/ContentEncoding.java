@@ -0,0 +1,78 @@
+package cn.clazs.netty.http;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+/**
+ * 响应体支持的内容编码（Content-Encoding）
+ *
+ * - gzip / deflate: JDK 自带的 zlib，总是可用；HTTP 的 deflate 指 zlib 格式（RFC 1950），不是裸 deflate
+ * - br: Netty 的 BrotliEncoder 依赖 brotli4j 原生库，类路径上没有时 isAvailable() 为 false，协商时自动跳过。
+ *   压缩级别固定为 brotli4j 的默认值 4（指定级别需要在编译期引用 brotli4j 的类型）
+ *
+ * @author clazs
+ */
+public enum ContentEncoding {
+
+    BR("br") {
+        @Override
+        public boolean isAvailable() {
+            return Brotli.isAvailable();
+        }
+
+        @Override
+        ChannelHandler newEncoder(int level) {
+            return new BrotliEncoder();
+        }
+    },
+
+    GZIP("gzip") {
+        @Override
+        ChannelHandler newEncoder(int level) {
+            return ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, level);
+        }
+    },
+
+    DEFLATE("deflate") {
+        @Override
+        ChannelHandler newEncoder(int level) {
+            return ZlibCodecFactory.newZlibEncoder(ZlibWrapper.ZLIB, level);
+        }
+    };
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Accept-Encoding / Content-Encoding 中的名称
+     */
+    public String token() {
+        return token;
+    }
+
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * 新建一个一次性的编码器（放进 EmbeddedChannel 使用）
+     *
+     * @param level zlib 压缩级别 1-9，brotli 忽略
+     */
+    abstract ChannelHandler newEncoder(int level);
+
+    public static ContentEncoding of(String token) {
+        for (ContentEncoding encoding : values()) {
+            if (encoding.token.equalsIgnoreCase(token)) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("不支持的内容编码: " + token);
+    }
+}
@@ -0,0 +1,241 @@
+package cn.clazs.netty.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.util.AsciiString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 响应压缩策略，所有连接共享（线程安全），每个连接的 HttpCompressionHandler 调用它
+ *
+ * - 协商：按 Accept-Encoding 的 q 值选编码，q 值相同时按 encodings 的顺序（服务端偏好）
+ * - 阈值：响应体小于 minSize 不压缩（压缩头部开销 + CPU 不划算）；只压缩文本类 Content-Type，
+ *   图片、压缩包等已经压缩过的内容再压一次只会浪费 CPU
+ * - 缓存：cache 不为 null 时，相同内容只压缩一次（见 CompressedBodyCache）
+ *
+ * 同时统计压缩前后的字节数、压缩耗时和缓存命中数，用于评估带宽收益和 CPU 成本
+ *
+ * @author clazs
+ */
+public class HttpCompression {
+
+    private final List<ContentEncoding> encodings;
+    private final int level;
+    private final int minSize;
+    private final CompressedBodyCache cache;
+
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+
+    /**
+     * @param encodings 按服务端偏好排列，不可用的（如没有 brotli4j 时的 br）被忽略
+     * @param level     zlib 压缩级别 1-9
+     * @param minSize   响应体小于这个字节数不压缩
+     * @param cache     为 null 时每次都压缩
+     */
+    public HttpCompression(List<ContentEncoding> encodings, int level, int minSize, CompressedBodyCache cache) {
+        this.encodings = new ArrayList<>();
+        for (ContentEncoding encoding : encodings) {
+            if (encoding.isAvailable()) {
+                this.encodings.add(encoding);
+            }
+        }
+        this.level = level;
+        this.minSize = minSize;
+        this.cache = cache;
+    }
+
+    public List<ContentEncoding> getEncodings() {
+        return encodings;
+    }
+
+    // ==================== 协商 ====================
+
+    /**
+     * @return 客户端可接受且服务端支持的最优编码，没有时返回 null
+     */
+    public ContentEncoding negotiate(CharSequence acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.length() == 0 || encodings.isEmpty()) {
+            return null;
+        }
+        float[] q = new float[ContentEncoding.values().length];
+        float wildcard = -1;
+        for (String part : acceptEncoding.toString().split(",")) {
+            int semicolon = part.indexOf(';');
+            String token = (semicolon < 0 ? part : part.substring(0, semicolon)).trim();
+            float value = semicolon < 0 ? 1.0f : parseQ(part.substring(semicolon + 1));
+            if ("*".equals(token)) {
+                wildcard = value;
+                continue;
+            }
+            for (ContentEncoding encoding : encodings) {
+                if (encoding.token().equalsIgnoreCase(token)) {
+                    // 未出现的编码默认 q = 0，用 +1 与"显式 q=0"区分
+                    q[encoding.ordinal()] = value + 1;
+                }
+            }
+        }
+        ContentEncoding best = null;
+        float bestQ = 0;
+        for (ContentEncoding encoding : encodings) {
+            float value = q[encoding.ordinal()] > 0 ? q[encoding.ordinal()] - 1 : wildcard;
+            if (value > bestQ) {
+                best = encoding;
+                bestQ = value;
+            }
+        }
+        return best;
+    }
+
+    private static float parseQ(String parameter) {
+        String trimmed = parameter.trim();
+        if (!trimmed.startsWith("q=")) {
+            return 1.0f;
+        }
+        try {
+            return Float.parseFloat(trimmed.substring(2));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // ==================== 阈值 ====================
+
+    /**
+     * 响应本身是否值得压缩（与客户端无关），值得压缩的响应不管这次压没压都要带 Vary: Accept-Encoding
+     */
+    public boolean isCompressible(HttpResponse response, ByteBuf body) {
+        int code = response.status().code();
+        if (code < 200 || code == 204 || code == 206 || code == 304) {
+            return false;
+        }
+        if (body.readableBytes() < minSize || response.headers().contains(HttpHeaderNames.CONTENT_ENCODING)) {
+            return false;
+        }
+        return isCompressibleType(response.headers().get(HttpHeaderNames.CONTENT_TYPE));
+    }
+
+    private static boolean isCompressibleType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        AsciiString type = AsciiString.of(contentType);
+        return type.startsWith("text/")
+                || type.startsWith("application/json")
+                || type.startsWith("application/javascript")
+                || type.startsWith("application/xml")
+                || type.contains("+json")
+                || type.contains("+xml")
+                || type.startsWith("image/svg");
+    }
+
+    // ==================== 压缩 ====================
+
+    /**
+     * @param body 原始响应体，不修改、不释放
+     * @return 压缩后的内容（调用方负责释放），压缩后不比原来小时返回 null
+     */
+    public ByteBuf encode(ByteBufAllocator alloc, ContentEncoding encoding, ByteBuf body) {
+        int length = body.readableBytes();
+        boolean cacheable = cache != null && cache.accepts(body);
+        if (cacheable) {
+            byte[] cached = cache.get(encoding, body);
+            if (cached != null) {
+                cacheHits.increment();
+                return record(length, cached == CompressedBodyCache.INCOMPRESSIBLE ? null : Unpooled.wrappedBuffer(cached));
+            }
+        }
+
+        long start = System.nanoTime();
+        ByteBuf encoded = compress(alloc, encoding, body);
+        compressNanos.add(System.nanoTime() - start);
+        if (encoded.readableBytes() >= length) {
+            encoded.release();
+            encoded = null;
+        }
+        if (cacheable) {
+            cache.put(encoding, body, encoded == null ? CompressedBodyCache.INCOMPRESSIBLE : toBytes(encoded));
+        }
+        compressed.increment();
+        return record(length, encoded);
+    }
+
+    private ByteBuf record(int length, ByteBuf encoded) {
+        bytesIn.add(length);
+        bytesOut.add(encoded == null ? length : encoded.readableBytes());
+        return encoded;
+    }
+
+    /**
+     * 与 HttpContentCompressor 相同，把 Netty 的编码器放进 EmbeddedChannel 执行一次
+     */
+    private ByteBuf compress(ByteBufAllocator alloc, ContentEncoding encoding, ByteBuf body) {
+        EmbeddedChannel channel = new EmbeddedChannel(encoding.newEncoder(level));
+        channel.config().setAllocator(alloc);
+        channel.writeOutbound(body.retainedDuplicate());
+        channel.finish();
+        CompositeByteBuf result = alloc.compositeBuffer(Integer.MAX_VALUE);
+        ByteBuf part;
+        while ((part = channel.readOutbound()) != null) {
+            if (part.isReadable()) {
+                result.addComponent(true, part);
+            } else {
+                part.release();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 缓存只保存堆上的 byte[]，不长期占用池化内存
+     */
+    private static byte[] toBytes(ByteBuf encoded) {
+        byte[] bytes = new byte[encoded.readableBytes()];
+        encoded.getBytes(encoded.readerIndex(), bytes);
+        return bytes;
+    }
+
+    // ==================== 统计 ====================
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long getCompressed() {
+        return compressed.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        long in = getBytesIn();
+        long out = getBytesOut();
+        return String.format("编码=%s level=%d 压缩 %d 次（%dms） 缓存命中 %d 次%s 原始 %dKB -> %dKB（节省 %.1f%%）",
+                encodings, level, getCompressed(), TimeUnit.NANOSECONDS.toMillis(getCompressNanos()), getCacheHits(),
+                cache == null ? "" : "（" + cache.size() + " 条，" + (cache.usedBytes() >> 10) + "KB）",
+                in >> 10, out >> 10, in == 0 ? 0 : 100.0 * (in - out) / in);
+    }
+}
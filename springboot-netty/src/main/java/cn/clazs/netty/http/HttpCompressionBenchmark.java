@@ -0,0 +1,324 @@
+package cn.clazs.netty.http;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.clazs.netty.http.route.HttpRouter;
+import cn.clazs.netty.transport.Transport;
+import cn.clazs.netty.transport.TransportFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.NonStickyEventExecutorGroup;
+import io.netty.util.concurrent.UnorderedThreadPoolEventExecutor;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 响应压缩的带宽收益与 CPU 成本
+ *
+ * 【演示 1】编码器本身：几种典型响应体在不同编码 / 压缩级别下的压缩率、每次压缩耗时，以及命中缓存时的耗时
+ * - catalog: 200 条商品的 JSON（约 40KB），字段名大量重复，典型 API 响应
+ * - page:    约 128KB 的 HTML 文本
+ * - random:  32KB 随机字节，压缩无效，验证会原样发送且缓存"不可压缩"的结论
+ *
+ * 【演示 2】端到端：与 HttpServer 相同的 pipeline（HttpServerInitializer），GET /catalog，
+ * 客户端带 Accept-Encoding: gzip, deflate 闭环请求，三种模式对比吞吐量、每个响应在网络上的字节数、
+ * 进程每千次请求消耗的 CPU 时间：
+ * - off:      不压缩
+ * - no-cache: 每次都压缩
+ * - cache:    相同响应体只压缩一次（CompressedBodyCache）
+ *
+ * 运行：直接执行 main 方法，参数 [连接数] [秒数]，默认 4 5
+ *
+ * 注意：客户端和服务端在同一进程中，CPU 时间是两者之和，只适合看三种模式之间的差异
+ *
+ * @author clazs
+ */
+public class HttpCompressionBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 每次请求都重新序列化同一份数据：响应体内容相同但不是同一个 ByteBuf，缓存按内容命中
+     */
+    public static class CatalogController {
+
+        private final List<Map<String, Object>> items = HttpCompressionBenchmark.catalog(200);
+
+        @GetMapping("/catalog")
+        public List<Map<String, Object>> catalog() {
+            return items;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        // 不经过 Spring 时 logback 默认 DEBUG
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        System.out.println("【演示 1】编码器：压缩率与每次耗时（br 可用: " + ContentEncoding.BR.isAvailable() + "）");
+        Map<String, byte[]> bodies = new LinkedHashMap<>();
+        bodies.put("catalog", MAPPER.writeValueAsBytes(catalog(200)));
+        bodies.put("page", page(128 * 1024));
+        byte[] random = new byte[32 * 1024];
+        new Random(42).nextBytes(random);
+        bodies.put("random", random);
+        for (Map.Entry<String, byte[]> body : bodies.entrySet()) {
+            for (ContentEncoding encoding : ContentEncoding.values()) {
+                if (!encoding.isAvailable()) {
+                    continue;
+                }
+                int[] levels = encoding == ContentEncoding.GZIP ? new int[]{1, 6, 9} : new int[]{6};
+                for (int level : levels) {
+                    System.out.println(codec(body.getKey(), body.getValue(), encoding, level));
+                }
+            }
+        }
+
+        Transport transport = TransportFactory.select("auto");
+        System.out.printf("%n【演示 2】端到端 GET /catalog，transport=%s 连接数=%d 时长=%ds%n", transport, connections, seconds);
+        // 第一轮只为 JIT 预热，不计入结果
+        http(transport, "no-cache", connections, 2);
+        StringBuilder summary = new StringBuilder();
+        for (String mode : new String[]{"off", "no-cache", "cache"}) {
+            String line = http(transport, mode, connections, seconds);
+            System.out.println(line);
+            summary.append(line).append('\n');
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+
+    // ==================== 编码器 ====================
+
+    private static String codec(String name, byte[] bytes, ContentEncoding encoding, int level) {
+        ByteBuf body = Unpooled.wrappedBuffer(bytes);
+        List<ContentEncoding> encodings = Collections.singletonList(encoding);
+        HttpCompression noCache = new HttpCompression(encodings, level, 0, null);
+        HttpCompression cached = new HttpCompression(encodings, level, 0, new CompressedBodyCache(16 << 20, 1 << 20));
+
+        ByteBuf sample = noCache.encode(ByteBufAllocator.DEFAULT, encoding, body);
+        int encodedSize = sample == null ? bytes.length : sample.readableBytes();
+        if (sample != null) {
+            sample.release();
+        }
+        double compressMicros = timePerOp(noCache, encoding, body);
+        double cachedMicros = timePerOp(cached, encoding, body);
+        return String.format("%-8s %-7s level=%d %7d -> %7d 字节（节省 %5.1f%%） 压缩 %8.1fus/次（%6.0f MB/s）  缓存命中 %6.2fus/次",
+                name, encoding.token(), level, bytes.length, encodedSize, 100.0 * (bytes.length - encodedSize) / bytes.length,
+                compressMicros, bytes.length / compressMicros, cachedMicros);
+    }
+
+    /**
+     * 先预热 300ms，再测 1 秒
+     */
+    private static double timePerOp(HttpCompression compression, ContentEncoding encoding, ByteBuf body) {
+        long warmupEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+        while (System.nanoTime() < warmupEnd) {
+            release(compression.encode(ByteBufAllocator.DEFAULT, encoding, body));
+        }
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(1);
+        long ops = 0;
+        long now;
+        do {
+            release(compression.encode(ByteBufAllocator.DEFAULT, encoding, body));
+            ops++;
+        } while ((now = System.nanoTime()) < end);
+        return (now - start) / 1000.0 / ops;
+    }
+
+    private static void release(ByteBuf buf) {
+        if (buf != null) {
+            buf.release();
+        }
+    }
+
+    // ==================== 端到端 ====================
+
+    private static String http(Transport transport, String mode, int connections, int seconds) throws Exception {
+        HttpCompression compression = "off".equals(mode) ? null : new HttpCompression(
+                Arrays.asList(ContentEncoding.values()), 6, 1024,
+                "cache".equals(mode) ? new CompressedBodyCache(16 << 20, 256 << 10) : null);
+        EventLoopGroup boss = transport.newGroup(1);
+        EventLoopGroup workers = transport.newGroup(0);
+        EventLoopGroup clientGroup = transport.newGroup(0);
+        EventExecutorGroup business = new NonStickyEventExecutorGroup(new UnorderedThreadPoolEventExecutor(1));
+        HttpRouter router = new HttpRouter(MAPPER);
+        router.register(new CatalogController());
+        try {
+            Channel server = new ServerBootstrap()
+                    .group(boss, workers)
+                    .channel(transport.serverSocketChannel())
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new HttpServerInitializer(router, business, false, 65536, 1 << 20, compression))
+                    .bind(0).sync().channel();
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1",
+                    ((InetSocketAddress) server.localAddress()).getPort());
+
+            long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(seconds);
+            CountDownLatch done = new CountDownLatch(connections);
+            AtomicLong responses = new AtomicLong();
+            AtomicLong wireBytes = new AtomicLong();
+            for (int i = 0; i < connections; i++) {
+                new Bootstrap()
+                        .group(clientGroup)
+                        .channel(transport.socketChannel())
+                        .option(ChannelOption.TCP_NODELAY, true)
+                        .handler(new ChannelInitializer<SocketChannel>() {
+                            @Override
+                            protected void initChannel(SocketChannel ch) {
+                                ch.pipeline().addLast(new HttpClientCodec(),
+                                        new HttpObjectAggregator(1 << 20),
+                                        new CatalogUser(measureStart, measureEnd, done, responses, wireBytes));
+                            }
+                        })
+                        .connect(address).sync();
+            }
+            // CPU 时间只统计测量窗口内的部分
+            TimeUnit.NANOSECONDS.sleep(measureStart - System.nanoTime());
+            long cpuStart = processCpuNanos();
+            done.await(seconds + 10, TimeUnit.SECONDS);
+            long cpu = processCpuNanos() - cpuStart;
+            server.close().sync();
+
+            long count = responses.get();
+            return String.format("%-8s %,8.0f req/s  每个响应 %,7d 字节  网络 %6.1f MB/s  CPU %6.1fms/千次%s",
+                    mode, count / (double) seconds, count == 0 ? 0 : wireBytes.get() / count,
+                    wireBytes.get() / (double) seconds / (1 << 20),
+                    count == 0 ? 0 : cpu / 1e6 / count * 1000,
+                    compression == null ? "" : "  压缩 " + compression.getCompressed() + " 次，缓存命中 "
+                            + compression.getCacheHits() + " 次");
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            workers.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            boss.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            business.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    /**
+     * 闭环客户端：不解压，只统计收到的响应体字节数（即网络上传输的量）
+     */
+    private static final class CatalogUser extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        private final long measureStart;
+        private final long measureEnd;
+        private final CountDownLatch done;
+        private final AtomicLong responses;
+        private final AtomicLong wireBytes;
+        private long sentAt;
+
+        CatalogUser(long measureStart, long measureEnd, CountDownLatch done,
+                    AtomicLong responses, AtomicLong wireBytes) {
+            this.measureStart = measureStart;
+            this.measureEnd = measureEnd;
+            this.done = done;
+            this.responses = responses;
+            this.wireBytes = wireBytes;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            send(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            if (sentAt >= measureStart) {
+                responses.incrementAndGet();
+                wireBytes.addAndGet(response.content().readableBytes());
+            }
+            if (System.nanoTime() < measureEnd) {
+                send(ctx);
+            } else {
+                ctx.close();
+                done.countDown();
+            }
+        }
+
+        private void send(ChannelHandlerContext ctx) {
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/catalog",
+                    Unpooled.EMPTY_BUFFER);
+            request.headers().set(HttpHeaderNames.HOST, "127.0.0.1");
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate");
+            sentAt = System.nanoTime();
+            ctx.writeAndFlush(request);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+            done.countDown();
+        }
+    }
+
+    // ==================== 测试数据 ====================
+
+    private static List<Map<String, Object>> catalog(int size) {
+        Random random = new Random(42);
+        String[] categories = {"books", "electronics", "garden", "toys", "kitchen"};
+        List<Map<String, Object>> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", 100000 + i);
+            item.put("sku", "SKU-" + Integer.toHexString(random.nextInt()).toUpperCase());
+            item.put("name", "Product " + i);
+            item.put("category", categories[random.nextInt(categories.length)]);
+            item.put("price", Math.round(random.nextDouble() * 100000) / 100.0);
+            item.put("inStock", random.nextBoolean());
+            item.put("description", "A reliable everyday item, model " + random.nextInt(1000) + ", ships in 2 days");
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static byte[] page(int size) {
+        Random random = new Random(42);
+        StringBuilder html = new StringBuilder("<html><body><table>\n");
+        for (int row = 0; html.length() < size; row++) {
+            html.append("<tr class=\"row\"><td>").append(row).append("</td><td>item-").append(random.nextInt(100000))
+                    .append("</td><td><a href=\"/items/").append(row).append("\">details</a></td></tr>\n");
+        }
+        return html.append("</table></body></html>").toString().getBytes(CharsetUtil.UTF_8);
+    }
+}
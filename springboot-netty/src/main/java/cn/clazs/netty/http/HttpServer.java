@@ -1,12 +1,10 @@
 package cn.clazs.netty.http;
 
+import cn.clazs.netty.http.route.HttpRouter;
+import cn.clazs.netty.startup.StartupTask;
+import cn.clazs.netty.transport.EventLoopResources;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.http.HttpObjectAggregator;
-import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import lombok.extern.slf4j.Slf4j;
@@ -14,8 +12,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Netty HTTP服务器
@@ -24,8 +24,10 @@ import javax.annotation.PreDestroy;
  *
  * 核心Handler说明：
  * - HttpServerCodec: HTTP编解码器（HttpRequest/HttpResponse）
- * - HttpObjectAggregator: HTTP消息聚合器（聚合为FullHttpRequest）
- * - HttpServerHandler: 自定义业务处理器
+ * - HttpCompressionHandler: 响应压缩（gzip / deflate / br），相同响应体只压缩一次
+ * - StreamingBodyHandler: 流式路由的请求体逐块处理，不聚合（大文件上传）
+ * - HttpObjectAggregator: HTTP消息聚合器（聚合为FullHttpRequest，只对非流式路由）
+ * - HttpServerHandler: 按 HttpRouter 的路由表分发到 @NettyHttpController 的处理方法
  *
  * 优势对比Tomcat：
  * - 更高的性能和吞吐量
@@ -44,75 +46,127 @@ import javax.annotation.PreDestroy;
 @Slf4j
 @Component
 @ConditionalOnProperty(name = "netty.http.enabled", havingValue = "true", matchIfMissing = true)
-public class HttpServer {
+public class HttpServer implements StartupTask {
 
     @Value("${netty.http.port:9003}")
     private int port;
 
-    private EventLoopGroup bossGroup;
-    private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    /**
+     * true: 处理方法在 EventLoopResources 的业务线程组中执行；false: 直接在 I/O 线程中执行（处理方法不能阻塞）
+     */
+    @Value("${netty.http.offload:false}")
+    private boolean offload;
 
     /**
-     * Spring Boot启动后自动启动HTTP服务器
+     * 非流式路由的请求体上限（聚合在内存中）
      */
-    @PostConstruct
-    public void start() {
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
+    @Value("${netty.http.max-aggregated-body:65536}")
+    private int maxAggregatedBody;
 
-        try {
-            ServerBootstrap bootstrap = new ServerBootstrap();
-            bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
-                    .option(ChannelOption.SO_BACKLOG, 1024)
-                    .handler(new LoggingHandler(LogLevel.INFO))
-                    .childHandler(new ChannelInitializer<SocketChannel>() {
-                        @Override
-                        protected void initChannel(SocketChannel ch) {
-                            ChannelPipeline pipeline = ch.pipeline();
+    /**
+     * 流式路由（处理方法返回 HttpBodyHandler）每个请求最多积压的未处理字节数
+     */
+    @Value("${netty.http.stream-buffer:1048576}")
+    private long streamBuffer;
+
+    /**
+     * 响应压缩：按 Accept-Encoding 协商 br（有 brotli4j 时）/ gzip / deflate
+     */
+    @Value("${netty.http.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${netty.http.compression.encodings:br,gzip,deflate}")
+    private List<String> compressionEncodings;
+
+    @Value("${netty.http.compression.level:6}")
+    private int compressionLevel;
+
+    /**
+     * 小于这个字节数的响应体不压缩
+     */
+    @Value("${netty.http.compression.min-size:1024}")
+    private int compressionMinSize;
+
+    /**
+     * 压缩结果缓存的总字节数，0 表示不缓存
+     */
+    @Value("${netty.http.compression.cache-size:16777216}")
+    private long compressionCacheSize;
+
+    /**
+     * 原始响应体超过这个字节数不进缓存
+     */
+    @Value("${netty.http.compression.cache-max-body:262144}")
+    private int compressionCacheMaxBody;
 
-                            // HTTP编解码器
-                            pipeline.addLast(new HttpServerCodec());
+    private final EventLoopResources eventLoops;
+    private final HttpRouter router;
+    private HttpCompression compression;
 
-                            // HTTP消息聚合器（将HttpRequest/HttpContent聚合为FullHttpRequest）
-                            pipeline.addLast(new HttpObjectAggregator(65536));
+    private List<Channel> serverChannels = Collections.emptyList();
+
+    public HttpServer(EventLoopResources eventLoops, HttpRouter router) {
+        this.eventLoops = eventLoops;
+        this.router = router;
+    }
+
+    @Override
+    public String getName() {
+        return "httpServer";
+    }
 
-                            // 自定义业务处理器
-                            pipeline.addLast(new HttpServerHandler());
-                        }
-                    });
+    /**
+     * 由 NettyStartupRunner 在容器启动时与其他服务器并行调用
+     */
+    @Override
+    public void start() throws Exception {
+        try {
+            // boss / worker 组由 EventLoopResources 统一管理，所有服务器共享
+            compression = compressionEnabled ? newCompression() : null;
+            ServerBootstrap bootstrap = eventLoops.serverBootstrap();
+            bootstrap.option(ChannelOption.SO_BACKLOG, 1024)
+                    .handler(new LoggingHandler(LogLevel.INFO))
+                    .childHandler(new HttpServerInitializer(router, eventLoops.getBusinessGroup(), offload,
+                            maxAggregatedBody, streamBuffer, compression));
 
             // 绑定端口并启动服务器
-            ChannelFuture future = bootstrap.bind(port).sync();
-            serverChannel = future.channel();
+            serverChannels = eventLoops.bind(bootstrap, port);
 
             log.info("========================================");
             log.info("Netty HTTP服务器启动成功！");
-            log.info("监听端口: {}", port);
+            log.info("监听端口: {}（{} 个 acceptor）", port, serverChannels.size());
             log.info("访问地址: http://localhost:{}", port);
             log.info("测试命令: curl http://localhost:{}", port);
+            log.info("响应压缩: {}", compression == null ? "关闭" : compression.getEncodings());
             log.info("========================================");
 
         } catch (Exception e) {
             log.error("HTTP服务器启动失败", e);
             shutdown();
+            throw e;
         }
     }
 
+    private HttpCompression newCompression() {
+        List<ContentEncoding> encodings = new ArrayList<>();
+        for (String name : compressionEncodings) {
+            encodings.add(ContentEncoding.of(name.trim()));
+        }
+        CompressedBodyCache cache = compressionCacheSize > 0
+                ? new CompressedBodyCache(compressionCacheSize, compressionCacheMaxBody) : null;
+        return new HttpCompression(encodings, compressionLevel, compressionMinSize, cache);
+    }
+
     /**
      * Spring Boot关闭时自动关闭HTTP服务器
      */
     @PreDestroy
     public void shutdown() {
-        if (serverChannel != null) {
-            serverChannel.close();
-        }
-        if (workerGroup != null) {
-            workerGroup.shutdownGracefully();
+        for (Channel channel : serverChannels) {
+            channel.close();
         }
-        if (bossGroup != null) {
-            bossGroup.shutdownGracefully();
+        if (compression != null) {
+            log.info("响应压缩统计: {}", compression);
         }
         log.info("HTTP服务器已关闭");
     }
@@ -1,35 +1,32 @@
 package cn.clazs.netty.http;
 
-import io.netty.buffer.Unpooled;
+import cn.clazs.netty.http.route.HttpRouter;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.*;
-import io.netty.util.AsciiString;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
 import lombok.extern.slf4j.Slf4j;
 
-import java.nio.charset.StandardCharsets;
-
 import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
-import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
-import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaderValues.CLOSE;
 import static io.netty.handler.codec.http.HttpHeaderValues.KEEP_ALIVE;
-import static io.netty.handler.codec.http.HttpResponseStatus.OK;
-import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
-import static javax.sound.sampled.LineEvent.Type.CLOSE;
 
 /**
  * Netty HTTP服务器处理器
  *
  * 功能：处理HTTP请求并返回响应
- * - 支持GET/POST请求
+ * - 按 HttpRouter 的路由表分发到 @NettyHttpController 的处理方法（支持所有HTTP方法）
  * - 支持Keep-Alive连接
- * - 返回JSON和HTML格式数据
+ * - 返回JSON和文本格式数据
  *
  * Pipeline架构说明：
  * 1. HttpServerCodec: 将ByteBuf解码为HttpRequest/HttpContent
  * 2. HttpObjectAggregator: 将HttpRequest + HttpContent聚合为FullHttpRequest
- * 3. HttpServerHandler: 处理完整的FullHttpRequest（本类）
+ * 3. HttpServerHandler: 处理完整的FullHttpRequest（本类，无状态，所有连接共享一个实例）
  *
  * 应用场景：
  * - 替代Tomcat提供HTTP服务（高性能场景）
@@ -40,38 +37,42 @@ import static javax.sound.sampled.LineEvent.Type.CLOSE;
  * @author clazs
  */
 @Slf4j
+@ChannelHandler.Sharable
 public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
 
-    private static final byte[] CONTENT = "Hello World from Netty HTTP Server!".getBytes(StandardCharsets.UTF_8);
+    private final HttpRouter router;
+
+    public HttpServerHandler(HttpRouter router) {
+        this.router = router;
+    }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest req) {
         // HttpObjectAggregator 已经将 HttpRequest 和 HttpContent 聚合为 FullHttpRequest
         // 所以这里直接收到的就是完整的HTTP请求对象，无需手动拼接或类型判断
-
-        // 获取请求信息
-        String uri = req.uri();
-        String method = req.method().name();
         boolean keepAlive = HttpUtil.isKeepAlive(req);
 
-        log.info("收到HTTP请求: {} {} - 来自: {}", method, uri, ctx.channel().remoteAddress());
+        log.debug("收到HTTP请求: {} {} - 来自: {}", req.method(), req.uri(), ctx.channel().remoteAddress());
 
-        // 如果需要读取请求体（POST请求等），可以直接读取
-        // String body = req.content().toString(StandardCharsets.UTF_8);
+        // 交给路由表：找到 @NettyHttpController 中的处理方法，响应体已写入池化的 ByteBuf
+        FullHttpResponse response = router.handle(ctx.alloc(), req);
 
-        // 构造响应
-        FullHttpResponse response = new DefaultFullHttpResponse(
-                HTTP_1_1,
-                OK,
-                Unpooled.wrappedBuffer(CONTENT)
-        );
+        // 设置Keep-Alive
+        setKeepAlive(req, response, keepAlive);
 
-        // 设置响应头
-        response.headers()
-                .set(CONTENT_TYPE, "text/plain; charset=UTF-8")
-                .setInt(CONTENT_LENGTH, response.content().readableBytes());
+        // 发送响应
+        if (keepAlive) {
+            ctx.write(response);
+        } else {
+            // 如果不支持Keep-Alive，发送完成后关闭连接
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
 
-        // 设置Keep-Alive
+    /**
+     * HTTP/1.0 保持连接需要显式的 Connection: keep-alive，HTTP/1.1 不保持连接需要显式的 Connection: close
+     */
+    static void setKeepAlive(HttpRequest req, FullHttpResponse response, boolean keepAlive) {
         if (keepAlive) {
             if (!req.protocolVersion().isKeepAliveDefault()) {
                 response.headers().set(CONNECTION, KEEP_ALIVE);
@@ -79,14 +80,6 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
         } else {
             response.headers().set(CONNECTION, CLOSE);
         }
-
-        // 发送响应
-        ctx.write(response);
-
-        if (!keepAlive) {
-            // 如果不支持Keep-Alive，发送完成后关闭连接
-            ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
-        }
     }
 
     @Override
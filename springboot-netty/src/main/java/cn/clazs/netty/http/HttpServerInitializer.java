@@ -0,0 +1,78 @@
+package cn.clazs.netty.http;
+
+import cn.clazs.netty.http.route.HttpRouter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * HTTP 服务器的 pipeline，HttpServer 和 LargeUploadHarness 共用
+ *
+ * <pre>
+ * HttpServerCodec -> HttpCompressionHandler -> StreamingBodyHandler -> HttpObjectAggregator -> HttpServerHandler
+ *                    （压缩所有响应）          （流式路由在这里截走）    （其余路由照常聚合）
+ * </pre>
+ *
+ * @author clazs
+ */
+public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
+
+    /**
+     * 请求体每块最大 64KB（默认 8KB），大请求体的分块数和业务线程任务数少 8 倍
+     */
+    private static final int MAX_CHUNK_SIZE = 65536;
+
+    private final HttpRouter router;
+    private final EventExecutorGroup businessGroup;
+    private final boolean offload;
+    private final int maxAggregatedBody;
+    private final long streamBuffer;
+    private final HttpCompression compression;
+    private final HttpServerHandler serverHandler;
+
+    /**
+     * @param businessGroup     执行流式请求体回调；offload 时也执行 HttpServerHandler
+     * @param maxAggregatedBody 非流式路由的请求体上限，超过时 HttpObjectAggregator 回复 413
+     * @param streamBuffer      流式请求最多积压的未处理字节数，超过时暂停读取
+     * @param compression       响应压缩策略，null 表示不压缩
+     */
+    public HttpServerInitializer(HttpRouter router, EventExecutorGroup businessGroup, boolean offload,
+                                 int maxAggregatedBody, long streamBuffer, HttpCompression compression) {
+        this.router = router;
+        this.businessGroup = businessGroup;
+        this.offload = offload;
+        this.maxAggregatedBody = maxAggregatedBody;
+        this.streamBuffer = streamBuffer;
+        this.compression = compression;
+        this.serverHandler = new HttpServerHandler(router);
+    }
+
+    @Override
+    protected void initChannel(SocketChannel ch) {
+        ChannelPipeline pipeline = ch.pipeline();
+
+        // HTTP编解码器
+        pipeline.addLast("codec", new HttpServerCodec(4096, 8192, MAX_CHUNK_SIZE));
+
+        // 响应压缩（按 Accept-Encoding 协商，相同响应体只压缩一次）
+        if (compression != null) {
+            pipeline.addLast("compressor", new HttpCompressionHandler(compression));
+        }
+
+        // 流式路由的请求体不聚合，逐块交给 HttpBodyHandler
+        pipeline.addLast("streaming", new StreamingBodyHandler(router, businessGroup, streamBuffer));
+
+        // HTTP消息聚合器（将HttpRequest/HttpContent聚合为FullHttpRequest）
+        pipeline.addLast("aggregator", new HttpObjectAggregator(maxAggregatedBody));
+
+        // 路由到 @NettyHttpController 的处理方法
+        if (offload) {
+            pipeline.addLast(businessGroup, "handler", serverHandler);
+        } else {
+            pipeline.addLast("handler", serverHandler);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package cn.clazs.netty.http;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.clazs.netty.controller.HotPathController;
+import cn.clazs.netty.http.route.HttpRouter;
+import cn.clazs.netty.transport.Transport;
+import cn.clazs.netty.transport.TransportFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.NonStickyEventExecutorGroup;
+import io.netty.util.concurrent.UnorderedThreadPoolEventExecutor;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 大请求体上传：验证流式路由的内存占用与请求体大小无关
+ *
+ * - 服务端与 HttpServer 相同的 pipeline（HttpServerInitializer），路由表只注册 HotPathController
+ * - 【演示 1】向 /netty/upload?keep=false 上传 sizeMb MB（默认 200，不能超过 max-upload 的 256MB），请求体由客户端按 64KB 现生成，
+ *   不占客户端内存；上传期间每 100ms 采样一次堆、JDK 直接内存（BufferPoolMXBean）和 Netty 直接内存，输出峰值
+ * - 【演示 2】向非流式路由 /netty/echo 发送 1MB 请求体，超过 max-aggregated-body（64KB），HttpObjectAggregator 回复 413
+ *
+ * 运行：直接执行 main 方法，参数 [sizeMb] [stream-buffer 字节数]，默认 200 1048576。
+ * 建议加上 -Xmx64m -XX:MaxDirectMemorySize=32m，请求体比堆和直接内存上限都大得多也能传完
+ *
+ * 注意：客户端和服务端在同一进程中，采样到的内存是两者之和
+ *
+ * @author clazs
+ */
+public class LargeUploadHarness {
+
+    private static final int SLICE = 64 * 1024;
+
+    /**
+     * 按需生成 length 字节的请求体，每次 64KB
+     */
+    private static final class GeneratedBody implements ChunkedInput<ByteBuf> {
+
+        private final long length;
+        private long progress;
+
+        GeneratedBody(long length) {
+            this.length = length;
+        }
+
+        @Override
+        public boolean isEndOfInput() {
+            return progress >= length;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Deprecated
+        @Override
+        public ByteBuf readChunk(ChannelHandlerContext ctx) {
+            return readChunk(ctx.alloc());
+        }
+
+        @Override
+        public ByteBuf readChunk(ByteBufAllocator allocator) {
+            if (isEndOfInput()) {
+                return null;
+            }
+            int size = (int) Math.min(SLICE, length - progress);
+            ByteBuf chunk = allocator.buffer(size);
+            chunk.writerIndex(size);
+            progress += size;
+            return chunk;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public long progress() {
+            return progress;
+        }
+    }
+
+    /**
+     * 采样内存峰值
+     */
+    private static final class MemorySampler {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName())).findFirst().orElse(null);
+        private final AtomicLong peakHeap = new AtomicLong();
+        private final AtomicLong peakJdkDirect = new AtomicLong();
+        private final AtomicLong peakNettyDirect = new AtomicLong();
+
+        void sample() {
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            if (direct != null) {
+                peakJdkDirect.accumulateAndGet(direct.getMemoryUsed(), Math::max);
+            }
+            peakNettyDirect.accumulateAndGet(PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory(), Math::max);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("峰值 堆=%dMB JDK直接内存=%dMB Netty池化直接内存=%dMB（堆上限 %dMB）",
+                    peakHeap.get() >> 20, peakJdkDirect.get() >> 20, peakNettyDirect.get() >> 20,
+                    memory.getHeapMemoryUsage().getMax() >> 20);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long sizeMb = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        long streamBuffer = args.length > 1 ? Long.parseLong(args[1]) : 1048576;
+        // 不经过 Spring 时 logback 默认 DEBUG
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        Transport transport = TransportFactory.select("auto");
+
+        EventLoopGroup boss = transport.newGroup(1);
+        EventLoopGroup workers = transport.newGroup(1);
+        EventLoopGroup clientGroup = transport.newGroup(1);
+        EventExecutorGroup business = new NonStickyEventExecutorGroup(new UnorderedThreadPoolEventExecutor(4));
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            HttpRouter router = new HttpRouter(new ObjectMapper());
+            router.register(new HotPathController());
+            Channel server = new ServerBootstrap()
+                    .group(boss, workers)
+                    .channel(transport.serverSocketChannel())
+                    .childHandler(new HttpServerInitializer(router, business, false, 65536, streamBuffer, null))
+                    .bind(0).sync().channel();
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1",
+                    ((InetSocketAddress) server.localAddress()).getPort());
+            System.out.printf("transport=%s stream-buffer=%d%n", transport, streamBuffer);
+
+            System.out.println("\n【演示 1】流式上传 " + sizeMb + "MB");
+            MemorySampler memory = new MemorySampler();
+            sampler.scheduleAtFixedRate(memory::sample, 0, 100, TimeUnit.MILLISECONDS);
+            long length = sizeMb << 20;
+            HttpRequest upload = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                    "/netty/upload?keep=false");
+            HttpUtil.setContentLength(upload, length);
+            long start = System.nanoTime();
+            FullHttpResponse response = send(clientGroup, transport, address, upload, new GeneratedBody(length));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            sampler.shutdown();
+            memory.sample();
+            System.out.printf("%s %s%n", response.status(), response.content().toString(CharsetUtil.UTF_8));
+            System.out.printf("耗时 %.1fs，%.0f MB/s%n", seconds, sizeMb / seconds);
+            System.out.println(memory);
+            response.release();
+
+            System.out.println("\n【演示 2】非流式路由 /netty/echo 发送 1MB 请求体");
+            DefaultFullHttpRequest echo = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                    "/netty/echo", Unpooled.wrappedBuffer(new byte[1 << 20]));
+            HttpUtil.setContentLength(echo, echo.content().readableBytes());
+            response = send(clientGroup, transport, address, echo, null);
+            System.out.println(response.status() + "（max-aggregated-body=65536）");
+            response.release();
+
+            server.close().sync();
+        } finally {
+            sampler.shutdownNow();
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            workers.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            boss.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            business.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    /**
+     * 发送一个请求并等待响应；body 不为 null 时请求头之后由 ChunkedWriteHandler 按需拉取请求体
+     */
+    private static FullHttpResponse send(EventLoopGroup group, Transport transport, InetSocketAddress address,
+                                         HttpRequest request, ChunkedInput<ByteBuf> body) throws Exception {
+        CompletableFuture<FullHttpResponse> result = new CompletableFuture<>();
+        request.headers().set(HttpHeaderNames.HOST, address.getHostString());
+        Channel channel = new Bootstrap()
+                .group(group)
+                .channel(transport.socketChannel())
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec(),
+                                new HttpObjectAggregator(65536),
+                                new ChunkedWriteHandler(),
+                                new SimpleChannelInboundHandler<FullHttpResponse>() {
+                                    @Override
+                                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+                                        result.complete(response.retain());
+                                    }
+
+                                    @Override
+                                    public void channelInactive(ChannelHandlerContext ctx) {
+                                        result.completeExceptionally(new IllegalStateException("连接已关闭，未收到响应"));
+                                    }
+
+                                    @Override
+                                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                                        result.completeExceptionally(cause);
+                                        ctx.close();
+                                    }
+                                });
+                    }
+                })
+                .connect(address).sync().channel();
+        try {
+            if (body == null) {
+                channel.writeAndFlush(request);
+            } else {
+                channel.write(request);
+                channel.writeAndFlush(new HttpChunkedInput(body));
+            }
+            return result.get(10, TimeUnit.MINUTES);
+        } finally {
+            channel.close();
+        }
+    }
+}
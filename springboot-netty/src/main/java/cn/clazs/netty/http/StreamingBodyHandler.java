@@ -0,0 +1,287 @@
+package cn.clazs.netty.http;
+
+import cn.clazs.netty.http.route.HttpBodyHandler;
+import cn.clazs.netty.http.route.HttpRouteException;
+import cn.clazs.netty.http.route.HttpRouter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
+import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * 流式请求体：放在 HttpServerCodec 之后、HttpObjectAggregator 之前
+ *
+ * 请求头到达时问 HttpRouter 是否是流式路由（处理方法返回 HttpBodyHandler）：
+ * - 不是：HttpRequest / HttpContent 原样往后传，由 HttpObjectAggregator 聚合后交给 HttpServerHandler
+ * - 是：  本类接管这个请求的所有 HttpContent，按顺序提交到业务线程组中的同一个执行器，
+ *         交给 HttpBodyHandler.onContent，全部处理完后调用 onComplete 并写出响应
+ *
+ * 背压：已交给业务线程但还没处理完的字节数超过 highWaterMark 时关闭 autoRead，
+ * 降到 lowWaterMark（一半）以下再打开。关闭期间不再从 socket 读数据，接收窗口填满后客户端自然停止发送，
+ * 所以无论请求体多大，内存中积压的最多是 highWaterMark 加上一次读取的数据量
+ *
+ * 请求体读完到响应写出之间也关闭 autoRead。但这挡不住已经读进来的字节：HttpServerCodec 会把缓冲区里剩下的数据
+ * 继续解码，客户端流水线发送的下一个请求照样会到达这里。所以这期间到达的所有消息先放进 held 暂存，
+ * 响应写出后再按顺序重新处理，下一个请求不会抢在这个响应之前被处理。暂存量不超过关闭 autoRead 前最后一次读取的数据量
+ *
+ * 处理出错时回复错误响应并关闭连接（剩下的请求体可能还有几个 GB，不值得读完再丢弃），之后收到的消息全部丢弃。
+ * 500 响应只返回固定的提示，异常详情只写日志
+ *
+ * 每个连接一个实例，以下字段只在 I/O 线程访问
+ *
+ * @author clazs
+ */
+@Slf4j
+public class StreamingBodyHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 一个流式请求：upload 相关回调都在 executor 中按顺序执行，failed / finished 只在 executor 中读写
+     */
+    private static final class Upload {
+        final HttpBodyHandler body;
+        final EventExecutor executor;
+        final HttpRequest request;
+        boolean failed;
+        boolean finished;
+
+        Upload(HttpBodyHandler body, EventExecutor executor, HttpRequest request) {
+            this.body = body;
+            this.executor = executor;
+            this.request = request;
+        }
+    }
+
+    private static final String INTERNAL_ERROR_MESSAGE = "服务器内部错误";
+
+    private final HttpRouter router;
+    private final EventExecutorGroup executors;
+    private final long highWaterMark;
+    private final long lowWaterMark;
+
+    private Upload current;
+    private boolean discarding;
+    private long pendingBytes;
+    private boolean awaitingResponse;
+    private final ArrayDeque<Object> held = new ArrayDeque<>();
+
+    /**
+     * @param executors     执行 HttpBodyHandler 回调的线程组（同一请求固定在 next() 返回的一个执行器上）
+     * @param highWaterMark 单个请求最多积压多少字节未处理的请求体
+     */
+    public StreamingBodyHandler(HttpRouter router, EventExecutorGroup executors, long highWaterMark) {
+        this.router = router;
+        this.executors = executors;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = highWaterMark / 2;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (discarding) {
+            // 已回复错误、等待连接关闭，剩余的请求体和流水线上的后续请求直接丢弃
+            ReferenceCountUtil.release(msg);
+            return;
+        }
+        if (awaitingResponse) {
+            held.add(msg);
+            return;
+        }
+        if (msg instanceof HttpRequest) {
+            if (startUpload(ctx, (HttpRequest) msg)) {
+                ReferenceCountUtil.release(msg);
+                return;
+            }
+        } else if (msg instanceof HttpContent && current != null) {
+            HttpContent content = (HttpContent) msg;
+            dispatch(ctx, content.content(), content instanceof LastHttpContent);
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * @return true 表示这是流式请求，由本类处理
+     */
+    private boolean startUpload(ChannelHandlerContext ctx, HttpRequest request) {
+        HttpBodyHandler body;
+        try {
+            body = router.openStream(request);
+        } catch (HttpRouteException e) {
+            respondAndClose(ctx, router.error(e.getStatus(), e.getMessage()));
+            return true;
+        } catch (Throwable e) {
+            log.error("打开流式请求失败: {} {}", request.method(), request.uri(), e);
+            respondAndClose(ctx, router.error(INTERNAL_SERVER_ERROR, INTERNAL_ERROR_MESSAGE));
+            return true;
+        }
+        if (body == null) {
+            return false;
+        }
+        current = new Upload(body, executors.next(), request);
+        pendingBytes = 0;
+        if (HttpUtil.is100ContinueExpected(request)) {
+            ctx.writeAndFlush(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE, Unpooled.EMPTY_BUFFER));
+        }
+        return true;
+    }
+
+    private void dispatch(ChannelHandlerContext ctx, ByteBuf chunk, boolean last) {
+        Upload upload = current;
+        int size = chunk.readableBytes();
+        pendingBytes += size;
+        if (last) {
+            current = null;
+            awaitingResponse = true;
+            ctx.channel().config().setAutoRead(false);
+        } else if (pendingBytes > highWaterMark && ctx.channel().config().isAutoRead()) {
+            ctx.channel().config().setAutoRead(false);
+        }
+
+        upload.executor.execute(() -> {
+            try {
+                if (!upload.failed && size > 0) {
+                    upload.body.onContent(chunk);
+                }
+            } catch (Throwable e) {
+                fail(ctx, upload, e);
+            } finally {
+                chunk.release();
+            }
+            ctx.executor().execute(() -> consumed(ctx, size));
+            if (last && !upload.failed) {
+                complete(ctx, upload);
+            }
+        });
+    }
+
+    /**
+     * 业务线程处理完一块后回到 I/O 线程更新积压量
+     */
+    private void consumed(ChannelHandlerContext ctx, int size) {
+        pendingBytes -= size;
+        if (!awaitingResponse && pendingBytes <= lowWaterMark && !ctx.channel().config().isAutoRead()) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    /**
+     * 在 upload.executor 中执行
+     */
+    private void complete(ChannelHandlerContext ctx, Upload upload) {
+        FullHttpResponse response;
+        try {
+            upload.finished = true;
+            response = router.complete(ctx.alloc(), upload.body.onComplete());
+        } catch (Throwable e) {
+            fail(ctx, upload, e);
+            return;
+        }
+        boolean keepAlive = HttpUtil.isKeepAlive(upload.request);
+        ctx.executor().execute(() -> {
+            HttpServerHandler.setKeepAlive(upload.request, response, keepAlive);
+            if (keepAlive) {
+                ctx.writeAndFlush(response);
+                awaitingResponse = false;
+                pendingBytes = 0;
+                resume(ctx);
+            } else {
+                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            }
+        });
+    }
+
+    /**
+     * 在 upload.executor 中执行
+     */
+    private void fail(ChannelHandlerContext ctx, Upload upload, Throwable cause) {
+        upload.failed = true;
+        upload.finished = true;
+        upload.body.onError(cause);
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+        FullHttpResponse response;
+        if (cause instanceof HttpRouteException) {
+            HttpRouteException e = (HttpRouteException) cause;
+            response = router.error(e.getStatus(), e.getMessage());
+        } else {
+            log.error("处理流式请求失败: {} {}", upload.request.method(), upload.request.uri(), cause);
+            response = router.error(INTERNAL_SERVER_ERROR, INTERNAL_ERROR_MESSAGE);
+        }
+        ctx.executor().execute(() -> respondAndClose(ctx, response));
+    }
+
+    /**
+     * 响应已写出：按到达顺序重新处理暂存的消息，其中可能又有一个流式请求读完，那就等它的响应写出后再继续
+     */
+    private void resume(ChannelHandlerContext ctx) {
+        Object msg;
+        boolean replayed = false;
+        while (!awaitingResponse && !discarding && (msg = held.poll()) != null) {
+            channelRead(ctx, msg);
+            replayed = true;
+        }
+        if (replayed) {
+            // 重新处理的普通请求由 HttpServerHandler 在 channelReadComplete 时 flush
+            ctx.fireChannelReadComplete();
+        }
+        if (!awaitingResponse && !discarding && pendingBytes <= highWaterMark) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void respondAndClose(ChannelHandlerContext ctx, FullHttpResponse response) {
+        current = null;
+        discarding = true;
+        releaseHeld();
+        response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    /**
+     * 请求体还没收完连接就断了：通知 HttpBodyHandler 清理
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        Upload upload = current;
+        if (upload != null) {
+            current = null;
+            upload.executor.execute(() -> {
+                if (!upload.finished) {
+                    upload.failed = true;
+                    upload.finished = true;
+                    upload.body.onError(new ClosedChannelException());
+                }
+            });
+        }
+        releaseHeld();
+        ctx.fireChannelInactive();
+    }
+
+    private void releaseHeld() {
+        Object msg;
+        while ((msg = held.poll()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
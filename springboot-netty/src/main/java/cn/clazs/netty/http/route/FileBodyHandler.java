@@ -0,0 +1,93 @@
+package cn.clazs.netty.http.route;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiFunction;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE;
+
+/**
+ * 把请求体写进临时文件（FileChannel），内存占用与请求体大小无关
+ *
+ * - ByteBuf 直接写入 FileChannel（直接内存缓冲区不再复制到堆上）
+ * - 超过 maxBytes 时回复 413 并删除文件
+ * - 出错时删除文件；正常结束时文件交给 onComplete，由它决定移动、处理还是删除
+ *
+ * 路由方法在 I/O 线程上被调用并构造本类，所以构造时不碰磁盘；
+ * 建目录、建文件、打开 FileChannel 都推迟到第一次回调（onContent / onComplete，在业务线程中执行）
+ *
+ * @author clazs
+ */
+public class FileBodyHandler implements HttpBodyHandler {
+
+    private final Path directory;
+    private final long maxBytes;
+    private final BiFunction<Path, Long, Object> onComplete;
+    private Path file;
+    private FileChannel channel;
+    private long size;
+
+    /**
+     * @param directory  临时文件所在目录，不存在时创建
+     * @param maxBytes   请求体上限，0 表示不限
+     * @param onComplete 参数为文件和字节数，返回值作为响应内容
+     */
+    public FileBodyHandler(Path directory, long maxBytes, BiFunction<Path, Long, Object> onComplete) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public void onContent(ByteBuf chunk) throws IOException {
+        int length = chunk.readableBytes();
+        if (maxBytes > 0 && size + length > maxBytes) {
+            throw new HttpRouteException(REQUEST_ENTITY_TOO_LARGE, "请求体超过上限 " + maxBytes + " 字节");
+        }
+        open();
+        while (chunk.isReadable()) {
+            chunk.readBytes(channel, size + (length - chunk.readableBytes()), chunk.readableBytes());
+        }
+        size += length;
+    }
+
+    @Override
+    public Object onComplete() throws IOException {
+        // 空请求体时还没有打开过文件
+        open();
+        channel.close();
+        return onComplete.apply(file, size);
+    }
+
+    @Override
+    public void onError(Throwable cause) {
+        try {
+            if (channel != null) {
+                channel.close();
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ignored) {
+            // 清理失败不影响错误响应
+        }
+    }
+
+    private void open() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "upload-", ".part");
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        }
+    }
+
+    /**
+     * @return 收到第一块请求体之前为 null
+     */
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,42 @@
+package cn.clazs.netty.http.route;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 流式请求体：处理方法返回本接口（而不是结果）的路由不做聚合，请求体按到达顺序一块一块交给它
+ *
+ * <pre>
+ * &#64;PostMapping("/upload")
+ * public HttpBodyHandler upload(&#64;RequestParam String name) {
+ *     return new FileBodyHandler(dir, maxBytes, (file, size) -> ...);
+ * }
+ * </pre>
+ *
+ * - 处理方法在请求头到达时（I/O 线程）调用，只能使用路径变量、查询参数和请求头，不能有 @RequestBody；
+ *   它和本接口的构造都不能阻塞，打开文件、连接数据库等放到第一次回调里做（见 FileBodyHandler）
+ * - 以下回调在业务线程中按顺序执行（同一请求不会并发），可以阻塞（写文件、写数据库）
+ * - 回调处理得比网络慢时，服务端暂停读取这个连接（autoRead=false），TCP 窗口把压力传回客户端，
+ *   内存中只会积压有限的数据
+ *
+ * @author clazs
+ */
+public interface HttpBodyHandler {
+
+    /**
+     * @param chunk 请求体的一段，只在方法执行期间有效，方法返回后由框架释放
+     */
+    void onContent(ByteBuf chunk) throws Exception;
+
+    /**
+     * 请求体接收完毕
+     *
+     * @return 响应内容，写法与普通处理方法的返回值相同（String / FullHttpResponse / 其他对象按 JSON）
+     */
+    Object onComplete() throws Exception;
+
+    /**
+     * 任一回调抛出异常或连接中断时调用一次，用于清理（删除临时文件等），之后不会再有回调
+     */
+    default void onError(Throwable cause) {
+    }
+}
@@ -0,0 +1,29 @@
+package cn.clazs.netty.http.route;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * 请求无法处理（缺少参数、参数格式错误、请求体无法解析等），按 status 回复客户端
+ *
+ * @author clazs
+ */
+public class HttpRouteException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final HttpResponseStatus status;
+
+    public HttpRouteException(HttpResponseStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpRouteException(HttpResponseStatus status, String message, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+
+    public HttpResponseStatus getStatus() {
+        return status;
+    }
+}
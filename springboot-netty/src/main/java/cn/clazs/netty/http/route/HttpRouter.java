@@ -0,0 +1,231 @@
+package cn.clazs.netty.http.route;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
+import static io.netty.handler.codec.http.HttpResponseStatus.METHOD_NOT_ALLOWED;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
+
+/**
+ * Netty HTTP 路由：启动时扫描 @NettyHttpController Bean，把带 @RequestMapping（含 @GetMapping 等）的方法建成路由表
+ *
+ * 每个方法在启动时一次性准备好：
+ * - 绑定控制器实例的 MethodHandle（调用时 invokeExact，不走 Method.invoke）
+ * - 每个参数的 ParamResolver（从路径变量 / 查询参数 / 请求体取值并转换类型）
+ * - 返回值的 ResponseWriter（JSON 用预先创建的 ObjectWriter 直接写进池化的 ByteBuf）
+ *
+ * 请求到来时：路由树查找 -> 逐个参数取值 -> invokeExact -> 写响应，热路径上没有注解解析和反射
+ *
+ * 处理方法返回 HttpBodyHandler 的是流式路由：请求体不聚合，由 StreamingBodyHandler 在请求头到达时调用 openStream，
+ * 之后请求体逐块交给返回的 HttpBodyHandler
+ *
+ * 不支持 @RequestMapping 的 params / headers / consumes / produces 条件；
+ * 未指定 method 时与 Spring MVC 一样匹配所有方法
+ *
+ * @author clazs
+ */
+@Slf4j
+@Component
+public class HttpRouter {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final RouteTrie trie = new RouteTrie();
+    private final ObjectMapper objectMapper;
+    private final ResponseWriter dynamicWriter;
+    private int routeCount;
+
+    /**
+     * 注册容器中所有 @NettyHttpController Bean
+     */
+    @Autowired
+    public HttpRouter(ObjectMapper objectMapper, ApplicationContext context) {
+        this(objectMapper);
+        context.getBeansWithAnnotation(NettyHttpController.class).values().forEach(this::register);
+        log.info("Netty HTTP 路由共 {} 条", routeCount);
+    }
+
+    public HttpRouter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.dynamicWriter = ResponseWriter.dynamic(objectMapper);
+    }
+
+    // ==================== 注册（启动时） ====================
+
+    public void register(Object controller) {
+        Class<?> targetClass = AopUtils.getTargetClass(controller);
+        NettyHttpController annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, NettyHttpController.class);
+        String prefix = annotation == null ? "" : annotation.value();
+        for (Method method : targetClass.getMethods()) {
+            RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+            if (mapping != null) {
+                register(controller, prefix, method, mapping);
+            }
+        }
+    }
+
+    private void register(Object controller, String prefix, Method method, RequestMapping mapping) {
+        MethodHandle invoker = invoker(AopUtils.selectInvocableMethod(method, controller.getClass()), controller);
+        boolean streaming = HttpBodyHandler.class.isAssignableFrom(method.getReturnType());
+        ResponseWriter writer = streaming ? dynamicWriter : ResponseWriter.forMethod(method, objectMapper);
+        String description = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        String[] paths = mapping.path().length == 0 ? new String[]{""} : mapping.path();
+        RequestMethod[] methods = mapping.method().length == 0 ? RequestMethod.values() : mapping.method();
+
+        for (String path : paths) {
+            String template = RouteTrie.normalize(prefix + "/" + path);
+            List<String> variables = RouteTrie.variables(template);
+            ParamResolver[] resolvers = new ParamResolver[method.getParameterCount()];
+            for (int i = 0; i < resolvers.length; i++) {
+                MethodParameter parameter = new MethodParameter(method, i);
+                parameter.initParameterNameDiscovery(PARAMETER_NAMES);
+                resolvers[i] = ParamResolvers.create(parameter, variables, objectMapper, streaming);
+            }
+            for (RequestMethod requestMethod : methods) {
+                HttpMethod httpMethod = HttpMethod.valueOf(requestMethod.name());
+                trie.add(httpMethod, template, new Route(httpMethod, template, description, streaming,
+                        invoker, resolvers, writer));
+                routeCount++;
+                log.debug("Netty HTTP 路由: {} {} -> {}{}", httpMethod, template, description, streaming ? "（流式请求体）" : "");
+            }
+        }
+    }
+
+    private static MethodHandle invoker(Method method, Object controller) {
+        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            method.setAccessible(true);
+        }
+        try {
+            int parameterCount = method.getParameterCount();
+            return MethodHandles.lookup().unreflect(method)
+                    .bindTo(controller)
+                    .asType(MethodType.genericMethodType(parameterCount))
+                    .asSpreader(Object[].class, parameterCount);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问处理方法: " + method, e);
+        }
+    }
+
+    public int size() {
+        return routeCount;
+    }
+
+    // ==================== 分发（I/O 线程或业务线程） ====================
+
+    /**
+     * 请求头到达时调用（StreamingBodyHandler）：匹配到流式路由时调用处理方法并返回它的 HttpBodyHandler，
+     * 其他情况返回 null，请求照常聚合后交给 handle
+     *
+     * @throws HttpRouteException 路径变量 / 查询参数错误
+     */
+    public HttpBodyHandler openStream(HttpRequest request) throws Throwable {
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        List<String> variables = new ArrayList<>(2);
+        RouteTrie.Node node = trie.find(decoder.path(), variables);
+        Route route = node == null ? null : node.route(request.method());
+        if (route == null || !route.streaming) {
+            return null;
+        }
+        return (HttpBodyHandler) route.call(new RouteRequest(request, decoder, variables));
+    }
+
+    /**
+     * 把 HttpBodyHandler.onComplete 的返回值写成响应
+     */
+    public FullHttpResponse complete(ByteBufAllocator alloc, Object result) throws IOException {
+        return dynamicWriter.write(alloc, result);
+    }
+
+    /**
+     * 总是返回一个响应：没有匹配的路由回复 404 / 405，参数错误回复 400，
+     * 处理方法抛出异常回复 500（只返回固定提示，异常详情写日志，不暴露给客户端）
+     */
+    public FullHttpResponse handle(ByteBufAllocator alloc, FullHttpRequest request) {
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        List<String> variables = new ArrayList<>(2);
+        RouteTrie.Node node = trie.find(decoder.path(), variables);
+        if (node == null) {
+            return error(NOT_FOUND, "没有这个路径: " + decoder.path());
+        }
+        Route route = node.route(request.method());
+        if (route == null) {
+            FullHttpResponse response = error(METHOD_NOT_ALLOWED, "不支持 " + request.method() + " " + decoder.path());
+            response.headers().set(HttpHeaderNames.ALLOW, node.allowedMethods());
+            return response;
+        }
+        try {
+            RouteRequest routeRequest = new RouteRequest(request, decoder, variables);
+            return route.streaming ? feedWhole(alloc, route, routeRequest) : route.invoke(alloc, routeRequest);
+        } catch (HttpRouteException e) {
+            return error(e.getStatus(), e.getMessage());
+        } catch (Throwable e) {
+            log.error("处理请求失败: {} {} -> {}", request.method(), request.uri(), route.description, e);
+            return error(INTERNAL_SERVER_ERROR, "服务器内部错误");
+        }
+    }
+
+    /**
+     * 流式路由收到了已聚合的请求（pipeline 中没有 StreamingBodyHandler）：整个请求体作为一块交给它
+     */
+    private FullHttpResponse feedWhole(ByteBufAllocator alloc, Route route, RouteRequest request) throws Throwable {
+        HttpBodyHandler body = (HttpBodyHandler) route.call(request);
+        Object result;
+        try {
+            body.onContent(request.getFullRequest().content().duplicate());
+            result = body.onComplete();
+        } catch (Throwable e) {
+            body.onError(e);
+            throw e;
+        }
+        return complete(alloc, result);
+    }
+
+    /**
+     * JSON 错误响应：{"status": 404, "error": "..."}
+     */
+    public FullHttpResponse error(HttpResponseStatus status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.code());
+        body.put("error", message);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            json = ("{\"status\":" + status.code() + "}").getBytes(StandardCharsets.UTF_8);
+        }
+        return ResponseWriter.response(status, ResponseWriter.APPLICATION_JSON_UTF8, Unpooled.wrappedBuffer(json));
+    }
+}
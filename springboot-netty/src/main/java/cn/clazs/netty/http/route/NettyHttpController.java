@@ -0,0 +1,33 @@
+package cn.clazs.netty.http.route;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 由 Netty HttpServer（而不是 Tomcat）处理请求的控制器，同时是 Spring Bean
+ *
+ * 方法上沿用 Spring MVC 的 @GetMapping / @PostMapping / @RequestMapping，
+ * 参数上沿用 @PathVariable / @RequestParam / @RequestBody，写法与 @RestController 相同。
+ * 类上不要加 @RequestMapping（否则 Spring MVC 也会把它当作控制器），路径前缀写在 value 中
+ *
+ * 适合延迟敏感、不需要 Servlet 过滤器链的接口；处理方法默认在 I/O 线程执行，不要阻塞
+ * （需要阻塞时打开 netty.http.offload）
+ *
+ * @author clazs
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Component
+public @interface NettyHttpController {
+
+    /**
+     * 路径前缀，如 "/netty"
+     */
+    String value() default "";
+}
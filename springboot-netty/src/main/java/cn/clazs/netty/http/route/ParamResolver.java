@@ -0,0 +1,14 @@
+package cn.clazs.netty.http.route;
+
+/**
+ * 处理方法的一个参数如何从请求中取值，启动时按参数的注解和类型生成（见 ParamResolvers）
+ *
+ * 请求到来时只执行预先生成的取值和类型转换，不再读注解、不再反射
+ *
+ * @author clazs
+ */
+@FunctionalInterface
+interface ParamResolver {
+
+    Object resolve(RouteRequest request) throws Exception;
+}
@@ -0,0 +1,198 @@
+package cn.clazs.netty.http.route;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ValueConstants;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
+
+/**
+ * 按参数的注解和类型生成 ParamResolver
+ *
+ * - @PathVariable:  按变量名在路径模板中的位置取值
+ * - @RequestParam:  查询参数，支持 required / defaultValue
+ * - @RequestBody:   请求体 JSON，用预先创建好的 ObjectReader 直接从 ByteBuf 解析；String 类型直接取文本
+ * - FullHttpRequest / HttpRequest / HttpHeaders: 直接注入
+ *
+ * 字符串到参数类型的转换也在启动时选好：常用类型用专门的解析函数，其他类型交给 Spring ConversionService
+ *
+ * @author clazs
+ */
+final class ParamResolvers {
+
+    private static final ConversionService CONVERSION = DefaultConversionService.getSharedInstance();
+
+    private ParamResolvers() {
+    }
+
+    /**
+     * @param streaming 流式路由在请求头到达时调用，不能读取请求体
+     */
+    static ParamResolver create(MethodParameter parameter, List<String> pathVariables, ObjectMapper objectMapper,
+                                boolean streaming) {
+        Class<?> type = parameter.getParameterType();
+        if (streaming && (parameter.hasParameterAnnotation(RequestBody.class) || type == FullHttpRequest.class)) {
+            throw new IllegalStateException("流式路由（返回 HttpBodyHandler）不能读取完整请求体: " + parameter.getMethod());
+        }
+
+        PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+        if (pathVariable != null) {
+            String name = name(pathVariable.value(), parameter);
+            int index = pathVariables.indexOf(name);
+            if (index < 0) {
+                throw new IllegalStateException("路径模板中没有变量 {" + name + "}: " + parameter.getMethod());
+            }
+            Function<String, Object> converter = converter(parameter);
+            return request -> convert(converter, request.getPathVariable(index), name);
+        }
+
+        RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+        if (requestParam != null) {
+            String name = name(requestParam.value(), parameter);
+            String defaultValue = ValueConstants.DEFAULT_NONE.equals(requestParam.defaultValue())
+                    ? null : requestParam.defaultValue();
+            boolean required = requestParam.required() && defaultValue == null;
+            boolean primitive = type.isPrimitive();
+            Function<String, Object> converter = converter(parameter);
+            return request -> {
+                String value = request.getQueryParameter(name);
+                if (value == null) {
+                    value = defaultValue;
+                }
+                if (value == null) {
+                    if (required || primitive) {
+                        throw new HttpRouteException(BAD_REQUEST, "缺少参数: " + name);
+                    }
+                    return null;
+                }
+                return convert(converter, value, name);
+            };
+        }
+
+        RequestBody requestBody = parameter.getParameterAnnotation(RequestBody.class);
+        if (requestBody != null) {
+            boolean required = requestBody.required();
+            if (type == String.class) {
+                return request -> {
+                    ByteBuf content = request.getFullRequest().content();
+                    checkBody(content, required);
+                    return content.toString(StandardCharsets.UTF_8);
+                };
+            }
+            ObjectReader reader = objectMapper.readerFor(objectMapper.constructType(parameter.getGenericParameterType()));
+            return request -> {
+                ByteBuf content = request.getFullRequest().content();
+                if (!checkBody(content, required)) {
+                    return null;
+                }
+                try {
+                    return reader.readValue((InputStream) new ByteBufInputStream(content.duplicate()));
+                } catch (JsonProcessingException e) {
+                    throw new HttpRouteException(BAD_REQUEST, "请求体无法解析: " + e.getOriginalMessage(), e);
+                }
+            };
+        }
+
+        if (type == FullHttpRequest.class) {
+            return RouteRequest::getFullRequest;
+        }
+        if (type == HttpRequest.class) {
+            return RouteRequest::getRequest;
+        }
+        if (type == HttpHeaders.class) {
+            return request -> request.getRequest().headers();
+        }
+        throw new IllegalStateException("不支持的参数（需要 @PathVariable / @RequestParam / @RequestBody）: "
+                + parameter.getParameterIndex() + " in " + parameter.getMethod());
+    }
+
+    private static boolean checkBody(ByteBuf content, boolean required) {
+        if (content.isReadable()) {
+            return true;
+        }
+        if (required) {
+            throw new HttpRouteException(BAD_REQUEST, "缺少请求体");
+        }
+        return false;
+    }
+
+    private static String name(String annotated, MethodParameter parameter) {
+        if (!annotated.isEmpty()) {
+            return annotated;
+        }
+        String name = parameter.getParameterName();
+        if (name == null) {
+            throw new IllegalStateException("无法获得参数名（编译时需要 -parameters），请在注解中写明: " + parameter.getMethod());
+        }
+        return name;
+    }
+
+    private static Object convert(Function<String, Object> converter, String value, String name) {
+        try {
+            return converter.apply(value);
+        } catch (RuntimeException e) {
+            throw new HttpRouteException(BAD_REQUEST, "参数 " + name + " 格式错误: " + value, e);
+        }
+    }
+
+    /**
+     * Boolean.valueOf 会把 true 以外的任何值（包括拼写错误）当成 false，这里只接受 true / false（不区分大小写）
+     */
+    private static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("不是布尔值: " + value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<String, Object> converter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        if (type == String.class) {
+            return value -> value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return Integer::valueOf;
+        }
+        if (type == long.class || type == Long.class) {
+            return Long::valueOf;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return ParamResolvers::parseBoolean;
+        }
+        if (type == double.class || type == Double.class) {
+            return Double::valueOf;
+        }
+        if (type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            return value -> Enum.valueOf(enumType, value);
+        }
+        TypeDescriptor target = new TypeDescriptor(parameter);
+        TypeDescriptor source = TypeDescriptor.valueOf(String.class);
+        if (!CONVERSION.canConvert(source, target)) {
+            throw new IllegalStateException("不支持从字符串转换为 " + target + ": " + parameter.getMethod());
+        }
+        return value -> CONVERSION.convert(value, source, target);
+    }
+}
@@ -0,0 +1,123 @@
+package cn.clazs.netty.http.route;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AsciiString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * 处理方法的返回值如何写成响应，启动时按返回类型选定
+ *
+ * - FullHttpResponse: 原样返回，方法自己决定状态码和响应头
+ * - String:           text/plain，UTF-8 直接编码进池化的 ByteBuf
+ * - byte[]:           application/octet-stream
+ * - void / null:      200，空响应体
+ * - 其他:             application/json，用预先创建好的 ObjectWriter 直接序列化进池化的 ByteBuf
+ *
+ * @author clazs
+ */
+@FunctionalInterface
+interface ResponseWriter {
+
+    AsciiString TEXT_PLAIN_UTF8 = AsciiString.cached("text/plain; charset=UTF-8");
+    AsciiString APPLICATION_JSON_UTF8 = AsciiString.cached("application/json; charset=UTF-8");
+
+    FullHttpResponse write(ByteBufAllocator alloc, Object result) throws IOException;
+
+    static ResponseWriter forMethod(Method method, ObjectMapper objectMapper) {
+        Class<?> type = method.getReturnType();
+        if (FullHttpResponse.class.isAssignableFrom(type)) {
+            return (alloc, result) -> result == null ? empty(OK) : (FullHttpResponse) result;
+        }
+        if (type == void.class || type == Void.class) {
+            return (alloc, result) -> empty(OK);
+        }
+        if (type == String.class) {
+            return (alloc, result) -> {
+                if (result == null) {
+                    return empty(OK);
+                }
+                String text = (String) result;
+                ByteBuf content = alloc.buffer(ByteBufUtil.utf8MaxBytes(text));
+                ByteBufUtil.writeUtf8(content, text);
+                return response(OK, TEXT_PLAIN_UTF8, content);
+            };
+        }
+        if (type == byte[].class) {
+            return (alloc, result) -> result == null ? empty(OK)
+                    : response(OK, HttpHeaderValues.APPLICATION_OCTET_STREAM, Unpooled.wrappedBuffer((byte[]) result));
+        }
+        ObjectWriter writer = objectMapper.writerFor(objectMapper.constructType(method.getGenericReturnType()));
+        return (alloc, result) -> {
+            if (result == null) {
+                return empty(OK);
+            }
+            ByteBuf content = alloc.buffer();
+            try {
+                writer.writeValue((OutputStream) new ByteBufOutputStream(content), result);
+            } catch (IOException | RuntimeException e) {
+                content.release();
+                throw e;
+            }
+            return response(OK, APPLICATION_JSON_UTF8, content);
+        };
+    }
+
+    /**
+     * 返回类型在编译期不确定时（HttpBodyHandler.onComplete）按运行时类型选择写法
+     */
+    static ResponseWriter dynamic(ObjectMapper objectMapper) {
+        return (alloc, result) -> {
+            if (result == null) {
+                return empty(OK);
+            }
+            if (result instanceof FullHttpResponse) {
+                return (FullHttpResponse) result;
+            }
+            if (result instanceof CharSequence) {
+                CharSequence text = (CharSequence) result;
+                ByteBuf content = alloc.buffer(ByteBufUtil.utf8MaxBytes(text));
+                ByteBufUtil.writeUtf8(content, text);
+                return response(OK, TEXT_PLAIN_UTF8, content);
+            }
+            ByteBuf content = alloc.buffer();
+            try {
+                objectMapper.writeValue((OutputStream) new ByteBufOutputStream(content), result);
+            } catch (IOException | RuntimeException e) {
+                content.release();
+                throw e;
+            }
+            return response(OK, APPLICATION_JSON_UTF8, content);
+        };
+    }
+
+    static FullHttpResponse response(HttpResponseStatus status, CharSequence contentType, ByteBuf content) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, content);
+        response.headers()
+                .set(HttpHeaderNames.CONTENT_TYPE, contentType)
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        return response;
+    }
+
+    static FullHttpResponse empty(HttpResponseStatus status) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, Unpooled.EMPTY_BUFFER);
+        response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+        return response;
+    }
+}
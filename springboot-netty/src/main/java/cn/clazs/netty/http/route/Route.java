@@ -0,0 +1,54 @@
+package cn.clazs.netty.http.route;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * 一条路由：启动时解析好的处理方法、参数取值方式和返回值写法
+ *
+ * @author clazs
+ */
+final class Route {
+
+    final HttpMethod method;
+    final String pattern;
+    final String description;
+
+    /**
+     * 处理方法返回 HttpBodyHandler：请求头到达时就调用，请求体流式交给返回的对象
+     */
+    final boolean streaming;
+
+    /**
+     * 已绑定控制器实例、参数展开为 Object[] 的方法句柄，类型固定为 (Object[])Object
+     */
+    private final MethodHandle invoker;
+    private final ParamResolver[] resolvers;
+    private final ResponseWriter writer;
+
+    Route(HttpMethod method, String pattern, String description, boolean streaming, MethodHandle invoker,
+          ParamResolver[] resolvers, ResponseWriter writer) {
+        this.method = method;
+        this.pattern = pattern;
+        this.description = description;
+        this.streaming = streaming;
+        this.invoker = invoker;
+        this.resolvers = resolvers;
+        this.writer = writer;
+    }
+
+    FullHttpResponse invoke(ByteBufAllocator alloc, RouteRequest request) throws Throwable {
+        return writer.write(alloc, call(request));
+    }
+
+    Object call(RouteRequest request) throws Throwable {
+        Object[] args = new Object[resolvers.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = resolvers[i].resolve(request);
+        }
+        return (Object) invoker.invokeExact(args);
+    }
+}
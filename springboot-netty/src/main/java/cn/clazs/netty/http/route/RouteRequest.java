@@ -0,0 +1,63 @@
+package cn.clazs.netty.http.route;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次请求在路由过程中的数据：原始请求、解析好的路径和查询参数、路径变量的值
+ *
+ * 查询参数在第一次访问时才解码（QueryStringDecoder 内部缓存），没有 @RequestParam 的路由不付这部分开销
+ *
+ * @author clazs
+ */
+public final class RouteRequest {
+
+    private final HttpRequest request;
+    private final QueryStringDecoder decoder;
+    private final List<String> pathVariables;
+
+    RouteRequest(HttpRequest request, QueryStringDecoder decoder, List<String> pathVariables) {
+        this.request = request;
+        this.decoder = decoder;
+        this.pathVariables = pathVariables;
+    }
+
+    /**
+     * 流式路由在请求头到达时调用，此时只有请求行和请求头
+     */
+    public HttpRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * 聚合过的完整请求，只有非流式路由可用
+     */
+    public FullHttpRequest getFullRequest() {
+        return (FullHttpRequest) request;
+    }
+
+    public String getPath() {
+        return decoder.path();
+    }
+
+    /**
+     * 按在路径模板中出现的顺序
+     */
+    public String getPathVariable(int index) {
+        return pathVariables.get(index);
+    }
+
+    public String getQueryParameter(String name) {
+        Map<String, List<String>> parameters = decoder.parameters();
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    public List<String> getQueryParameters(String name) {
+        return decoder.parameters().get(name);
+    }
+}
@@ -0,0 +1,160 @@
+package cn.clazs.netty.http.route;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按路径段组织的路由树，"/users/{id}/orders" 拆成 users -> {id} -> orders
+ *
+ * - 不含变量的路径额外放进一张 HashMap，一次查找命中，不走树
+ * - 同一层字面量优先于变量，字面量分支走不通时回退尝试变量分支
+ * - 启动时构建完成后只读，可以被所有 I/O 线程并发查询
+ *
+ * @author clazs
+ */
+final class RouteTrie {
+
+    static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node variable;
+        private String variableName;
+        private final Map<HttpMethod, Route> routes = new LinkedHashMap<>();
+
+        Route route(HttpMethod method) {
+            return routes.get(method);
+        }
+
+        boolean hasRoutes() {
+            return !routes.isEmpty();
+        }
+
+        /**
+         * 405 时回复的 Allow 头
+         */
+        String allowedMethods() {
+            StringBuilder allow = new StringBuilder();
+            for (HttpMethod method : routes.keySet()) {
+                if (allow.length() > 0) {
+                    allow.append(", ");
+                }
+                allow.append(method.name());
+            }
+            return allow.toString();
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<String, Node> exact = new HashMap<>();
+
+    /**
+     * 模板中的变量名，按出现顺序
+     */
+    static List<String> variables(String template) {
+        List<String> variables = new ArrayList<>();
+        for (String segment : split(template)) {
+            if (isVariable(segment)) {
+                variables.add(segment.substring(1, segment.length() - 1));
+            }
+        }
+        return variables;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.length() > 2 && segment.startsWith("{") && segment.endsWith("}");
+    }
+
+    void add(HttpMethod method, String template, Route route) {
+        boolean hasVariable = false;
+        Node node = root;
+        for (String segment : split(template)) {
+            if (isVariable(segment)) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (node.variable == null) {
+                    node.variable = new Node();
+                    node.variableName = name;
+                } else if (!node.variableName.equals(name)) {
+                    throw new IllegalStateException("路径变量名冲突: " + template + " 中的 {" + name
+                            + "} 与已有的 {" + node.variableName + "}");
+                }
+                hasVariable = true;
+                node = node.variable;
+            } else {
+                node = node.literals.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        if (node.routes.putIfAbsent(method, route) != null) {
+            throw new IllegalStateException("路由重复: " + method + " " + template);
+        }
+        if (!hasVariable) {
+            exact.put(normalize(template), node);
+        }
+    }
+
+    /**
+     * @param variables 输出：匹配到的路径变量值
+     * @return 匹配的节点，没有时返回 null
+     */
+    Node find(String path, List<String> variables) {
+        Node node = exact.get(path);
+        if (node != null) {
+            return node;
+        }
+        return find(root, split(path), 0, variables);
+    }
+
+    private static Node find(Node node, List<String> segments, int index, List<String> variables) {
+        if (index == segments.size()) {
+            return node.hasRoutes() ? node : null;
+        }
+        String segment = segments.get(index);
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            Node found = find(literal, segments, index + 1, variables);
+            if (found != null) {
+                return found;
+            }
+        }
+        if (node.variable != null) {
+            variables.add(segment);
+            Node found = find(node.variable, segments, index + 1, variables);
+            if (found != null) {
+                return found;
+            }
+            variables.remove(variables.size() - 1);
+        }
+        return null;
+    }
+
+    private static List<String> split(String path) {
+        if (path.isEmpty() || "/".equals(path)) {
+            return Collections.emptyList();
+        }
+        List<String> segments = new ArrayList<>(4);
+        int start = path.charAt(0) == '/' ? 1 : 0;
+        while (start <= path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    /**
+     * 去掉多余的 '/'，与 split 的结果一致（"/a//b/" 与 "/a/b" 视为同一路径）
+     */
+    static String normalize(String path) {
+        List<String> segments = split(path);
+        return segments.isEmpty() ? "/" : "/" + String.join("/", segments);
+    }
+}
@@ -0,0 +1,30 @@
+package cn.clazs.netty.rpc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 示例 RPC 服务接口，客户端通过 RpcClient.proxy(CalculatorService.class) 调用
+ *
+ * @author clazs
+ */
+public interface CalculatorService {
+
+    int add(int a, int b);
+
+    int divide(int a, int b);
+
+    String echo(String text);
+
+    List<String> split(String text, String separator);
+
+    /**
+     * 同步阻塞 millis 毫秒，占用业务线程
+     */
+    long sleep(long millis);
+
+    /**
+     * 异步：millis 毫秒后返回 text，不占用业务线程
+     */
+    CompletableFuture<String> delayedEcho(String text, long millis);
+}
@@ -0,0 +1,61 @@
+package cn.clazs.netty.rpc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 示例 RPC 服务实现
+ *
+ * @author clazs
+ */
+@RpcService
+public class CalculatorServiceImpl implements CalculatorService {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "calculator-delay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public int add(int a, int b) {
+        return a + b;
+    }
+
+    @Override
+    public int divide(int a, int b) {
+        return a / b;
+    }
+
+    @Override
+    public String echo(String text) {
+        return text;
+    }
+
+    @Override
+    public List<String> split(String text, String separator) {
+        return Arrays.asList(text.split(Pattern.quote(separator)));
+    }
+
+    @Override
+    public long sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return millis;
+    }
+
+    @Override
+    public CompletableFuture<String> delayedEcho(String text, long millis) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        SCHEDULER.schedule(() -> future.complete(text), millis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
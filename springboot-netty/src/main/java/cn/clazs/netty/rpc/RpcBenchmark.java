@@ -0,0 +1,267 @@
+package cn.clazs.netty.rpc;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.clazs.netty.controller.HotPathController;
+import cn.clazs.netty.http.HttpServerHandler;
+import cn.clazs.netty.http.route.HttpRouter;
+import cn.clazs.netty.transport.Transport;
+import cn.clazs.netty.transport.TransportFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RPC 与 HTTP 的调用吞吐量、延迟对比（同一进程内，回环网络）
+ *
+ * - http:     与 HttpServer 相同的 pipeline（HttpServerCodec + HttpObjectAggregator + HttpServerHandler），GET /，
+ *             keep-alive，HTTP/1.1 不做 pipelining，每个连接同一时刻只有 1 个请求
+ * - rpc:      与 TcpServer（framing=binary, offload=true）相同的 pipeline，调用 CalculatorService.echo，
+ *             参数与 HTTP 响应体相同的 35 字节字符串
+ *
+ * 每种场景由 concurrency 个"用户"闭环调用（收到结果立即发下一次），统计每秒完成的调用数和延迟分位数。
+ * HTTP 的并发只能靠加连接，RPC 可以在同样的连接数上承载更多并发
+ *
+ * 运行：直接执行 main 方法，参数 [连接数] [秒数] [RPC 多路复用倍数]，默认 4 5 16
+ *
+ * 注意：客户端和服务端在同一台机器上争抢 CPU，只适合看相对差异
+ *
+ * @author clazs
+ */
+public class RpcBenchmark {
+
+    private static final String PAYLOAD = "Hello World from Netty HTTP Server!";
+    private static final String ECHO = RpcServiceRegistry.methodKey(CalculatorService.class, "echo");
+
+    /**
+     * 一个闭环用户的延迟记录，同一时刻只有一个调用在途，回调之间由 Future / EventLoop 保证可见性
+     */
+    private static final class Recorder {
+        long[] latencies = new long[1024];
+        int count;
+
+        void record(long startNanos, long measureStart) {
+            if (startNanos < measureStart) {
+                return;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - startNanos;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int multiplex = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        // 不经过 Spring 时 logback 默认 DEBUG，HttpServerHandler 每个请求一行日志会拖慢 HTTP 一侧
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        Transport transport = TransportFactory.select("auto");
+        System.out.printf("transport=%s 连接数=%d 时长=%ds%n%n", transport, connections, seconds);
+
+        // 第一轮只为 JIT 预热，不计入结果
+        http(transport, connections, 2);
+        rpc(connections, connections, 2);
+
+        StringBuilder summary = new StringBuilder();
+        for (String line : new String[]{
+                http(transport, connections, seconds),
+                rpc(connections, connections, seconds),
+                rpc(connections, connections * multiplex, seconds)}) {
+            System.out.println(line);
+            summary.append(line).append('\n');
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+
+    // ==================== HTTP ====================
+
+    private static String http(Transport transport, int connections, int seconds) throws Exception {
+        EventLoopGroup boss = transport.newGroup(1);
+        EventLoopGroup workers = transport.newGroup(0);
+        EventLoopGroup clientGroup = transport.newGroup(0);
+        HttpRouter router = new HttpRouter(new ObjectMapper());
+        router.register(new HotPathController());
+        HttpServerHandler handler = new HttpServerHandler(router);
+        try {
+            Channel server = new ServerBootstrap()
+                    .group(boss, workers)
+                    .channel(transport.serverSocketChannel())
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec(),
+                                    new HttpObjectAggregator(65536),
+                                    handler);
+                        }
+                    })
+                    .bind(0).sync().channel();
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1",
+                    ((InetSocketAddress) server.localAddress()).getPort());
+
+            long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(seconds);
+            CountDownLatch done = new CountDownLatch(connections);
+            List<Recorder> recorders = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                Recorder recorder = new Recorder();
+                recorders.add(recorder);
+                new Bootstrap()
+                        .group(clientGroup)
+                        .channel(transport.socketChannel())
+                        .option(ChannelOption.TCP_NODELAY, true)
+                        .handler(new ChannelInitializer<SocketChannel>() {
+                            @Override
+                            protected void initChannel(SocketChannel ch) {
+                                ch.pipeline().addLast(new HttpClientCodec(),
+                                        new HttpObjectAggregator(65536),
+                                        new HttpUser(recorder, measureStart, measureEnd, done));
+                            }
+                        })
+                        .connect(address).sync();
+            }
+            done.await(seconds + 10, TimeUnit.SECONDS);
+            server.close().sync();
+            return report("http", connections, connections, seconds, recorders);
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            workers.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            boss.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    private static final class HttpUser extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        private final Recorder recorder;
+        private final long measureStart;
+        private final long measureEnd;
+        private final CountDownLatch done;
+        private long sentAt;
+
+        HttpUser(Recorder recorder, long measureStart, long measureEnd, CountDownLatch done) {
+            this.recorder = recorder;
+            this.measureStart = measureStart;
+            this.measureEnd = measureEnd;
+            this.done = done;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            send(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            recorder.record(sentAt, measureStart);
+            if (System.nanoTime() < measureEnd) {
+                send(ctx);
+            } else {
+                ctx.close();
+                done.countDown();
+            }
+        }
+
+        private void send(ChannelHandlerContext ctx) {
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/",
+                    Unpooled.EMPTY_BUFFER);
+            request.headers().set(HttpHeaderNames.HOST, "127.0.0.1");
+            sentAt = System.nanoTime();
+            ctx.writeAndFlush(request);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+            done.countDown();
+        }
+    }
+
+    // ==================== RPC ====================
+
+    private static String rpc(int connections, int concurrency, int seconds) throws Exception {
+        RpcServiceRegistry registry = new RpcServiceRegistry(TypeFactory.defaultInstance());
+        registry.register(new CalculatorServiceImpl());
+        try (StandaloneRpcServer server = new StandaloneRpcServer(registry, 0, 4)) {
+            RpcClientConfig config = new RpcClientConfig();
+            config.setPort(server.port());
+            config.setConnections(connections);
+            config.setIoThreads(connections);
+            try (RpcClient client = new RpcClient(config).connect()) {
+                JavaType stringType = TypeFactory.defaultInstance().constructType(String.class);
+                long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+                long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(seconds);
+                CountDownLatch done = new CountDownLatch(concurrency);
+                List<Recorder> recorders = new ArrayList<>();
+                for (int i = 0; i < concurrency; i++) {
+                    Recorder recorder = new Recorder();
+                    recorders.add(recorder);
+                    rpcLoop(client, stringType, recorder, measureStart, measureEnd, done);
+                }
+                done.await(seconds + 10, TimeUnit.SECONDS);
+                return report("rpc", connections, concurrency, seconds, recorders);
+            }
+        }
+    }
+
+    private static void rpcLoop(RpcClient client, JavaType stringType, Recorder recorder,
+                                long measureStart, long measureEnd, CountDownLatch done) {
+        long start = System.nanoTime();
+        client.<String>call(ECHO, stringType, 3000, PAYLOAD).whenComplete((value, error) -> {
+            recorder.record(start, measureStart);
+            if (error == null && System.nanoTime() < measureEnd) {
+                rpcLoop(client, stringType, recorder, measureStart, measureEnd, done);
+            } else {
+                done.countDown();
+            }
+        });
+    }
+
+    // ==================== 统计 ====================
+
+    private static String report(String name, int connections, int concurrency, int seconds, List<Recorder> recorders) {
+        long[] sorted = recorders.stream()
+                .flatMapToLong(r -> Arrays.stream(r.latencies, 0, r.count))
+                .sorted().toArray();
+        return String.format("%-5s 连接=%-3d 并发=%-4d %,10.0f calls/s  p50=%7.0fus p99=%7.0fus p99.9=%7.0fus",
+                name, connections, concurrency, sorted.length / (double) seconds,
+                percentile(sorted, 50) / 1000.0, percentile(sorted, 99) / 1000.0, percentile(sorted, 99.9) / 1000.0);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,236 @@
+package cn.clazs.netty.rpc;
+
+import cn.clazs.netty.tcp.TcpFraming;
+import cn.clazs.netty.transport.Transport;
+import cn.clazs.netty.transport.TransportFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * RPC 客户端：固定大小的连接池，每个连接多路复用
+ *
+ * - call：异步调用，返回 CompletableFuture，可单独指定超时
+ * - proxy：为服务接口生成代理。返回 CompletableFuture / CompletionStage 的方法异步调用，
+ *          其他方法阻塞等待结果，失败时抛出 RpcException
+ * - 连接按轮询选取，断开的连接在下一次轮到时重连
+ *
+ * 用法：
+ * <pre>
+ * try (RpcClient client = new RpcClient(config).connect()) {
+ *     CalculatorService calculator = client.proxy(CalculatorService.class);
+ *     int sum = calculator.add(1, 2);
+ * }
+ * </pre>
+ *
+ * @author clazs
+ */
+public class RpcClient implements Closeable {
+
+    private final RpcClientConfig config;
+    private final ObjectMapper objectMapper;
+    private final EventLoopGroup group;
+    private final Bootstrap bootstrap;
+    private final HashedWheelTimer timer;
+
+    private final AtomicReferenceArray<RpcClientHandler> pool;
+    private final Object[] connectLocks;
+    private final AtomicInteger nextConnection = new AtomicInteger();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public RpcClient(RpcClientConfig config) {
+        this(config, new ObjectMapper());
+    }
+
+    public RpcClient(RpcClientConfig config, ObjectMapper objectMapper) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        Transport transport = TransportFactory.select(config.getTransport());
+        this.group = transport.newGroup(config.getIoThreads(), new DefaultThreadFactory("rpc-client", true));
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("rpc-timeout", true), 10, TimeUnit.MILLISECONDS);
+        this.bootstrap = new Bootstrap()
+                .group(group)
+                .channel(transport.socketChannel())
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectTimeoutMillis())
+                .remoteAddress(config.getHost(), config.getPort())
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        TcpFraming.BINARY.configure(ch.pipeline(), config.getMaxFrameLength());
+                        ch.pipeline().addLast("rpc", new RpcClientHandler(objectMapper, timer));
+                    }
+                });
+        this.pool = new AtomicReferenceArray<>(config.getConnections());
+        this.connectLocks = new Object[config.getConnections()];
+        for (int i = 0; i < connectLocks.length; i++) {
+            connectLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 立即建立所有连接（否则在第一次调用时建立），任何一个失败都抛出 RpcException
+     */
+    public RpcClient connect() {
+        for (int i = 0; i < pool.length(); i++) {
+            connection(i);
+        }
+        return this;
+    }
+
+    // ==================== 调用 ====================
+
+    public <T> CompletableFuture<T> call(String methodKey, Class<T> returnType, Object... args) {
+        return call(methodKey, objectMapper.constructType(returnType), config.getTimeoutMillis(), args);
+    }
+
+    /**
+     * @param methodKey  "接口全名#方法名"，见 RpcServiceRegistry.methodKey
+     * @param returnType 返回值类型（含泛型），异步方法传 CompletableFuture 的元素类型
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> call(String methodKey, JavaType returnType, long timeoutMillis, Object... args) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            RpcClientHandler connection = connection((nextConnection.getAndIncrement() & Integer.MAX_VALUE) % pool.length());
+            int id = nextId.incrementAndGet();
+            ByteBuf request = RpcProtocol.encodeRequest(connection.channel().alloc(), objectMapper, id, methodKey, args);
+            connection.send(id, methodKey, request, future, returnType, timeoutMillis);
+        } catch (IOException e) {
+            future.completeExceptionally(new RpcException("参数序列化失败: " + methodKey, e));
+        } catch (RpcException e) {
+            future.completeExceptionally(e);
+        }
+        return (CompletableFuture<T>) future;
+    }
+
+    private RpcClientHandler connection(int index) {
+        RpcClientHandler connection = pool.get(index);
+        if (connection != null && connection.isActive()) {
+            return connection;
+        }
+        synchronized (connectLocks[index]) {
+            connection = pool.get(index);
+            if (connection != null && connection.isActive()) {
+                return connection;
+            }
+            ChannelFuture future = bootstrap.connect().awaitUninterruptibly();
+            if (!future.isSuccess()) {
+                throw new RpcException("连接失败: " + config.getHost() + ":" + config.getPort(), future.cause());
+            }
+            connection = future.channel().pipeline().get(RpcClientHandler.class);
+            pool.set(index, connection);
+            return connection;
+        }
+    }
+
+    /**
+     * 所有连接上的在途调用总数
+     */
+    public int pendingCalls() {
+        int total = 0;
+        for (int i = 0; i < pool.length(); i++) {
+            RpcClientHandler connection = pool.get(i);
+            if (connection != null) {
+                total += connection.pendingCalls();
+            }
+        }
+        return total;
+    }
+
+    // ==================== 代理 ====================
+
+    private static final class ProxyMethod {
+        final String key;
+        final JavaType returnType;
+        final boolean async;
+
+        ProxyMethod(String key, JavaType returnType, boolean async) {
+            this.key = key;
+            this.returnType = returnType;
+            this.async = async;
+        }
+    }
+
+    /**
+     * 生成服务接口的代理，方法键和返回类型在这里一次性解析好
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T proxy(Class<T> serviceInterface) {
+        Map<Method, ProxyMethod> methods = new HashMap<>();
+        for (Method method : serviceInterface.getMethods()) {
+            boolean async = CompletionStage.class.isAssignableFrom(method.getReturnType());
+            JavaType returnType = objectMapper.constructType(method.getGenericReturnType());
+            if (async) {
+                returnType = returnType.containedTypeOrUnknown(0);
+            }
+            methods.put(method, new ProxyMethod(RpcServiceRegistry.methodKey(serviceInterface, method), returnType, async));
+        }
+        String description = "RpcProxy[" + serviceInterface.getName() + " -> " + config.getHost() + ":" + config.getPort() + "]";
+
+        return (T) Proxy.newProxyInstance(serviceInterface.getClassLoader(), new Class<?>[]{serviceInterface},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return description;
+                        }
+                    }
+                    ProxyMethod target = methods.get(method);
+                    CompletableFuture<Object> future = call(target.key, target.returnType, config.getTimeoutMillis(),
+                            args == null ? new Object[0] : args);
+                    return target.async ? future : await(future);
+                });
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RpcException ? (RpcException) cause : new RpcException(cause.toString(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException("等待结果时被中断", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < pool.length(); i++) {
+            RpcClientHandler connection = pool.get(i);
+            if (connection != null) {
+                Channel channel = connection.channel();
+                channel.close().awaitUninterruptibly();
+            }
+        }
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        timer.stop();
+    }
+}
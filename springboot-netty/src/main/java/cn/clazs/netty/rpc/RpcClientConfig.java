@@ -0,0 +1,41 @@
+package cn.clazs.netty.rpc;
+
+import lombok.Data;
+
+/**
+ * RpcClient 配置
+ *
+ * @author clazs
+ */
+@Data
+public class RpcClientConfig {
+
+    private String host = "127.0.0.1";
+
+    private int port = 9001;
+
+    /**
+     * 连接池大小：每个连接都可以同时承载任意多个调用，池只是为了把负载分到多个 I/O 线程上，
+     * 一般与客户端 I/O 线程数相同即可
+     */
+    private int connections = 4;
+
+    /**
+     * 客户端 I/O 线程数，0 表示 Netty 默认（CPU 核数 * 2）
+     */
+    private int ioThreads = 0;
+
+    /**
+     * 默认调用超时（代理对象和未指定超时的 call 使用）
+     */
+    private long timeoutMillis = 3000;
+
+    private int connectTimeoutMillis = 3000;
+
+    private int maxFrameLength = 1 << 20;
+
+    /**
+     * auto / nio / epoll / io_uring，与 netty.transport.type 相同
+     */
+    private String transport = "auto";
+}
@@ -0,0 +1,145 @@
+package cn.clazs.netty.rpc;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端的一个连接：在途调用表（id -> PendingCall），按响应帧的 id 完成对应的 Future
+ *
+ * - 调用方线程登记调用并写出请求，I/O 线程收到响应后完成 Future，二者通过 ConcurrentHashMap 交接
+ * - 超时由共享的 HashedWheelTimer 触发，几万个在途调用也只有一个计时线程
+ * - 连接断开时所有在途调用立即失败，不等超时
+ *
+ * Future 在 I/O 线程中完成，thenXxx 回调默认也在 I/O 线程执行，回调里不要阻塞
+ *
+ * @author clazs
+ */
+@Slf4j
+class RpcClientHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+    private static final class PendingCall {
+        final CompletableFuture<Object> future;
+        final JavaType returnType;
+        final String methodKey;
+        volatile Timeout timeout;
+
+        PendingCall(CompletableFuture<Object> future, JavaType returnType, String methodKey) {
+            this.future = future;
+            this.returnType = returnType;
+            this.methodKey = methodKey;
+        }
+    }
+
+    private final Map<Integer, PendingCall> pending = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final Timer timer;
+    private volatile Channel channel;
+
+    RpcClientHandler(ObjectMapper objectMapper, Timer timer) {
+        this.objectMapper = objectMapper;
+        this.timer = timer;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        channel = ctx.channel();
+    }
+
+    Channel channel() {
+        return channel;
+    }
+
+    boolean isActive() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+
+    int pendingCalls() {
+        return pending.size();
+    }
+
+    /**
+     * 登记调用并写出请求（调用方线程）
+     */
+    void send(int id, String methodKey, ByteBuf request, CompletableFuture<Object> future,
+              JavaType returnType, long timeoutMillis) {
+        PendingCall call = new PendingCall(future, returnType, methodKey);
+        // 先登记再安排超时和写出：future 无论以什么方式结束（响应、超时、发送失败、调用方 cancel）都从 pending 移除
+        pending.put(id, call);
+        future.whenComplete((value, error) -> {
+            pending.remove(id, call);
+            if (call.timeout != null) {
+                call.timeout.cancel();
+            }
+        });
+        Timeout timeout = timer.newTimeout(
+                t -> future.completeExceptionally(new RpcException("调用超时（" + timeoutMillis + "ms）: " + methodKey)),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        call.timeout = timeout;
+        if (future.isDone()) {
+            // 赋值 timeout 之前 future 已经结束，whenComplete 里没能取消
+            timeout.cancel();
+            request.release();
+            return;
+        }
+        channel.writeAndFlush(request).addListener(f -> {
+            if (!f.isSuccess()) {
+                future.completeExceptionally(new RpcException("请求发送失败: " + methodKey, f.cause()));
+            }
+        });
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+        int id = RpcProtocol.correlationId(frame);
+        byte type = RpcProtocol.readHeader(frame);
+        PendingCall call = pending.remove(id);
+        if (call == null) {
+            log.debug("丢弃响应 id={}（已超时或未知）", id);
+            return;
+        }
+        if (type == RpcProtocol.TYPE_RESPONSE) {
+            try {
+                call.future.complete(objectMapper.readValue((InputStream) new ByteBufInputStream(frame), call.returnType));
+            } catch (IOException e) {
+                call.future.completeExceptionally(new RpcException("响应解析失败: " + call.methodKey, e));
+            }
+        } else {
+            call.future.completeExceptionally(new RpcException("远程调用失败: " + frame.toString(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        RpcException closed = new RpcException("连接已断开: " + ctx.channel().remoteAddress());
+        for (Integer id : pending.keySet()) {
+            PendingCall call = pending.remove(id);
+            if (call != null) {
+                call.future.completeExceptionally(closed);
+            }
+        }
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("RPC 连接异常，关闭连接: {}", cause.toString());
+        ctx.close();
+    }
+}
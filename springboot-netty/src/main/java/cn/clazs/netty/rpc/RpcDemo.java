@@ -0,0 +1,93 @@
+package cn.clazs.netty.rpc;
+
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * RPC 演示：服务端与客户端在同一进程，不启动 Spring
+ *
+ * 在 Spring 应用中使用时，把 netty.tcp.framing 设为 binary，TcpServer 就成为 RPC 服务端，
+ * 所有 @RpcService Bean 自动注册
+ *
+ * @author clazs
+ */
+public class RpcDemo {
+
+    private static final String ADD = RpcServiceRegistry.methodKey(CalculatorService.class, "add");
+    private static final String SLEEP = RpcServiceRegistry.methodKey(CalculatorService.class, "sleep");
+    private static final String MODULO = RpcServiceRegistry.methodKey(CalculatorService.class, "modulo");
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("========== RPC 演示 ==========\n");
+
+        RpcServiceRegistry registry = new RpcServiceRegistry(TypeFactory.defaultInstance());
+        registry.register(new CalculatorServiceImpl());
+
+        try (StandaloneRpcServer server = new StandaloneRpcServer(registry, 1, 4)) {
+            RpcClientConfig config = new RpcClientConfig();
+            config.setPort(server.port());
+            config.setConnections(1);
+            config.setTimeoutMillis(1000);
+
+            try (RpcClient client = new RpcClient(config).connect()) {
+                CalculatorService calculator = client.proxy(CalculatorService.class);
+
+                System.out.println("【演示 1】同步调用（代理）");
+                System.out.println("add(1, 2) = " + calculator.add(1, 2));
+                System.out.println("echo(\"你好\") = " + calculator.echo("你好"));
+                System.out.println("split(\"a,b,c\", \",\") = " + calculator.split("a,b,c", ","));
+
+                System.out.println("\n【演示 2】异步调用：慢的异步调用不挡住后面的调用（同一个连接）");
+                List<String> order = new ArrayList<>();
+                CompletableFuture<String> slow = calculator.delayedEcho("慢调用（300ms）", 300)
+                        .whenComplete((value, error) -> record(order, value));
+                CompletableFuture<Integer> fast = client.call(ADD, Integer.class, 40, 2)
+                        .whenComplete((value, error) -> record(order, "快调用 add(40, 2) = " + value));
+                CompletableFuture.allOf(slow, fast).join();
+                System.out.println("完成顺序: " + order);
+
+                System.out.println("\n【演示 3】多路复用：1 个连接上同时发出 10000 个调用");
+                long start = System.nanoTime();
+                List<CompletableFuture<Integer>> futures = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    futures.add(client.call(ADD, Integer.class, i, 1));
+                }
+                int peak = client.pendingCalls();
+                long sum = 0;
+                for (CompletableFuture<Integer> future : futures) {
+                    sum += future.join();
+                }
+                System.out.printf("全部完成，结果之和 %d，在途峰值约 %d，耗时 %d ms%n",
+                        sum, peak, (System.nanoTime() - start) / 1_000_000);
+
+                System.out.println("\n【演示 4】超时：sleep(500)，超时设置 1000ms 与 100ms");
+                System.out.println("sleep(500) = " + calculator.sleep(500));
+                try {
+                    client.call(SLEEP, TypeFactory.defaultInstance().constructType(Long.class), 100, 500L).join();
+                } catch (Exception e) {
+                    System.out.println("捕获: " + e.getCause().getMessage());
+                }
+
+                System.out.println("\n【演示 5】服务端异常与未知方法，连接保持可用");
+                try {
+                    calculator.divide(1, 0);
+                } catch (RpcException e) {
+                    System.out.println("divide(1, 0): " + e.getMessage());
+                }
+                try {
+                    client.call(MODULO, Integer.class, 1, 2).join();
+                } catch (Exception e) {
+                    System.out.println("modulo: " + e.getCause().getMessage());
+                }
+                System.out.println("之后的调用 add(2, 3) = " + calculator.add(2, 3));
+            }
+        }
+    }
+
+    private static synchronized void record(List<String> order, String value) {
+        order.add(value);
+    }
+}
@@ -0,0 +1,19 @@
+package cn.clazs.netty.rpc;
+
+/**
+ * RPC 调用失败：超时、连接断开、服务端找不到方法或方法抛出异常
+ *
+ * @author clazs
+ */
+public class RpcException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RpcException(String message) {
+        super(message);
+    }
+
+    public RpcException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
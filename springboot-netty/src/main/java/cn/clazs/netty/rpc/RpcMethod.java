@@ -0,0 +1,41 @@
+package cn.clazs.netty.rpc;
+
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * 注册时预先解析好的服务方法：调用时不再反射查找方法、检查访问权限，也不再解析参数的泛型类型
+ *
+ * @author clazs
+ */
+final class RpcMethod {
+
+    final String key;
+
+    /**
+     * 已绑定服务实例、参数展开为 Object[] 的方法句柄，类型固定为 (Object[])Object，可以用 invokeExact 调用
+     */
+    final MethodHandle invoker;
+
+    /**
+     * 参数的完整类型（含泛型），用于反序列化 JSON 参数
+     */
+    final JavaType[] parameterTypes;
+
+    /**
+     * 返回 CompletionStage 的方法，结果完成时再写响应，不占用业务线程
+     */
+    final boolean async;
+
+    RpcMethod(String key, MethodHandle invoker, JavaType[] parameterTypes, boolean async) {
+        this.key = key;
+        this.invoker = invoker;
+        this.parameterTypes = parameterTypes;
+        this.async = async;
+    }
+
+    Object invoke(Object[] args) throws Throwable {
+        return (Object) invoker.invokeExact(args);
+    }
+}
@@ -0,0 +1,141 @@
+package cn.clazs.netty.rpc;
+
+import cn.clazs.netty.tcp.TcpFraming;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RPC 帧格式：沿用 TcpFraming.BINARY 的帧头，sequence 字段作为关联 ID（correlation ID）
+ *
+ * <pre>
+ * magic 4B | version 1B | serializer 1B | type 1B | id 4B | length 4B | payload
+ *
+ * REQUEST:  方法键（2 字节长度 + UTF-8，"接口全名#方法名"）| 参数（JSON 数组）
+ * RESPONSE: 返回值（JSON）
+ * ERROR:    错误信息（UTF-8）
+ * </pre>
+ *
+ * 每个请求带一个客户端分配的 id，响应原样带回。客户端靠 id 找到对应的调用，
+ * 所以同一连接上可以同时有任意多个调用在途，响应也不必按请求顺序返回（多路复用）
+ *
+ * payload 直接在池化的 ByteBuf 上读写（ByteBufInputStream / ByteBufOutputStream），不经过中间 byte[]
+ *
+ * @author clazs
+ */
+public final class RpcProtocol {
+
+    public static final int MAGIC = 0x434C5A53;
+    public static final byte VERSION = 1;
+
+    /**
+     * 与 jdk 模块 protocol.frame.JsonSerializer 的编号相同
+     */
+    public static final byte SERIALIZER_JSON = 2;
+
+    public static final byte TYPE_REQUEST = 1;
+    public static final byte TYPE_RESPONSE = 2;
+    public static final byte TYPE_ERROR = 3;
+
+    public static final int HEADER_LENGTH = 15;
+    private static final int TYPE_OFFSET = 6;
+    private static final int ID_OFFSET = 7;
+    private static final int LENGTH_OFFSET = TcpFraming.BINARY_LENGTH_FIELD_OFFSET;
+
+    private RpcProtocol() {
+    }
+
+    // ==================== 编码 ====================
+
+    public static ByteBuf encodeRequest(ByteBufAllocator alloc, ObjectMapper objectMapper, int id,
+                                        String methodKey, Object[] args) throws IOException {
+        ByteBuf buf = beginFrame(alloc, TYPE_REQUEST, id);
+        try {
+            buf.writeShort(ByteBufUtil.utf8Bytes(methodKey));
+            ByteBufUtil.writeUtf8(buf, methodKey);
+            objectMapper.writeValue((OutputStream) new ByteBufOutputStream(buf), args);
+            return endFrame(buf);
+        } catch (IOException | RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    public static ByteBuf encodeResponse(ByteBufAllocator alloc, ObjectMapper objectMapper, int id,
+                                         Object result) throws IOException {
+        ByteBuf buf = beginFrame(alloc, TYPE_RESPONSE, id);
+        try {
+            objectMapper.writeValue((OutputStream) new ByteBufOutputStream(buf), result);
+            return endFrame(buf);
+        } catch (IOException | RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    public static ByteBuf encodeError(ByteBufAllocator alloc, int id, String message) {
+        ByteBuf buf = beginFrame(alloc, TYPE_ERROR, id);
+        ByteBufUtil.writeUtf8(buf, message);
+        return endFrame(buf);
+    }
+
+    private static ByteBuf beginFrame(ByteBufAllocator alloc, byte type, int id) {
+        ByteBuf buf = alloc.ioBuffer(128);
+        buf.writeInt(MAGIC)
+                .writeByte(VERSION)
+                .writeByte(SERIALIZER_JSON)
+                .writeByte(type)
+                .writeInt(id)
+                .writeInt(0);          // 长度占位，写完 payload 后回填
+        return buf;
+    }
+
+    private static ByteBuf endFrame(ByteBuf buf) {
+        buf.setInt(buf.readerIndex() + LENGTH_OFFSET, buf.readableBytes() - HEADER_LENGTH);
+        return buf;
+    }
+
+    // ==================== 解码 ====================
+
+    /**
+     * 检查帧头，返回帧类型，读指针移到 payload 开头
+     */
+    public static byte readHeader(ByteBuf frame) {
+        if (frame.readableBytes() < HEADER_LENGTH) {
+            throw new RpcException("帧长度不足: " + frame.readableBytes());
+        }
+        int start = frame.readerIndex();
+        if (frame.getInt(start) != MAGIC) {
+            throw new RpcException("魔数错误: 0x" + Integer.toHexString(frame.getInt(start)));
+        }
+        if (frame.getByte(start + 4) != VERSION || frame.getByte(start + 5) != SERIALIZER_JSON) {
+            throw new RpcException("不支持的版本或序列化方式: version=" + frame.getByte(start + 4)
+                    + ", serializer=" + frame.getByte(start + 5));
+        }
+        frame.skipBytes(HEADER_LENGTH);
+        return frame.getByte(start + TYPE_OFFSET);
+    }
+
+    /**
+     * 读取关联 ID，在 readHeader 之前调用
+     */
+    public static int correlationId(ByteBuf frame) {
+        return frame.getInt(frame.readerIndex() + ID_OFFSET);
+    }
+
+    public static String readMethodKey(ByteBuf payload) {
+        int length = payload.readUnsignedShort();
+        if (length > payload.readableBytes()) {
+            throw new RpcException("方法键长度越界: " + length);
+        }
+        String key = payload.toString(payload.readerIndex(), length, StandardCharsets.UTF_8);
+        payload.skipBytes(length);
+        return key;
+    }
+}
@@ -0,0 +1,138 @@
+package cn.clazs.netty.rpc;
+
+import cn.clazs.netty.tcp.TcpMessageHandler;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * RPC 服务端：作为 TcpServer 的 TcpMessageHandler，netty.tcp.framing=binary 时启用
+ *
+ * - 同步方法在业务线程中执行，返回后立即回复；同一连接上的同步调用按到达顺序执行
+ * - 返回 CompletionStage 的方法不占用业务线程，完成时再从任意线程写回响应，
+ *   后到的请求可以先返回（客户端按 id 匹配）
+ * - 找不到方法、参数无法解析、方法抛出异常都回复 ERROR 帧，连接保持可用；
+ *   只有帧头非法（魔数、版本错误）才按协议错误关闭连接
+ * - 方法抛出的异常和返回值序列化失败只在服务端记日志，客户端只收到带调用 id 的通用错误，
+ *   不把服务端的异常类名和消息（可能包含内部细节）发给客户端
+ *
+ * @author clazs
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "netty.tcp.framing", havingValue = "binary")
+public class RpcServerHandler implements TcpMessageHandler {
+
+    private final RpcServiceRegistry registry;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 注册容器中所有 @RpcService Bean
+     */
+    @Autowired
+    public RpcServerHandler(ObjectMapper objectMapper, ApplicationContext context) {
+        this(new RpcServiceRegistry(objectMapper.getTypeFactory()), objectMapper);
+        context.getBeansWithAnnotation(RpcService.class).values().forEach(registry::register);
+        log.info("RPC 服务端已启用，共 {} 个方法", registry.size());
+    }
+
+    public RpcServerHandler(RpcServiceRegistry registry, ObjectMapper objectMapper) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ByteBuf handle(Channel channel, ByteBuf frame) {
+        int id = RpcProtocol.correlationId(frame);
+        byte type = RpcProtocol.readHeader(frame);
+        if (type != RpcProtocol.TYPE_REQUEST) {
+            throw new RpcException("服务端只接受请求帧: type=" + type);
+        }
+        String key = RpcProtocol.readMethodKey(frame);
+        RpcMethod method = registry.lookup(key);
+        if (method == null) {
+            return RpcProtocol.encodeError(channel.alloc(), id, "没有这个方法: " + key);
+        }
+
+        Object[] args;
+        try {
+            args = readArguments(frame, method);
+        } catch (IOException | RpcException e) {
+            return RpcProtocol.encodeError(channel.alloc(), id, "参数解析失败: " + e.getMessage());
+        }
+
+        Object result;
+        try {
+            result = method.invoke(args);
+        } catch (Throwable e) {
+            return internalError(channel, id, key, e);
+        }
+
+        if (!method.async) {
+            return response(channel, id, key, result);
+        }
+        if (result == null) {
+            return RpcProtocol.encodeError(channel.alloc(), id, "异步方法返回了 null: " + key);
+        }
+        ((CompletionStage<?>) result).whenComplete((value, error) -> channel.writeAndFlush(error == null
+                ? response(channel, id, key, value)
+                : internalError(channel, id, key, error)));
+        return null;
+    }
+
+    /**
+     * 参数是 JSON 数组，按方法声明的类型逐个解析
+     */
+    private Object[] readArguments(ByteBuf payload, RpcMethod method) throws IOException {
+        Object[] args = new Object[method.parameterTypes.length];
+        try (JsonParser parser = objectMapper.getFactory().createParser((InputStream) new ByteBufInputStream(payload))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RpcException("参数必须是 JSON 数组");
+            }
+            for (int i = 0; i < args.length; i++) {
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    throw new RpcException("参数个数不足，需要 " + args.length + " 个");
+                }
+                args[i] = objectMapper.readValue(parser, method.parameterTypes[i]);
+            }
+            if (parser.nextToken() != JsonToken.END_ARRAY) {
+                throw new RpcException("参数个数过多，需要 " + args.length + " 个");
+            }
+        }
+        return args;
+    }
+
+    private ByteBuf response(Channel channel, int id, String key, Object result) {
+        try {
+            return RpcProtocol.encodeResponse(channel.alloc(), objectMapper, id, result);
+        } catch (IOException e) {
+            return internalError(channel, id, key, e);
+        }
+    }
+
+    /**
+     * 详细异常记在服务端日志里，客户端凭 id 找对应的日志
+     */
+    private static ByteBuf internalError(Channel channel, int id, String key, Throwable error) {
+        while ((error instanceof CompletionException || error instanceof InvocationTargetException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        log.warn("RPC 调用失败: {} id={} 来自 {}", key, id, channel.remoteAddress(), error);
+        return RpcProtocol.encodeError(channel.alloc(), id, "服务端内部错误（id=" + id + "）");
+    }
+}
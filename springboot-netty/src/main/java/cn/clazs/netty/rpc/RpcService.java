@@ -0,0 +1,23 @@
+package cn.clazs.netty.rpc;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记 RPC 服务实现类：同时是 Spring Bean，它实现的所有接口的方法都会注册到 RpcServiceRegistry
+ *
+ * 方法键为 "接口全名#方法名"，同一接口内不允许重载
+ *
+ * @author clazs
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Component
+public @interface RpcService {
+}
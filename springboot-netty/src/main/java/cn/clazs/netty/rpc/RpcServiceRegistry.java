@@ -0,0 +1,106 @@
+package cn.clazs.netty.rpc;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 服务方法表：方法键 -> RpcMethod
+ *
+ * 注册时为每个接口方法生成一个 MethodHandle，绑定服务实例并把参数展开为 Object[]，
+ * 调用时一次 HashMap 查找 + 一次 invokeExact
+ *
+ * @author clazs
+ */
+@Slf4j
+public class RpcServiceRegistry {
+
+    private final Map<String, RpcMethod> methods = new ConcurrentHashMap<>();
+    private final TypeFactory typeFactory;
+
+    public RpcServiceRegistry(TypeFactory typeFactory) {
+        this.typeFactory = typeFactory;
+    }
+
+    public static String methodKey(Class<?> serviceInterface, Method method) {
+        return methodKey(serviceInterface, method.getName());
+    }
+
+    public static String methodKey(Class<?> serviceInterface, String methodName) {
+        return serviceInterface.getName() + "#" + methodName;
+    }
+
+    /**
+     * 注册服务实例实现的所有业务接口（Spring 代理对象按目标类查找接口，跳过 JDK 和 Spring 自身的接口）
+     */
+    public void register(Object service) {
+        for (Class<?> serviceInterface : ClassUtils.getAllInterfacesForClassAsSet(AopUtils.getTargetClass(service))) {
+            String name = serviceInterface.getName();
+            if (!name.startsWith("java.") && !name.startsWith("org.springframework.")) {
+                register(serviceInterface, service);
+            }
+        }
+    }
+
+    public void register(Class<?> serviceInterface, Object service) {
+        if (!serviceInterface.isInterface() || !serviceInterface.isInstance(service)) {
+            throw new IllegalArgumentException(service.getClass().getName() + " 没有实现接口 " + serviceInterface.getName());
+        }
+        for (Method method : serviceInterface.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            String key = methodKey(serviceInterface, method);
+            RpcMethod rpcMethod = new RpcMethod(key, invoker(method, service),
+                    parameterTypes(method), CompletionStage.class.isAssignableFrom(method.getReturnType()));
+            if (methods.putIfAbsent(key, rpcMethod) != null) {
+                throw new IllegalArgumentException("RPC 方法重复（不支持重载）: " + key);
+            }
+            log.debug("注册 RPC 方法: {}", key);
+        }
+    }
+
+    RpcMethod lookup(String key) {
+        return methods.get(key);
+    }
+
+    public int size() {
+        return methods.size();
+    }
+
+    private static MethodHandle invoker(Method method, Object service) {
+        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            method.setAccessible(true);
+        }
+        try {
+            int parameterCount = method.getParameterCount();
+            return MethodHandles.lookup().unreflect(method)
+                    .bindTo(service)
+                    .asType(MethodType.genericMethodType(parameterCount))
+                    .asSpreader(Object[].class, parameterCount);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("无法访问 RPC 方法: " + method, e);
+        }
+    }
+
+    private JavaType[] parameterTypes(Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        JavaType[] javaTypes = new JavaType[types.length];
+        for (int i = 0; i < types.length; i++) {
+            javaTypes[i] = typeFactory.constructType(types[i]);
+        }
+        return javaTypes;
+    }
+}
@@ -0,0 +1,67 @@
+package cn.clazs.netty.rpc;
+
+import cn.clazs.netty.tcp.TcpFraming;
+import cn.clazs.netty.tcp.TcpServerHandler;
+import cn.clazs.netty.transport.Transport;
+import cn.clazs.netty.transport.TransportFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.NonStickyEventExecutorGroup;
+import io.netty.util.concurrent.UnorderedThreadPoolEventExecutor;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不启动 Spring 的 RPC 服务端，供 RpcDemo / RpcBenchmark 使用
+ *
+ * pipeline 与 TcpServer 在 netty.tcp.framing=binary、offload=true 时相同
+ *
+ * @author clazs
+ */
+class StandaloneRpcServer implements Closeable {
+
+    private final EventLoopGroup boss;
+    private final EventLoopGroup workers;
+    private final EventExecutorGroup business;
+    private final Channel channel;
+
+    StandaloneRpcServer(RpcServiceRegistry registry, int workerThreads, int businessThreads) throws InterruptedException {
+        Transport transport = TransportFactory.select("auto");
+        boss = transport.newGroup(1);
+        workers = transport.newGroup(workerThreads);
+        business = new NonStickyEventExecutorGroup(new UnorderedThreadPoolEventExecutor(businessThreads));
+        TcpServerHandler handler = new TcpServerHandler(new RpcServerHandler(registry, new ObjectMapper()));
+        channel = new ServerBootstrap()
+                .group(boss, workers)
+                .channel(transport.serverSocketChannel())
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        TcpFraming.BINARY.configure(ch.pipeline(), 1 << 20);
+                        ch.pipeline().addLast(business, "handler", handler);
+                    }
+                })
+                .bind(0).sync().channel();
+    }
+
+    int port() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        workers.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        boss.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        business.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+}
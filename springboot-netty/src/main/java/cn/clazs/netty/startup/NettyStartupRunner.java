@@ -0,0 +1,60 @@
+package cn.clazs.netty.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在 Spring 容器刷新完成时并行启动所有 StartupTask 类型的 Bean（TCP / WebSocket / HTTP 服务器等）
+ *
+ * 之前每个服务器在自己的 @PostConstruct 中同步 bind，Bean 逐个创建，启动时间是各服务器之和；
+ * 现在 Bean 创建阶段只注入配置，真正的启动交给编排器，总启动时间取决于关键路径
+ *
+ * 任一任务失败或超时，start() 抛出 StartupException，Spring 容器刷新失败（快速失败），
+ * 已经启动的服务器由各自的 @PreDestroy 关闭
+ *
+ * @author clazs
+ */
+@Slf4j
+@Component
+public class NettyStartupRunner implements SmartLifecycle {
+
+    private final List<StartupTask> tasks;
+
+    @Value("${netty.startup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${netty.startup.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    private volatile boolean running;
+
+    public NettyStartupRunner(List<StartupTask> tasks) {
+        this.tasks = tasks;
+    }
+
+    @Override
+    public void start() {
+        StartupOrchestrator orchestrator = new StartupOrchestrator(parallelism);
+        for (StartupTask task : tasks) {
+            orchestrator.add(task);
+        }
+        StartupReport report = orchestrator.run(timeoutSeconds, TimeUnit.SECONDS);
+        running = true;
+        log.info("Netty服务器启动完成（并行度 {}）\n{}", parallelism, report);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
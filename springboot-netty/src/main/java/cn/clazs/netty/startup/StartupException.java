@@ -0,0 +1,29 @@
+package cn.clazs.netty.startup;
+
+/**
+ * 启动失败（某个任务抛出异常、超时或依赖图非法）
+ *
+ * @author clazs
+ */
+public class StartupException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String taskName;
+
+    public StartupException(String taskName, String message, Throwable cause) {
+        super(message, cause);
+        this.taskName = taskName;
+    }
+
+    public StartupException(String message) {
+        this(null, message, null);
+    }
+
+    /**
+     * 导致失败的任务，依赖图非法时为 null
+     */
+    public String getTaskName() {
+        return taskName;
+    }
+}
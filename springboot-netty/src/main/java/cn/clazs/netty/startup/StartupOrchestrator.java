@@ -0,0 +1,286 @@
+package cn.clazs.netty.startup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 依赖感知的并行启动编排器
+ *
+ * 与 CountDownLatch 分阶段初始化的区别：
+ * - 分阶段：阶段 2 必须等阶段 1 的所有任务完成，哪怕它只依赖其中一个
+ * - 依赖图：每个任务只等自己的依赖，依赖完成立即提交，互不相关的任务并行执行
+ *
+ * 执行过程：
+ * 1. 校验依赖图（依赖不存在、循环依赖直接抛 StartupException）
+ * 2. 入度为 0 的任务提交到固定大小的线程池
+ * 3. 任务完成时给依赖它的任务入度减 1，减到 0 的提交执行（最后一个完成的依赖就是它的"关键依赖"）
+ * 4. 任一任务失败或整体超时：shutdownNow 中断正在执行的任务、丢弃排队的任务，抛出 StartupException
+ *
+ * 每个任务记录 就绪/开始/结束 时间，沿"关键依赖"回溯得到关键路径，见 StartupReport
+ *
+ * @author clazs
+ */
+@Slf4j
+public class StartupOrchestrator {
+
+    /**
+     * 便于用 lambda 添加任务
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private final int parallelism;
+    private final Map<String, StartupTask> tasks = new LinkedHashMap<>();
+
+    public StartupOrchestrator(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism 必须大于 0: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public StartupOrchestrator add(StartupTask task) {
+        if (tasks.putIfAbsent(task.getName(), task) != null) {
+            throw new IllegalArgumentException("启动任务重复: " + task.getName());
+        }
+        return this;
+    }
+
+    public StartupOrchestrator add(String name, Action action, String... dependencies) {
+        List<String> deps = new ArrayList<>();
+        for (String dependency : dependencies) {
+            deps.add(dependency);
+        }
+        return add(new StartupTask() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Collection<String> getDependencies() {
+                return deps;
+            }
+
+            @Override
+            public void start() throws Exception {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * 执行所有任务，阻塞直到全部完成
+     *
+     * @throws StartupException 依赖图非法、任务失败、超时或调用线程被中断
+     */
+    public StartupReport run(long timeout, TimeUnit unit) {
+        Map<String, Node> nodes = buildGraph();
+        if (nodes.isEmpty()) {
+            return new StartupReport(new ArrayList<>(), new ArrayList<>(), 0);
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "startup-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Execution execution = new Execution(executor, nodes.size());
+
+        for (Node node : nodes.values()) {
+            if (node.pending.get() == 0) {
+                execution.submit(node);
+            }
+        }
+
+        try {
+            execution.completion.get(timeout, unit);
+        } catch (ExecutionException e) {
+            abort(executor, nodes);
+            throw (StartupException) e.getCause();
+        } catch (TimeoutException e) {
+            execution.completion.completeExceptionally(e);
+            abort(executor, nodes);
+            throw new StartupException(null, "启动超时（" + unit.toMillis(timeout) + "ms），未完成的任务: "
+                    + unfinished(nodes), null);
+        } catch (InterruptedException e) {
+            execution.completion.completeExceptionally(e);
+            abort(executor, nodes);
+            Thread.currentThread().interrupt();
+            throw new StartupException(null, "启动被中断，未完成的任务: " + unfinished(nodes), e);
+        }
+        executor.shutdown();
+        return buildReport(nodes, execution.origin);
+    }
+
+    private Map<String, Node> buildGraph() {
+        Map<String, Node> nodes = new LinkedHashMap<>();
+        for (StartupTask task : tasks.values()) {
+            nodes.put(task.getName(), new Node(task));
+        }
+        for (Node node : nodes.values()) {
+            for (String dependency : node.task.getDependencies()) {
+                Node upstream = nodes.get(dependency);
+                if (upstream == null) {
+                    throw new StartupException(node.task.getName(),
+                            "任务 " + node.task.getName() + " 依赖的 " + dependency + " 不存在", null);
+                }
+                upstream.dependents.add(node);
+                node.pending.incrementAndGet();
+            }
+        }
+
+        // Kahn 算法检测循环依赖
+        Map<Node, Integer> inDegree = new LinkedHashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            inDegree.put(node, node.pending.get());
+            if (node.pending.get() == 0) {
+                ready.add(node);
+            }
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            visited++;
+            for (Node dependent : node.dependents) {
+                if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (visited != nodes.size()) {
+            String cycle = inDegree.entrySet().stream()
+                    .filter(e -> e.getValue() > 0)
+                    .map(e -> e.getKey().task.getName())
+                    .collect(Collectors.joining(", "));
+            throw new StartupException("存在循环依赖: " + cycle);
+        }
+        return nodes;
+    }
+
+    private void abort(ThreadPoolExecutor executor, Map<String, Node> nodes) {
+        // 中断正在执行的任务，丢弃排队中的任务
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("启动任务未响应中断: {}", unfinished(nodes));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String unfinished(Map<String, Node> nodes) {
+        return nodes.values().stream()
+                .filter(n -> n.endAt == 0)
+                .map(n -> n.task.getName() + (n.startAt == 0 ? "(未开始)" : "(执行中)"))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static StartupReport buildReport(Map<String, Node> nodes, long origin) {
+        List<StartupReport.TaskTiming> timings = new ArrayList<>();
+        Node last = null;
+        for (Node node : nodes.values()) {
+            timings.add(node.toTiming(origin));
+            if (last == null || node.endAt > last.endAt) {
+                last = node;
+            }
+        }
+        List<StartupReport.TaskTiming> criticalPath = new ArrayList<>();
+        for (Node node = last; node != null; node = node.gate) {
+            criticalPath.add(0, node.toTiming(origin));
+        }
+        return new StartupReport(timings, criticalPath, last.endAt - origin);
+    }
+
+    /**
+     * 一次执行的共享状态
+     */
+    private static final class Execution {
+        final ThreadPoolExecutor executor;
+        final AtomicInteger remaining;
+        final CompletableFuture<Void> completion = new CompletableFuture<>();
+        final long origin = System.nanoTime();
+
+        Execution(ThreadPoolExecutor executor, int taskCount) {
+            this.executor = executor;
+            this.remaining = new AtomicInteger(taskCount);
+        }
+
+        void submit(Node node) {
+            node.readyAt = System.nanoTime();
+            try {
+                executor.execute(() -> execute(node));
+            } catch (RejectedExecutionException e) {
+                // 已经失败，线程池被关闭
+            }
+        }
+
+        void execute(Node node) {
+            if (completion.isDone()) {
+                return;
+            }
+            node.startAt = System.nanoTime();
+            try {
+                node.task.start();
+            } catch (Throwable t) {
+                node.endAt = System.nanoTime();
+                completion.completeExceptionally(new StartupException(node.task.getName(),
+                        "启动任务失败: " + node.task.getName(), t));
+                return;
+            }
+            node.endAt = System.nanoTime();
+            for (Node dependent : node.dependents) {
+                if (dependent.pending.decrementAndGet() == 0) {
+                    dependent.gate = node;
+                    submit(dependent);
+                }
+            }
+            if (remaining.decrementAndGet() == 0) {
+                completion.complete(null);
+            }
+        }
+    }
+
+    private static final class Node {
+        final StartupTask task;
+        final List<Node> dependents = new ArrayList<>();
+        final AtomicInteger pending = new AtomicInteger();
+
+        volatile long readyAt;
+        volatile long startAt;
+        volatile long endAt;
+        // 最后一个完成的依赖，关键路径沿它回溯
+        volatile Node gate;
+
+        Node(StartupTask task) {
+            this.task = task;
+        }
+
+        StartupReport.TaskTiming toTiming(long origin) {
+            return new StartupReport.TaskTiming(task.getName(), gate == null ? null : gate.task.getName(),
+                    readyAt - origin, startAt - origin, endAt - origin);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package cn.clazs.netty.startup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动编排演示
+ *
+ * 场景与 CountDownLatchDemo.demoMultiPhaseInitialization 相同（加载配置 -> 初始化组件 -> 启动服务），
+ * 但用依赖图代替"阶段"：缓存只依赖 Redis 配置，不需要等数据库配置加载完成
+ *
+ *   dbConfig(500) ──→ dataSource(800) ──┐
+ *                                       ├──→ httpServer(200)
+ *   redisConfig(300) ──→ cache(400) ────┤
+ *                                       └──→ tcpServer(100)
+ *   mqClient(600) ─────────────────────────→ tcpServer
+ *
+ * @author clazs
+ */
+public class StartupOrchestratorDemo {
+
+    public static void main(String[] args) {
+        System.out.println("========== 启动编排演示 ==========\n");
+
+        System.out.println("【演示 1】按依赖并行启动");
+        StartupReport report = newOrchestrator(4).run(10, TimeUnit.SECONDS);
+        System.out.println(report);
+
+        System.out.println("\n【演示 2】线程池只有 1 个线程：退化为串行，关键路径上出现排队时间");
+        System.out.println(newOrchestrator(1).run(10, TimeUnit.SECONDS));
+
+        System.out.println("\n【演示 3】快速失败：redisConfig 失败，正在执行的任务被中断，后续任务不再执行");
+        StartupOrchestrator failing = new StartupOrchestrator(4)
+                .add("dbConfig", () -> work("dbConfig", 2000))
+                .add("redisConfig", () -> {
+                    work("redisConfig", 300);
+                    throw new IllegalStateException("Redis 连接被拒绝");
+                })
+                .add("cache", () -> work("cache", 400), "redisConfig");
+        long start = System.nanoTime();
+        try {
+            failing.run(10, TimeUnit.SECONDS);
+        } catch (StartupException e) {
+            System.out.println("启动失败（" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms）: "
+                    + e.getMessage() + "，原因: " + e.getCause().getMessage());
+        }
+
+        System.out.println("\n【演示 4】循环依赖在执行前就被发现");
+        try {
+            new StartupOrchestrator(2)
+                    .add("a", () -> { }, "b")
+                    .add("b", () -> { }, "a")
+                    .run(1, TimeUnit.SECONDS);
+        } catch (StartupException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static StartupOrchestrator newOrchestrator(int parallelism) {
+        return new StartupOrchestrator(parallelism)
+                .add("dbConfig", () -> work("dbConfig", 500))
+                .add("redisConfig", () -> work("redisConfig", 300))
+                .add("mqClient", () -> work("mqClient", 600))
+                .add("dataSource", () -> work("dataSource", 800), "dbConfig")
+                .add("cache", () -> work("cache", 400), "redisConfig")
+                .add("httpServer", () -> work("httpServer", 200), "dataSource", "cache")
+                .add("tcpServer", () -> work("tcpServer", 100), "cache", "mqClient");
+    }
+
+    private static void work(String name, long millis) throws InterruptedException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            System.out.println("  - " + name + " 被中断");
+            throw e;
+        }
+        System.out.println("  - " + name + " 完成 [" + Thread.currentThread().getName() + "]");
+    }
+}
@@ -0,0 +1,121 @@
+package cn.clazs.netty.startup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动耗时报告
+ *
+ * - 每个任务：就绪时刻（依赖全部完成）、开始时刻、结束时刻，都是相对编排开始的偏移
+ *   · 排队时间 = 开始 - 就绪，持续偏大说明线程池 parallelism 不够
+ * - 关键路径：从最后完成的任务沿"最后完成的依赖"回溯，决定了总启动时间，
+ *   缩短启动时间只有优化关键路径上的任务才有效
+ *
+ * @author clazs
+ */
+public class StartupReport {
+
+    private final List<TaskTiming> tasks;
+    private final List<TaskTiming> criticalPath;
+    private final long wallNanos;
+
+    StartupReport(List<TaskTiming> tasks, List<TaskTiming> criticalPath, long wallNanos) {
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.criticalPath = Collections.unmodifiableList(criticalPath);
+        this.wallNanos = wallNanos;
+    }
+
+    public List<TaskTiming> getTasks() {
+        return tasks;
+    }
+
+    public List<TaskTiming> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getWallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(wallNanos);
+    }
+
+    /**
+     * 串行执行所需时间（所有任务耗时之和）
+     */
+    public long getSerialMillis() {
+        long sum = 0;
+        for (TaskTiming task : tasks) {
+            sum += task.getDurationNanos();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(sum);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-20s %10s %10s %10s %10s%n", "task", "ready(ms)", "start(ms)", "queue(ms)", "cost(ms)"));
+        for (TaskTiming task : tasks) {
+            sb.append(String.format("%-20s %10.1f %10.1f %10.1f %10.1f%n", task.getName(),
+                    task.readyNanos / 1e6, task.startNanos / 1e6,
+                    task.getQueueNanos() / 1e6, task.getDurationNanos() / 1e6));
+        }
+        sb.append("关键路径: ");
+        for (int i = 0; i < criticalPath.size(); i++) {
+            TaskTiming task = criticalPath.get(i);
+            if (i > 0) {
+                sb.append(" -> ");
+            }
+            sb.append(String.format("%s(%.1fms", task.getName(), task.getDurationNanos() / 1e6));
+            if (task.getQueueNanos() >= TimeUnit.MILLISECONDS.toNanos(1)) {
+                sb.append(String.format(", 排队 %.1fms", task.getQueueNanos() / 1e6));
+            }
+            sb.append(')');
+        }
+        long serial = getSerialMillis();
+        long wall = getWallMillis();
+        sb.append(String.format("%n总耗时: %dms，串行需要: %dms，加速比: %.2fx",
+                wall, serial, wall == 0 ? 1.0 : (double) serial / wall));
+        return sb.toString();
+    }
+
+    /**
+     * 单个任务的耗时，时间都是相对编排开始的纳秒偏移
+     */
+    public static class TaskTiming {
+        private final String name;
+        private final String gatedBy;
+        private final long readyNanos;
+        private final long startNanos;
+        private final long endNanos;
+
+        TaskTiming(String name, String gatedBy, long readyNanos, long startNanos, long endNanos) {
+            this.name = name;
+            this.gatedBy = gatedBy;
+            this.readyNanos = readyNanos;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 最后完成的依赖（即决定本任务何时就绪的依赖），没有依赖时为 null
+         */
+        public String getGatedBy() {
+            return gatedBy;
+        }
+
+        public long getQueueNanos() {
+            return startNanos - readyNanos;
+        }
+
+        public long getDurationNanos() {
+            return endNanos - startNanos;
+        }
+
+        public long getEndNanos() {
+            return endNanos;
+        }
+    }
+}
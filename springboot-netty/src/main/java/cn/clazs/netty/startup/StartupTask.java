@@ -0,0 +1,29 @@
+package cn.clazs.netty.startup;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 启动任务：由 StartupOrchestrator 按依赖关系并行执行
+ *
+ * start() 应当是阻塞的：返回即表示该组件已就绪（例如端口已绑定），
+ * 抛出异常会让整个启动快速失败，正在执行的任务会被中断
+ *
+ * @author clazs
+ */
+public interface StartupTask {
+
+    /**
+     * 任务名称，在同一个编排器内唯一，也是被其他任务依赖时使用的名字
+     */
+    String getName();
+
+    /**
+     * 依赖的任务名称，这些任务全部完成后才会开始执行本任务
+     */
+    default Collection<String> getDependencies() {
+        return Collections.emptyList();
+    }
+
+    void start() throws Exception;
+}
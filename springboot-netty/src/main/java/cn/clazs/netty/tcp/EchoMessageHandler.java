@@ -0,0 +1,17 @@
+package cn.clazs.netty.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+/**
+ * 默认的 TCP 业务处理：原样回显（与之前 TcpServerHandler 的行为相同）
+ *
+ * @author clazs
+ */
+public class EchoMessageHandler implements TcpMessageHandler {
+
+    @Override
+    public ByteBuf handle(Channel channel, ByteBuf frame) {
+        return frame.retain();
+    }
+}
@@ -0,0 +1,81 @@
+package cn.clazs.netty.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
+
+/**
+ * TCP 分帧方式（netty.tcp.framing）
+ *
+ * - LINE:   按 \n（或 \r\n）分行，入站去掉换行符，出站补上 \n。telnet / nc 可以直接测试
+ * - LENGTH: 4 字节大端长度前缀 + 内容，入站去掉长度字段，出站自动加上
+ * - BINARY: 自定义二进制帧（与 jdk 模块 protocol.frame 的帧格式相同：
+ *           magic 4B | version 1B | serializer 1B | type 1B | sequence 4B | length 4B | payload），
+ *           入站保留帧头交给处理器解析，出站由处理器写出完整的帧
+ *
+ * @author clazs
+ */
+public enum TcpFraming {
+
+    LINE {
+        @Override
+        public void configure(ChannelPipeline pipeline, int maxFrameLength) {
+            pipeline.addLast("frameDecoder", new LineBasedFrameDecoder(maxFrameLength));
+            pipeline.addLast("frameEncoder", LineAppender.INSTANCE);
+        }
+    },
+
+    LENGTH {
+        @Override
+        public void configure(ChannelPipeline pipeline, int maxFrameLength) {
+            pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(maxFrameLength, 0, 4, 0, 4));
+            pipeline.addLast("frameEncoder", LENGTH_PREPENDER);
+        }
+    },
+
+    BINARY {
+        @Override
+        public void configure(ChannelPipeline pipeline, int maxFrameLength) {
+            pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(maxFrameLength,
+                    BINARY_LENGTH_FIELD_OFFSET, 4, 0, 0));
+        }
+    };
+
+    /**
+     * BINARY 帧头中长度字段的偏移：magic(4) + version(1) + serializer(1) + type(1) + sequence(4)
+     */
+    public static final int BINARY_LENGTH_FIELD_OFFSET = 11;
+
+    private static final LengthFieldPrepender LENGTH_PREPENDER = new LengthFieldPrepender(4);
+
+    /**
+     * 在 pipeline 末尾加上分帧解码器和对应的编码器
+     */
+    public abstract void configure(ChannelPipeline pipeline, int maxFrameLength);
+
+    /**
+     * 出站补换行符：不拷贝消息内容，把消息和一个共享的 "\n" 依次写出
+     */
+    @ChannelHandler.Sharable
+    static final class LineAppender extends MessageToMessageEncoder<ByteBuf> {
+
+        static final LineAppender INSTANCE = new LineAppender();
+
+        private static final ByteBuf NEWLINE = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer(1).writeByte('\n')).asReadOnly();
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+            out.add(msg.retain());
+            out.add(NEWLINE.duplicate());
+        }
+    }
+}
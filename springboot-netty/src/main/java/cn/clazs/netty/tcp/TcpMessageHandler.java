@@ -0,0 +1,24 @@
+package cn.clazs.netty.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+/**
+ * TCP 业务处理 SPI：注册一个该类型的 Spring Bean 即可替换默认的回显（EchoMessageHandler）
+ *
+ * - 每次调用收到的是分帧后的一条完整消息（见 TcpFraming），不用再处理半包、粘包
+ * - 默认在业务线程组中调用（netty.tcp.offload=true），可以阻塞，不会影响其他连接的读写；
+ *   同一连接的消息严格按到达顺序串行处理，不同连接之间并行
+ * - 实现必须线程安全（所有连接共享一个实例）
+ *
+ * @author clazs
+ */
+public interface TcpMessageHandler {
+
+    /**
+     * @param channel 消息所属的连接，可用于分配缓冲区（channel.alloc()）或异步推送
+     * @param frame   一条消息，方法返回后由框架释放；需要在方法外使用时自行 retain
+     * @return 回复的消息（交给框架写出，所有权随之转移），null 表示不回复
+     */
+    ByteBuf handle(Channel channel, ByteBuf frame) throws Exception;
+}
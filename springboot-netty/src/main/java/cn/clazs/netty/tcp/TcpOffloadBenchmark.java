@@ -0,0 +1,236 @@
+package cn.clazs.netty.tcp;
+
+import cn.clazs.netty.transport.Transport;
+import cn.clazs.netty.transport.TransportFactory;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.NonStickyEventExecutorGroup;
+import io.netty.util.concurrent.UnorderedThreadPoolEventExecutor;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢处理器对其他客户端的影响：业务处理放在 I/O 线程 / 固定绑定的业务线程 / 非固定绑定的业务线程
+ *
+ * - 服务端与 TcpServer 相同的 pipeline：LINE 分帧 + TcpServerHandler，worker 组只有 1 个线程，
+ *   所有连接都挂在同一个 I/O 线程上
+ * - 处理器收到 "slow" 时 sleep slowMillis 毫秒模拟阻塞调用（查库、远程调用），其他内容直接回显
+ * - 慢客户端不停地发 "slow"，快客户端不停地发 "ping"（每个连接同一时刻只有一个请求在途），
+ *   只统计快客户端的吞吐量和延迟
+ *
+ * 三种模式：
+ * - io:         不指定业务线程组，处理器在 I/O 线程执行，一次 sleep 卡住所有连接
+ * - sticky:     DefaultEventExecutorGroup，每个连接固定绑定一个业务线程；
+ *               和慢连接绑到同一个线程的快连接仍然要排队
+ * - non-sticky: NonStickyEventExecutorGroup（EventLoopResources 的做法），同一连接仍按顺序执行，
+ *               但不绑定线程，只有慢连接自己在等
+ *
+ * 运行：直接执行 main 方法，参数 [快客户端数] [慢客户端数] [slowMillis] [秒数] [业务线程数]，默认 16 1 50 5 4
+ *
+ * @author clazs
+ */
+public class TcpOffloadBenchmark {
+
+    private static final String SLOW = "slow";
+
+    /**
+     * 收到 "slow" 时阻塞，其他内容回显
+     */
+    private static final class SleepyHandler implements TcpMessageHandler {
+
+        private final long slowMillis;
+
+        SleepyHandler(long slowMillis) {
+            this.slowMillis = slowMillis;
+        }
+
+        @Override
+        public ByteBuf handle(Channel channel, ByteBuf frame) throws Exception {
+            if (frame.readableBytes() == SLOW.length() && SLOW.equals(frame.toString(CharsetUtil.US_ASCII))) {
+                Thread.sleep(slowMillis);
+            }
+            return frame.retain();
+        }
+    }
+
+    /**
+     * 闭环客户端：收到回复后立即发下一条，记录 measureStart 之后完成的请求延迟
+     * 所有回调都在连接自己的 I/O 线程执行，latencies 不需要同步
+     */
+    private static final class ClosedLoopClient extends SimpleChannelInboundHandler<ByteBuf> {
+
+        private final ByteBuf request;
+        private final long measureStart;
+        private final long measureEnd;
+        private final CountDownLatch done;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long sentAt;
+
+        ClosedLoopClient(String message, long measureStart, long measureEnd, CountDownLatch done) {
+            this.request = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(message + "\n", CharsetUtil.US_ASCII));
+            this.measureStart = measureStart;
+            this.measureEnd = measureEnd;
+            this.done = done;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            send(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf response) {
+            long now = System.nanoTime();
+            if (sentAt >= measureStart) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = now - sentAt;
+            }
+            if (now < measureEnd) {
+                send(ctx);
+            } else {
+                ctx.close();
+                done.countDown();
+            }
+        }
+
+        private void send(ChannelHandlerContext ctx) {
+            sentAt = System.nanoTime();
+            ctx.writeAndFlush(request.duplicate());
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+            done.countDown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int fastClients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int slowClients = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long slowMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int businessThreads = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        Transport transport = TransportFactory.select("auto");
+
+        System.out.printf("transport=%s 快客户端=%d 慢客户端=%d slow=%dms 时长=%ds 业务线程=%d%n%n",
+                transport, fastClients, slowClients, slowMillis, seconds, businessThreads);
+
+        StringBuilder summary = new StringBuilder();
+        for (String mode : new String[]{"io", "sticky", "non-sticky"}) {
+            String line = run(transport, mode, fastClients, slowClients, slowMillis, seconds, businessThreads);
+            System.out.println(line);
+            summary.append(line).append('\n');
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+
+    private static EventExecutorGroup newBusinessGroup(String mode, int threads) {
+        switch (mode) {
+            case "io":
+                return null;
+            case "sticky":
+                return new DefaultEventExecutorGroup(threads);
+            default:
+                return new NonStickyEventExecutorGroup(new UnorderedThreadPoolEventExecutor(threads));
+        }
+    }
+
+    private static String run(Transport transport, String mode, int fastClients, int slowClients, long slowMillis,
+                              int seconds, int businessThreads) throws Exception {
+        EventLoopGroup boss = transport.newGroup(1);
+        EventLoopGroup workers = transport.newGroup(1);
+        EventLoopGroup clientGroup = transport.newGroup(0);
+        EventExecutorGroup business = newBusinessGroup(mode, businessThreads);
+        try {
+            TcpServerHandler serverHandler = new TcpServerHandler(new SleepyHandler(slowMillis));
+            Channel server = new ServerBootstrap()
+                    .group(boss, workers)
+                    .channel(transport.serverSocketChannel())
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            TcpFraming.LINE.configure(ch.pipeline(), 1024);
+                            ch.pipeline().addLast(business, "handler", serverHandler);
+                        }
+                    })
+                    .bind(0).sync().channel();
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1",
+                    ((InetSocketAddress) server.localAddress()).getPort());
+
+            // 第 1 秒预热，不计入统计
+            long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(seconds);
+            CountDownLatch done = new CountDownLatch(fastClients + slowClients);
+            List<ClosedLoopClient> fast = new ArrayList<>();
+            for (int i = 0; i < slowClients + fastClients; i++) {
+                ClosedLoopClient client = new ClosedLoopClient(i < slowClients ? SLOW : "ping",
+                        measureStart, measureEnd, done);
+                if (i >= slowClients) {
+                    fast.add(client);
+                }
+                new Bootstrap()
+                        .group(clientGroup)
+                        .channel(transport.socketChannel())
+                        .option(ChannelOption.TCP_NODELAY, true)
+                        .handler(new ChannelInitializer<SocketChannel>() {
+                            @Override
+                            protected void initChannel(SocketChannel ch) {
+                                ch.pipeline().addLast(new LineBasedFrameDecoder(1024), client);
+                            }
+                        })
+                        .connect(address).sync();
+            }
+            // 慢请求最多再阻塞一次
+            done.await(seconds + 1 + slowMillis / 1000 + 5, TimeUnit.SECONDS);
+            server.close().sync();
+
+            long[] sorted = fast.stream()
+                    .flatMapToLong(c -> Arrays.stream(c.latencies, 0, c.count))
+                    .sorted().toArray();
+            return String.format("%-10s 快客户端 %,9.0f req/s  p50=%8.0fus p99=%8.0fus p99.9=%8.0fus max=%8.0fus",
+                    mode, sorted.length / (double) seconds,
+                    percentile(sorted, 50) / 1000.0, percentile(sorted, 99) / 1000.0,
+                    percentile(sorted, 99.9) / 1000.0, percentile(sorted, 100) / 1000.0);
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            workers.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            boss.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            if (business != null) {
+                business.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
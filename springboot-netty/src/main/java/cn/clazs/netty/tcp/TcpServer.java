@@ -1,17 +1,19 @@
 package cn.clazs.netty.tcp;
 
+import cn.clazs.netty.startup.StartupTask;
+import cn.clazs.netty.transport.EventLoopResources;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Netty TCP服务器
@@ -27,45 +29,73 @@ import javax.annotation.PreDestroy;
 @Slf4j
 @Component
 @ConditionalOnProperty(name = "netty.tcp.enabled", havingValue = "true", matchIfMissing = true)
-public class TcpServer {
+public class TcpServer implements StartupTask {
 
     @Value("${netty.tcp.port:9001}")
     private int port;
 
-    private EventLoopGroup bossGroup;
-    private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    @Value("${netty.tcp.framing:line}")
+    private TcpFraming framing;
+
+    @Value("${netty.tcp.max-frame-length:65536}")
+    private int maxFrameLength;
 
     /**
-     * Spring Boot启动后自动启动TCP服务器
+     * true: 业务处理在 EventLoopResources 的业务线程组中执行；false: 直接在 I/O 线程中执行（只适合不阻塞的处理器）
      */
-    @PostConstruct
-    public void start() {
-        // bossGroup: 接收客户端连接
-        // workerGroup: 处理客户端连接的I/O操作
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
+    @Value("${netty.tcp.offload:true}")
+    private boolean offload;
+
+    private final EventLoopResources eventLoops;
+    private final TcpServerHandler serverHandler;
+
+    private List<Channel> serverChannels = Collections.emptyList();
+
+    /**
+     * @param messageHandler 容器中的 TcpMessageHandler，没有时使用回显
+     */
+    public TcpServer(EventLoopResources eventLoops, ObjectProvider<TcpMessageHandler> messageHandler) {
+        this.eventLoops = eventLoops;
+        this.serverHandler = new TcpServerHandler(messageHandler.getIfAvailable(EchoMessageHandler::new));
+    }
 
+    @Override
+    public String getName() {
+        return "tcpServer";
+    }
+
+    /**
+     * 由 NettyStartupRunner 在容器启动时与其他服务器并行调用
+     */
+    @Override
+    public void start() throws Exception {
         try {
-            ServerBootstrap bootstrap = new ServerBootstrap();
-            bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
-                    .option(ChannelOption.SO_BACKLOG, 128)  // 连接队列大小
+            // boss / worker 组由 EventLoopResources 统一管理，所有服务器共享
+            ServerBootstrap bootstrap = eventLoops.serverBootstrap();
+            bootstrap.option(ChannelOption.SO_BACKLOG, 128)  // 连接队列大小
                     .childOption(ChannelOption.SO_KEEPALIVE, true)  // 保持连接
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) {
-                            ch.pipeline().addLast(new TcpServerHandler());
+                            ChannelPipeline pipeline = ch.pipeline();
+                            // 分帧（I/O 线程）
+                            framing.configure(pipeline, maxFrameLength);
+                            // 业务处理（业务线程组，同一连接按顺序执行）
+                            if (offload) {
+                                pipeline.addLast(eventLoops.getBusinessGroup(), "handler", serverHandler);
+                            } else {
+                                pipeline.addLast("handler", serverHandler);
+                            }
                         }
                     });
 
             // 绑定端口并启动服务器
-            ChannelFuture future = bootstrap.bind(port).sync();
-            serverChannel = future.channel();
+            serverChannels = eventLoops.bind(bootstrap, port);
 
             log.info("========================================");
             log.info("Netty TCP服务器启动成功！");
-            log.info("监听端口: {}", port);
+            log.info("监听端口: {}（{} 个 acceptor）", port, serverChannels.size());
+            log.info("分帧: {}，业务处理: {}", framing, offload ? "业务线程组" : "I/O 线程");
             log.info("测试命令: telnet localhost {}", port);
             log.info("测试命令: nc localhost {}", port);
             log.info("========================================");
@@ -73,6 +103,7 @@ public class TcpServer {
         } catch (Exception e) {
             log.error("TCP服务器启动失败", e);
             shutdown();
+            throw e;
         }
     }
 
@@ -81,14 +112,8 @@ public class TcpServer {
      */
     @PreDestroy
     public void shutdown() {
-        if (serverChannel != null) {
-            serverChannel.close();
-        }
-        if (workerGroup != null) {
-            workerGroup.shutdownGracefully();
-        }
-        if (bossGroup != null) {
-            bossGroup.shutdownGracefully();
+        for (Channel channel : serverChannels) {
+            channel.close();
         }
         log.info("TCP服务器已关闭");
     }
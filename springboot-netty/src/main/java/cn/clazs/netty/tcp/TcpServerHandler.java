@@ -1,38 +1,44 @@
 package cn.clazs.netty.tcp;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.SimpleChannelInboundHandler;
 import lombok.extern.slf4j.Slf4j;
 
-import java.nio.charset.StandardCharsets;
-
 /**
  * Netty TCP服务器处理器
  *
- * 功能：实现Echo服务，将客户端发送的消息原样返回
+ * 功能：把分帧后的消息交给 TcpMessageHandler，写出它返回的回复
+ *
+ * 通常以 pipeline.addLast(业务线程组, handler) 的方式加入，本类的所有回调都在业务线程中执行：
+ * - 同一连接的回调按顺序串行执行，回复的顺序与请求一致
+ * - 业务处理阻塞时，I/O 线程照常读写其他连接
+ * - write 从业务线程发起，Netty 会把它提交回连接所在的 I/O 线程；
+ *   一批消息处理完后在 channelReadComplete 中统一 flush
+ *
+ * 没有状态，所有连接共享一个实例
  *
  * @author clazs
  */
 @Slf4j
-public class TcpServerHandler extends ChannelInboundHandlerAdapter {
+@ChannelHandler.Sharable
+public class TcpServerHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+    private final TcpMessageHandler messageHandler;
+
+    public TcpServerHandler(TcpMessageHandler messageHandler) {
+        this.messageHandler = messageHandler;
+    }
 
     /**
-     * 读取客户端发送的数据
+     * 处理一条消息，方法返回后 SimpleChannelInboundHandler 自动释放 frame
      */
     @Override
-    public void channelRead(ChannelHandlerContext ctx, Object msg) {
-        ByteBuf buf = (ByteBuf) msg;
-        try {
-            // 读取数据
-            String message = buf.toString(StandardCharsets.UTF_8);
-            log.info("TCP服务器收到消息: {} - 来自: {}", message, ctx.channel().remoteAddress());
-
-            // 将消息原样返回给客户端（Echo服务）
-            ctx.write(buf);
-        } finally {
-            // 释放缓冲区
-            buf.release();
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) throws Exception {
+        ByteBuf response = messageHandler.handle(ctx.channel(), frame);
+        if (response != null) {
+            ctx.write(response, ctx.voidPromise());
         }
     }
 
@@ -59,7 +65,7 @@ public class TcpServerHandler extends ChannelInboundHandlerAdapter {
      */
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
-        log.info("客户端已连接: {}", ctx.channel().remoteAddress());
+        log.debug("客户端已连接: {}", ctx.channel().remoteAddress());
     }
 
     /**
@@ -67,6 +73,6 @@ public class TcpServerHandler extends ChannelInboundHandlerAdapter {
      */
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
-        log.info("客户端已断开: {}", ctx.channel().remoteAddress());
+        log.debug("客户端已断开: {}", ctx.channel().remoteAddress());
     }
 }
@@ -0,0 +1,104 @@
+package cn.clazs.netty.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU 亲和性提示（尽力而为）
+ *
+ * Java 没有绑核 API，这里在 Linux 上通过 /proc/thread-self 取到当前线程的内核线程 ID，
+ * 再调用 taskset 把它绑到指定 CPU。非 Linux、没有 taskset、CPU 编号不存在时只打印日志，不影响运行
+ *
+ * 绑核能减少 EventLoop 线程在核之间迁移带来的缓存失效，代价是操作系统不能再把它调度到空闲的核上，
+ * 只适合线程数不超过可用核数、机器上没有其他重负载的情况
+ *
+ * 开销：taskset -p 一次只接受一个 tid，所以每个线程启动一个 taskset 子进程（fork + exec，通常几毫秒；
+ * 进程内第一次启动子进程还要初始化 JDK 的进程机制，可能到几百毫秒），
+ * 在线程自己启动时同步执行，会推迟它处理第一个任务。EventLoop 线程只在启动时绑一次，数量不超过核数，
+ * 这个一次性开销可以接受；不要对频繁创建的线程（如业务线程池）使用
+ *
+ * 只执行启动检查时找到的 taskset 绝对路径，不依赖 PATH
+ *
+ * @author clazs
+ */
+@Slf4j
+public final class CpuAffinity {
+
+    private static final Path THREAD_SELF = Paths.get("/proc/thread-self");
+    private static final String TASKSET = findTaskset();
+
+    private CpuAffinity() {
+    }
+
+    /**
+     * 把当前线程绑定到 cpu，成功返回 true
+     */
+    public static boolean pinCurrentThread(int cpu) {
+        if (TASKSET == null || !Files.exists(THREAD_SELF)) {
+            log.debug("当前系统不支持绑核，忽略: {} -> cpu{}", Thread.currentThread().getName(), cpu);
+            return false;
+        }
+        try {
+            // /proc/thread-self -> <pid>/task/<tid>
+            String link = Files.readSymbolicLink(THREAD_SELF).toString();
+            String tid = link.substring(link.lastIndexOf('/') + 1);
+            Process process = new ProcessBuilder(TASKSET, "-p", "-c", String.valueOf(cpu), tid)
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File("/dev/null"))
+                    .start();
+            if (process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0) {
+                log.debug("线程 {}（tid {}）已绑定到 cpu{}", Thread.currentThread().getName(), tid, cpu);
+                return true;
+            }
+            process.destroy();
+            log.warn("绑核失败: {} -> cpu{}", Thread.currentThread().getName(), cpu);
+        } catch (IOException e) {
+            log.warn("绑核失败: {} -> cpu{}: {}", Thread.currentThread().getName(), cpu, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private static String findTaskset() {
+        for (String candidate : new String[]{"/usr/bin/taskset", "/bin/taskset"}) {
+            if (new File(candidate).canExecute()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析 taskset 风格的 CPU 列表，例如 "0-3,6"；空字符串返回空列表
+     */
+    public static List<Integer> parseCpuList(String spec) {
+        if (spec == null || spec.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> cpus = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            part = part.trim();
+            int dash = part.indexOf('-');
+            if (dash < 0) {
+                cpus.add(Integer.parseInt(part));
+            } else {
+                int from = Integer.parseInt(part.substring(0, dash).trim());
+                int to = Integer.parseInt(part.substring(dash + 1).trim());
+                for (int cpu = from; cpu <= to; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        }
+        return cpus;
+    }
+}
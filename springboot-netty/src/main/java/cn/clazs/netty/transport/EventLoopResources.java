@@ -0,0 +1,139 @@
+package cn.clazs.netty.transport;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.NettyRuntime;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.NonStickyEventExecutorGroup;
+import io.netty.util.concurrent.UnorderedThreadPoolEventExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有 Netty 服务器共享的线程资源
+ *
+ * 之前 TCP / WebSocket / HTTP 三个服务器各建一个 boss 组和一个默认大小（CPU 核数 * 2）的 worker 组，
+ * 一个进程里有 3 * 2 * 核数个 I/O 线程争抢 CPU。现在统一由这个 Bean 创建：
+ * - boss 组：负责 accept，默认线程数 = acceptors（见 TransportFactory），三个服务器的监听 socket 轮流注册在上面
+ * - worker 组：负责所有连接的 I/O，默认线程数 = CPU 核数
+ * - 业务组：给会阻塞的处理器用，避免阻塞 I/O 线程：
+ *   pipeline.addLast(resources.getBusinessGroup(), new BlockingHandler())
+ *   使用 NonStickyEventExecutorGroup + UnorderedThreadPoolEventExecutor：
+ *   同一连接的事件仍按顺序串行执行，但连接不固定在某个线程上（DefaultEventExecutorGroup 会把连接固定到一个线程，
+ *   一个慢连接会拖住同一线程上的其他连接），任何空闲线程都可以接着处理其他连接
+ *
+ * 配置（application.yml）：
+ * <pre>
+ * netty:
+ *   event-loop:
+ *     boss-threads: 0          # 0 = acceptors
+ *     worker-threads: 0        # 0 = CPU 核数
+ *     business-threads: 16
+ *     io-ratio: 50             # I/O 与任务的时间比例，业务逻辑都在 worker 上跑时可以调低
+ *     thread-name-prefix: netty
+ *     worker-cpus: ""          # 绑核提示，例如 "2-5"；为空不绑核
+ * </pre>
+ *
+ * Bean 销毁时优雅关闭三个组。服务器依赖本 Bean，Spring 会先销毁服务器（关闭监听 socket），再关闭线程
+ *
+ * @author clazs
+ */
+@Slf4j
+@Component
+public class EventLoopResources {
+
+    private final TransportFactory transportFactory;
+
+    @Value("${netty.event-loop.boss-threads:0}")
+    private int bossThreads;
+
+    @Value("${netty.event-loop.worker-threads:0}")
+    private int workerThreads;
+
+    @Value("${netty.event-loop.business-threads:16}")
+    private int businessThreads;
+
+    @Value("${netty.event-loop.io-ratio:50}")
+    private int ioRatio;
+
+    @Value("${netty.event-loop.thread-name-prefix:netty}")
+    private String threadNamePrefix;
+
+    @Value("${netty.event-loop.worker-cpus:}")
+    private String workerCpus;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventExecutorGroup businessGroup;
+
+    public EventLoopResources(TransportFactory transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (bossThreads <= 0) {
+            bossThreads = transportFactory.getAcceptors();
+        }
+        if (workerThreads <= 0) {
+            workerThreads = NettyRuntime.availableProcessors();
+        }
+        List<Integer> cpus = CpuAffinity.parseCpuList(workerCpus);
+
+        bossGroup = transportFactory.newGroup(bossThreads,
+                new NettyThreadFactory(threadNamePrefix, "boss", Collections.emptyList()));
+        workerGroup = transportFactory.newGroup(workerThreads,
+                new NettyThreadFactory(threadNamePrefix, "worker", cpus));
+        businessGroup = new NonStickyEventExecutorGroup(new UnorderedThreadPoolEventExecutor(businessThreads,
+                new NettyThreadFactory(threadNamePrefix, "biz", Collections.emptyList())));
+
+        if (ioRatio != 50 && !transportFactory.getTransport().setIoRatio(workerGroup, ioRatio)) {
+            log.warn("{} 不支持设置 ioRatio，忽略 {}", transportFactory.getTransport(), ioRatio);
+        }
+        log.info("Netty 线程资源: boss={} worker={} business={} ioRatio={} workerCpus={}",
+                bossThreads, workerThreads, businessThreads, ioRatio, cpus.isEmpty() ? "不绑核" : cpus);
+    }
+
+    /**
+     * 已设置共享的 boss / worker 组、Channel 类型和原生传输层选项
+     */
+    public ServerBootstrap serverBootstrap() {
+        return transportFactory.serverBootstrap(bossGroup, workerGroup);
+    }
+
+    /**
+     * 按配置的 acceptors 数绑定端口
+     */
+    public List<Channel> bind(ServerBootstrap bootstrap, int port) throws InterruptedException {
+        return transportFactory.bind(bootstrap, port);
+    }
+
+    public EventLoopGroup getBossGroup() {
+        return bossGroup;
+    }
+
+    public EventLoopGroup getWorkerGroup() {
+        return workerGroup;
+    }
+
+    public EventExecutorGroup getBusinessGroup() {
+        return businessGroup;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 先停业务线程（不再产生新的写操作），再停 I/O 线程
+        businessGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully().syncUninterruptibly();
+        log.info("Netty 线程资源已释放");
+    }
+}
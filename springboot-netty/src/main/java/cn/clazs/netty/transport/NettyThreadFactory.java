@@ -0,0 +1,44 @@
+package cn.clazs.netty.transport;
+
+import io.netty.util.concurrent.FastThreadLocalThread;
+
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EventLoop / 业务线程工厂
+ *
+ * - 线程名 {prefix}-{role}-{序号}，线程转储和日志里一眼能看出是哪个组的线程
+ * - 创建 FastThreadLocalThread，Netty 内部的 FastThreadLocal（池化分配器的线程缓存等）走快速路径
+ * - cpus 非空时第 i 个线程启动后绑定到 cpus[i % cpus.size()]（见 CpuAffinity，每个线程一次 taskset 子进程）
+ *
+ * @author clazs
+ */
+public class NettyThreadFactory implements ThreadFactory {
+
+    private final String namePrefix;
+    private final List<Integer> cpus;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public NettyThreadFactory(String prefix, String role, List<Integer> cpus) {
+        this.namePrefix = prefix + "-" + role + "-";
+        this.cpus = cpus;
+    }
+
+    @Override
+    public Thread newThread(Runnable task) {
+        int index = counter.getAndIncrement();
+        Runnable body = task;
+        if (!cpus.isEmpty()) {
+            int cpu = cpus.get(index % cpus.size());
+            body = () -> {
+                CpuAffinity.pinCurrentThread(cpu);
+                task.run();
+            };
+        }
+        Thread thread = new FastThreadLocalThread(body, namePrefix + (index + 1));
+        thread.setDaemon(false);
+        return thread;
+    }
+}
@@ -0,0 +1,192 @@
+package cn.clazs.netty.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重连风暴：测量单 acceptor 与多 acceptor（SO_REUSEPORT）下服务器每秒能接受多少连接
+ *
+ * - 服务端与 TcpServer 相同的结构：boss 组负责 accept，worker 组负责 I/O；
+ *   acceptors > 1 时 boss 组有 acceptors 个线程，同一端口绑定 acceptors 次
+ * - 客户端共发起 clients 次连接，最多 concurrency 个同时进行，连上立即关闭。
+ *   关闭时 SO_LINGER = 0 直接发 RST，不留 TIME_WAIT，否则本机的临时端口几万次之后就会耗尽
+ * - 输出：accept/s、connect 耗时分位数、每个监听 socket 分到的连接数（看内核是否分摊均匀）
+ *
+ * 运行：直接执行 main 方法，参数 [clients] [concurrency] [acceptors 列表]，默认 100000 512 1,4
+ *
+ * 注意：客户端和服务端在同一台机器上争抢 CPU，多 acceptor 的收益在核数较多的机器上才明显
+ *
+ * @author clazs
+ */
+public class ReconnectStormBenchmark {
+
+    @ChannelHandler.Sharable
+    private static final class AcceptCounter extends ChannelInboundHandlerAdapter {
+
+        final AtomicLong accepted = new AtomicLong();
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            accepted.incrementAndGet();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            // 客户端用 RST 关闭，这里的 Connection reset 是预期的
+            ctx.close();
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class NoopHandler extends ChannelInboundHandlerAdapter {
+    }
+
+    /**
+     * 挂在监听 socket 上：每个 acceptor 分到多少连接
+     */
+    @ChannelHandler.Sharable
+    private static final class PerAcceptorCounter extends ChannelInboundHandlerAdapter {
+
+        private final List<Channel> serverChannels;
+        private final AtomicLong[] counts;
+
+        PerAcceptorCounter(List<Channel> serverChannels, int acceptors) {
+            this.serverChannels = serverChannels;
+            this.counts = new AtomicLong[acceptors];
+            for (int i = 0; i < acceptors; i++) {
+                counts[i] = new AtomicLong();
+            }
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object child) {
+            int index = serverChannels.indexOf(ctx.channel());
+            if (index >= 0) {
+                counts[index].incrementAndGet();
+            }
+            ctx.fireChannelRead(child);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        int[] acceptorCounts = Arrays.stream((args.length > 2 ? args[2] : "1,4").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        Transport transport = TransportFactory.select("auto");
+
+        StringBuilder summary = new StringBuilder();
+        for (int acceptors : acceptorCounts) {
+            if (acceptors > 1 && !transport.supportsReusePort()) {
+                summary.append(String.format("acceptors=%d 跳过：%s 不支持 SO_REUSEPORT%n", acceptors, transport));
+                continue;
+            }
+            String line = run(transport, acceptors, clients, concurrency);
+            System.out.println(line);
+            summary.append(line).append('\n');
+        }
+        System.out.println("\n========== 汇总 ==========");
+        System.out.print(summary);
+    }
+
+    private static String run(Transport transport, int acceptors, int clients, int concurrency) throws Exception {
+        EventLoopGroup boss = transport.newGroup(acceptors);
+        EventLoopGroup workers = transport.newGroup(0);
+        EventLoopGroup clientGroup = transport.newGroup(0);
+        try {
+            AcceptCounter acceptCounter = new AcceptCounter();
+            List<Channel> serverChannels = new CopyOnWriteArrayList<>();
+            PerAcceptorCounter perAcceptor = new PerAcceptorCounter(serverChannels, acceptors);
+
+            TransportOptions options = new TransportOptions();
+            options.setReusePort(acceptors > 1);
+            ServerBootstrap serverBootstrap = new ServerBootstrap()
+                    .group(boss, workers)
+                    .channel(transport.serverSocketChannel())
+                    .option(ChannelOption.SO_BACKLOG, 4096)
+                    .handler(perAcceptor)
+                    .childHandler(acceptCounter);
+            transport.applyServerOptions(serverBootstrap, options);
+            serverChannels.addAll(TransportFactory.bind(serverBootstrap, 0, acceptors));
+            int port = ((InetSocketAddress) serverChannels.get(0).localAddress()).getPort();
+
+            Bootstrap client = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(transport.socketChannel())
+                    .option(ChannelOption.SO_LINGER, 0)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000)
+                    .handler(new NoopHandler());
+
+            Semaphore inFlight = new Semaphore(concurrency);
+            AtomicInteger failures = new AtomicInteger();
+            long[] connectNanos = new long[clients];
+            InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                inFlight.acquire();
+                final int index = i;
+                final long connectStart = System.nanoTime();
+                ChannelFuture future = client.connect(address);
+                future.addListener((ChannelFuture f) -> {
+                    if (f.isSuccess()) {
+                        connectNanos[index] = System.nanoTime() - connectStart;
+                        f.channel().close();
+                    } else {
+                        connectNanos[index] = -1;
+                        failures.incrementAndGet();
+                    }
+                    inFlight.release();
+                });
+            }
+            inFlight.acquire(concurrency);
+            long succeeded = clients - failures.get();
+            // 客户端连接成功时服务端不一定已经执行完 channelActive，等计数追上
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (acceptCounter.accepted.get() < succeeded && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            long[] sorted = Arrays.stream(connectNanos).filter(n -> n >= 0).sorted().toArray();
+            long[] perAcceptorCounts = Arrays.stream(perAcceptor.counts).mapToLong(AtomicLong::get).toArray();
+            for (Channel channel : serverChannels) {
+                channel.close().sync();
+            }
+            return String.format("%s acceptors=%d clients=%d concurrency=%d  %,9.0f accept/s  "
+                            + "connect p50=%6.0fus p99=%7.0fus p99.9=%7.0fus  失败=%d  各 acceptor: %s",
+                    transport, acceptors, clients, concurrency,
+                    acceptCounter.accepted.get() * 1e9 / elapsed,
+                    percentile(sorted, 50) / 1000.0, percentile(sorted, 99) / 1000.0, percentile(sorted, 99.9) / 1000.0,
+                    failures.get(), Arrays.toString(perAcceptorCounts));
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            workers.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            boss.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
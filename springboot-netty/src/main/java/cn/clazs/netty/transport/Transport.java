@@ -0,0 +1,216 @@
+package cn.clazs.netty.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 传输层实现：EventLoopGroup 与 Channel 类型必须配套使用
+ *
+ * - NIO:      JDK Selector，任何平台可用
+ * - EPOLL:    Netty 原生 epoll（netty-all 已依赖 linux x86_64 / aarch_64 的原生库），仅 Linux
+ * - IO_URING: netty-incubator-transport-native-io_uring，Linux 5.1+。
+ *             依赖不在默认 classpath 中，通过反射加载，类不存在时视为不可用
+ *
+ * 选择哪一种由 TransportFactory 根据 netty.transport.type 配置决定
+ *
+ * @author clazs
+ */
+public enum Transport {
+
+    NIO {
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public EventLoopGroup newGroup(int threads, ThreadFactory threadFactory) {
+            return new NioEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        public boolean setIoRatio(EventLoopGroup group, int ioRatio) {
+            ((NioEventLoopGroup) group).setIoRatio(ioRatio);
+            return true;
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannel() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends ServerSocketChannel> serverSocketChannel() {
+            return NioServerSocketChannel.class;
+        }
+    },
+
+    EPOLL {
+        @Override
+        public boolean isAvailable() {
+            return Epoll.isAvailable();
+        }
+
+        @Override
+        public EventLoopGroup newGroup(int threads, ThreadFactory threadFactory) {
+            return new EpollEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        public boolean setIoRatio(EventLoopGroup group, int ioRatio) {
+            ((EpollEventLoopGroup) group).setIoRatio(ioRatio);
+            return true;
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannel() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends ServerSocketChannel> serverSocketChannel() {
+            return EpollServerSocketChannel.class;
+        }
+
+        @Override
+        public boolean supportsReusePort() {
+            return true;
+        }
+
+        @Override
+        public void applyServerOptions(ServerBootstrap bootstrap, TransportOptions options) {
+            EpollMode mode = options.isEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, options.isReusePort())
+                    .option(EpollChannelOption.EPOLL_MODE, mode)
+                    .childOption(EpollChannelOption.EPOLL_MODE, mode)
+                    .childOption(EpollChannelOption.TCP_QUICKACK, options.isTcpQuickAck());
+        }
+
+        @Override
+        public void applyClientOptions(Bootstrap bootstrap, TransportOptions options) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE,
+                            options.isEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED)
+                    .option(EpollChannelOption.TCP_QUICKACK, options.isTcpQuickAck());
+        }
+    },
+
+    IO_URING {
+        private static final String PACKAGE = "io.netty.incubator.channel.uring.";
+
+        @Override
+        public boolean isAvailable() {
+            try {
+                return (Boolean) Class.forName(PACKAGE + "IOUring").getMethod("isAvailable").invoke(null);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return false;
+            }
+        }
+
+        @Override
+        public EventLoopGroup newGroup(int threads, ThreadFactory threadFactory) {
+            try {
+                return (EventLoopGroup) Class.forName(PACKAGE + "IOUringEventLoopGroup")
+                        .getConstructor(int.class, ThreadFactory.class).newInstance(threads, threadFactory);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("io_uring 不可用", e);
+            }
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannel() {
+            return load("IOUringSocketChannel").asSubclass(SocketChannel.class);
+        }
+
+        @Override
+        public Class<? extends ServerSocketChannel> serverSocketChannel() {
+            return load("IOUringServerSocketChannel").asSubclass(ServerSocketChannel.class);
+        }
+
+        @Override
+        public boolean supportsReusePort() {
+            return true;
+        }
+
+        @Override
+        public void applyServerOptions(ServerBootstrap bootstrap, TransportOptions options) {
+            bootstrap.option(option("SO_REUSEPORT"), options.isReusePort())
+                    .childOption(option("TCP_QUICKACK"), options.isTcpQuickAck());
+        }
+
+        @Override
+        public void applyClientOptions(Bootstrap bootstrap, TransportOptions options) {
+            bootstrap.option(option("TCP_QUICKACK"), options.isTcpQuickAck());
+        }
+
+        private Class<?> load(String simpleName) {
+            try {
+                return Class.forName(PACKAGE + simpleName);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("io_uring 不可用", e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private ChannelOption<Boolean> option(String name) {
+            try {
+                return (ChannelOption<Boolean>) load("IOUringChannelOption").getField(name).get(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("io_uring 选项不存在: " + name, e);
+            }
+        }
+    };
+
+    public abstract boolean isAvailable();
+
+    /**
+     * @param threads       0 表示使用 Netty 默认线程数（CPU 核数 * 2）
+     * @param threadFactory null 表示使用 Netty 默认的线程命名
+     */
+    public abstract EventLoopGroup newGroup(int threads, ThreadFactory threadFactory);
+
+    public EventLoopGroup newGroup(int threads) {
+        return newGroup(threads, null);
+    }
+
+    /**
+     * I/O 事件与普通任务的时间比例（默认 50），返回 false 表示该传输层不支持调整
+     */
+    public boolean setIoRatio(EventLoopGroup group, int ioRatio) {
+        return false;
+    }
+
+    public abstract Class<? extends SocketChannel> socketChannel();
+
+    public abstract Class<? extends ServerSocketChannel> serverSocketChannel();
+
+    /**
+     * 能否用 SO_REUSEPORT 把同一个端口绑定多次（JDK NIO 在 Java 8 中不支持该选项）
+     */
+    public boolean supportsReusePort() {
+        return false;
+    }
+
+    /**
+     * 设置原生传输层专有的选项，NIO 不支持这些选项，什么也不做
+     */
+    public void applyServerOptions(ServerBootstrap bootstrap, TransportOptions options) {
+    }
+
+    public void applyClientOptions(Bootstrap bootstrap, TransportOptions options) {
+    }
+}
@@ -0,0 +1,172 @@
+package cn.clazs.netty.transport;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 传输层工厂：TCP / WebSocket / HTTP 服务器统一从这里创建 EventLoopGroup 和 ServerBootstrap，
+ * 不再各自写死 NioEventLoopGroup / NioServerSocketChannel
+ *
+ * 配置（application.yml）：
+ * <pre>
+ * netty:
+ *   transport:
+ *     type: auto            # auto / nio / epoll / io_uring
+ *     reuse-port: false     # SO_REUSEPORT（epoll / io_uring）
+ *     tcp-quick-ack: false  # TCP_QUICKACK（epoll / io_uring）
+ *     edge-triggered: true  # epoll 边缘触发，false 为水平触发
+ *     acceptors: 1          # 每个服务器绑定同一端口的次数（多 acceptor），大于 1 时需要 epoll / io_uring
+ * </pre>
+ *
+ * auto：epoll 可用（Linux + 原生库）就用 epoll，否则 NIO；io_uring 只在显式指定时使用。
+ * 指定的传输层不可用时退回 auto 并打印警告，不会导致启动失败
+ *
+ * 多 acceptor：默认 boss 组只有 1 个线程，只有一个监听 socket，连接风暴时 accept 全压在这一个线程上。
+ * acceptors = N 时 boss 组有 N 个线程，打开 SO_REUSEPORT 把同一端口绑定 N 次，
+ * 每次 bind 注册到 boss 组的下一个 EventLoop（轮询），即每个监听 socket 有自己的 accept 线程；
+ * 内核按四元组哈希把新连接分摊到这 N 个 socket 上
+ *
+ * @author clazs
+ */
+@Slf4j
+@Component
+public class TransportFactory {
+
+    @Value("${netty.transport.type:auto}")
+    private String type;
+
+    @Value("${netty.transport.reuse-port:false}")
+    private boolean reusePort;
+
+    @Value("${netty.transport.tcp-quick-ack:false}")
+    private boolean tcpQuickAck;
+
+    @Value("${netty.transport.edge-triggered:true}")
+    private boolean edgeTriggered;
+
+    @Value("${netty.transport.acceptors:1}")
+    private int acceptors;
+
+    private Transport transport;
+    private final TransportOptions options = new TransportOptions();
+
+    @PostConstruct
+    public void init() {
+        transport = select(type);
+        options.setReusePort(reusePort);
+        options.setTcpQuickAck(tcpQuickAck);
+        options.setEdgeTriggered(edgeTriggered);
+        if (acceptors > 1 && !transport.supportsReusePort()) {
+            log.warn("{} 不支持 SO_REUSEPORT，acceptors={} 改为 1", transport, acceptors);
+            acceptors = 1;
+        }
+        if (acceptors > 1) {
+            options.setReusePort(true);
+        }
+        log.info("Netty 传输层: {}（配置 {}），acceptors={}，{}", transport, type, acceptors, options);
+    }
+
+    /**
+     * 按名称选择传输层，auto 或指定的不可用时优先 epoll，否则 NIO
+     */
+    public static Transport select(String name) {
+        if (!"auto".equalsIgnoreCase(name)) {
+            Transport requested;
+            try {
+                // Locale.ROOT：土耳其语等区域设置下 "io_uring".toUpperCase() 的 i 会变成带点的 İ
+                requested = Transport.valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("未知的传输层: " + name + "，可选值: " + validNames(), e);
+            }
+            if (requested.isAvailable()) {
+                return requested;
+            }
+            log.warn("指定的传输层 {} 不可用，改为自动选择", requested);
+        }
+        return Transport.EPOLL.isAvailable() ? Transport.EPOLL : Transport.NIO;
+    }
+
+    private static String validNames() {
+        StringJoiner names = new StringJoiner(" / ");
+        names.add("auto");
+        for (Transport transport : Transport.values()) {
+            names.add(transport.name().toLowerCase(Locale.ROOT));
+        }
+        return names.toString();
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public TransportOptions getOptions() {
+        return options;
+    }
+
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    /**
+     * @param threads 0 表示使用 Netty 默认线程数（CPU 核数 * 2）
+     */
+    public EventLoopGroup newGroup(int threads) {
+        return transport.newGroup(threads);
+    }
+
+    public EventLoopGroup newGroup(int threads, ThreadFactory threadFactory) {
+        return transport.newGroup(threads, threadFactory);
+    }
+
+    /**
+     * 已设置 group、channel 和原生传输层选项，调用方继续设置通用选项和 childHandler
+     */
+    public ServerBootstrap serverBootstrap(EventLoopGroup boss, EventLoopGroup workers) {
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(boss, workers)
+                .channel(transport.serverSocketChannel());
+        transport.applyServerOptions(bootstrap, options);
+        return bootstrap;
+    }
+
+    /**
+     * 按配置的 acceptors 数绑定端口
+     */
+    public List<Channel> bind(ServerBootstrap bootstrap, int port) throws InterruptedException {
+        return bind(bootstrap, port, acceptors);
+    }
+
+    /**
+     * 把同一端口绑定 acceptors 次，bootstrap 必须已打开 SO_REUSEPORT（acceptors = 1 时除外）。
+     * 任何一次失败都会关闭已经绑定成功的 Channel 再抛出异常
+     */
+    public static List<Channel> bind(ServerBootstrap bootstrap, int port, int acceptors) throws InterruptedException {
+        List<Channel> channels = new ArrayList<>(acceptors);
+        try {
+            for (int i = 0; i < acceptors; i++) {
+                Channel channel = bootstrap.bind(port).sync().channel();
+                channels.add(channel);
+                // 端口 0 由系统分配，后续几次必须绑定到第一次分到的端口上
+                port = ((InetSocketAddress) channel.localAddress()).getPort();
+            }
+        } catch (Exception e) {
+            for (Channel channel : channels) {
+                channel.close();
+            }
+            throw e;
+        }
+        return channels;
+    }
+}
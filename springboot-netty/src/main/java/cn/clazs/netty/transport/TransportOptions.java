@@ -0,0 +1,25 @@
+package cn.clazs.netty.transport;
+
+import lombok.Data;
+
+/**
+ * 只有原生传输层（epoll / io_uring）才支持的选项，NIO 下全部忽略
+ *
+ * - reusePort:     SO_REUSEPORT，多个 socket 绑定同一端口，由内核在它们之间分摊新连接
+ * - tcpQuickAck:   TCP_QUICKACK，关闭延迟确认，请求-响应式的小包交互可以少等一个 ACK 延迟
+ * - edgeTriggered: epoll 的边缘触发（Netty 默认）；false 时使用水平触发，
+ *                  每次只读一部分数据也不会丢事件，适合单次读取上限较小的场景（仅 epoll）
+ *
+ * @author clazs
+ */
+@Data
+public class TransportOptions {
+
+    private boolean reusePort;
+    private boolean tcpQuickAck;
+    private boolean edgeTriggered = true;
+
+    public static TransportOptions defaults() {
+        return new TransportOptions();
+    }
+}
@@ -1,10 +1,10 @@
 package cn.clazs.netty.websocket;
 
+import cn.clazs.netty.startup.StartupTask;
+import cn.clazs.netty.transport.EventLoopResources;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
@@ -16,8 +16,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Netty WebSocket服务器
@@ -36,7 +37,7 @@ import javax.annotation.PreDestroy;
 @Slf4j
 @Component
 @ConditionalOnProperty(name = "netty.websocket.enabled", havingValue = "true", matchIfMissing = true)
-public class WebSocketServer {
+public class WebSocketServer implements StartupTask {
 
     @Value("${netty.websocket.port:9002}")
     private int port;
@@ -44,23 +45,28 @@ public class WebSocketServer {
     @Value("${netty.websocket.path:/ws}")
     private String path;
 
-    private EventLoopGroup bossGroup;
-    private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final EventLoopResources eventLoops;
+
+    private List<Channel> serverChannels = Collections.emptyList();
+
+    public WebSocketServer(EventLoopResources eventLoops) {
+        this.eventLoops = eventLoops;
+    }
+
+    @Override
+    public String getName() {
+        return "webSocketServer";
+    }
 
     /**
-     * Spring Boot启动后自动启动WebSocket服务器
+     * 由 NettyStartupRunner 在容器启动时与其他服务器并行调用
      */
-    @PostConstruct
-    public void start() {
-        bossGroup = new NioEventLoopGroup(1);
-        workerGroup = new NioEventLoopGroup();
-
+    @Override
+    public void start() throws Exception {
         try {
-            ServerBootstrap bootstrap = new ServerBootstrap();
-            bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
-                    .handler(new LoggingHandler(LogLevel.INFO))
+            // boss / worker 组由 EventLoopResources 统一管理，所有服务器共享
+            ServerBootstrap bootstrap = eventLoops.serverBootstrap();
+            bootstrap.handler(new LoggingHandler(LogLevel.INFO))
                     .childHandler(new ChannelInitializer<SocketChannel>() {
                         @Override
                         protected void initChannel(SocketChannel ch) {
@@ -84,12 +90,11 @@ public class WebSocketServer {
                     });
 
             // 绑定端口并启动服务器
-            ChannelFuture future = bootstrap.bind(port).sync();
-            serverChannel = future.channel();
+            serverChannels = eventLoops.bind(bootstrap, port);
 
             log.info("========================================");
             log.info("Netty WebSocket服务器启动成功！");
-            log.info("监听端口: {}", port);
+            log.info("监听端口: {}（{} 个 acceptor）", port, serverChannels.size());
             log.info("WebSocket路径: ws://localhost:{}{}", port, path);
             log.info("测试工具: http://www.websocket-test.com/");
             log.info("测试代码: const ws = new WebSocket('ws://localhost:{}{}');", port, path);
@@ -98,6 +103,7 @@ public class WebSocketServer {
         } catch (Exception e) {
             log.error("WebSocket服务器启动失败", e);
             shutdown();
+            throw e;
         }
     }
 
@@ -106,14 +112,8 @@ public class WebSocketServer {
      */
     @PreDestroy
     public void shutdown() {
-        if (serverChannel != null) {
-            serverChannel.close();
-        }
-        if (workerGroup != null) {
-            workerGroup.shutdownGracefully();
-        }
-        if (bossGroup != null) {
-            bossGroup.shutdownGracefully();
+        for (Channel channel : serverChannels) {
+            channel.close();
         }
         log.info("WebSocket服务器已关闭");
     }